@@ -33,17 +33,27 @@
 package org.eclipse.californium.core;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.californium.core.coap.CoAP.Code;
 import org.eclipse.californium.core.coap.CoAP.ResponseCode;
 import org.eclipse.californium.core.coap.CoAP.Type;
+import org.eclipse.californium.core.coap.MessageObserverAdapter;
 import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.Endpoint;
 import org.eclipse.californium.core.network.Exchange;
 import org.eclipse.californium.core.observe.ObserveNotificationOrderer;
 import org.eclipse.californium.core.observe.ObserveRelation;
@@ -134,6 +144,14 @@ public  class CoapResource implements Resource {
 	/** The logger. */
 	protected final static Logger LOGGER = LoggerFactory.getLogger(CoapResource.class);
 
+	/**
+	 * Default maximum number of pending notifications of a fan-out.
+	 *
+	 * @see #setMaxPendingNotifications(int)
+	 * @since 3.0
+	 */
+	public static final int DEFAULT_MAX_PENDING_NOTIFICATIONS = 256;
+
 	/* The attributes of this resource. */
 	private final ResourceAttributes attributes;
 
@@ -151,6 +169,9 @@ public  class CoapResource implements Resource {
 	/* Indicates whether this resource is observable by clients. */
 	private boolean observable;
 
+	/* Indicates whether the responses of this resource are shared by all clients. */
+	private volatile boolean sharedRepresentation;
+
 	/* The child resources.
 	 * We need a ConcurrentHashMap to have stronger guarantees in a
 	 * multi-threaded environment (e.g. for discovery to work properly).
@@ -172,6 +193,18 @@ public  class CoapResource implements Resource {
 	/* The notification orderer. */
 	private ObserveNotificationOrderer notificationOrderer;
 
+	/* Indicates, that notifications are created once and sent to all observers. */
+	private volatile boolean notificationFanOut;
+
+	/* Maximum number of pending notifications of a fan-out. */
+	private volatile int maxPendingNotifications = DEFAULT_MAX_PENDING_NOTIFICATIONS;
+
+	/* Serializes the start of the fan-out of notifications. */
+	private final ReentrantLock notificationLock = new ReentrantLock();
+
+	/* Current fan-out of notifications. */
+	private final AtomicReference<NotificationFanOut> currentFanOut = new AtomicReference<>();
+
 	/**
 	 * Constructs a new resource with the specified name.
 	 *
@@ -348,6 +381,10 @@ public  class CoapResource implements Resource {
 			}
 			response.getOptions().setObserve(notificationOrderer.getCurrent());
 		} // ObserveLayer takes care of the else case
+		NotificationFanOut fanOut = currentFanOut.get();
+		if (fanOut != null && fanOut.relation == relation) {
+			fanOut.start(response);
+		}
 	}
 
 	/* (non-Javadoc)
@@ -673,6 +710,38 @@ public  class CoapResource implements Resource {
 		this.observable = observable;
 	}
 
+	/**
+	 * Check, if the responses of this resource are shared by all clients.
+	 * 
+	 * @return {@code true}, if the responses are shared by all clients,
+	 *         {@code false}, if not.
+	 * @see #setSharedRepresentation(boolean)
+	 * @since 3.0
+	 */
+	public boolean isSharedRepresentation() {
+		return sharedRepresentation;
+	}
+
+	/**
+	 * Marks the responses of this resource as shared by all clients.
+	 * 
+	 * If enabled, the responses sent with {@link CoapExchange} are marked
+	 * with {@link Response#setSharedRepresentation(boolean)} and large
+	 * responses may be served by the
+	 * {@link org.eclipse.californium.core.network.stack.Block2ResponseCache}
+	 * to other clients without calling {@link #handleGET(CoapExchange)}.
+	 * Therefore only enable this, if the resource responds the same
+	 * representation to all clients and doesn't authorize them. Default is
+	 * disabled.
+	 * 
+	 * @param shared {@code true}, if the responses are shared by all clients,
+	 *            {@code false}, if not.
+	 * @since 3.0
+	 */
+	public void setSharedRepresentation(boolean shared) {
+		this.sharedRepresentation = shared;
+	}
+
 	/**
 	 * Sets the type of the notifications that will be sent.
 	 * If set to null (default) the type matching the request will be used.
@@ -732,6 +801,70 @@ public  class CoapResource implements Resource {
 		return observeRelations.getSize();
 	}
 
+	/**
+	 * Enable or disable the notification fan-out.
+	 * <p>
+	 * Without fan-out, each observe relation is notified by reprocessing its
+	 * original request, which calls {@link #handleGET(CoapExchange)} for each
+	 * observer. With fan-out, only the request of the first observe relation
+	 * is reprocessed. If that results in a successful response, that response
+	 * is used as template for all other observe relations. The response may
+	 * also be sent asynchronously, the fan-out starts, when the response is
+	 * sent with {@link CoapExchange}. The notifications for these relations
+	 * share the payload of the template and differ only in the token, MID and
+	 * message type. If the first response is an error response, the other
+	 * relations are notified without fan-out.
+	 * <p>
+	 * The number of pending notifications is limited by
+	 * {@link #setMaxPendingNotifications(int)}. If that limit is reached, the
+	 * fan-out doesn't wait. It continues, when pending notifications are sent,
+	 * using the executor of this resource, or, if not available, the executor
+	 * of the endpoint. If the resource is changed again before the fan-out is
+	 * finished, the observe relations, which are not notified yet, are
+	 * notified with the new state.
+	 * <p>
+	 * Note: only enable the fan-out, if the resource responds the same
+	 * representation to all observers, e.g. independent of the Accept option
+	 * or the query of the observe requests.
+	 *
+	 * @param enable {@code true}, to enable the fan-out, {@code false}, to
+	 *            reprocess the requests of all observe relations.
+	 * @since 3.0
+	 */
+	public void setNotificationFanOut(boolean enable) {
+		this.notificationFanOut = enable;
+	}
+
+	/**
+	 * Check, if the notification fan-out is enabled.
+	 *
+	 * @return {@code true}, if enabled, {@code false}, otherwise.
+	 * @see #setNotificationFanOut(boolean)
+	 * @since 3.0
+	 */
+	public boolean isNotificationFanOut() {
+		return notificationFanOut;
+	}
+
+	/**
+	 * Set the maximum number of pending notifications of a fan-out.
+	 *
+	 * A notification is pending, until it's sent, or failed to be sent.
+	 *
+	 * @param maxPendingNotifications maximum number of pending notifications.
+	 *            Default is {@link #DEFAULT_MAX_PENDING_NOTIFICATIONS}.
+	 * @throws IllegalArgumentException if value is less than {@code 1}.
+	 * @see #setNotificationFanOut(boolean)
+	 * @since 3.0
+	 */
+	public void setMaxPendingNotifications(int maxPendingNotifications) {
+		if (maxPendingNotifications < 1) {
+			throw new IllegalArgumentException(
+					"max. pending notifications " + maxPendingNotifications + " must be at least 1!");
+		}
+		this.maxPendingNotifications = maxPendingNotifications;
+	}
+
 	/**
 	 * Notifies all CoAP clients that have established an observe relation with
 	 * this resource that the state has changed by reprocessing their original
@@ -799,12 +932,69 @@ public  class CoapResource implements Resource {
 	 *               {@code null}, if all clients should be notified.
 	 */
 	protected void notifyObserverRelations(final ObserveRelationFilter filter) {
-		notificationOrderer.getNextObserveNumber();
+		if (notificationFanOut) {
+			notificationLock.lock();
+			try {
+				notificationOrderer.getNextObserveNumber();
+				fanOutNotifications(filter);
+			} finally {
+				notificationLock.unlock();
+			}
+		} else {
+			notificationOrderer.getNextObserveNumber();
+			for (ObserveRelation relation : observeRelations) {
+				if (null == filter || filter.accept(relation)) {
+					relation.notifyObservers();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Notifies the CoAP clients using the response of the first observe
+	 * relation as template for all other relations.
+	 * 
+	 * The observe relations of a previous fan-out, which are not notified
+	 * yet, are included.
+	 * 
+	 * @param filter filter to select set of relations. {@code null}, if all
+	 *            clients should be notified.
+	 * @see #setNotificationFanOut(boolean)
+	 */
+	private void fanOutNotifications(final ObserveRelationFilter filter) {
+		Set<ObserveRelation> relations = new LinkedHashSet<>();
 		for (ObserveRelation relation : observeRelations) {
 			if (null == filter || filter.accept(relation)) {
-				relation.notifyObservers();
+				relations.add(relation);
 			}
 		}
+		NotificationFanOut previous = currentFanOut.getAndSet(null);
+		if (previous != null) {
+			previous.cancel(relations);
+		}
+		Iterator<ObserveRelation> iterator = relations.iterator();
+		if (iterator.hasNext()) {
+			ObserveRelation first = iterator.next();
+			iterator.remove();
+			currentFanOut.set(new NotificationFanOut(first, relations));
+			first.notifyObservers();
+		}
+	}
+
+	/**
+	 * Create notification from template.
+	 * 
+	 * The notification shares the payload with the template.
+	 * 
+	 * @param template template
+	 * @return created notification
+	 */
+	private static Response createNotification(Response template) {
+		Response notification = new Response(template.getCode());
+		notification.setType(template.getType());
+		notification.setOptions(template.getOptions());
+		notification.setPayload(template.getSharedPayloadBuffer());
+		return notification;
 	}
 
 	/* (non-Javadoc)
@@ -861,4 +1051,224 @@ public  class CoapResource implements Resource {
 		semaphore.acquire();
 	}
 
+	/**
+	 * Fan-out of notifications.
+	 * 
+	 * Waits for the response of the first observe relation and uses that as
+	 * template for the notifications of the other relations. The number of
+	 * pending notifications is limited by {@link #maxPendingNotifications}.
+	 * Sending the notifications continues, when pending notifications are
+	 * sent. Doesn't block.
+	 */
+	private class NotificationFanOut implements Runnable {
+
+		/**
+		 * Observe relation to capture the template.
+		 */
+		private final ObserveRelation relation;
+		/**
+		 * Observe relations, which are not notified yet.
+		 */
+		private final Queue<ObserveRelation> relations;
+		/**
+		 * Executor to continue the fan-out.
+		 */
+		private final Executor executor;
+		/**
+		 * Captured template. {@code null}, if not captured or the response of
+		 * the first observe relation is no success.
+		 */
+		private Response template;
+		/**
+		 * Number of pending notifications.
+		 */
+		private int pending;
+		/**
+		 * Indicates, that the response of the first observe relation is
+		 * captured.
+		 */
+		private boolean started;
+		/**
+		 * Indicates, that the fan-out is scheduled for execution.
+		 */
+		private boolean scheduled;
+		/**
+		 * Indicates, that the fan-out is replaced by a new one.
+		 */
+		private boolean canceled;
+
+		private NotificationFanOut(ObserveRelation relation, Collection<ObserveRelation> relations) {
+			this.relation = relation;
+			this.relations = new LinkedList<>(relations);
+			Executor executor = getExecutor();
+			if (executor == null) {
+				Endpoint endpoint = relation.getExchange().getEndpoint();
+				if (endpoint instanceof Executor) {
+					executor = (Executor) endpoint;
+				}
+			}
+			this.executor = executor;
+		}
+
+		/**
+		 * Start fan-out with the response of the first observe relation.
+		 * 
+		 * Ignored, if already started or canceled.
+		 * 
+		 * @param response response of the first observe relation
+		 */
+		private void start(Response response) {
+			synchronized (this) {
+				if (started || canceled) {
+					return;
+				}
+				started = true;
+				if (response.isSuccess()) {
+					template = createNotification(response);
+				}
+			}
+			schedule();
+		}
+
+		/**
+		 * Cancel fan-out.
+		 * 
+		 * @param relations collection to add the observe relations, which are
+		 *            not notified yet.
+		 */
+		private synchronized void cancel(Collection<ObserveRelation> relations) {
+			canceled = true;
+			if (!started) {
+				relations.add(relation);
+			}
+			relations.addAll(this.relations);
+			this.relations.clear();
+		}
+
+		/**
+		 * Release pending notification and continue fan-out.
+		 */
+		private void release() {
+			synchronized (this) {
+				--pending;
+			}
+			schedule();
+		}
+
+		/**
+		 * Schedule fan-out for execution, if not already scheduled.
+		 * 
+		 * Without executor, the fan-out is executed by the current thread.
+		 */
+		private void schedule() {
+			synchronized (this) {
+				if (scheduled || canceled) {
+					return;
+				}
+				if (relations.isEmpty()) {
+					// all notifications are sent
+					currentFanOut.compareAndSet(this, null);
+					return;
+				}
+				scheduled = true;
+			}
+			if (executor == null) {
+				run();
+			} else {
+				try {
+					executor.execute(this);
+				} catch (RejectedExecutionException ex) {
+					LOGGER.debug("fan-out of {} rejected!", getURI(), ex);
+					synchronized (this) {
+						scheduled = false;
+					}
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					ObserveRelation next;
+					Response notification = null;
+					synchronized (this) {
+						if (canceled || relations.isEmpty() || pending >= maxPendingNotifications) {
+							scheduled = false;
+							return;
+						}
+						next = relations.poll();
+						if (template != null) {
+							notification = createNotification(template);
+							++pending;
+						}
+					}
+					if (notification == null) {
+						next.notifyObservers();
+					} else {
+						sendNotification(next, notification);
+					}
+				}
+			} catch (RuntimeException ex) {
+				LOGGER.warn("fan-out of {} failed!", getURI(), ex);
+				synchronized (this) {
+					scheduled = false;
+				}
+			}
+		}
+
+		/**
+		 * Send notification to observe relation.
+		 * 
+		 * @param relation observe relation
+		 * @param notification notification based on the template
+		 */
+		private void sendNotification(ObserveRelation relation, Response notification) {
+			if (relation.isCanceled()) {
+				synchronized (this) {
+					--pending;
+				}
+				return;
+			}
+			Exchange exchange = relation.getExchange();
+			checkObserveRelation(exchange, notification);
+			notification.addMessageObserver(new PendingNotificationObserver(this));
+			exchange.sendResponse(notification);
+		}
+	}
+
+	/**
+	 * Message observer to release the pending notification.
+	 */
+	private static class PendingNotificationObserver extends MessageObserverAdapter {
+
+		private final AtomicBoolean released = new AtomicBoolean();
+		private final NotificationFanOut fanOut;
+
+		private PendingNotificationObserver(NotificationFanOut fanOut) {
+			super(true);
+			this.fanOut = fanOut;
+		}
+
+		@Override
+		public void onSent(boolean retransmission) {
+			release();
+		}
+
+		@Override
+		public void onCancel() {
+			release();
+		}
+
+		@Override
+		protected void failed() {
+			release();
+		}
+
+		private void release() {
+			if (released.compareAndSet(false, true)) {
+				fanOut.release();
+			}
+		}
+	}
 }
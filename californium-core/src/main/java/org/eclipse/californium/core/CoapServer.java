@@ -257,10 +257,22 @@ public class CoapServer implements ServerInterface {
 		if (executor == null) {
 			// sets the central thread pool for the protocol stage over all
 			// endpoints
-			setExecutors(ExecutorsUtil.newScheduledThreadPool(//
-					this.config.get(CoapConfig.PROTOCOL_STAGE_THREAD_COUNT),
-					new NamedThreadFactory("CoapServer(main)#")), //$NON-NLS-1$
-					ExecutorsUtil.newDefaultSecondaryScheduler("CoapServer(secondary)#"), false);
+			ScheduledExecutorService mainExecutor = null;
+			if (this.config.get(CoapConfig.PROTOCOL_STAGE_VIRTUAL_THREADS)) {
+				if (ExecutorsUtil.isVirtualThreadSupported()) {
+					LOGGER.info("{}using virtual threads", getTag());
+					mainExecutor = ExecutorsUtil
+							.newVirtualThreadScheduledExecutor(new NamedThreadFactory("CoapServer(main)#")); //$NON-NLS-1$
+				} else {
+					LOGGER.warn("{}virtual threads are not supported, using platform threads!", getTag());
+				}
+			}
+			if (mainExecutor == null) {
+				mainExecutor = ExecutorsUtil.newScheduledThreadPool(//
+						this.config.get(CoapConfig.PROTOCOL_STAGE_THREAD_COUNT),
+						new NamedThreadFactory("CoapServer(main)#")); //$NON-NLS-1$
+			}
+			setExecutors(mainExecutor, ExecutorsUtil.newDefaultSecondaryScheduler("CoapServer(secondary)#"), false);
 		}
 
 		if (endpoints.isEmpty()) {
@@ -70,6 +70,7 @@ import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.elements.util.Bytes;
 import org.eclipse.californium.elements.util.ClockUtil;
 import org.eclipse.californium.elements.util.NetworkInterfacesUtil;
+import org.eclipse.californium.elements.util.NoPublicAPI;
 import org.eclipse.californium.elements.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -142,9 +143,24 @@ public abstract class Message {
 	/** The set of options of this message. */
 	private OptionSet options;
 
-	/** The payload of this message. */
+	/**
+	 * The payload of this message.
+	 * 
+	 * {@code null}, if the payload is provided by {@link #payloadBuffer} and
+	 * not yet copied into an array.
+	 */
 	private byte[] payload = Bytes.EMPTY;
 
+	/**
+	 * The payload of this message as view on a shared buffer.
+	 * 
+	 * Only used, if {@link #payload} is {@code null}.
+	 * 
+	 * @see #setPayload(ByteBuffer)
+	 * @since 3.0
+	 */
+	private ByteBuffer payloadBuffer;
+
 	/** Marks this message to have payload even if this is not intended */
 	private boolean unintendedPayload;
 
@@ -608,19 +624,94 @@ public abstract class Message {
 	 * @return the payload size
 	 */
 	public int getPayloadSize() {
-		return payload.length;
+		byte[] payload = this.payload;
+		return payload != null ? payload.length : payloadBuffer.remaining();
 	}
 
 	/**
 	 * Gets the raw payload.
+	 * 
+	 * If the payload was provided as view on a shared buffer, the payload is
+	 * copied into an array on the first call.
 	 *
 	 * @return the payload.
 	 * @throws IllegalStateException if message was {@link #offload}ed.
+	 * @see #getPayloadBuffer()
 	 */
 	public byte[] getPayload() {
 		if (offload != null) {
 			throw new IllegalStateException("message " + offload + " offloaded!");
 		}
+		return getPayloadBytes();
+	}
+
+	/**
+	 * Gets the payload as read-only buffer.
+	 * 
+	 * The buffer is a view on the payload and doesn't copy it. Its position and
+	 * limit are independent of the message.
+	 * 
+	 * @return the payload as read-only buffer.
+	 * @throws IllegalStateException if message was {@link #offload}ed.
+	 * @see #setPayload(ByteBuffer)
+	 * @since 3.0
+	 */
+	public ByteBuffer getPayloadBuffer() {
+		if (offload != null) {
+			throw new IllegalStateException("message " + offload + " offloaded!");
+		}
+		byte[] payload = this.payload;
+		if (payload != null) {
+			return ByteBuffer.wrap(payload).asReadOnlyBuffer();
+		} else {
+			return payloadBuffer.asReadOnlyBuffer();
+		}
+	}
+
+	/**
+	 * Gets the payload as shared buffer.
+	 * 
+	 * In difference to {@link #getPayloadBuffer()}, the buffer is not
+	 * read-only and therefore provides access to the backing array, if
+	 * available. Intended to be used by the serializers and the blockwise
+	 * layer to pass on the payload without copying it. The content of the
+	 * buffer must not be modified! Its position and limit are independent of
+	 * the message.
+	 * 
+	 * @return the payload as shared buffer.
+	 * @throws IllegalStateException if message was {@link #offload}ed.
+	 * @since 3.0
+	 */
+	@NoPublicAPI
+	public ByteBuffer getSharedPayloadBuffer() {
+		if (offload != null) {
+			throw new IllegalStateException("message " + offload + " offloaded!");
+		}
+		byte[] payload = this.payload;
+		if (payload != null) {
+			return ByteBuffer.wrap(payload);
+		} else {
+			return payloadBuffer.duplicate();
+		}
+	}
+
+	/**
+	 * Gets the payload as array.
+	 * 
+	 * Copies the payload into an array, if provided as view on a shared
+	 * buffer.
+	 * 
+	 * @return the payload
+	 * @since 3.0
+	 */
+	private byte[] getPayloadBytes() {
+		byte[] payload = this.payload;
+		if (payload == null) {
+			ByteBuffer buffer = payloadBuffer.duplicate();
+			payload = new byte[buffer.remaining()];
+			buffer.get(payload);
+			this.payload = payload;
+		}
 		return payload;
 	}
 
@@ -635,7 +726,10 @@ public abstract class Message {
 		if (offload != null) {
 			throw new IllegalStateException("message " + offload + " offloaded!");
 		}
-		if (payload.length == 0) {
+		byte[] payload = this.payload;
+		if (payload == null) {
+			return CoAP.UTF8_CHARSET.decode(payloadBuffer.duplicate()).toString();
+		} else if (payload.length == 0) {
 			return "";
 		} else {
 			return new String(payload, CoAP.UTF8_CHARSET);
@@ -643,7 +737,7 @@ public abstract class Message {
 	}
 
 	protected String getPayloadTracingString() {
-		byte[] payload = this.payload;
+		byte[] payload = getPayloadBytes();
 		if (payload.length == 0) {
 			return "no payload";
 		}
@@ -695,7 +789,7 @@ public abstract class Message {
 	 */
 	public Message setPayload(String payload) {
 		if (payload == null || payload.isEmpty()) {
-			this.payload = Bytes.EMPTY;
+			setPayload(Bytes.EMPTY);
 		} else {
 			setPayload(payload.getBytes(CoAP.UTF8_CHARSET));
 		}
@@ -726,6 +820,46 @@ public abstract class Message {
 			}
 			this.payload = payload;
 		}
+		this.payloadBuffer = null;
+		return this;
+	}
+
+	/**
+	 * Sets the payload from a buffer.
+	 * 
+	 * The remaining bytes of the buffer are used as payload without copying
+	 * them. The position and limit of the provided buffer are not changed.
+	 * The content of the buffer must not be modified afterwards. Intended to
+	 * pass large payloads, e.g. from a received message, without intermediate
+	 * copies.
+	 *
+	 * Provides a fluent API to chain setters.
+	 *
+	 * @param payload the new payload. {@code null} is replaced by an empty
+	 *            array. An empty buffer is not considered to be payload and
+	 *            therefore not cause an IllegalArgumentException, if this
+	 *            message must not have payload.
+	 * @return this Message
+	 * @throws IllegalArgumentException if this message must not have payload
+	 * @see #getPayloadBuffer()
+	 * @see #isIntendedPayload()
+	 * @see #isUnintendedPayload()
+	 * @see #setUnintendedPayload()
+	 * @since 3.0
+	 */
+	public Message setPayload(ByteBuffer payload) {
+		if (payload == null || !payload.hasRemaining()) {
+			setPayload(Bytes.EMPTY);
+		} else if (payload.hasArray() && payload.arrayOffset() + payload.position() == 0
+				&& payload.remaining() == payload.array().length) {
+			setPayload(payload.array());
+		} else {
+			if (!isIntendedPayload() && !isUnintendedPayload()) {
+				throw new IllegalArgumentException("Message must not have payload!");
+			}
+			this.payloadBuffer = payload.slice();
+			this.payload = null;
+		}
 		return this;
 	}
 
@@ -1309,6 +1443,7 @@ public abstract class Message {
 				offload = mode;
 				if (mode != null) {
 					payload = Bytes.EMPTY;
+					payloadBuffer = null;
 					if (mode == OffloadMode.FULL) {
 						bytes = null;
 						if (options != null) {
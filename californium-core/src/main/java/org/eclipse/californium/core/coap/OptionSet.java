@@ -52,6 +52,9 @@ import org.eclipse.californium.elements.util.Bytes;
  * means that user may want to check if option actually exists before naively
  * trying to use these values.
  * <p>
+ * Options may also be provided raw by {@link #setRawOptions(byte[], int[], int)}.
+ * These options are decoded on first access.
+ * <p>
  * Notice that this class is not entirely thread-safe: hasObserve =&gt; (int)
  * getObserve()
  * 
@@ -60,6 +63,34 @@ import org.eclipse.californium.elements.util.Bytes;
 public final class OptionSet {
 
 	private static final int MAX_OBSERVE_NO = (1 << 24) - 1;
+
+	/*
+	 * Bits of the options pending to be decoded from the raw options.
+	 */
+	private static final int IF_MATCH_BIT = 1;
+	private static final int URI_HOST_BIT = 1 << 1;
+	private static final int ETAG_BIT = 1 << 2;
+	private static final int IF_NONE_MATCH_BIT = 1 << 3;
+	private static final int URI_PORT_BIT = 1 << 4;
+	private static final int LOCATION_PATH_BIT = 1 << 5;
+	private static final int URI_PATH_BIT = 1 << 6;
+	private static final int CONTENT_FORMAT_BIT = 1 << 7;
+	private static final int MAX_AGE_BIT = 1 << 8;
+	private static final int URI_QUERY_BIT = 1 << 9;
+	private static final int ACCEPT_BIT = 1 << 10;
+	private static final int LOCATION_QUERY_BIT = 1 << 11;
+	private static final int PROXY_URI_BIT = 1 << 12;
+	private static final int PROXY_SCHEME_BIT = 1 << 13;
+	private static final int BLOCK1_BIT = 1 << 14;
+	private static final int BLOCK2_BIT = 1 << 15;
+	private static final int SIZE1_BIT = 1 << 16;
+	private static final int SIZE2_BIT = 1 << 17;
+	private static final int OBSERVE_BIT = 1 << 18;
+	private static final int OSCORE_BIT = 1 << 19;
+	private static final int NO_RESPONSE_BIT = 1 << 20;
+	private static final int OTHERS_BIT = 1 << 21;
+	private static final int ALL_BITS = (1 << 22) - 1;
+
 	/*
 	 * Options defined by the CoAP protocol
 	 */
@@ -95,6 +126,35 @@ public final class OptionSet {
 	 */
 	private boolean explicitUriOptions;
 
+	/**
+	 * Raw message containing the options, which are not decoded yet.
+	 *
+	 * @see #setRawOptions(byte[], int[], int)
+	 * @since 3.0
+	 */
+	private byte[] raw;
+	/**
+	 * Index of the raw options. Triples of option number, offset and length of
+	 * the option value within {@link #raw}.
+	 *
+	 * @since 3.0
+	 */
+	private int[] rawIndex;
+	/**
+	 * Number of options in {@link #rawIndex}.
+	 *
+	 * @since 3.0
+	 */
+	private int rawCount;
+	/**
+	 * Bits of the options, which are still pending to be decoded from
+	 * {@link #raw}. Cleared after the decoded values are assigned to the
+	 * fields.
+	 *
+	 * @since 3.0
+	 */
+	private volatile int pending;
+
 	/**
 	 * Creates an empty set of options.
 	 * <p>
@@ -136,6 +196,7 @@ public final class OptionSet {
 		if (origin == null) {
 			throw new NullPointerException("option set must not be null!");
 		}
+		origin.decode(ALL_BITS);
 		if_match_list       = copyList(origin.if_match_list);
 		uri_host            = origin.uri_host;
 		etag_list           = copyList(origin.etag_list);
@@ -168,6 +229,12 @@ public final class OptionSet {
 	 * Clears all options.
 	 */
 	public void clear() {
+		synchronized (this) {
+			raw = null;
+			rawIndex = null;
+			rawCount = 0;
+			pending = 0;
+		}
 		if (if_match_list != null)
 			if_match_list.clear();
 		uri_host = null;
@@ -223,6 +290,7 @@ public final class OptionSet {
 	 * @return the list of If-Match ETags
 	 */
 	public List<byte[]> getIfMatch() {
+		decode(IF_MATCH_BIT);
 		synchronized (this) {
 			if (if_match_list == null)
 				if_match_list = new LinkedList<byte[]>();
@@ -251,6 +319,7 @@ public final class OptionSet {
 	 * @return {@code true}, if ETag matches or message contains an empty If-Match option
 	 */
 	public boolean isIfMatch(byte[] check) {
+		decode(IF_MATCH_BIT);
 
 		// if no If-Match option is present, conditional update is allowed
 		if (if_match_list == null)
@@ -310,6 +379,7 @@ public final class OptionSet {
 	 * @return the Uri-Host or null if the option is not present
 	 */
 	public String getUriHost() {
+		decode(URI_HOST_BIT);
 		return uri_host;
 	}
 
@@ -319,6 +389,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasUriHost() {
+		decode(URI_HOST_BIT);
 		return uri_host != null;
 	}
 
@@ -332,6 +403,7 @@ public final class OptionSet {
 	 *             255 bytes.
 	 */
 	public OptionSet setUriHost(String host) {
+		decode(URI_HOST_BIT);
 		checkOptionValue(OptionNumberRegistry.URI_HOST, host);
 		this.uri_host = host;
 		return this;
@@ -343,6 +415,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet removeUriHost() {
+		decode(URI_HOST_BIT);
 		this.uri_host = null;
 		return this;
 	}
@@ -358,6 +431,7 @@ public final class OptionSet {
 	 * @return the list of ETags
 	 */
 	public List<byte[]> getETags() {
+		decode(ETAG_BIT);
 		synchronized (this) {
 			if (etag_list == null)
 				etag_list = new LinkedList<byte[]>();
@@ -385,6 +459,7 @@ public final class OptionSet {
 	 * @return {@code true}, if ETag is included
 	 */
 	public boolean containsETag(byte[] check) {
+		decode(ETAG_BIT);
 		if (etag_list == null)
 			return false;
 		for (byte[] etag : etag_list) {
@@ -421,6 +496,7 @@ public final class OptionSet {
 	 *             8 bytes.
 	 */
 	public OptionSet removeETag(byte[] etag) {
+		decode(ETAG_BIT);
 		checkOptionValue(OptionNumberRegistry.ETAG, etag);
 		if (etag_list != null) {
 			for (int index = 0; index < etag_list.size(); ++index) {
@@ -449,6 +525,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasIfNoneMatch() {
+		decode(IF_NONE_MATCH_BIT);
 		return if_none_match;
 	}
 
@@ -459,6 +536,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet setIfNoneMatch(boolean present) {
+		decode(IF_NONE_MATCH_BIT);
 		if_none_match = present;
 		return this;
 	}
@@ -469,6 +547,7 @@ public final class OptionSet {
 	 * @return the Uri-Port value or null if the option is not present
 	 */
 	public Integer getUriPort() {
+		decode(URI_PORT_BIT);
 		return uri_port;
 	}
 
@@ -478,6 +557,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasUriPort() {
+		decode(URI_PORT_BIT);
 		return uri_port != null;
 	}
 
@@ -489,6 +569,7 @@ public final class OptionSet {
 	 * @throws IllegalArgumentException if port is not in valid range
 	 */
 	public OptionSet setUriPort(int port) {
+		decode(URI_PORT_BIT);
 		OptionNumberRegistry.assertValue(OptionNumberRegistry.URI_PORT, port);
 		this.uri_port = port;
 		return this;
@@ -500,6 +581,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet removeUriPort() {
+		decode(URI_PORT_BIT);
 		uri_port = null;
 		return this;
 	}
@@ -512,6 +594,7 @@ public final class OptionSet {
 	 * @return the list of Location-Path segments
 	 */
 	public List<String> getLocationPath() {
+		decode(LOCATION_PATH_BIT);
 		synchronized (this) {
 			if (location_path_list == null)
 				location_path_list = new LinkedList<String>();
@@ -627,6 +710,7 @@ public final class OptionSet {
 	 * @return the list of Uri-Path segments
 	 */
 	public List<String> getUriPath() {
+		decode(URI_PATH_BIT);
 		synchronized (this) {
 			if (uri_path_list == null)
 				uri_path_list = new LinkedList<String>();
@@ -723,6 +807,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasContentFormat() {
+		decode(CONTENT_FORMAT_BIT);
 		return content_format != null;
 	}
 
@@ -737,6 +822,7 @@ public final class OptionSet {
 	 * @see MediaTypeRegistry
 	 */
 	public boolean isContentFormat(int format) {
+		decode(CONTENT_FORMAT_BIT);
 		return content_format != null && content_format == format;
 	}
 
@@ -755,6 +841,7 @@ public final class OptionSet {
 	 * @see MediaTypeRegistry
 	 */
 	public OptionSet setContentFormat(int format) {
+		decode(CONTENT_FORMAT_BIT);
 		if (MediaTypeRegistry.UNDEFINED == format) {
 			content_format = null;
 		} else {
@@ -770,6 +857,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet removeContentFormat() {
+		decode(CONTENT_FORMAT_BIT);
 		content_format = null;
 		return this;
 	}
@@ -780,6 +868,7 @@ public final class OptionSet {
 	 * @return the Max-Age in seconds
 	 */
 	public Long getMaxAge() {
+		decode(MAX_AGE_BIT);
 		Long m = max_age;
 		return m != null ? m : OptionNumberRegistry.Defaults.MAX_AGE;
 	}
@@ -792,6 +881,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasMaxAge() {
+		decode(MAX_AGE_BIT);
 		return max_age != null;
 	}
 
@@ -803,6 +893,7 @@ public final class OptionSet {
 	 * @throws IllegalArgumentException if the age has more than 4 bytes.
 	 */
 	public OptionSet setMaxAge(long age) {
+		decode(MAX_AGE_BIT);
 		OptionNumberRegistry.assertValue(OptionNumberRegistry.MAX_AGE, age);
 		max_age = age;
 		return this;
@@ -815,6 +906,7 @@ public final class OptionSet {
 	 * @return this Optionset
 	 */
 	public OptionSet removeMaxAge() {
+		decode(MAX_AGE_BIT);
 		max_age = null;
 		return this;
 	}
@@ -827,6 +919,7 @@ public final class OptionSet {
 	 * @return the list of query arguments
 	 */
 	public List<String> getUriQuery() {
+		decode(URI_QUERY_BIT);
 		synchronized (this) {
 			if (uri_query_list == null)
 				uri_query_list = new LinkedList<String>();
@@ -928,6 +1021,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasAccept() {
+		decode(ACCEPT_BIT);
 		return accept != null;
 	}
 
@@ -938,6 +1032,7 @@ public final class OptionSet {
 	 * @return {@code true}, if equal
 	 */
 	public boolean isAccept(int format) {
+		decode(ACCEPT_BIT);
 		return accept != null && accept == format;
 	}
 
@@ -953,6 +1048,7 @@ public final class OptionSet {
 	 * @see MediaTypeRegistry
 	 */
 	public OptionSet setAccept(int format) {
+		decode(ACCEPT_BIT);
 		OptionNumberRegistry.assertValue(OptionNumberRegistry.ACCEPT, format);
 		accept = format;
 		return this;
@@ -964,6 +1060,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet removeAccept() {
+		decode(ACCEPT_BIT);
 		accept = null;
 		return this;
 	}
@@ -976,6 +1073,7 @@ public final class OptionSet {
 	 * @return the list of query arguments
 	 */
 	public List<String> getLocationQuery() {
+		decode(LOCATION_QUERY_BIT);
 		synchronized (this) {
 			if (location_query_list == null)
 				location_query_list = new LinkedList<String>();
@@ -1066,6 +1164,7 @@ public final class OptionSet {
 	 * @return the Proxy-Uri or null if the option is not present
 	 */
 	public String getProxyUri() {
+		decode(PROXY_URI_BIT);
 		return proxy_uri;
 	}
 
@@ -1075,6 +1174,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasProxyUri() {
+		decode(PROXY_URI_BIT);
 		return proxy_uri != null;
 	}
 
@@ -1088,6 +1188,7 @@ public final class OptionSet {
 	 *             1034 bytes.
 	 */
 	public OptionSet setProxyUri(String uri) {
+		decode(PROXY_URI_BIT);
 		checkOptionValue(OptionNumberRegistry.PROXY_URI, uri);
 		proxy_uri = uri;
 		return this;
@@ -1099,6 +1200,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet removeProxyUri() {
+		decode(PROXY_URI_BIT);
 		proxy_uri = null;
 		return this;
 	}
@@ -1109,6 +1211,7 @@ public final class OptionSet {
 	 * @return the Proxy-Scheme or null if the option is not present
 	 */
 	public String getProxyScheme() {
+		decode(PROXY_SCHEME_BIT);
 		return proxy_scheme;
 	}
 
@@ -1118,6 +1221,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasProxyScheme() {
+		decode(PROXY_SCHEME_BIT);
 		return proxy_scheme != null;
 	}
 
@@ -1131,6 +1235,7 @@ public final class OptionSet {
 	 *             than 255 bytes.
 	 */
 	public OptionSet setProxyScheme(String scheme) {
+		decode(PROXY_SCHEME_BIT);
 		checkOptionValue(OptionNumberRegistry.PROXY_SCHEME, scheme);
 		proxy_scheme = scheme;
 		return this;
@@ -1142,6 +1247,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet removeProxyScheme() {
+		decode(PROXY_SCHEME_BIT);
 		proxy_scheme = null;
 		return this;
 	}
@@ -1152,6 +1258,7 @@ public final class OptionSet {
 	 * @return the BlockOption
 	 */
 	public BlockOption getBlock1() {
+		decode(BLOCK1_BIT);
 		return block1;
 	}
 
@@ -1161,6 +1268,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasBlock1() {
+		decode(BLOCK1_BIT);
 		return block1 != null;
 	}
 
@@ -1173,6 +1281,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet setBlock1(int szx, boolean m, int num) {
+		decode(BLOCK1_BIT);
 		this.block1 = new BlockOption(szx, m, num);
 		return this;
 	}
@@ -1184,6 +1293,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet setBlock1(byte[] value) {
+		decode(BLOCK1_BIT);
 		this.block1 = new BlockOption(value);
 		return this;
 	}
@@ -1195,6 +1305,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet setBlock1(BlockOption block) {
+		decode(BLOCK1_BIT);
 		this.block1 = block;
 		return this;
 	}
@@ -1205,6 +1316,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet removeBlock1() {
+		decode(BLOCK1_BIT);
 		this.block1 = null;
 		return this;
 	}
@@ -1215,6 +1327,7 @@ public final class OptionSet {
 	 * @return the BlockOption
 	 */
 	public BlockOption getBlock2() {
+		decode(BLOCK2_BIT);
 		return block2;
 	}
 
@@ -1224,6 +1337,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasBlock2() {
+		decode(BLOCK2_BIT);
 		return block2 != null;
 	}
 
@@ -1236,6 +1350,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet setBlock2(int szx, boolean m, int num) {
+		decode(BLOCK2_BIT);
 		this.block2 = new BlockOption(szx, m, num);
 		return this;
 	}
@@ -1247,6 +1362,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet setBlock2(byte[] value) {
+		decode(BLOCK2_BIT);
 		this.block2 = new BlockOption(value);
 		return this;
 	}
@@ -1258,6 +1374,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet setBlock2(BlockOption block) {
+		decode(BLOCK2_BIT);
 		this.block2 = block;
 		return this;
 	}
@@ -1268,6 +1385,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet removeBlock2() {
+		decode(BLOCK2_BIT);
 		this.block2 = null;
 		return this;
 	}
@@ -1278,6 +1396,7 @@ public final class OptionSet {
 	 * @return the Size1 value, or, {@code null}, if the option is not present
 	 */
 	public Integer getSize1() {
+		decode(SIZE1_BIT);
 		return size1;
 	}
 
@@ -1287,6 +1406,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasSize1() {
+		decode(SIZE1_BIT);
 		return size1 != null;
 	}
 
@@ -1297,6 +1417,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet setSize1(int size) {
+		decode(SIZE1_BIT);
 		this.size1 = size;
 		return this;
 	}
@@ -1307,6 +1428,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet removeSize1() {
+		decode(SIZE1_BIT);
 		this.size1 = null;
 		return this;
 	}
@@ -1317,6 +1439,7 @@ public final class OptionSet {
 	 * @return the Size2 value, or, {@code null}, if the option is not present
 	 */
 	public Integer getSize2() {
+		decode(SIZE2_BIT);
 		return size2;
 	}
 
@@ -1326,6 +1449,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasSize2() {
+		decode(SIZE2_BIT);
 		return size2 != null;
 	}
 
@@ -1336,6 +1460,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet setSize2(int size) {
+		decode(SIZE2_BIT);
 		this.size2 = size;
 		return this;
 	}
@@ -1346,6 +1471,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet removeSize2() {
+		decode(SIZE2_BIT);
 		this.size2 = null;
 		return this;
 	}
@@ -1356,6 +1482,7 @@ public final class OptionSet {
 	 * @return the Observe value, or, {@code null}, if the option is not present
 	 */
 	public Integer getObserve() {
+		decode(OBSERVE_BIT);
 		return observe;
 	}
 
@@ -1365,6 +1492,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasObserve() {
+		decode(OBSERVE_BIT);
 		return observe != null;
 	}
 
@@ -1377,6 +1505,7 @@ public final class OptionSet {
 	 *             2^24 - 1
 	 */
 	public OptionSet setObserve(final int seqnum) {
+		decode(OBSERVE_BIT);
 		OptionNumberRegistry.assertValue(OptionNumberRegistry.OBSERVE, seqnum);
 		this.observe = seqnum;
 		return this;
@@ -1388,6 +1517,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet removeObserve() {
+		decode(OBSERVE_BIT);
 		observe = null;
 		return this;
 	}
@@ -1409,6 +1539,7 @@ public final class OptionSet {
 	 * @return the OSCore value or null if the option is not present
 	 */
 	public byte[] getOscore() {
+		decode(OSCORE_BIT);
 		return oscore;
 	}
 
@@ -1418,6 +1549,7 @@ public final class OptionSet {
 	 * @return {@code true}, if present
 	 */
 	public boolean hasOscore() {
+		decode(OSCORE_BIT);
 		return oscore != null;
 	}
 
@@ -1430,6 +1562,7 @@ public final class OptionSet {
 	 * @throws IllegalArgumentException if the oscore has more than 255 bytes.
 	 */
 	public OptionSet setOscore(byte[] oscore) {
+		decode(OSCORE_BIT);
 		checkOptionValue(OptionNumberRegistry.OSCORE, oscore);
 		this.oscore = oscore.clone();
 		return this;
@@ -1441,6 +1574,7 @@ public final class OptionSet {
 	 * @return this OptionSet for a fluent API.
 	 */
 	public OptionSet removeOscore() {
+		decode(OSCORE_BIT);
 		oscore = null;
 		return this;
 	}
@@ -1452,6 +1586,7 @@ public final class OptionSet {
 	 * @since 3.0
 	 */
 	public NoResponseOption getNoResponse() {
+		decode(NO_RESPONSE_BIT);
 		return no_response;
 	}
 
@@ -1462,6 +1597,7 @@ public final class OptionSet {
 	 * @since 3.0
 	 */
 	public boolean hasNoResponse() {
+		decode(NO_RESPONSE_BIT);
 		return no_response != null;
 	}
 
@@ -1473,6 +1609,7 @@ public final class OptionSet {
 	 * @since 3.0
 	 */
 	public OptionSet setNoResponse(int noResponse) {
+		decode(NO_RESPONSE_BIT);
 		this.no_response = new NoResponseOption(noResponse);
 		return this;
 	}
@@ -1485,6 +1622,7 @@ public final class OptionSet {
 	 * @since 3.0
 	 */
 	public OptionSet setNoResponse(NoResponseOption noResponse) {
+		decode(NO_RESPONSE_BIT);
 		this.no_response = noResponse;
 		return this;
 	}
@@ -1496,6 +1634,7 @@ public final class OptionSet {
 	 * @since 3.0
 	 */
 	public OptionSet removeNoResponse() {
+		decode(NO_RESPONSE_BIT);
 		this.no_response = null;
 		return this;
 	}
@@ -1514,6 +1653,7 @@ public final class OptionSet {
 	}
 
 	private List<Option> getOthersInternal() {
+		decode(OTHERS_BIT);
 		synchronized (this) {
 			if (others == null)
 				others = new LinkedList<Option>();
@@ -1527,6 +1667,7 @@ public final class OptionSet {
 	 * @return an unmodifiable and unsorted list of other options.
 	 */
 	public List<Option> getOthers() {
+		decode(OTHERS_BIT);
 		List<Option> others = this.others;
 		if (others == null) {
 			return Collections.emptyList();
@@ -1544,6 +1685,7 @@ public final class OptionSet {
 	 * @return the sorted list (a copy)
 	 */
 	public List<Option> asSortedList() {
+		decode(ALL_BITS);
 		ArrayList<Option> options = new ArrayList<Option>();
 
 		if (if_match_list != null)
@@ -1605,10 +1747,12 @@ public final class OptionSet {
 	}
 
 	boolean hasExplicitUriOptions() {
+		decode(URI_PATH_BIT | URI_QUERY_BIT);
 		return explicitUriOptions;
 	}
 
 	void resetExplicitUriOptions() {
+		decode(URI_PATH_BIT | URI_QUERY_BIT);
 		explicitUriOptions = false;
 	}
 
@@ -1742,6 +1886,56 @@ public final class OptionSet {
 		return this;
 	}
 
+	/**
+	 * Set raw options for lazy decoding.
+	 * <p>
+	 * Replaces all options by the provided raw options. The options are not
+	 * decoded on calling this method. Instead, the options of the same kind
+	 * are decoded on the first access to them, e.g. the Uri-Path options are
+	 * decoded on the first call of {@link #getUriPath()}. Options of other
+	 * kinds are kept raw. That saves the allocation of the option values,
+	 * which are never accessed, e.g. when forwarding messages.
+	 * <p>
+	 * <b>Note:</b> the options are expected to be already validated. The
+	 * option values must match the definitions of
+	 * {@link OptionNumberRegistry#assertValueLength(int, int)} and are not
+	 * validated again on decoding. Neither the raw message nor the index must
+	 * be modified afterwards.
+	 *
+	 * @param raw raw message containing the option values.
+	 * @param index index of the options. Triples of option number, offset
+	 *            and length of the option value within the raw message.
+	 * @param count number of options in the index.
+	 * @return this OptionSet for a fluent API.
+	 * @throws NullPointerException if raw message or index is {@code null}
+	 * @throws IllegalArgumentException if count exceeds the index
+	 * @since 3.0
+	 */
+	public OptionSet setRawOptions(byte[] raw, int[] index, int count) {
+		if (raw == null) {
+			throw new NullPointerException("raw message must not be null!");
+		}
+		if (index == null) {
+			throw new NullPointerException("option index must not be null!");
+		}
+		if (count < 0 || count * 3 > index.length) {
+			throw new IllegalArgumentException(
+					"option index of " + index.length + " entries doesn't contain " + count + " options!");
+		}
+		clear();
+		int bits = 0;
+		for (int entry = 0; entry < count * 3; entry += 3) {
+			bits |= getBit(index[entry]);
+		}
+		synchronized (this) {
+			this.raw = raw;
+			this.rawIndex = index;
+			this.rawCount = count;
+			this.pending = bits;
+		}
+		return this;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
@@ -1783,6 +1977,241 @@ public final class OptionSet {
 		return sb.toString();
 	}
 
+	/**
+	 * Decode pending raw options.
+	 *
+	 * @param bits bits of the options to decode, if pending.
+	 * @see #setRawOptions(byte[], int[], int)
+	 * @since 3.0
+	 */
+	private void decode(int bits) {
+		if ((pending & bits) != 0) {
+			decodePending(bits);
+		}
+	}
+
+	/**
+	 * Decode pending raw options.
+	 *
+	 * The decoded values are assigned to the fields before the bits are
+	 * cleared in {@link #pending}. Therefore the fields could be read without
+	 * synchronization, if the bits are not pending.
+	 *
+	 * @param bits bits of the options to decode, if pending.
+	 * @since 3.0
+	 */
+	private synchronized void decodePending(int bits) {
+		int decode = pending & bits;
+		if (decode != 0) {
+			int end = rawCount * 3;
+			for (int entry = 0; entry < end; entry += 3) {
+				int number = rawIndex[entry];
+				if ((getBit(number) & decode) != 0) {
+					decodeOption(number, rawIndex[entry + 1], rawIndex[entry + 2]);
+				}
+			}
+			int left = pending & ~decode;
+			if (left == 0) {
+				raw = null;
+				rawIndex = null;
+				rawCount = 0;
+			}
+			pending = left;
+		}
+	}
+
+	/**
+	 * Decode raw option and assign the value to the field.
+	 *
+	 * Assigns the fields directly, the setters would try to decode the still
+	 * pending options again.
+	 *
+	 * @param number option number
+	 * @param offset offset of the value in {@link #raw}
+	 * @param length length of the value
+	 * @since 3.0
+	 */
+	private void decodeOption(int number, int offset, int length) {
+		switch (number) {
+		case OptionNumberRegistry.IF_MATCH:
+			if (if_match_list == null)
+				if_match_list = new LinkedList<byte[]>();
+			if_match_list.add(Arrays.copyOfRange(raw, offset, offset + length));
+			break;
+		case OptionNumberRegistry.URI_HOST:
+			uri_host = decodeString(offset, length);
+			break;
+		case OptionNumberRegistry.ETAG:
+			byte[] etag = Arrays.copyOfRange(raw, offset, offset + length);
+			if (etag_list == null) {
+				etag_list = new LinkedList<byte[]>();
+			} else {
+				for (byte[] value : etag_list) {
+					if (Arrays.equals(value, etag)) {
+						etag = null;
+						break;
+					}
+				}
+			}
+			if (etag != null) {
+				etag_list.add(etag);
+			}
+			break;
+		case OptionNumberRegistry.IF_NONE_MATCH:
+			if_none_match = true;
+			break;
+		case OptionNumberRegistry.URI_PORT:
+			uri_port = (int) decodeLong(offset, length);
+			break;
+		case OptionNumberRegistry.LOCATION_PATH:
+			if (location_path_list == null)
+				location_path_list = new LinkedList<String>();
+			location_path_list.add(decodeString(offset, length));
+			break;
+		case OptionNumberRegistry.URI_PATH:
+			if (uri_path_list == null)
+				uri_path_list = new LinkedList<String>();
+			uri_path_list.add(decodeString(offset, length));
+			explicitUriOptions = true;
+			break;
+		case OptionNumberRegistry.CONTENT_FORMAT:
+			content_format = (int) decodeLong(offset, length);
+			break;
+		case OptionNumberRegistry.MAX_AGE:
+			max_age = decodeLong(offset, length);
+			break;
+		case OptionNumberRegistry.URI_QUERY:
+			if (uri_query_list == null)
+				uri_query_list = new LinkedList<String>();
+			uri_query_list.add(decodeString(offset, length));
+			explicitUriOptions = true;
+			break;
+		case OptionNumberRegistry.ACCEPT:
+			accept = (int) decodeLong(offset, length);
+			break;
+		case OptionNumberRegistry.LOCATION_QUERY:
+			if (location_query_list == null)
+				location_query_list = new LinkedList<String>();
+			location_query_list.add(decodeString(offset, length));
+			break;
+		case OptionNumberRegistry.PROXY_URI:
+			proxy_uri = decodeString(offset, length);
+			break;
+		case OptionNumberRegistry.PROXY_SCHEME:
+			proxy_scheme = decodeString(offset, length);
+			break;
+		case OptionNumberRegistry.BLOCK1:
+			block1 = new BlockOption(Arrays.copyOfRange(raw, offset, offset + length));
+			break;
+		case OptionNumberRegistry.BLOCK2:
+			block2 = new BlockOption(Arrays.copyOfRange(raw, offset, offset + length));
+			break;
+		case OptionNumberRegistry.SIZE1:
+			size1 = (int) decodeLong(offset, length);
+			break;
+		case OptionNumberRegistry.SIZE2:
+			size2 = (int) decodeLong(offset, length);
+			break;
+		case OptionNumberRegistry.OBSERVE:
+			observe = (int) decodeLong(offset, length);
+			break;
+		case OptionNumberRegistry.OSCORE:
+			oscore = Arrays.copyOfRange(raw, offset, offset + length);
+			break;
+		case OptionNumberRegistry.NO_RESPONSE:
+			no_response = new NoResponseOption((int) decodeLong(offset, length));
+			break;
+		default:
+			if (others == null)
+				others = new LinkedList<Option>();
+			others.add(new Option(number, Arrays.copyOfRange(raw, offset, offset + length)));
+		}
+	}
+
+	/**
+	 * Decode raw option value as UTF-8 string.
+	 *
+	 * @param offset offset of the value in {@link #raw}
+	 * @param length length of the value
+	 * @return decoded string
+	 * @since 3.0
+	 */
+	private String decodeString(int offset, int length) {
+		return new String(raw, offset, length, CoAP.UTF8_CHARSET);
+	}
+
+	/**
+	 * Decode raw option value as unsigned integer.
+	 *
+	 * @param offset offset of the value in {@link #raw}
+	 * @param length length of the value
+	 * @return decoded value
+	 * @since 3.0
+	 */
+	private long decodeLong(int offset, int length) {
+		long value = 0;
+		for (int index = offset; index < offset + length; ++index) {
+			value = (value << Byte.SIZE) | (raw[index] & 0xFF);
+		}
+		return value;
+	}
+
+	/**
+	 * Get bit for option number.
+	 *
+	 * @param number option number
+	 * @return bit of option
+	 * @since 3.0
+	 */
+	private static int getBit(int number) {
+		switch (number) {
+		case OptionNumberRegistry.IF_MATCH:
+			return IF_MATCH_BIT;
+		case OptionNumberRegistry.URI_HOST:
+			return URI_HOST_BIT;
+		case OptionNumberRegistry.ETAG:
+			return ETAG_BIT;
+		case OptionNumberRegistry.IF_NONE_MATCH:
+			return IF_NONE_MATCH_BIT;
+		case OptionNumberRegistry.URI_PORT:
+			return URI_PORT_BIT;
+		case OptionNumberRegistry.LOCATION_PATH:
+			return LOCATION_PATH_BIT;
+		case OptionNumberRegistry.URI_PATH:
+			return URI_PATH_BIT;
+		case OptionNumberRegistry.CONTENT_FORMAT:
+			return CONTENT_FORMAT_BIT;
+		case OptionNumberRegistry.MAX_AGE:
+			return MAX_AGE_BIT;
+		case OptionNumberRegistry.URI_QUERY:
+			return URI_QUERY_BIT;
+		case OptionNumberRegistry.ACCEPT:
+			return ACCEPT_BIT;
+		case OptionNumberRegistry.LOCATION_QUERY:
+			return LOCATION_QUERY_BIT;
+		case OptionNumberRegistry.PROXY_URI:
+			return PROXY_URI_BIT;
+		case OptionNumberRegistry.PROXY_SCHEME:
+			return PROXY_SCHEME_BIT;
+		case OptionNumberRegistry.BLOCK1:
+			return BLOCK1_BIT;
+		case OptionNumberRegistry.BLOCK2:
+			return BLOCK2_BIT;
+		case OptionNumberRegistry.SIZE1:
+			return SIZE1_BIT;
+		case OptionNumberRegistry.SIZE2:
+			return SIZE2_BIT;
+		case OptionNumberRegistry.OBSERVE:
+			return OBSERVE_BIT;
+		case OptionNumberRegistry.OSCORE:
+			return OSCORE_BIT;
+		case OptionNumberRegistry.NO_RESPONSE:
+			return NO_RESPONSE_BIT;
+		default:
+			return OTHERS_BIT;
+		}
+	}
+
 	/**
 	 * Gets multiple option as string.
 	 * 
@@ -46,6 +46,7 @@ import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -323,6 +324,17 @@ public class Request extends Message {
 		return this;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @since 3.0
+	 */
+	@Override
+	public Request setPayload(ByteBuffer payload) {
+		super.setPayload(payload);
+		return this;
+	}
+
 	@Override
 	public void assertPayloadMatchsBlocksize() {
 		BlockOption block1 = getOptions().getBlock1();
@@ -66,6 +66,14 @@ public class Response extends Message {
 	 */
 	private volatile Long transmissionRttNanos;
 
+	/**
+	 * Indicates, that the response is a representation shared by all
+	 * clients.
+	 * 
+	 * @since 3.0
+	 */
+	private volatile boolean sharedRepresentation;
+
 	/**
 	 * Creates a response to the provided received request with the specified
 	 * response code. The destination endpoint context of the response will be
@@ -187,6 +195,35 @@ public class Response extends Message {
 		this.transmissionRttNanos = rtt;
 	}
 
+	/**
+	 * Check, if the response is a representation shared by all clients.
+	 * 
+	 * @return {@code true}, if the response is shared by all clients,
+	 *         {@code false}, if not.
+	 * @see #setSharedRepresentation(boolean)
+	 * @since 3.0
+	 */
+	public boolean isSharedRepresentation() {
+		return sharedRepresentation;
+	}
+
+	/**
+	 * Set, if the response is a representation shared by all clients.
+	 * 
+	 * Shared representations may be served by the
+	 * {@link org.eclipse.californium.core.network.stack.Block2ResponseCache}
+	 * to other clients without passing their requests to the resource. Only
+	 * set this for responses, which are not subject to the authorization of
+	 * a client.
+	 * 
+	 * @param shared {@code true}, if the response is shared by all clients,
+	 *            {@code false}, if not.
+	 * @since 3.0
+	 */
+	public void setSharedRepresentation(boolean shared) {
+		this.sharedRepresentation = shared;
+	}
+
 	/**
 	 * Ensure, that the response uses the provided token.
 	 * 
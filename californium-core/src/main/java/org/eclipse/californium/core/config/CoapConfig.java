@@ -22,6 +22,7 @@ import org.eclipse.californium.core.coap.CoAP;
 import org.eclipse.californium.core.coap.CoAP.ResponseCode;
 import org.eclipse.californium.core.coap.Message;
 import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.network.ConcurrentGroupedMessageIdTracker;
 import org.eclipse.californium.core.network.GroupedMessageIdTracker;
 import org.eclipse.californium.core.network.KeyMID;
 import org.eclipse.californium.core.network.KeyToken;
@@ -30,7 +31,11 @@ import org.eclipse.californium.core.network.deduplication.CropRotation;
 import org.eclipse.californium.core.network.deduplication.NoDeduplicator;
 import org.eclipse.californium.core.network.deduplication.SweepDeduplicator;
 import org.eclipse.californium.core.network.deduplication.SweepPerPeerDeduplicator;
+import org.eclipse.californium.core.network.deduplication.TimingWheelDeduplicator;
+import org.eclipse.californium.core.network.serialization.DataParser;
+import org.eclipse.californium.core.network.stack.Block2ResponseCache;
 import org.eclipse.californium.core.network.stack.KeyUri;
+import org.eclipse.californium.core.network.stack.ReliabilityLayer;
 import org.eclipse.californium.core.observe.ObserveRelation;
 import org.eclipse.californium.elements.config.BooleanDefinition;
 import org.eclipse.californium.elements.config.Configuration;
@@ -41,6 +46,7 @@ import org.eclipse.californium.elements.config.IntegerDefinition;
 import org.eclipse.californium.elements.config.StringSetDefinition;
 import org.eclipse.californium.elements.config.SystemConfig;
 import org.eclipse.californium.elements.config.TimeDefinition;
+import org.eclipse.californium.elements.util.HashedWheelTimer;
 
 /**
  * Configuration definitions for CoAP.
@@ -101,7 +107,16 @@ public final class CoapConfig {
 		/**
 		 * Keep track of used MIDs. High resource-consumption.
 		 */
-		MAPBASED
+		MAPBASED,
+		/**
+		 * Keep track of used MID-groups lock-free. Same resource-consumption
+		 * as {@link #GROUPED}, but for many concurrent senders. The trackers
+		 * per peer are kept in a concurrent map as well.
+		 * 
+		 * @see ConcurrentGroupedMessageIdTracker
+		 * @since 3.0
+		 */
+		CONCURRENT_GROUPED
 	}
 
 	/**
@@ -184,6 +199,13 @@ public final class CoapConfig {
 	 */
 	public static final boolean DEFAULT_BLOCKWISE_ENTITY_TOO_LARGE_AUTO_FAILOVER = true;
 
+	/**
+	 * The default lifetime of cached blockwise responses (in seconds).
+	 * 
+	 * @since 3.0
+	 */
+	public static final int DEFAULT_BLOCKWISE_RESPONSE_CACHE_LIFETIME_IN_SECONDS = 30;
+
 	/**
 	 * The default value for {@link #PREFERRED_BLOCK_SIZE}
 	 */
@@ -233,6 +255,13 @@ public final class CoapConfig {
 	 * @see CropRotation
 	 */
 	public static final String DEDUPLICATOR_CROP_ROTATION = "CROP_ROTATION";
+	/**
+	 * Timing wheel deduplicator.
+	 * 
+	 * @see TimingWheelDeduplicator
+	 * @since 3.0
+	 */
+	public static final String DEDUPLICATOR_TIMING_WHEEL = "TIMING_WHEEL";
 
 	/**
 	 * No deduplicator.
@@ -267,6 +296,14 @@ public final class CoapConfig {
 	 */
 	public static final long DEFAULT_CROP_ROTATION_PERIOD_IN_SECONDS = DEFAULT_EXCHANGE_LIFETIME_IN_SECONDS;
 
+	/**
+	 * Default tick for timing wheel.
+	 * 
+	 * @see TimingWheelDeduplicator
+	 * @since 3.0
+	 */
+	public static final long DEFAULT_TIMING_WHEEL_TICK_IN_SECONDS = 1;
+
 	/**
 	 * Default value for auto-replace in deduplictors.
 	 */
@@ -429,6 +466,31 @@ public final class CoapConfig {
 	 */
 	public static final BooleanDefinition USE_MESSAGE_OFFLOADING = new BooleanDefinition(
 			MODULE + "USE_MESSAGE_OFFLOADING", "Use message off-loading, when data is not longer required.", false);
+	/**
+	 * Use lazy option parsing.
+	 * 
+	 * Options of received messages are only validated on parsing and decoded
+	 * on first access.
+	 * 
+	 * @see DataParser#DataParser(boolean)
+	 * @since 3.0
+	 */
+	public static final BooleanDefinition USE_LAZY_OPTION_PARSING = new BooleanDefinition(
+			MODULE + "USE_LAZY_OPTION_PARSING", "Use lazy option parsing. Decode options on first access.", false);
+	/**
+	 * Tick of the hashed wheel timer for retransmissions.
+	 * 
+	 * If larger than {@code 0}, the {@link ReliabilityLayer} uses a
+	 * {@link HashedWheelTimer} with that tick to schedule retransmissions and
+	 * delayed responses instead of the main executor. {@code 0} to use the
+	 * main executor.
+	 * 
+	 * @since 3.0
+	 */
+	public static final TimeDefinition RETRANSMISSION_TIMER_TICK = new TimeDefinition(
+			MODULE + "RETRANSMISSION_TIMER_TICK",
+			"Tick of hashed wheel timer for retransmissions. 0 to use the main executor.", 0,
+			TimeUnit.MILLISECONDS);
 	/**
 	 * Use initially a random value for the MID.
 	 * 
@@ -572,6 +634,40 @@ public final class CoapConfig {
 			"Enable automatic failover on \"entity too large\" response.",
 			DEFAULT_BLOCKWISE_ENTITY_TOO_LARGE_AUTO_FAILOVER);
 
+	/**
+	 * Maximum number of responses in the server-side blockwise response
+	 * cache.
+	 * <p>
+	 * The cache keeps the body of large {@link ResponseCode#CONTENT} responses
+	 * with ETag for GET requests and serves the blocks to all clients from
+	 * that shared body. Requests for a cached representation are not passed to
+	 * the resource anymore until the cached response expires. Therefore only
+	 * responses of resources, which opt-in with
+	 * {@link org.eclipse.californium.core.CoapResource#setSharedRepresentation(boolean)},
+	 * are cached.
+	 * <p>
+	 * The default value is {@code 0}, which disables the cache.
+	 * 
+	 * @see Block2ResponseCache
+	 * @since 3.0
+	 */
+	public static final IntegerDefinition BLOCKWISE_RESPONSE_CACHE_SIZE = new IntegerDefinition(
+			MODULE + "BLOCKWISE_RESPONSE_CACHE_SIZE",
+			"Maximum number of cached blockwise responses. 0 to disable the cache.", 0, 0);
+
+	/**
+	 * Lifetime of cached blockwise responses.
+	 * <p>
+	 * The default value of this property is
+	 * {@link #DEFAULT_BLOCKWISE_RESPONSE_CACHE_LIFETIME_IN_SECONDS}.
+	 * 
+	 * @see #BLOCKWISE_RESPONSE_CACHE_SIZE
+	 * @since 3.0
+	 */
+	public static final TimeDefinition BLOCKWISE_RESPONSE_CACHE_LIFETIME = new TimeDefinition(
+			MODULE + "BLOCKWISE_RESPONSE_CACHE_LIFETIME", "Lifetime of cached blockwise responses.",
+			DEFAULT_BLOCKWISE_RESPONSE_CACHE_LIFETIME_IN_SECONDS, TimeUnit.SECONDS);
+
 	/**
 	 * Time interval for a coap-server to check the client's interest in further
 	 * notifications.
@@ -625,6 +721,20 @@ public final class CoapConfig {
 	public static final IntegerDefinition PROTOCOL_STAGE_THREAD_COUNT = new IntegerDefinition(
 			MODULE + "PROTOCOL_STAGE_THREAD_COUNT", "Protocol stage thread count.", 1, 0);
 
+	/**
+	 * Use virtual threads to process coap-exchanges.
+	 * <p>
+	 * Executes each task of the protocol stage, including the resource
+	 * handlers, using a new virtual thread. Intended for resources with
+	 * blocking handlers. Requires java 21 or newer, falls back to
+	 * {@link #PROTOCOL_STAGE_THREAD_COUNT}, if not supported.
+	 * 
+	 * @since 3.0
+	 */
+	public static final BooleanDefinition PROTOCOL_STAGE_VIRTUAL_THREADS = new BooleanDefinition(
+			MODULE + "PROTOCOL_STAGE_VIRTUAL_THREADS",
+			"Use virtual threads for the protocol stage. Requires java 21.", false);
+
 	/**
 	 * Deduplicator algorithm.
 	 * 
@@ -632,10 +742,12 @@ public final class CoapConfig {
 	 * @see CropRotation
 	 * @see SweepDeduplicator
 	 * @see SweepPerPeerDeduplicator
+	 * @see TimingWheelDeduplicator
 	 */
 	public static final StringSetDefinition DEDUPLICATOR = new StringSetDefinition(MODULE + "DEDUPLICATOR",
 			"Deduplicator algorithm.", DEDUPLICATOR_MARK_AND_SWEEP, DEDUPLICATOR_MARK_AND_SWEEP,
-			DEDUPLICATOR_PEERS_MARK_AND_SWEEP, DEDUPLICATOR_CROP_ROTATION, NO_DEDUPLICATOR);
+			DEDUPLICATOR_PEERS_MARK_AND_SWEEP, DEDUPLICATOR_CROP_ROTATION, DEDUPLICATOR_TIMING_WHEEL,
+			NO_DEDUPLICATOR);
 	/**
 	 * The interval after which the next sweep run should occur.
 	 */
@@ -657,6 +769,15 @@ public final class CoapConfig {
 	 */
 	public static final TimeDefinition CROP_ROTATION_PERIOD = new TimeDefinition(MODULE + "CROP_ROTATION_PERIOD",
 			"Crop rotation period.", DEFAULT_CROP_ROTATION_PERIOD_IN_SECONDS, TimeUnit.SECONDS);
+	/**
+	 * The duration of a tick of the timing wheel. Messages are removed at most
+	 * one tick after their exchange lifetime.
+	 * 
+	 * @see TimingWheelDeduplicator
+	 * @since 3.0
+	 */
+	public static final TimeDefinition TIMING_WHEEL_TICK = new TimeDefinition(MODULE + "TIMING_WHEEL_TICK",
+			"Timing wheel tick.", DEFAULT_TIMING_WHEEL_TICK_IN_SECONDS, TimeUnit.SECONDS);
 	/**
 	 * Enable auto replace of not matching exchanges.
 	 * 
@@ -700,6 +821,8 @@ public final class CoapConfig {
 			config.set(LEISURE, 5, TimeUnit.SECONDS);
 			config.set(PROBING_RATE, 1f);
 			config.set(USE_MESSAGE_OFFLOADING, false);
+			config.set(USE_LAZY_OPTION_PARSING, false);
+			config.set(RETRANSMISSION_TIMER_TICK, 0, TimeUnit.MILLISECONDS);
 
 			config.set(MAX_LATENCY, 100, TimeUnit.SECONDS);
 			config.set(MAX_TRANSMIT_WAIT, 93, TimeUnit.SECONDS);
@@ -717,6 +840,9 @@ public final class CoapConfig {
 			config.set(BLOCKWISE_STATUS_INTERVAL, DEFAULT_BLOCKWISE_STATUS_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
 			config.set(BLOCKWISE_STRICT_BLOCK2_OPTION, DEFAULT_BLOCKWISE_STRICT_BLOCK2_OPTION);
 			config.set(BLOCKWISE_ENTITY_TOO_LARGE_AUTO_FAILOVER, DEFAULT_BLOCKWISE_ENTITY_TOO_LARGE_AUTO_FAILOVER);
+			config.set(BLOCKWISE_RESPONSE_CACHE_SIZE, 0);
+			config.set(BLOCKWISE_RESPONSE_CACHE_LIFETIME, DEFAULT_BLOCKWISE_RESPONSE_CACHE_LIFETIME_IN_SECONDS,
+					TimeUnit.SECONDS);
 			// BERT enabled, when > 1
 			config.set(TCP_NUMBER_OF_BULK_BLOCKS, 4);
 
@@ -726,11 +852,13 @@ public final class CoapConfig {
 
 			config.set(CONGESTION_CONTROL_ALGORITHM, CongestionControlMode.NULL);
 			config.set(PROTOCOL_STAGE_THREAD_COUNT, CORES);
+			config.set(PROTOCOL_STAGE_VIRTUAL_THREADS, false);
 
 			config.set(DEDUPLICATOR, DEFAULT_DEDUPLICATOR);
 			config.set(MARK_AND_SWEEP_INTERVAL, DEFAULT_MARK_AND_SWEEP_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
 			config.set(PEERS_MARK_AND_SWEEP_MESSAGES, DEFAULT_PEERS_MARK_AND_SWEEP_MESSAGES);
 			config.set(CROP_ROTATION_PERIOD, DEFAULT_CROP_ROTATION_PERIOD_IN_SECONDS, TimeUnit.SECONDS);
+			config.set(TIMING_WHEEL_TICK, DEFAULT_TIMING_WHEEL_TICK_IN_SECONDS, TimeUnit.SECONDS);
 			config.set(DEDUPLICATOR_AUTO_REPLACE, DEFAULT_DEDUPLICATOR_AUTO_REPLACE);
 			config.set(RESPONSE_MATCHING, DEFAULT_RESPONSE_MATCHING);
 
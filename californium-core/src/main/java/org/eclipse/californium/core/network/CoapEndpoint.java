@@ -412,13 +412,13 @@ public class CoapEndpoint implements Endpoint, Executor {
 			this.matcher = new TcpMatcher(config, new NotificationDispatcher(), tokenGenerator, observationStore,
 					this.exchangeStore, endpointContextMatcher, this);
 			this.serializer = serializer != null ? serializer : new TcpDataSerializer();
-			this.parser = parser != null ? parser : new TcpDataParser();
+			this.parser = parser != null ? parser : new TcpDataParser(config.get(CoapConfig.USE_LAZY_OPTION_PARSING));
 		} else {
 			this.useRequestOffloading = config.get(CoapConfig.USE_MESSAGE_OFFLOADING);
 			this.matcher = new UdpMatcher(config, new NotificationDispatcher(), tokenGenerator, observationStore,
 					this.exchangeStore, this, endpointContextMatcher);
 			this.serializer = serializer != null ? serializer : new UdpDataSerializer();
-			this.parser = parser != null ? parser : new UdpDataParser();
+			this.parser = parser != null ? parser : new UdpDataParser(config.get(CoapConfig.USE_LAZY_OPTION_PARSING));
 		}
 	}
 
@@ -444,13 +444,22 @@ public class CoapEndpoint implements Endpoint, Executor {
 		}
 
 		if (this.executor == null) {
-			LOGGER.info("{}Endpoint [{}] requires an executor to start, using default single-threaded daemon executor",
-					tag, getUri());
-
-			// in production environments the executor should be set to a multi
-			// threaded version in order to utilize all cores of the processor
-			final ScheduledExecutorService executorService = ExecutorsUtil
-					.newSingleThreadScheduledExecutor(new DaemonThreadFactory(":CoapEndpoint-" + connector + '#')); //$NON-NLS-1$
+			final ScheduledExecutorService executorService;
+			DaemonThreadFactory threadFactory = new DaemonThreadFactory(":CoapEndpoint-" + connector + '#'); //$NON-NLS-1$
+			if (config.get(CoapConfig.PROTOCOL_STAGE_VIRTUAL_THREADS) && ExecutorsUtil.isVirtualThreadSupported()) {
+				LOGGER.info("{}Endpoint [{}] requires an executor to start, using default virtual threads executor",
+						tag, getUri());
+				executorService = ExecutorsUtil.newVirtualThreadScheduledExecutor(threadFactory);
+			} else {
+				LOGGER.info(
+						"{}Endpoint [{}] requires an executor to start, using default single-threaded daemon executor",
+						tag, getUri());
+
+				// in production environments the executor should be set to a
+				// multi threaded version in order to utilize all cores of the
+				// processor
+				executorService = ExecutorsUtil.newSingleThreadScheduledExecutor(threadFactory);
+			}
 			setExecutors(executorService, executorService);
 			addObserver(new EndpointObserver() {
 
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *                    (derived from GroupedMessageIdTracker)
+ ******************************************************************************/
+package org.eclipse.californium.core.network;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.util.ClockUtil;
+
+/**
+ * A lock-free helper for keeping track of message IDs.
+ * <p>
+ * Uses the same MID groups as {@link GroupedMessageIdTracker}, but keeps the
+ * end of the leases in an {@link AtomicLongArray} and allocates the MIDs
+ * using compare-and-set on the current MID. Therefore concurrent callers of
+ * {@link #getNextMessageId()} never block each other.
+ * <p>
+ * The lease of a group is only checked, before the first MID of that group is
+ * used again. That happens one MID-range later and so the lease updates of
+ * concurrent callers are visible at that time.
+ *
+ * @since 3.0
+ */
+public class ConcurrentGroupedMessageIdTracker implements MessageIdTracker {
+
+	/**
+	 * Number of groups.
+	 */
+	private final int numberOfGroups;
+	/**
+	 * Size of groups. Number of MIDs per group.
+	 */
+	private final int sizeOfGroups;
+	/**
+	 * Minimal MID:
+	 */
+	private final int min;
+	/**
+	 * Range of MIDs
+	 */
+	private final int range;
+	/**
+	 * Exchange lifetime. Value in nanoseconds.
+	 *
+	 * @see ClockUtil#nanoRealtime()
+	 */
+	private final long exchangeLifetimeNanos;
+	/**
+	 * Array with end of lease for MID groups. MID divided by
+	 * {@link #sizeOfGroups} is used as index. Values in nanoseconds.
+	 *
+	 * @see ClockUtil#nanoRealtime()
+	 */
+	private final AtomicLongArray midLease;
+	/**
+	 * Current MID.
+	 */
+	private final AtomicInteger currentMID;
+
+	/**
+	 * Creates a new lock-free MID group based tracker.
+	 *
+	 * The following configuration values are used:
+	 * <ul>
+	 * <li>{@link CoapConfig#MID_TRACKER_GROUPS}
+	 * - determine the group size for the message IDs. Each group is marked as
+	 * <em>in use</em>, if a MID within the group is used.</li>
+	 * <li>{@link CoapConfig#EXCHANGE_LIFETIME}
+	 * - each group of a message ID returned by <em>getNextMessageId</em> is
+	 * marked as <em>in use</em> for this amount of time (ms).</li>
+	 * </ul>
+	 *
+	 * @param initialMid initial MID
+	 * @param minMid minimal MID (inclusive).
+	 * @param maxMid maximal MID (exclusive).
+	 * @param config configuration
+	 * @throws IllegalArgumentException if minMid is not smaller than maxMid or
+	 *             initialMid is not in the range of minMid and maxMid
+	 */
+	public ConcurrentGroupedMessageIdTracker(int initialMid, int minMid, int maxMid, Configuration config) {
+		if (minMid >= maxMid) {
+			throw new IllegalArgumentException("max. MID " + maxMid + " must be larger than min. MID " + minMid + "!");
+		}
+		if (initialMid < minMid || maxMid <= initialMid) {
+			throw new IllegalArgumentException(
+					"initial MID " + initialMid + " must be in range [" + minMid + "-" + maxMid + ")!");
+		}
+		exchangeLifetimeNanos = config.get(CoapConfig.EXCHANGE_LIFETIME, TimeUnit.NANOSECONDS);
+		currentMID = new AtomicInteger(initialMid - minMid);
+		this.min = minMid;
+		this.range = maxMid - minMid;
+		this.numberOfGroups = config.get(CoapConfig.MID_TRACKER_GROUPS);
+		this.sizeOfGroups = (range + numberOfGroups - 1) / numberOfGroups;
+		midLease = new AtomicLongArray(numberOfGroups);
+		long expired = ClockUtil.nanoRealtime() - 1000;
+		for (int index = 0; index < numberOfGroups; ++index) {
+			midLease.set(index, expired);
+		}
+	}
+
+	@Override
+	public int getNextMessageId() {
+		final long now = ClockUtil.nanoRealtime();
+		while (true) {
+			int current = currentMID.get();
+			// mask mid to the min-max range
+			int mid = (current & 0xffff) % range;
+			int index = mid / sizeOfGroups;
+			int nextIndex = (index + 1) % numberOfGroups;
+			if ((midLease.get(nextIndex) - now) >= 0) {
+				if (currentMID.get() == current) {
+					break;
+				}
+				// stale current MID, other callers have already moved into
+				// the next group
+				continue;
+			}
+			if (currentMID.compareAndSet(current, mid + 1)) {
+				extendLease(index, now + exchangeLifetimeNanos);
+				return mid + min;
+			}
+		}
+		String time = TimeUnit.NANOSECONDS.toSeconds(exchangeLifetimeNanos) + "s";
+		throw new IllegalStateException(
+				"No MID available, all [" + min + "-" + (min + range) + ") MID-groups in use! (MID lifetime " + time + "!)");
+	}
+
+	/**
+	 * Extend the lease of a MID group.
+	 *
+	 * Concurrent callers may extend the lease of the same group. Keeps the
+	 * latest lease.
+	 *
+	 * @param index index of MID group
+	 * @param lease end of lease in nanoseconds
+	 */
+	private void extendLease(int index, long lease) {
+		long current = midLease.get(index);
+		while ((lease - current) > 0) {
+			if (midLease.compareAndSet(index, current, lease)) {
+				break;
+			}
+			current = midLease.get(index);
+		}
+	}
+
+	/**
+	 * Get number of MIDs per group.
+	 *
+	 * @return size of groups
+	 * @see #sizeOfGroups
+	 */
+	public int getGroupSize() {
+		return sizeOfGroups;
+	}
+}
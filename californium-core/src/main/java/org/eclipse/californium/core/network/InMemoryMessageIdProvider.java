@@ -31,6 +31,7 @@ import org.eclipse.californium.core.config.CoapConfig;
 import org.eclipse.californium.core.config.CoapConfig.TrackerMode;
 import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.elements.util.ClockUtil;
+import org.eclipse.californium.elements.util.ConcurrentLeastRecentlyUsedCache;
 import org.eclipse.californium.elements.util.LeastRecentlyUsedCache;
 import org.eclipse.californium.elements.util.NetworkInterfacesUtil;
 import org.slf4j.Logger;
@@ -41,13 +42,28 @@ import org.slf4j.LoggerFactory;
  * <p>
  * This provider maintains an instance of {@link MessageIdTracker} for each
  * endpoint identified by IP address and port.
+ * <p>
+ * For {@link TrackerMode#CONCURRENT_GROUPED}, the trackers are kept in a
+ * {@link ConcurrentLeastRecentlyUsedCache} and only the creation of a new
+ * tracker is synchronized. Otherwise a {@link LeastRecentlyUsedCache} is used
+ * and all access to the trackers is synchronized.
  */
 public class InMemoryMessageIdProvider implements MessageIdProvider {
 
 	private static final Logger LOG = LoggerFactory.getLogger(InMemoryMessageIdProvider.class);
 
 
+	/**
+	 * Trackers. {@code null}, if {@link #concurrentTrackers} are used.
+	 */
 	private final LeastRecentlyUsedCache<InetSocketAddress, MessageIdTracker> trackers;
+	/**
+	 * Concurrent trackers. Only used for
+	 * {@link TrackerMode#CONCURRENT_GROUPED}, otherwise {@code null}.
+	 * 
+	 * @since 3.0
+	 */
+	private final ConcurrentLeastRecentlyUsedCache<InetSocketAddress, MessageIdTracker> concurrentTrackers;
 	private final MessageIdTracker multicastTracker;
 	private final TrackerMode mode;
 	private final Random random;
@@ -62,8 +78,9 @@ public class InMemoryMessageIdProvider implements MessageIdProvider {
 	 * <li>{@link CoapConfig#MID_TRACKER}
 	 * - determine the tracker mode. Supported values are "NULL" (for
 	 * {@link NullMessageIdTracker}), "GROUPED" (for
-	 * {@link GroupedMessageIdTracker}), and "MAPBASED" (for
-	 * {@link MapBasedMessageIdTracker}).</li>
+	 * {@link GroupedMessageIdTracker}), "MAPBASED" (for
+	 * {@link MapBasedMessageIdTracker}), and "CONCURRENT_GROUPED" (for
+	 * {@link ConcurrentGroupedMessageIdTracker}).</li>
 	 * <li>{@link CoapConfig#MID_TRACKER_GROUPS}
 	 * - determine the group size for the message IDs, if the grouped tracker is
 	 * used. Each group is marked as <em>in use</em>, if a MID within the group
@@ -96,9 +113,17 @@ public class InMemoryMessageIdProvider implements MessageIdProvider {
 			random = null;
 		}
 		// 10 minutes
-		trackers = new LeastRecentlyUsedCache<>(config.get(CoapConfig.MAX_ACTIVE_PEERS),
-				config.get(CoapConfig.MAX_PEER_INACTIVITY_PERIOD, TimeUnit.SECONDS));
-		trackers.setEvictingOnReadAccess(false);
+		int maxPeers = config.get(CoapConfig.MAX_ACTIVE_PEERS);
+		long inactivity = config.get(CoapConfig.MAX_PEER_INACTIVITY_PERIOD, TimeUnit.SECONDS);
+		if (mode == TrackerMode.CONCURRENT_GROUPED) {
+			trackers = null;
+			concurrentTrackers = new ConcurrentLeastRecentlyUsedCache<>(maxPeers, inactivity);
+			concurrentTrackers.setEvictingOnReadAccess(false);
+		} else {
+			trackers = new LeastRecentlyUsedCache<>(maxPeers, inactivity);
+			trackers.setEvictingOnReadAccess(false);
+			concurrentTrackers = null;
+		}
 		int multicastBaseMid = config.get(CoapConfig.MULTICAST_BASE_MID);
 		if (0 < multicastBaseMid) {
 			this.multicastBaseMid = multicastBaseMid;
@@ -111,6 +136,9 @@ public class InMemoryMessageIdProvider implements MessageIdProvider {
 			case MAPBASED:
 				multicastTracker = new MapBasedMessageIdTracker(mid, multicastBaseMid, max, config);
 				break;
+			case CONCURRENT_GROUPED:
+				multicastTracker = new ConcurrentGroupedMessageIdTracker(mid, multicastBaseMid, max, config);
+				break;
 			case GROUPED:
 			default:
 				multicastTracker = new GroupedMessageIdTracker(mid, multicastBaseMid, max, config);
@@ -124,12 +152,26 @@ public class InMemoryMessageIdProvider implements MessageIdProvider {
 
 	@Override
 	public int getNextMessageId(final InetSocketAddress destination) {
-		MessageIdTracker tracker = getTracker(destination);
+		MessageIdTracker tracker;
+		if (concurrentTrackers != null) {
+			tracker = getConcurrentTracker(destination);
+		} else {
+			tracker = getTracker(destination);
+		}
 		if (tracker == null) {
 			// we have reached the maximum number of active peers
-			String time = trackers.getExpirationThreshold() + "s";
+			long threshold;
+			int size;
+			if (concurrentTrackers != null) {
+				threshold = concurrentTrackers.getExpirationThreshold();
+				size = concurrentTrackers.size();
+			} else {
+				threshold = trackers.getExpirationThreshold();
+				size = trackers.size();
+			}
+			String time = threshold + "s";
 			throw new IllegalStateException(
-					"No MID available, max. peers " + trackers.size() + " exhausted! (Timeout " + time + ".)");
+					"No MID available, max. peers " + size + " exhausted! (Timeout " + time + ".)");
 		} else {
 			return tracker.getNextMessageId();
 		}
@@ -142,30 +184,13 @@ public class InMemoryMessageIdProvider implements MessageIdProvider {
 		// => use special range 0 - 65000
 
 		if (NetworkInterfacesUtil.isMultiAddress(destination.getAddress())) {
-			if (multicastTracker == null) {
-				LOG.warn(
-						"Destination address {} is a multicast address, please configure NetworkConfig to support multicast messaging",
-						destination);
-			}
-			return multicastTracker;
+			return getMulticastTracker(destination);
 		}
 
 		MessageIdTracker tracker = trackers.get(destination);
 		if (tracker == null) {
 			// create new tracker for destination lazily
-			int mid = null == random ? 0 : random.nextInt(multicastBaseMid);
-			switch (mode) {
-			case NULL:
-				tracker = new NullMessageIdTracker(mid, 0, multicastBaseMid);
-				break;
-			case MAPBASED:
-				tracker = new MapBasedMessageIdTracker(mid, 0, multicastBaseMid, config);
-				break;
-			case GROUPED:
-			default:
-				tracker = new GroupedMessageIdTracker(mid, 0, multicastBaseMid, config);
-				break;
-			}
+			tracker = createTracker();
 			if (trackers.put(destination, tracker)) {
 				return tracker;
 			} else {
@@ -174,4 +199,75 @@ public class InMemoryMessageIdProvider implements MessageIdProvider {
 		}
 		return tracker;
 	}
+
+	/**
+	 * Get tracker from {@link #concurrentTrackers}.
+	 * 
+	 * Lookups of already existing trackers are not synchronized. Only the
+	 * creation of a new tracker is synchronized to ensure, that only one
+	 * tracker is used per destination.
+	 * 
+	 * @param destination destination
+	 * @return tracker, or {@code null}, if the maximum number of active peers
+	 *         is reached.
+	 * @since 3.0
+	 */
+	private MessageIdTracker getConcurrentTracker(final InetSocketAddress destination) {
+		if (NetworkInterfacesUtil.isMultiAddress(destination.getAddress())) {
+			return getMulticastTracker(destination);
+		}
+
+		MessageIdTracker tracker = concurrentTrackers.get(destination);
+		if (tracker == null) {
+			synchronized (this) {
+				tracker = concurrentTrackers.get(destination);
+				if (tracker == null) {
+					// create new tracker for destination lazily
+					tracker = createTracker();
+					if (!concurrentTrackers.put(destination, tracker)) {
+						return null;
+					}
+				}
+			}
+		}
+		return tracker;
+	}
+
+	/**
+	 * Get multicast tracker.
+	 * 
+	 * @param destination multicast destination
+	 * @return multicast tracker, or {@code null}, if multicast is not
+	 *         configured.
+	 * @since 3.0
+	 */
+	private MessageIdTracker getMulticastTracker(final InetSocketAddress destination) {
+		if (multicastTracker == null) {
+			LOG.warn(
+					"Destination address {} is a multicast address, please configure NetworkConfig to support multicast messaging",
+					destination);
+		}
+		return multicastTracker;
+	}
+
+	/**
+	 * Create tracker for a unicast destination according the {@link #mode}.
+	 * 
+	 * @return created tracker
+	 * @since 3.0
+	 */
+	private MessageIdTracker createTracker() {
+		int mid = null == random ? 0 : random.nextInt(multicastBaseMid);
+		switch (mode) {
+		case NULL:
+			return new NullMessageIdTracker(mid, 0, multicastBaseMid);
+		case MAPBASED:
+			return new MapBasedMessageIdTracker(mid, 0, multicastBaseMid, config);
+		case CONCURRENT_GROUPED:
+			return new ConcurrentGroupedMessageIdTracker(mid, 0, multicastBaseMid, config);
+		case GROUPED:
+		default:
+			return new GroupedMessageIdTracker(mid, 0, multicastBaseMid, config);
+		}
+	}
 }
@@ -29,7 +29,7 @@ import org.slf4j.LoggerFactory;
 
 /**
  * The deduplication factory creates the deduplicator for a {@link Matcher}. If
- * a server wants to use another deduplicator than the three standard
+ * a server wants to use another deduplicator than the standard
  * deduplicators, it can create its own factory and install it with
  * {@link #setDeduplicatorFactory(DeduplicatorFactory)}.
  */
@@ -79,6 +79,8 @@ public class DeduplicatorFactory {
 			return new SweepDeduplicator(config);
 		case CoapConfig.DEDUPLICATOR_CROP_ROTATION:
 			return new CropRotation(config);
+		case CoapConfig.DEDUPLICATOR_TIMING_WHEEL:
+			return new TimingWheelDeduplicator(config);
 		case CoapConfig.NO_DEDUPLICATOR:
 			return new NoDeduplicator();
 		default:
@@ -0,0 +1,323 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.core.network.deduplication;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.core.network.Exchange;
+import org.eclipse.californium.core.network.KeyMID;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.util.ClockUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This deduplicator uses an in-memory map to store incoming messages and a
+ * hashed timing wheel to expire them.
+ * <p>
+ * The time is divided into ticks of {@link CoapConfig#TIMING_WHEEL_TICK}.
+ * When a message is added, it's also appended to the bucket of the wheel,
+ * which represents the tick its EXCHANGE_LIFETIME expires. On each tick only
+ * the buckets of the passed ticks are processed and the messages of these
+ * buckets are removed. In difference to the {@link SweepDeduplicator}, the map
+ * of all incoming messages is never iterated. Expiring a message is
+ * therefore O(1) per message and doesn't depend on the number of stored
+ * messages.
+ * </p>
+ * <p>
+ * Messages are removed after EXCHANGE_LIFETIME, but at most one tick later.
+ * </p>
+ *
+ * @since 3.0
+ */
+public class TimingWheelDeduplicator implements Deduplicator {
+
+	private final static Logger LOGGER = LoggerFactory.getLogger(TimingWheelDeduplicator.class);
+
+	/**
+	 * Entry of the deduplicator. Kept in both, the map of incoming messages
+	 * and the bucket of the timing wheel.
+	 *
+	 * Uses identity for {@link #equals(Object)}, therefore the bucket
+	 * removes only the same entry from the map.
+	 */
+	private static class WheelEntry {
+
+		/**
+		 * Key of the entry.
+		 */
+		private final KeyMID key;
+		/**
+		 * Exchange to be deduplicated.
+		 */
+		private final Exchange exchange;
+		/**
+		 * Tick, when the entry has expired.
+		 */
+		private final long expireTick;
+
+		private WheelEntry(KeyMID key, Exchange exchange, long expireTick) {
+			this.key = key;
+			this.exchange = exchange;
+			this.expireTick = expireTick;
+		}
+	}
+
+	/** The hash map with all incoming messages. */
+	private final ConcurrentMap<KeyMID, WheelEntry> incomingMessages = new ConcurrentHashMap<>();
+	/**
+	 * Buckets of the timing wheel. Index is the expire-tick modulo the number
+	 * of buckets.
+	 */
+	private final Queue<WheelEntry>[] wheel;
+	/**
+	 * Nano-timestamp of tick {@code 0}.
+	 */
+	private final long startNanos;
+	/**
+	 * Tick in nanoseconds.
+	 */
+	private final long tickNanos;
+	/**
+	 * Exchange lifetime in nanoseconds.
+	 */
+	private final long exchangeLifetimeNanos;
+	private final boolean replace;
+	private final Runnable algorithm = new WheelAlgorithm();
+
+	/**
+	 * Last processed tick. Only accessed by the {@link WheelAlgorithm}.
+	 */
+	private long processedTick;
+	private volatile ScheduledFuture<?> jobStatus;
+	private ScheduledExecutorService executor;
+
+	/**
+	 * Creates a new deduplicator from configuration values.
+	 * <p>
+	 * The following configuration values are used to initialize the timing
+	 * wheel used by this deduplicator:
+	 * <ul>
+	 * <li>{@link CoapConfig#EXCHANGE_LIFETIME} - an exchange is removed from
+	 * this deduplicator if no messages have been received for this number of
+	 * milliseconds</li>
+	 * <li>{@link CoapConfig#TIMING_WHEEL_TICK} - the duration of a tick of the
+	 * timing wheel in milliseconds</li>
+	 * <li>{@link CoapConfig#DEDUPLICATOR_AUTO_REPLACE} - the flag to enable
+	 * exchange replacing, if the new exchange differs from the already stored
+	 * one.</li>
+	 * </ul>
+	 *
+	 * @param config the configuration to use.
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheelDeduplicator(Configuration config) {
+		tickNanos = Math.max(1, config.get(CoapConfig.TIMING_WHEEL_TICK, TimeUnit.NANOSECONDS));
+		exchangeLifetimeNanos = config.get(CoapConfig.EXCHANGE_LIFETIME, TimeUnit.NANOSECONDS);
+		replace = config.get(CoapConfig.DEDUPLICATOR_AUTO_REPLACE);
+		long ticks = (exchangeLifetimeNanos + tickNanos - 1) / tickNanos;
+		int buckets = (int) Math.min(ticks + 2, Integer.MAX_VALUE - 8);
+		wheel = new Queue[buckets];
+		for (int index = 0; index < buckets; ++index) {
+			wheel[index] = new ConcurrentLinkedQueue<>();
+		}
+		startNanos = ClockUtil.nanoRealtime();
+	}
+
+	@Override
+	public synchronized void start() {
+		if (jobStatus == null) {
+			long tick = TimeUnit.NANOSECONDS.toMillis(tickNanos);
+			if (tick == 0) {
+				tick = 1;
+			}
+			jobStatus = executor.scheduleAtFixedRate(algorithm, tick, tick, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (jobStatus != null) {
+			jobStatus.cancel(false);
+			jobStatus = null;
+			clear();
+		}
+	}
+
+	@Override
+	public synchronized void setExecutor(ScheduledExecutorService executor) {
+		if (jobStatus != null)
+			throw new IllegalStateException("executor service can not be set on running Deduplicator");
+		this.executor = executor;
+	}
+
+	@Override
+	public Exchange findPrevious(final KeyMID key, final Exchange exchange) {
+		WheelEntry current = newEntry(key, exchange);
+		WheelEntry previous = incomingMessages.putIfAbsent(key, current);
+
+		if (replace && previous != null && previous.exchange.getOrigin() != exchange.getOrigin()) {
+			if (incomingMessages.replace(key, previous, current)) {
+				LOGGER.debug("replace exchange for {}", key);
+				previous = null;
+			} else {
+				// previous has changed
+				previous = incomingMessages.putIfAbsent(key, current);
+			}
+		}
+
+		if (previous == null) {
+			LOGGER.debug("add exchange for {}", key);
+			add(current);
+			return null;
+		} else {
+			LOGGER.debug("found exchange for {}", key);
+			return previous.exchange;
+		}
+	}
+
+	@Override
+	public boolean replacePrevious(KeyMID key, Exchange previous, Exchange exchange) {
+		WheelEntry current = newEntry(key, exchange);
+		WheelEntry prev = incomingMessages.get(key);
+		boolean result = prev != null && prev.exchange == previous && incomingMessages.replace(key, prev, current);
+		if (!result) {
+			result = incomingMessages.putIfAbsent(key, current) == null;
+		}
+		if (result) {
+			add(current);
+		}
+		return result;
+	}
+
+	@Override
+	public Exchange find(KeyMID key) {
+		WheelEntry previous = incomingMessages.get(key);
+		return null == previous ? null : previous.exchange;
+	}
+
+	@Override
+	public void clear() {
+		incomingMessages.clear();
+		for (Queue<WheelEntry> bucket : wheel) {
+			bucket.clear();
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return incomingMessages.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return incomingMessages.size();
+	}
+
+	/**
+	 * Get tick for nano-timestamp.
+	 *
+	 * @param nanos nano-timestamp
+	 * @return tick
+	 */
+	private long getTick(long nanos) {
+		return (nanos - startNanos) / tickNanos;
+	}
+
+	/**
+	 * Create new entry expiring after the exchange lifetime.
+	 *
+	 * The expire-tick is the tick after the one containing the end of the
+	 * lifetime. If that tick is processed, the lifetime has expired.
+	 *
+	 * @param key the key
+	 * @param exchange the exchange
+	 * @return created entry
+	 */
+	private WheelEntry newEntry(KeyMID key, Exchange exchange) {
+		long expireTick = getTick(ClockUtil.nanoRealtime() + exchangeLifetimeNanos) + 1;
+		return new WheelEntry(key, exchange, expireTick);
+	}
+
+	/**
+	 * Add entry to the bucket of its expire-tick.
+	 *
+	 * @param entry the entry
+	 */
+	private void add(WheelEntry entry) {
+		wheel[(int) (entry.expireTick % wheel.length)].offer(entry);
+	}
+
+	/**
+	 * The wheel algorithm processes the buckets of the passed ticks and
+	 * removes the expired entries.
+	 */
+	private class WheelAlgorithm implements Runnable {
+
+		/**
+		 * This method wraps the method expire() to catch any Exceptions that
+		 * might be thrown.
+		 */
+		@Override
+		public void run() {
+			try {
+				expire();
+			} catch (Throwable t) {
+				LOGGER.warn("Exception in Timing-Wheel algorithm", t);
+			}
+		}
+
+		/**
+		 * Process the buckets of the passed ticks.
+		 *
+		 * If the execution was delayed for more than a wheel rotation, each
+		 * bucket is processed once. Entries, which are not expired, are kept
+		 * in their bucket.
+		 */
+		private void expire() {
+			final long start = ClockUtil.nanoRealtime();
+			final long currentTick = getTick(start);
+			long tick = processedTick + 1;
+			if (currentTick - tick >= wheel.length) {
+				tick = currentTick - wheel.length + 1;
+			}
+			int removed = 0;
+			for (; tick <= currentTick; ++tick) {
+				Iterator<WheelEntry> iterator = wheel[(int) (tick % wheel.length)].iterator();
+				while (iterator.hasNext()) {
+					WheelEntry entry = iterator.next();
+					if (entry.expireTick <= currentTick) {
+						if (incomingMessages.remove(entry.key, entry)) {
+							LOGGER.trace("Timing-Wheel removes {}", entry.key);
+							++removed;
+						}
+						iterator.remove();
+					}
+				}
+			}
+			processedTick = currentTick;
+			if (removed > 0) {
+				LOGGER.debug("Timing-Wheel removed {} entries, took {}ms", removed,
+						TimeUnit.NANOSECONDS.toMillis(ClockUtil.nanoRealtime() - start));
+			}
+		}
+	}
+}
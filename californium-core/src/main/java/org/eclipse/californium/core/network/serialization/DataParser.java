@@ -32,6 +32,9 @@ import org.eclipse.californium.elements.RawData;
 import org.eclipse.californium.elements.util.Bytes;
 import org.eclipse.californium.elements.util.DatagramReader;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 import static org.eclipse.californium.core.coap.CoAP.MessageFormat.PAYLOAD_MARKER;
 
 /**
@@ -39,6 +42,63 @@ import static org.eclipse.californium.core.coap.CoAP.MessageFormat.PAYLOAD_MARKE
  */
 public abstract class DataParser {
 
+	/**
+	 * Initial number of options in the index of the lazy option parsing.
+	 * 
+	 * @since 3.0
+	 */
+	private static final int INITIAL_OPTIONS = 8;
+
+	/**
+	 * Use lazy option parsing.
+	 * 
+	 * @see #DataParser(boolean)
+	 * @since 3.0
+	 */
+	private final boolean lazyOptions;
+
+	/**
+	 * Creates a parser, which decodes all options on parsing.
+	 */
+	public DataParser() {
+		this(false);
+	}
+
+	/**
+	 * Creates a parser.
+	 * 
+	 * With lazy option parsing, {@link #parseMessage(byte[])} and
+	 * {@link #parseMessage(RawData)} only validate the options and record the
+	 * offsets of the option values within the message bytes. The options are
+	 * decoded on the first access to them, see
+	 * {@link OptionSet#setRawOptions(byte[], int[], int)}. That saves the
+	 * allocation of the options, which are never accessed. The payload is
+	 * kept as view on the message bytes, see
+	 * {@link Message#setPayload(java.nio.ByteBuffer)}. The message bytes are
+	 * then not copied and must not be modified afterwards.
+	 * {@link #parseOptionsAndPayload(DatagramReader, Message)} always decodes
+	 * all options.
+	 * 
+	 * @param lazyOptions {@code true}, to use lazy option parsing,
+	 *            {@code false}, to decode all options on parsing.
+	 * @since 3.0
+	 */
+	public DataParser(boolean lazyOptions) {
+		this.lazyOptions = lazyOptions;
+	}
+
+	/**
+	 * Checks, if lazy option parsing is used.
+	 * 
+	 * @return {@code true}, if lazy option parsing is used, {@code false},
+	 *         otherwise.
+	 * @see #DataParser(boolean)
+	 * @since 3.0
+	 */
+	public boolean useLazyOptions() {
+		return lazyOptions;
+	}
+
 	/**
 	 * Parses and converts a incoming raw message into CoAP Message.
 	 * 
@@ -77,16 +137,27 @@ public abstract class DataParser {
 	public final Message parseMessage(final byte[] msg) {
 
 		String errorMsg = "illegal message code";
-		DatagramReader reader = new DatagramReader(msg);
+		DatagramReader reader = new DatagramReader(msg, !lazyOptions);
 		MessageHeader header = parseHeader(reader);
 		try {
 			Message message = null;
 			if (CoAP.isRequest(header.getCode())) {
-				message = parseMessage(reader, header, new Request(CoAP.Code.valueOf(header.getCode())));
+				message = new Request(CoAP.Code.valueOf(header.getCode()));
 			} else if (CoAP.isResponse(header.getCode())) {
-				message = parseMessage(reader, header, new Response(CoAP.ResponseCode.valueOf(header.getCode())));
+				message = new Response(CoAP.ResponseCode.valueOf(header.getCode()));
 			} else if (CoAP.isEmptyMessage(header.getCode())) {
-				message = parseMessage(reader, header, new EmptyMessage(header.getType()));
+				message = new EmptyMessage(header.getType());
+			}
+			if (message != null) {
+				if (lazyOptions) {
+					message.setMID(header.getMID());
+					message.setType(header.getType());
+					message.setToken(header.getToken());
+					int offset = msg.length - reader.bitsLeft() / Byte.SIZE;
+					parseRawOptionsAndPayload(msg, offset, message);
+				} else {
+					message = parseMessage(reader, header, message);
+				}
 			}
 
 			// Set the message's bytes and return the message
@@ -235,6 +306,96 @@ public abstract class DataParser {
 		}
 	}
 
+	/**
+	 * Parse options and payload from the message bytes.
+	 * 
+	 * Validates the options, but only records the offsets of the option values
+	 * within the message bytes. The options are decoded on first access. The
+	 * payload is set as view on the message bytes.
+	 * 
+	 * @param msg message bytes
+	 * @param offset offset of the options and payload in the message bytes
+	 * @param message message to set the raw options and payload
+	 * @throws CoAPMessageFormatException if the options or the payload are not
+	 *             valid
+	 * @see OptionSet#setRawOptions(byte[], int[], int)
+	 * @since 3.0
+	 */
+	private void parseRawOptionsAndPayload(byte[] msg, int offset, Message message) {
+		int[] index = null;
+		int count = 0;
+		int currentOptionNumber = 0;
+		byte nextByte = 0;
+
+		while (offset < msg.length) {
+			nextByte = msg[offset++];
+			if (nextByte == PAYLOAD_MARKER) {
+				break;
+			}
+			try {
+				// the first 4 bits of the byte represent the option delta
+				int optionDeltaNibble = (0xF0 & nextByte) >> 4;
+				currentOptionNumber += determineValueFromNibble(msg, offset, optionDeltaNibble);
+				offset += getNibbleExtensionSize(optionDeltaNibble);
+
+				// the second 4 bits represent the option length
+				int optionLengthNibble = 0x0F & nextByte;
+				int optionLength = determineValueFromNibble(msg, offset, optionLengthNibble);
+				offset += getNibbleExtensionSize(optionLengthNibble);
+
+				// record option
+				if (optionLength <= msg.length - offset) {
+					OptionNumberRegistry.assertValueLength(currentOptionNumber, optionLength);
+					if (index == null) {
+						index = new int[INITIAL_OPTIONS * 3];
+					} else if (count * 3 == index.length) {
+						index = Arrays.copyOf(index, index.length * 2);
+					}
+					int entry = count * 3;
+					index[entry] = currentOptionNumber;
+					index[entry + 1] = offset;
+					index[entry + 2] = optionLength;
+					++count;
+					offset += optionLength;
+				} else {
+					String errorMsg = String.format(
+							"Message contains option of length %d with only fewer bytes left in the message",
+							optionLength);
+					throw new IllegalArgumentException(errorMsg);
+				}
+			} catch (IllegalArgumentException ex) {
+				throw new CoAPMessageFormatException(ex.getMessage(), message.getToken(), message.getMID(),
+						message.getRawCode(), message.isConfirmable());
+			}
+		}
+		if (index != null) {
+			message.getOptions().setRawOptions(msg, index, count);
+		}
+		try {
+			assertValidOptions(message.getOptions());
+		} catch (IllegalArgumentException ex) {
+			throw new CoAPMessageFormatException(ex.getMessage(), message.getToken(), message.getMID(),
+					message.getRawCode(), message.isConfirmable(), ResponseCode.BAD_REQUEST);
+		}
+		if (nextByte == PAYLOAD_MARKER) {
+			// the presence of a marker followed by a zero-length payload must
+			// be processed as a message format error
+			if (offset == msg.length) {
+				throw new CoAPMessageFormatException("Found payload marker (0xFF) but message contains no payload",
+						message.getToken(), message.getMID(), message.getRawCode(), message.isConfirmable());
+			} else {
+				// get payload
+				if (!message.isIntendedPayload()) {
+					message.setUnintendedPayload();
+				}
+				message.setPayload(ByteBuffer.wrap(msg, offset, msg.length - offset));
+				message.assertPayloadMatchsBlocksize();
+			}
+		} else {
+			message.setPayload(Bytes.EMPTY);
+		}
+	}
+
 	/**
 	 * Calculates the number based on the delta (nibble).
 	 * 
@@ -256,4 +417,49 @@ public abstract class DataParser {
 			throw new IllegalArgumentException("Message contains illegal option delta/length: " + delta);
 		}
 	}
+
+	/**
+	 * Calculates the number based on the delta (nibble) from the message
+	 * bytes.
+	 * 
+	 * @param msg message bytes
+	 * @param offset offset of the extended delta in the message bytes
+	 * @param delta the 4-bit option delta value.
+	 * @return the next number.
+	 * @throws IllegalArgumentException if the number cannot be determined due
+	 *             to a message format error.
+	 * @since 3.0
+	 */
+	private static int determineValueFromNibble(byte[] msg, int offset, int delta) {
+		if (delta <= 12) {
+			return delta;
+		} else if (offset + getNibbleExtensionSize(delta) > msg.length) {
+			throw new IllegalArgumentException(
+					"Message contains option delta/length " + delta + " exceeding the message!");
+		} else if (delta == 13) {
+			return (msg[offset] & 0xFF) + 13;
+		} else {
+			return ((msg[offset] & 0xFF) << 8 | (msg[offset + 1] & 0xFF)) + 269;
+		}
+	}
+
+	/**
+	 * Gets the number of bytes of the extended delta (nibble).
+	 * 
+	 * @param delta the 4-bit option delta value.
+	 * @return number of bytes of the extended delta.
+	 * @throws IllegalArgumentException if the delta is reserved.
+	 * @since 3.0
+	 */
+	private static int getNibbleExtensionSize(int delta) {
+		if (delta <= 12) {
+			return 0;
+		} else if (delta == 13) {
+			return 1;
+		} else if (delta == 14) {
+			return 2;
+		} else {
+			throw new IllegalArgumentException("Message contains illegal option delta/length: " + delta);
+		}
+	}
 }
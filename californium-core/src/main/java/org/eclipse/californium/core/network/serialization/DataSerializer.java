@@ -29,6 +29,8 @@
  ******************************************************************************/
 package org.eclipse.californium.core.network.serialization;
 
+import java.nio.ByteBuffer;
+
 import org.eclipse.californium.core.coap.*;
 import org.eclipse.californium.core.coap.CoAP.Type;
 import org.eclipse.californium.elements.MessageCallback;
@@ -225,7 +227,7 @@ public abstract class DataSerializer {
 	 */
 	protected void serializeMessage(DatagramWriter writer, Message message) {
 		DatagramWriter optionsAndPayloadWriter = new DatagramWriter();
-		serializeOptionsAndPayload(optionsAndPayloadWriter, message.getOptions(), message.getPayload());
+		serializeOptionsAndPayload(optionsAndPayloadWriter, message.getOptions(), message.getSharedPayloadBuffer());
 		optionsAndPayloadWriter.writeCurrentByte();
 
 		MessageHeader header = new MessageHeader(CoAP.VERSION, message.getType(), message.getToken(),
@@ -268,6 +270,26 @@ public abstract class DataSerializer {
 	 */
 	public static void serializeOptionsAndPayload(DatagramWriter writer, final OptionSet optionSet,
 			final byte[] payload) {
+		serializeOptionsAndPayload(writer, optionSet, payload == null ? null : ByteBuffer.wrap(payload));
+	}
+
+	/**
+	 * Serialize options and payload. Append the serialized options and payload
+	 * to the writer.
+	 * 
+	 * The payload is written without intermediate copy, if the buffer is
+	 * backed by an array. The position and limit of the buffer are not
+	 * changed.
+	 * 
+	 * @param writer writer to append the data
+	 * @param optionSet option set to be serialized
+	 * @param payload payload to be serialized. Maybe {@code null} for no
+	 *            payload.
+	 * @throws NullPointerException if either writer or options is {@code null}
+	 * @since 3.0
+	 */
+	public static void serializeOptionsAndPayload(DatagramWriter writer, final OptionSet optionSet,
+			final ByteBuffer payload) {
 		if (writer == null) {
 			throw new NullPointerException("writer must not be null!");
 		}
@@ -311,12 +333,18 @@ public abstract class DataSerializer {
 			lastOptionNumber = optionNumber;
 		}
 
-		if (payload != null && payload.length > 0) {
+		if (payload != null && payload.hasRemaining()) {
 			// if payload is present and of non-zero length, it is prefixed by
 			// an one-byte Payload Marker (0xFF) which indicates the end of
 			// options and the start of the payload
 			writer.writeByte(PAYLOAD_MARKER);
-			writer.writeBytes(payload);
+			if (payload.hasArray()) {
+				writer.writeBytes(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+			} else {
+				byte[] bytes = new byte[payload.remaining()];
+				payload.duplicate().get(bytes);
+				writer.writeBytes(bytes);
+			}
 		}
 	}
 
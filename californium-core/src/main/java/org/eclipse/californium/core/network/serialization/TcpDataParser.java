@@ -37,6 +37,25 @@ import static org.eclipse.californium.core.coap.CoAP.MessageFormat.*;
  */
 public final class TcpDataParser extends DataParser {
 
+	/**
+	 * Creates a TCP parser, which decodes all options on parsing.
+	 */
+	public TcpDataParser() {
+		super();
+	}
+
+	/**
+	 * Creates a TCP parser.
+	 * 
+	 * @param lazyOptions {@code true}, to use lazy option parsing,
+	 *            {@code false}, to decode all options on parsing.
+	 * @see DataParser#DataParser(boolean)
+	 * @since 3.0
+	 */
+	public TcpDataParser(boolean lazyOptions) {
+		super(lazyOptions);
+	}
+
 	@Override
 	protected MessageHeader parseHeader(final DatagramReader reader) {
 		if (!reader.bytesAvailable(1)) {
@@ -64,7 +83,7 @@ public final class TcpDataParser extends DataParser {
 			throw new MessageFormatException(
 					"TCP Message too short! " + (reader.bitsLeft() / Byte.SIZE) + " must be at least " + size + " bytes!");
 		}
-		reader.readBytes(lengthSize);
+		reader.skip(lengthSize * Byte.SIZE);
 		int code = reader.read(CODE_BITS);
 		Token token = Token.fromProvider(reader.readBytes(tokenLength));
 
@@ -24,6 +24,10 @@ package org.eclipse.californium.core.network.serialization;
 
 import static org.eclipse.californium.core.coap.CoAP.MessageFormat.*;
 
+import java.nio.ByteBuffer;
+
+import org.eclipse.californium.core.coap.CoAP;
+import org.eclipse.californium.core.coap.Message;
 import org.eclipse.californium.elements.util.DatagramWriter;
 
 /**
@@ -32,6 +36,46 @@ import org.eclipse.californium.elements.util.DatagramWriter;
  */
 public final class TcpDataSerializer extends DataSerializer {
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Serializes only the options ahead in order to determine the body length
+	 * for the header. The payload is written after the header without
+	 * intermediate copy.
+	 * 
+	 * @since 3.0
+	 */
+	@Override
+	protected void serializeMessage(DatagramWriter writer, Message message) {
+		DatagramWriter optionsWriter = new DatagramWriter();
+		serializeOptionsAndPayload(optionsWriter, message.getOptions(), (ByteBuffer) null);
+		optionsWriter.writeCurrentByte();
+		// shared buffer provides access to the backing array
+		ByteBuffer payload = message.getSharedPayloadBuffer();
+		int payloadSize = payload == null ? 0 : payload.remaining();
+		int bodyLength = optionsWriter.size();
+		if (payloadSize > 0) {
+			bodyLength += payloadSize + 1;
+		}
+
+		MessageHeader header = new MessageHeader(CoAP.VERSION, message.getType(), message.getToken(),
+				message.getRawCode(), message.getMID(), bodyLength);
+
+		serializeHeader(writer, header);
+		writer.writeCurrentByte();
+		writer.write(optionsWriter);
+		if (payloadSize > 0) {
+			writer.writeByte(PAYLOAD_MARKER);
+			if (payload.hasArray()) {
+				writer.writeBytes(payload.array(), payload.arrayOffset() + payload.position(), payloadSize);
+			} else {
+				byte[] bytes = new byte[payloadSize];
+				payload.duplicate().get(bytes);
+				writer.writeBytes(bytes);
+			}
+		}
+	}
+
 	@Override protected void serializeHeader(final DatagramWriter writer, final MessageHeader header) {
 		// Variable length encoding per: https://tools.ietf.org/html/draft-ietf-core-coap-tcp-tls-02
 		if (header.getBodyLength() < 13) {
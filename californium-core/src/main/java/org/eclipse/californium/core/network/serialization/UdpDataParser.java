@@ -38,6 +38,25 @@ import org.eclipse.californium.core.coap.BlockOption;
  */
 public final class UdpDataParser extends DataParser {
 
+	/**
+	 * Creates a UDP parser, which decodes all options on parsing.
+	 */
+	public UdpDataParser() {
+		super();
+	}
+
+	/**
+	 * Creates a UDP parser.
+	 * 
+	 * @param lazyOptions {@code true}, to use lazy option parsing,
+	 *            {@code false}, to decode all options on parsing.
+	 * @see DataParser#DataParser(boolean)
+	 * @since 3.0
+	 */
+	public UdpDataParser(boolean lazyOptions) {
+		super(lazyOptions);
+	}
+
 	@Override
 	protected MessageHeader parseHeader(final DatagramReader reader) {
 		if (!reader.bytesAvailable(4)) {
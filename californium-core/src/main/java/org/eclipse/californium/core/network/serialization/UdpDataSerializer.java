@@ -58,7 +58,7 @@ public final class UdpDataSerializer extends DataSerializer {
 				message.getRawCode(), mid, -1);
 		serializeHeader(writer, header);
 		writer.writeCurrentByte();
-		serializeOptionsAndPayload(writer, message.getOptions(), message.getPayload());
+		serializeOptionsAndPayload(writer, message.getOptions(), message.getSharedPayloadBuffer());
 	}
 
 	@Override 
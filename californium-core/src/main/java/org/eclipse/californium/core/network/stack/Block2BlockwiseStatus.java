@@ -26,6 +26,7 @@
  ******************************************************************************/
 package org.eclipse.californium.core.network.stack;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.eclipse.californium.core.coap.BlockOption;
@@ -67,14 +68,14 @@ public final class Block2BlockwiseStatus extends BlockwiseStatus {
 	 * @param removeHandler remove handler for blockwise status
 	 * @param exchange The message exchange the blockwise transfer is part of.
 	 * @param response initial response of the blockwise transfer
-	 * @param maxSize The maximum size of the body to be buffered.
+	 * @param body buffer for the body.
 	 * @param maxTcpBertBulkBlocks The maximum number of bulk blocks for
 	 *            TCP/BERT. {@code 1} or less, disable BERT.
 	 * @since 3.0
 	 */
 	private Block2BlockwiseStatus(KeyUri keyUri, RemoveHandler removeHandler, Exchange exchange, Response response,
-			int maxSize, int maxTcpBertBulkBlocks) {
-		super(keyUri, removeHandler, exchange, response, maxSize, maxTcpBertBulkBlocks);
+			ByteBuffer body, int maxTcpBertBulkBlocks) {
+		super(keyUri, removeHandler, exchange, response, body, maxTcpBertBulkBlocks);
 		Integer observeCount = response.getOptions().getObserve();
 		if (observeCount != null && OptionSet.isValidObserveOption(observeCount)) {
 			// mark this tracker with the observe no of the block it has been
@@ -106,17 +107,9 @@ public final class Block2BlockwiseStatus extends BlockwiseStatus {
 	 */
 	public static Block2BlockwiseStatus forOutboundResponse(KeyUri keyUri, RemoveHandler removeHandler,
 			Exchange exchange, Response response, int maxTcpBertBulkBlocks) {
-		int size = response.getPayloadSize();
-		Block2BlockwiseStatus status = new Block2BlockwiseStatus(keyUri, removeHandler, exchange, response, size, maxTcpBertBulkBlocks);
-		if (size > 0) {
-			try {
-				status.addBlock(response.getPayload());
-				status.flipBlocksBuffer();
-			} catch (BlockwiseTransferException ex) {
-				LOGGER.warn("buffer overflow on start", ex);
-			}
-		}
-		return status;
+		// share the body of the response, don't copy it
+		ByteBuffer body = response.getSharedPayloadBuffer().slice();
+		return new Block2BlockwiseStatus(keyUri, removeHandler, exchange, response, body, maxTcpBertBulkBlocks);
 	}
 
 	/**
@@ -138,7 +131,8 @@ public final class Block2BlockwiseStatus extends BlockwiseStatus {
 		if (block.getOptions().hasSize2()) {
 			bufferSize = block.getOptions().getSize2();
 		}
-		Block2BlockwiseStatus status = new Block2BlockwiseStatus(keyUri, removeHandler, exchange, block, bufferSize, maxTcpBertBulkBlocks);
+		Block2BlockwiseStatus status = new Block2BlockwiseStatus(keyUri, removeHandler, exchange, block,
+				ByteBuffer.allocate(bufferSize), maxTcpBertBulkBlocks);
 		return status;
 	}
 
@@ -308,8 +302,8 @@ public final class Block2BlockwiseStatus extends BlockwiseStatus {
 		boolean m = false;
 
 		if (0 < bodySize && from < bodySize) {
-			byte[] blockPayload = getBlock(from, getCurrentPayloadSize());
-			m = from + blockPayload.length < bodySize;
+			ByteBuffer blockPayload = getBlockBuffer(from, getCurrentPayloadSize());
+			m = from + blockPayload.remaining() < bodySize;
 			block.setPayload(blockPayload);
 		}
 		block.getOptions().setBlock2(szx, m, num);
@@ -0,0 +1,337 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.core.network.stack;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.californium.core.coap.BlockOption;
+import org.eclipse.californium.core.coap.CoAP.Code;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.OptionNumberRegistry;
+import org.eclipse.californium.core.coap.OptionSet;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.elements.util.ClockUtil;
+import org.eclipse.californium.elements.util.ConcurrentLeastRecentlyUsedCache;
+
+/**
+ * Server-side cache for large responses, which are sent blockwise.
+ * <p>
+ * Without this cache, the {@link BlockwiseLayer} passes the GET request of
+ * each client to the resource and keeps the response body for each transfer
+ * in a separate {@link Block2BlockwiseStatus}. If many clients retrieve the
+ * same large resource, e.g. a firmware image, that results in one resource
+ * invocation and one body per client.
+ * <p>
+ * This cache keeps one body per representation and serves the blocks for all
+ * clients from that shared and immutable body. The representation is
+ * identified by the URI and the requested content-format (Accept option). Only
+ * {@link ResponseCode#CONTENT} responses with an ETag for GET requests without
+ * observe option are cached, and only, if the response is marked as
+ * {@link Response#isSharedRepresentation()}. Requests with ETags are only
+ * served from the cache, if one of the ETags matches the cached one. Follow-up
+ * requests for blocks of a replaced representation are therefore passed to the
+ * resource. Requests with a matching ETag, which are not requesting a
+ * follow-up block, are validated with {@link ResponseCode#VALID}. The cache is
+ * bounded by the number of representations, the entries expire after
+ * {@link CoapConfig#BLOCKWISE_RESPONSE_CACHE_LIFETIME}.
+ * <p>
+ * Note: requests for cached representations are not passed to the resource.
+ * Therefore resources must opt-in with
+ * {@link org.eclipse.californium.core.CoapResource#setSharedRepresentation(boolean)},
+ * if they respond the same representation to all clients and don't authorize
+ * them.
+ *
+ * @see CoapConfig#BLOCKWISE_RESPONSE_CACHE_SIZE
+ * @since 3.0
+ */
+public class Block2ResponseCache {
+
+	/**
+	 * Cached representations by key.
+	 *
+	 * @see #getKey(Request)
+	 */
+	private final ConcurrentLeastRecentlyUsedCache<String, Representation> representations;
+	/**
+	 * Number of requests served from the cache.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * Create block2 response cache.
+	 *
+	 * @param capacity maximum number of cached representations
+	 * @param lifetime lifetime of cached representations
+	 * @param unit time unit of lifetime
+	 */
+	public Block2ResponseCache(int capacity, long lifetime, TimeUnit unit) {
+		representations = new ConcurrentLeastRecentlyUsedCache<>(Math.min(capacity, 16), capacity, lifetime, unit);
+		representations.setEvictingOnReadAccess(true);
+		representations.setUpdatingOnReadAccess(false);
+	}
+
+	/**
+	 * Get cached representation for request.
+	 *
+	 * @param request request for the representation
+	 * @return cached representation, or {@code null}, if not available, or
+	 *         the request is not intended to be served from the cache.
+	 */
+	public Representation get(Request request) {
+		if (!isCacheable(request)) {
+			return null;
+		}
+		Representation representation = representations.get(getKey(request));
+		if (representation != null) {
+			OptionSet options = request.getOptions();
+			if (options.getETagCount() == 0 || options.containsETag(representation.etag)) {
+				hits.incrementAndGet();
+				return representation;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Put response for request into the cache.
+	 *
+	 * Replaces a cached representation for the same key.
+	 *
+	 * @param request request of the response
+	 * @param response response with the full body
+	 * @return the cached representation, or {@code null}, if the response is
+	 *         not cacheable or the cache is exhausted.
+	 * @see Response#isSharedRepresentation()
+	 */
+	public Representation put(Request request, Response response) {
+		if (!isCacheable(request) || request.getOptions().getETagCount() > 0 || !isCacheable(response)) {
+			return null;
+		}
+		Representation representation = new Representation(response);
+		if (representations.put(getKey(request), representation)) {
+			return representation;
+		}
+		return null;
+	}
+
+	/**
+	 * Remove expired representations.
+	 *
+	 * @return number of removed representations
+	 */
+	public int removeExpiredEntries() {
+		return representations.removeExpiredEntries(128);
+	}
+
+	/**
+	 * Get number of cached representations.
+	 *
+	 * @return number of cached representations
+	 */
+	public int size() {
+		return representations.size();
+	}
+
+	/**
+	 * Get number of requests served from the cache.
+	 *
+	 * @return number of requests served from the cache
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Remove all representations.
+	 */
+	public void clear() {
+		representations.clear();
+	}
+
+	/**
+	 * Get key of representation for request.
+	 *
+	 * @param request request
+	 * @return key, contains the scheme, host, uri-path, uri-query and accept
+	 *         option.
+	 */
+	private static String getKey(Request request) {
+		OptionSet options = request.getOptions();
+		StringBuilder key = new StringBuilder(request.getScheme());
+		key.append(':');
+		String host = options.getUriHost();
+		if (host != null) {
+			key.append("//").append(host);
+		}
+		key.append(options.getUriString());
+		key.append('#').append(options.getAccept());
+		return key.toString();
+	}
+
+	/**
+	 * Check, if request is cacheable.
+	 *
+	 * @param request request
+	 * @return {@code true}, if the request is a GET without observe option,
+	 *         {@code false}, otherwise.
+	 */
+	private static boolean isCacheable(Request request) {
+		return request.getCode() == Code.GET && !request.getOptions().hasObserve() && !request.isMulticast();
+	}
+
+	/**
+	 * Check, if response is cacheable.
+	 *
+	 * @param response response
+	 * @return {@code true}, if the response is a shared 2.05 with ETag and
+	 *         without observe option, {@code false}, otherwise.
+	 */
+	private static boolean isCacheable(Response response) {
+		OptionSet options = response.getOptions();
+		return response.isSharedRepresentation() && response.getCode() == ResponseCode.CONTENT && options.getETagCount() == 1 && !options.hasObserve()
+				&& !options.hasBlock2() && response.getPayloadSize() > 0;
+	}
+
+	/**
+	 * Cached representation.
+	 *
+	 * Immutable, the blocks are views on the shared body. The body must not
+	 * be modified.
+	 */
+	public static final class Representation {
+
+		/**
+		 * Options of the response.
+		 */
+		private final OptionSet options;
+		/**
+		 * Shared read-only body.
+		 */
+		private final ByteBuffer body;
+		/**
+		 * ETag of the response.
+		 */
+		private final byte[] etag;
+		/**
+		 * Nano-timestamp, when the representation was cached.
+		 */
+		private final long cachedNanos;
+
+		private Representation(Response response) {
+			this.options = new OptionSet(response.getOptions());
+			this.body = response.getSharedPayloadBuffer().slice();
+			this.etag = options.getETags().get(0);
+			this.cachedNanos = ClockUtil.nanoRealtime();
+		}
+
+		/**
+		 * Get remaining Max-Age of the representation.
+		 *
+		 * The Max-Age of the response is reduced by the time the
+		 * representation has been cached.
+		 *
+		 * @return remaining Max-Age in seconds. {@code 0}, if the
+		 *         representation is stale.
+		 */
+		public long getMaxAge() {
+			long cached = TimeUnit.NANOSECONDS.toSeconds(ClockUtil.nanoRealtime() - cachedNanos);
+			long maxAge = options.getMaxAge() - cached;
+			return maxAge < 0 ? 0 : maxAge;
+		}
+
+		/**
+		 * Set the remaining Max-Age.
+		 *
+		 * Skipped, if the response has no Max-Age and the default is still
+		 * valid.
+		 *
+		 * @param response response to set the Max-Age
+		 * @see #getMaxAge()
+		 */
+		private void setMaxAge(Response response) {
+			long maxAge = getMaxAge();
+			if (options.hasMaxAge() || maxAge != OptionNumberRegistry.Defaults.MAX_AGE) {
+				response.getOptions().setMaxAge(maxAge);
+			}
+		}
+
+		/**
+		 * Get size of body.
+		 *
+		 * @return size of body in bytes
+		 */
+		public int getBodySize() {
+			return body.capacity();
+		}
+
+		/**
+		 * Create response to validate the cached representation.
+		 *
+		 * @param request request with matching ETag
+		 * @return 2.03 response with the ETag and without payload
+		 */
+		public Response createValidResponse(Request request) {
+			Response valid = Response.createResponse(request, ResponseCode.VALID);
+			valid.getOptions().addETag(etag);
+			setMaxAge(valid);
+			return valid;
+		}
+
+		/**
+		 * Create response for requested block.
+		 *
+		 * @param request request for the block
+		 * @param block2 block option of the block. The size must already be
+		 *            limited to the preferred size.
+		 * @param maxTcpBertBulkBlocks The maximum number of bulk blocks for
+		 *            TCP/BERT. {@code 1} or less, disable BERT.
+		 * @return response with the block as view on the shared body, or
+		 *         {@link ResponseCode#BAD_OPTION}, if the block is not
+		 *         available.
+		 */
+		public Response createResponseBlock(Request request, BlockOption block2, int maxTcpBertBulkBlocks) {
+			int bodySize = body.capacity();
+			int from = block2.getOffset();
+			if (from >= bodySize) {
+				// peer has requested a non existing block
+				return Response.createResponse(request, ResponseCode.BAD_OPTION);
+			}
+			Response block = Response.createResponse(request, ResponseCode.CONTENT);
+			block.setOptions(options);
+			setMaxAge(block);
+			int size = block2.getSize();
+			if (block2.isBERT()) {
+				size *= maxTcpBertBulkBlocks;
+			}
+			if (block2.getNum() == 0) {
+				if (!block.getOptions().hasSize2()) {
+					// indicate overall size to peer
+					block.getOptions().setSize2(bodySize);
+				}
+			}
+			int to = Math.min(from + size, bodySize);
+			ByteBuffer payload = body.duplicate();
+			((Buffer) payload).position(from);
+			((Buffer) payload).limit(to);
+			boolean m = to < bodySize;
+			block.setPayload(payload);
+			block.getOptions().setBlock2(block2.getSzx(), m, block2.getNum());
+			return block;
+		}
+	}
+}
@@ -79,6 +79,7 @@ import org.eclipse.californium.core.network.Exchange;
 import org.eclipse.californium.core.server.resources.Resource;
 import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.elements.config.SystemConfig;
+import org.eclipse.californium.elements.util.ConcurrentLeastRecentlyUsedCache;
 import org.eclipse.californium.elements.util.LeastRecentlyUsedCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -128,8 +129,11 @@ import org.slf4j.LoggerFactory;
  * <p>
  * Synchronization: The blockwise-layer uses synchronization to prevent from
  * failures caused by race-conditions. All blockwise-status are kept in
- * {@link #block1Transfers} or {@link #block1Transfers}. Add, get, remove a
- * blockwise-status are executed synchronized on these collection.
+ * {@link #block1Transfers} or {@link #block2Transfers}. These are concurrent
+ * caches, lookups don't require a lock. Add, get-or-create, and remove a
+ * blockwise-status are executed synchronized on the lock of the
+ * {@link KeyUri}, see {@link #getTransferLock(KeyUri)}. Transfers with
+ * different keys therefore don't serialize on a single endpoint-wide lock.
  * <ul>
  * <li>{@link #getOutboundBlock1Status(KeyUri, Exchange, Request, boolean)}</li>
  * <li>{@link #getInboundBlock1Status(KeyUri, Exchange, Request, boolean)}</li>
@@ -141,9 +145,9 @@ import org.slf4j.LoggerFactory;
  * <li>{@link #clearBlock2Status(Block2BlockwiseStatus)}</li>
  * </ul>
  * All operations on a single blockwise-status are executed synchronized to that
- * status. It's important to always first access the transfer-collection and
- * within that the status synchronized section. It's not possible to access the
- * transfer-collection within a synchronized section of a blockwise-status.
+ * status. It's important to always first acquire the lock of the key and
+ * within that the status synchronized section. It's not possible to acquire
+ * the lock of the key within a synchronized section of a blockwise-status.
  * 
  * Note: since 3.0 the blockwise transfer has been redesigned. It is now based
  * on the {@link BlockOption#getOffset()} rather then previously on the
@@ -201,6 +205,13 @@ public class BlockwiseLayer extends AbstractLayer {
 	// (see https://tools.ietf.org/html/rfc7959#section-2.2)
 	private static final int MINIMAL_BLOCK_SIZE = 16;
 
+	/**
+	 * Number of locks for the transfers. Must be a power of 2.
+	 * 
+	 * @since 3.0
+	 */
+	private static final int TRANSFER_LOCKS = 64;
+
 	private static final Logger LOGGER = LoggerFactory.getLogger(BlockwiseLayer.class);
 	private static final Logger HEALTH_LOGGER = LoggerFactory.getLogger(LOGGER.getName() + ".health");
 	private final BlockwiseStatus.RemoveHandler removeHandler = new BlockwiseStatus.RemoveHandler() {
@@ -215,8 +226,21 @@ public class BlockwiseLayer extends AbstractLayer {
 		}
 
 	};
-	private final LeastRecentlyUsedCache<KeyUri, Block1BlockwiseStatus> block1Transfers;
-	private final LeastRecentlyUsedCache<KeyUri, Block2BlockwiseStatus> block2Transfers;
+	private final ConcurrentLeastRecentlyUsedCache<KeyUri, Block1BlockwiseStatus> block1Transfers;
+	private final ConcurrentLeastRecentlyUsedCache<KeyUri, Block2BlockwiseStatus> block2Transfers;
+	/**
+	 * Striped locks for transfers. Indexed by the hash of the {@link KeyUri}.
+	 * 
+	 * @since 3.0
+	 */
+	private final Object[] transferLocks = new Object[TRANSFER_LOCKS];
+	/**
+	 * Server-side block2 response cache. {@code null}, if disabled.
+	 * 
+	 * @see CoapConfig#BLOCKWISE_RESPONSE_CACHE_SIZE
+	 * @since 3.0
+	 */
+	private final Block2ResponseCache responseCache;
 	private final AtomicInteger ignoredBlock2 = new AtomicInteger();
 	private final String tag;
 	private volatile boolean enableStatus;
@@ -266,6 +290,13 @@ public class BlockwiseLayer extends AbstractLayer {
 	 * - This value is used to indicate if the response should always include
 	 * the Block2 option when client request early blockwise negociation but the
 	 * response can be sent on one packet.</li>
+	 * 
+	 * <li>{@link CoapConfig#BLOCKWISE_RESPONSE_CACHE_SIZE}
+	 * - The maximum number of responses in the server-side
+	 * {@link Block2ResponseCache}. {@code 0} disables the cache.</li>
+	 * 
+	 * <li>{@link CoapConfig#BLOCKWISE_RESPONSE_CACHE_LIFETIME}
+	 * - The lifetime of the responses in the {@link Block2ResponseCache}.</li>
 	 * </ul>
 	 * 
 	 * @param tag logging tag
@@ -292,8 +323,11 @@ public class BlockwiseLayer extends AbstractLayer {
 		blockTimeout = config.getTimeAsInt(CoapConfig.BLOCKWISE_STATUS_LIFETIME, TimeUnit.MILLISECONDS);
 		blockInterval = config.getTimeAsInt(CoapConfig.BLOCKWISE_STATUS_INTERVAL,TimeUnit.MILLISECONDS);
 		maxResourceBodySize = config.get(CoapConfig.MAX_RESOURCE_BODY_SIZE);
+		for (int index = 0; index < transferLocks.length; ++index) {
+			transferLocks[index] = new Object();
+		}
 		int maxActivePeers = config.get(CoapConfig.MAX_ACTIVE_PEERS);
-		block1Transfers = new LeastRecentlyUsedCache<>(maxActivePeers / 10, maxActivePeers, blockTimeout,
+		block1Transfers = new ConcurrentLeastRecentlyUsedCache<>(maxActivePeers / 10, maxActivePeers, blockTimeout,
 				TimeUnit.MILLISECONDS);
 		block1Transfers.setEvictingOnReadAccess(false);
 		block1Transfers.addEvictionListener(new LeastRecentlyUsedCache.EvictionListener<Block1BlockwiseStatus>() {
@@ -306,7 +340,7 @@ public class BlockwiseLayer extends AbstractLayer {
 				}
 			}
 		});
-		block2Transfers = new LeastRecentlyUsedCache<>(maxActivePeers / 10, maxActivePeers, blockTimeout,
+		block2Transfers = new ConcurrentLeastRecentlyUsedCache<>(maxActivePeers / 10, maxActivePeers, blockTimeout,
 				TimeUnit.MILLISECONDS);
 		block2Transfers.setEvictingOnReadAccess(false);
 		block2Transfers.addEvictionListener(new LeastRecentlyUsedCache.EvictionListener<Block2BlockwiseStatus>() {
@@ -320,6 +354,14 @@ public class BlockwiseLayer extends AbstractLayer {
 			}
 		});
 		strictBlock2Option = config.get(CoapConfig.BLOCKWISE_STRICT_BLOCK2_OPTION);
+		int responseCacheSize = config.get(CoapConfig.BLOCKWISE_RESPONSE_CACHE_SIZE);
+		if (responseCacheSize > 0) {
+			responseCache = new Block2ResponseCache(responseCacheSize,
+					config.get(CoapConfig.BLOCKWISE_RESPONSE_CACHE_LIFETIME, TimeUnit.MILLISECONDS),
+					TimeUnit.MILLISECONDS);
+		} else {
+			responseCache = null;
+		}
 
 		healthStatusInterval = config.get(SystemConfig.HEALTH_STATUS_INTERVAL, TimeUnit.MILLISECONDS);
 
@@ -363,6 +405,10 @@ public class BlockwiseLayer extends AbstractLayer {
 							}
 						}
 						HEALTH_LOGGER.debug("{}{} block2 responses ignored", tag, ignoredBlock2.get());
+						if (responseCache != null) {
+							HEALTH_LOGGER.debug("{}{} block2 responses cached, {} requests served from cache", tag,
+									responseCache.size(), responseCache.getHits());
+						}
 						cleanupExpiredBlockStatus(true);
 					}
 				}
@@ -479,9 +525,18 @@ public class BlockwiseLayer extends AbstractLayer {
 					handleInboundRequestForNextBlock(exchange, request, status);
 					return;
 				}
-				LOGGER.debug(
-						"{}peer wants to retrieve individual block2 {} of {}, delivering request to application layer",
-						tag, block2, key);
+				if (responseCache == null) {
+					LOGGER.debug(
+							"{}peer wants to retrieve individual block2 {} of {}, delivering request to application layer",
+							tag, block2, key);
+				}
+			}
+			if (responseCache != null) {
+				Block2ResponseCache.Representation representation = responseCache.get(request);
+				if (representation != null) {
+					handleInboundRequestFromCache(exchange, request, representation);
+					return;
+				}
 			}
 		}
 
@@ -602,6 +657,45 @@ public class BlockwiseLayer extends AbstractLayer {
 		lower().sendResponse(exchange, nextBlockResponse);
 	}
 
+	/**
+	 * Respond block of cached representation.
+	 * 
+	 * @param exchange exchange of the request
+	 * @param request request for the block
+	 * @param representation cached representation
+	 * @since 3.0
+	 */
+	private void handleInboundRequestFromCache(Exchange exchange, Request request,
+			Block2ResponseCache.Representation representation) {
+		BlockOption block2 = request.getOptions().getBlock2();
+		if (block2 != null) {
+			block2 = getLimitedBlockOption(block2);
+		} else {
+			block2 = new BlockOption(preferredBlockSzx, false, 0);
+		}
+		if (block2.getNum() == 0 && request.getOptions().getETagCount() > 0) {
+			// validation request, the cache has already checked the ETags
+			Response valid = representation.createValidResponse(request);
+			LOGGER.debug("{}peer has validated cached response", tag);
+			exchange.setCurrentResponse(valid);
+			lower().sendResponse(exchange, valid);
+			return;
+		}
+		if (block2.getNum() == 0) {
+			// the new transfer replaces a previous one
+			KeyUri key = KeyUri.getKey(exchange);
+			Block2BlockwiseStatus previousStatus = getBlock2Status(key);
+			if (previousStatus != null && previousStatus.completeResponse()) {
+				clearBlock2Status(previousStatus);
+				LOGGER.debug("{}stop previous block2 transfer {} {} for cached response", tag, key, previousStatus);
+			}
+		}
+		Response block = representation.createResponseBlock(request, block2, maxTcpBertBulkBlocks);
+		LOGGER.debug("{}peer has requested block {} of cached response", tag, block2);
+		exchange.setCurrentResponse(block);
+		lower().sendResponse(exchange, block);
+	}
+
 	/**
 	 * Invoked when a response is sent to a peer.
 	 * <p>
@@ -663,6 +757,9 @@ public class BlockwiseLayer extends AbstractLayer {
 				// client/resource.
 				// So we clean previous transfer (priority to the new one)
 				Block2BlockwiseStatus status = getOutboundBlock2Status(key, exchange, response, true);
+				if (responseCache != null && responseCache.put(exchange.getRequest(), response) != null) {
+					LOGGER.debug("{}cached response for {}", tag, key);
+				}
 				BlockOption block2;
 				if (requestBlock2 != null) {
 					block2 = getLimitedBlockOption(requestBlock2);
@@ -748,7 +845,7 @@ public class BlockwiseLayer extends AbstractLayer {
 						resp.setType(Type.NON);
 					}
 					resp.setSourceContext(response.getSourceContext());
-					resp.setPayload(response.getPayload());
+					resp.setPayload(response.getSharedPayloadBuffer());
 					resp.setOptions(response.getOptions());
 					resp.setApplicationRttNanos(exchange.calculateApplicationRtt());
 					Long rtt = response.getTransmissionRttNanos();
@@ -819,7 +916,7 @@ public class BlockwiseLayer extends AbstractLayer {
 							&& block1.getSize() < initialRequest.getPayloadSize();
 
 					Block1BlockwiseStatus status;
-					synchronized (block1Transfers) {
+					synchronized (getTransferLock(key)) {
 						status = getBlock1Status(key);
 						if (status == null && start) {
 							// We sent a request without using block1 and
@@ -871,7 +968,7 @@ public class BlockwiseLayer extends AbstractLayer {
 						maxSize = initialRequest.getPayloadSize() - 1;
 					}
 					if (maxSize != null) {
-						synchronized (block1Transfers) {
+						synchronized (getTransferLock(key)) {
 							if (getBlock1Status(key) == null) {
 								// Start blockwise if we guess a correct size
 								int blockszx = BlockOption.size2Szx(maxSize);
@@ -1106,7 +1203,7 @@ public class BlockwiseLayer extends AbstractLayer {
 			upper().receiveResponse(exchange, response);
 		} else {
 			Block2BlockwiseStatus status;
-			synchronized (block2Transfers) {
+			synchronized (getTransferLock(key)) {
 				status = getBlock2Status(key);
 				if (discardBlock2(key, status, exchange, response)) {
 					return;
@@ -1219,7 +1316,7 @@ public class BlockwiseLayer extends AbstractLayer {
 	 * 
 	 * If not available, create new block1status,
 	 * 
-	 * Synchronized on {@link #block1Transfers}.
+	 * Synchronized on the {@link #getTransferLock(KeyUri)}.
 	 * 
 	 * @param key uri-key
 	 * @param exchange blockwise exchange.
@@ -1236,7 +1333,7 @@ public class BlockwiseLayer extends AbstractLayer {
 		Integer size = null;
 		Block1BlockwiseStatus previousStatus = null;
 		Block1BlockwiseStatus status = null;
-		synchronized (block1Transfers) {
+		synchronized (getTransferLock(key)) {
 			if (reset) {
 				previousStatus = block1Transfers.remove(key);
 			} else {
@@ -1268,7 +1365,7 @@ public class BlockwiseLayer extends AbstractLayer {
 	 * If {@code true} is provided for {@code reset}, remove and complete the
 	 * previous block1status. If not available, create new block1status.
 	 * 
-	 * Synchronized on {@link #block1Transfers}.
+	 * Synchronized on the {@link #getTransferLock(KeyUri)}.
 	 * 
 	 * @param key uri-key
 	 * @param exchange blockwise exchange.
@@ -1286,7 +1383,7 @@ public class BlockwiseLayer extends AbstractLayer {
 		Block1BlockwiseStatus previousStatus = null;
 		Block1BlockwiseStatus status = null;
 		int maxPayloadSize = getMaxResourceBodySize(request);
-		synchronized (block1Transfers) {
+		synchronized (getTransferLock(key)) {
 			if (reset) {
 				previousStatus = block1Transfers.remove(key);
 			} else {
@@ -1320,7 +1417,7 @@ public class BlockwiseLayer extends AbstractLayer {
 	 * If {@code true} is provided for {@code reset}, remove and complete the
 	 * previous block2status. If not available, create new block2status.
 	 * 
-	 * Synchronized on {@link #block2Transfers}.
+	 * Synchronized on the {@link #getTransferLock(KeyUri)}.
 	 * 
 	 * @param key uri-key
 	 * @param exchange blockwise exchange.
@@ -1337,7 +1434,7 @@ public class BlockwiseLayer extends AbstractLayer {
 		Integer size = null;
 		Block2BlockwiseStatus previousStatus = null;
 		Block2BlockwiseStatus status = null;
-		synchronized (block2Transfers) {
+		synchronized (getTransferLock(key)) {
 			if (reset) {
 				previousStatus = block2Transfers.remove(key);
 			} else {
@@ -1368,7 +1465,7 @@ public class BlockwiseLayer extends AbstractLayer {
 	 * 
 	 * If not available, create new block2status,
 	 * 
-	 * Synchronized on {@link #block2Transfers}.
+	 * Synchronized on the {@link #getTransferLock(KeyUri)}.
 	 * 
 	 * @param key uri-key
 	 * @param exchange blockwise exchange.
@@ -1380,7 +1477,7 @@ public class BlockwiseLayer extends AbstractLayer {
 		Integer size = null;
 		int maxPayloadSize = getMaxResourceBodySize(response);
 		Block2BlockwiseStatus status;
-		synchronized (block2Transfers) {
+		synchronized (getTransferLock(key)) {
 			status = block2Transfers.get(key);
 			if (status == null) {
 				status = Block2BlockwiseStatus.forInboundResponse(key, removeHandler, exchange, response,
@@ -1400,31 +1497,41 @@ public class BlockwiseLayer extends AbstractLayer {
 	/**
 	 * Get block1status.
 	 * 
-	 * Synchronized on {@link #block1Transfers}.
+	 * Not synchronized, the transfers are kept in a concurrent cache.
 	 * 
 	 * @param key uri-key
 	 * @return block1status, or {@code null}, if not available.
 	 */
 	private Block1BlockwiseStatus getBlock1Status(final KeyUri key) {
-
-		synchronized (block1Transfers) {
-			return block1Transfers.get(key);
-		}
+		return block1Transfers.get(key);
 	}
 
 	/**
 	 * Get block2status.
 	 * 
-	 * Synchronized on {@link #block2Transfers}.
+	 * Not synchronized, the transfers are kept in a concurrent cache.
 	 * 
 	 * @param key uri-key
 	 * @return block2status, or {@code null}, if not available.
 	 */
 	private Block2BlockwiseStatus getBlock2Status(final KeyUri key) {
+		return block2Transfers.get(key);
+	}
 
-		synchronized (block2Transfers) {
-			return block2Transfers.get(key);
-		}
+	/**
+	 * Get lock for transfers of the provided key.
+	 * 
+	 * Used for both, block1 and block2 transfers. Ensures, that get, create,
+	 * and remove of a blockwise-status is atomic for that key.
+	 * 
+	 * @param key uri-key
+	 * @return lock for the key
+	 * @since 3.0
+	 */
+	private Object getTransferLock(final KeyUri key) {
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		return transferLocks[hash & (TRANSFER_LOCKS - 1)];
 	}
 
 	/**
@@ -1435,12 +1542,10 @@ public class BlockwiseLayer extends AbstractLayer {
 	 *            with {@code info}, when expired status are removed.
 	 */
 	private void cleanupExpiredBlockStatus(boolean dump) {
-		int count = 0;
-		synchronized (block1Transfers) {
-			count += block1Transfers.removeExpiredEntries(128);
-		}
-		synchronized (block2Transfers) {
-			count += block2Transfers.removeExpiredEntries(128);
+		int count = block1Transfers.removeExpiredEntries(128);
+		count += block2Transfers.removeExpiredEntries(128);
+		if (responseCache != null) {
+			responseCache.removeExpiredEntries();
 		}
 		if (dump) {
 			HEALTH_LOGGER.debug("{}cleaned up {} block transfers!", tag, count);
@@ -1452,22 +1557,18 @@ public class BlockwiseLayer extends AbstractLayer {
 	/**
 	 * Clear block1status.
 	 * 
-	 * Synchronized on {@link #block1Transfers}.
+	 * Not synchronized, removes the status only, if it's still the current
+	 * one.
 	 * 
 	 * @param status status to remove
 	 * @return removed status, or {@code null}, if status is not a current
 	 *         transfer.
 	 */
 	private Block1BlockwiseStatus clearBlock1Status(Block1BlockwiseStatus status) {
-		int size;
-		Block1BlockwiseStatus removedTracker;
-		synchronized (block1Transfers) {
-			removedTracker = block1Transfers.remove(status.getKeyUri(), status);
-			size = block1Transfers.size();
-		}
+		Block1BlockwiseStatus removedTracker = block1Transfers.remove(status.getKeyUri(), status);
 		if (removedTracker != null && removedTracker.complete()) {
 			LOGGER.debug("{}removing block1 tracker [{}], block1 transfers still in progress: {}", tag,
-					status.getKeyUri(), size);
+					status.getKeyUri(), block1Transfers.size());
 		}
 		return removedTracker;
 	}
@@ -1475,22 +1576,18 @@ public class BlockwiseLayer extends AbstractLayer {
 	/**
 	 * Clear block2status.
 	 * 
-	 * Synchronized on {@link #block2Transfers}.
+	 * Not synchronized, removes the status only, if it's still the current
+	 * one.
 	 * 
 	 * @param status status to remove
 	 * @return removed status, or {@code null}, if status is not a current
 	 *         transfer.
 	 */
 	private Block2BlockwiseStatus clearBlock2Status(Block2BlockwiseStatus status) {
-		int size;
-		Block2BlockwiseStatus removedTracker;
-		synchronized (block2Transfers) {
-			removedTracker = block2Transfers.remove(status.getKeyUri(), status);
-			size = block2Transfers.size();
-		}
+		Block2BlockwiseStatus removedTracker = block2Transfers.remove(status.getKeyUri(), status);
 		if (removedTracker != null && removedTracker.complete()) {
 			LOGGER.debug("{}removing block2 tracker [{}], block2 transfers still in progress: {}", tag,
-					status.getKeyUri(), size);
+					status.getKeyUri(), block2Transfers.size());
 		}
 		return removedTracker;
 	}
@@ -75,6 +75,27 @@ public abstract class BlockwiseStatus {
 	 */
 	protected BlockwiseStatus(KeyUri keyUri, RemoveHandler removeHandler, Exchange exchange, Message first,
 			int maxSize, int maxTcpBertBulkBlocks) {
+		this(keyUri, removeHandler, exchange, first, ByteBuffer.allocate(maxSize), maxTcpBertBulkBlocks);
+	}
+
+	/**
+	 * Creates a new blockwise status for a provided body.
+	 * 
+	 * The body is not copied. It's used as shared read-only buffer for the
+	 * blocks of an outgoing transfer.
+	 * 
+	 * @param keyUri key uri of the blockwise transfer
+	 * @param removeHandler remove handler for blockwise status
+	 * @param exchange exchange of the blockwise transfer
+	 * @param first first message of the blockwise transfer
+	 * @param body buffer for the body. The position must be {@code 0} and the
+	 *            limit the capacity.
+	 * @param maxTcpBertBulkBlocks The maximum number of bulk blocks for
+	 *            TCP/BERT. {@code 1} or less, disable BERT.
+	 * @since 3.0
+	 */
+	protected BlockwiseStatus(KeyUri keyUri, RemoveHandler removeHandler, Exchange exchange, Message first,
+			ByteBuffer body, int maxTcpBertBulkBlocks) {
 		if (keyUri == null) {
 			throw new NullPointerException("Key URI must not be null!");
 		}
@@ -84,7 +105,7 @@ public abstract class BlockwiseStatus {
 		if (first == null) {
 			throw new NullPointerException("First message must not be null!");
 		}
-		if (maxSize == 0) {
+		if (body.capacity() == 0) {
 			throw new IllegalArgumentException("max. size must not be 0!");
 		}
 		this.keyUri = keyUri;
@@ -93,7 +114,7 @@ public abstract class BlockwiseStatus {
 		this.firstMessage.setProtectFromOffload();
 		this.exchange = exchange;
 		this.contentFormat = first.getOptions().getContentFormat();
-		this.buf = ByteBuffer.allocate(maxSize);
+		this.buf = body;
 		this.maxTcpBertBulkBlocks = maxTcpBertBulkBlocks;
 		if (maxTcpBertBulkBlocks > 1) {
 			currentSzx = BlockOption.BERT_SZX;
@@ -295,6 +316,26 @@ public abstract class BlockwiseStatus {
 		return payload;
 	}
 
+	/**
+	 * Get block from buffer as view.
+	 * 
+	 * The block is not copied. The view shares the backing array with the
+	 * buffer, so the serializer is able to write the block without copying
+	 * it. The content of the view must not be modified.
+	 * 
+	 * @param position position of block
+	 * @param length length of block
+	 * @return view on the block. The length is truncated to the remaining
+	 *         bytes in buffer.
+	 * @since 3.0
+	 */
+	protected final ByteBuffer getBlockBuffer(int position, int length) {
+		ByteBuffer block = buf.duplicate();
+		((Buffer) block).position(position);
+		((Buffer) block).limit(Math.min(position + length, buf.limit()));
+		return block;
+	}
+
 	/**
 	 * Adds a block to the buffer.
 	 *
@@ -45,7 +45,7 @@ import org.eclipse.californium.core.network.stack.congestioncontrol.LinuxRto;
 import org.eclipse.californium.core.network.stack.congestioncontrol.PeakhopperRto;
 import org.eclipse.californium.core.observe.ObserveRelation;
 import org.eclipse.californium.elements.config.Configuration;
-import org.eclipse.californium.elements.util.LeastRecentlyUsedCache;
+import org.eclipse.californium.elements.util.ConcurrentLeastRecentlyUsedCache;
 
 /**
  * The optional Congestion Control (CC) Layer for the Californium CoAP
@@ -113,6 +113,15 @@ import org.eclipse.californium.elements.util.LeastRecentlyUsedCache;
  * Additionally, the mean value of a small history of RTO values is used.
  * 
  * All seems to be experimental and may result in different performance.
+ * 
+ * <h2>Synchronization</h2>
+ * 
+ * The remote endpoints are kept in a {@link ConcurrentLeastRecentlyUsedCache}
+ * and are read without locking. Only the creation of a remote endpoint is
+ * synchronized, using one of several locks selected by the peer's address, see
+ * {@link #getRemoteEndpointLock(InetSocketAddress)}. The RTO state of a remote
+ * endpoint is updated lock-free, the queues of a remote endpoint are still
+ * synchronized to that endpoint.
  */
 public abstract class CongestionControlLayer extends ReliabilityLayer {
 
@@ -123,8 +132,24 @@ public abstract class CongestionControlLayer extends ReliabilityLayer {
 	private final static int MIN_RTO = 500;
 	private final static int MAX_RTO = 60000;
 
+	/**
+	 * Number of locks for the creation of remote endpoints. Must be a power of
+	 * 2.
+	 * 
+	 * @since 3.0
+	 */
+	private final static int REMOTE_ENDPOINT_LOCKS = 64;
+
 	/** The map of remote endpoints */
-	private LeastRecentlyUsedCache<InetSocketAddress, RemoteEndpoint> remoteEndpoints;
+	private final ConcurrentLeastRecentlyUsedCache<InetSocketAddress, RemoteEndpoint> remoteEndpoints;
+
+	/**
+	 * Locks for the creation of remote endpoints.
+	 * 
+	 * @see #getRemoteEndpointLock(InetSocketAddress)
+	 * @since 3.0
+	 */
+	private final Object[] remoteEndpointLocks = new Object[REMOTE_ENDPOINT_LOCKS];
 
 	/** The configuration */
 	protected final Configuration config;
@@ -153,20 +178,26 @@ public abstract class CongestionControlLayer extends ReliabilityLayer {
 		super(config);
 		this.tag = tag;
 		this.config = config;
-		this.remoteEndpoints = new LeastRecentlyUsedCache<>(config.get(CoapConfig.MAX_ACTIVE_PEERS),
-				config.get(CoapConfig.MAX_PEER_INACTIVITY_PERIOD, TimeUnit.SECONDS));
+		int maxActivePeers = config.get(CoapConfig.MAX_ACTIVE_PEERS);
+		this.remoteEndpoints = new ConcurrentLeastRecentlyUsedCache<>(maxActivePeers / 10, maxActivePeers,
+				config.get(CoapConfig.MAX_PEER_INACTIVITY_PERIOD, TimeUnit.SECONDS), TimeUnit.SECONDS);
 		this.remoteEndpoints.setEvictingOnReadAccess(false);
+		for (int index = 0; index < remoteEndpointLocks.length; ++index) {
+			remoteEndpointLocks[index] = new Object();
+		}
 		setDithering(false);
 	}
 
 	@Override
 	public void start() {
+		super.start();
 		statistic = new CongestionStatisticLogger(tag, 5000, TimeUnit.MILLISECONDS, executor);
 		statistic.start();
 	}
 
 	@Override
 	public void destroy() {
+		super.destroy();
 		CongestionStatisticLogger statistic = this.statistic;
 		if (statistic != null) {
 			if (statistic.stop()) {
@@ -201,14 +232,32 @@ public abstract class CongestionControlLayer extends ReliabilityLayer {
 			message = exchange.getCurrentResponse();
 		}
 		InetSocketAddress remoteSocketAddress = message.getDestinationContext().getPeerAddress();
-		synchronized (remoteEndpoints) {
-			RemoteEndpoint remoteEndpoint = remoteEndpoints.get(remoteSocketAddress);
-			if (remoteEndpoint == null) {
-				remoteEndpoint = createRemoteEndpoint(remoteSocketAddress);
-				remoteEndpoints.put(remoteSocketAddress, remoteEndpoint);
+		RemoteEndpoint remoteEndpoint = remoteEndpoints.get(remoteSocketAddress);
+		if (remoteEndpoint == null) {
+			synchronized (getRemoteEndpointLock(remoteSocketAddress)) {
+				remoteEndpoint = remoteEndpoints.get(remoteSocketAddress);
+				if (remoteEndpoint == null) {
+					remoteEndpoint = createRemoteEndpoint(remoteSocketAddress);
+					remoteEndpoints.put(remoteSocketAddress, remoteEndpoint);
+				}
 			}
-			return remoteEndpoint;
 		}
+		return remoteEndpoint;
+	}
+
+	/**
+	 * Get lock for the creation of the remote endpoint.
+	 * 
+	 * Ensures, that only one remote endpoint is created for a peer.
+	 * 
+	 * @param remoteSocketAddress peer's address
+	 * @return lock for the peer's address
+	 * @since 3.0
+	 */
+	private Object getRemoteEndpointLock(InetSocketAddress remoteSocketAddress) {
+		int hash = remoteSocketAddress.hashCode();
+		hash ^= (hash >>> 16);
+		return remoteEndpointLocks[hash & (REMOTE_ENDPOINT_LOCKS - 1)];
 	}
 
 	/**
@@ -606,7 +655,7 @@ public abstract class CongestionControlLayer extends ReliabilityLayer {
 							}
 						} finally {
 							if (time > 0) {
-								executor.schedule(BucketTask.this, time, TimeUnit.MILLISECONDS);
+								schedule(BucketTask.this, time);
 							} else {
 								executor.execute(BucketTask.this);
 							}
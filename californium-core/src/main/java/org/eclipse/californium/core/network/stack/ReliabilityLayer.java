@@ -54,6 +54,7 @@ import org.eclipse.californium.core.network.Exchange;
 import org.eclipse.californium.elements.EndpointContext;
 import org.eclipse.californium.elements.EndpointContextUtil;
 import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.util.HashedWheelTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -79,6 +80,15 @@ public class ReliabilityLayer extends AbstractLayer {
 	 */
 	private final int maxLeisureMillis;
 
+	/**
+	 * Hashed wheel timer for retransmissions and delayed responses.
+	 * {@code null}, if the main executor is used.
+	 * 
+	 * @see CoapConfig#RETRANSMISSION_TIMER_TICK
+	 * @since 3.0
+	 */
+	private final HashedWheelTimer timer;
+
 	/**
 	 * Constructs a new reliability layer.
 	 * 
@@ -88,6 +98,8 @@ public class ReliabilityLayer extends AbstractLayer {
 	public ReliabilityLayer(Configuration config) {
 		defaultReliabilityLayerParameters = ReliabilityLayerParameters.builder().applyConfig(config).build();
 		maxLeisureMillis = config.getTimeAsInt(CoapConfig.LEISURE, TimeUnit.MILLISECONDS);
+		long tick = config.get(CoapConfig.RETRANSMISSION_TIMER_TICK, TimeUnit.MILLISECONDS);
+		timer = tick > 0 ? new HashedWheelTimer(tick, TimeUnit.MILLISECONDS) : null;
 		LOGGER.trace("Max. leisure for multicast server={}ms", maxLeisureMillis);
 		LOGGER.trace("ReliabilityLayer uses ACK_TIMEOUT={}ms, MAX_ACK_TIMEOUT={}ms, ACK_RANDOM_FACTOR={}, and ACK_TIMEOUT_SCALE={} as default",
 				defaultReliabilityLayerParameters.getAckTimeout(),
@@ -96,6 +108,53 @@ public class ReliabilityLayer extends AbstractLayer {
 				defaultReliabilityLayerParameters.getAckTimeoutScale());
 	}
 
+	@Override
+	public void start() {
+		if (timer != null) {
+			timer.start(executor);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (timer != null) {
+			timer.stop();
+		}
+	}
+
+	/**
+	 * Get hashed wheel timer.
+	 * 
+	 * Intended to read the metrics of the timer.
+	 * 
+	 * @return hashed wheel timer, or {@code null}, if the main executor is
+	 *         used.
+	 * @see CoapConfig#RETRANSMISSION_TIMER_TICK
+	 * @since 3.0
+	 */
+	public HashedWheelTimer getTimer() {
+		return timer;
+	}
+
+	/**
+	 * Schedule task.
+	 * 
+	 * Uses the {@link HashedWheelTimer}, if configured, or the main executor.
+	 * 
+	 * @param task task to schedule
+	 * @param delayMillis delay in milliseconds
+	 * @return scheduled future to cancel the task
+	 * @see CoapConfig#RETRANSMISSION_TIMER_TICK
+	 * @since 3.0
+	 */
+	protected ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+		if (timer != null) {
+			return timer.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+		} else {
+			return executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
 	/**
 	 * Schedules a retransmission for confirmable messages.
 	 */
@@ -144,7 +203,7 @@ public class ReliabilityLayer extends AbstractLayer {
 				leisure = rand.nextInt(maxLeisureMillis);
 			}
 			DelayedResponseTask task = new DelayedResponseTask(exchange, response);
-			ScheduledFuture<?> f = executor.schedule(task, leisure, TimeUnit.MILLISECONDS);
+			ScheduledFuture<?> f = schedule(task, leisure);
 			exchange.setRetransmissionHandle(f);
 		} else {
 			lower().sendResponse(exchange, response);
@@ -540,7 +599,7 @@ public class ReliabilityLayer extends AbstractLayer {
 		public void startTimer() {
 			if (isInTransit()) {
 				int timeout = exchange.getCurrentTimeout();
-				ScheduledFuture<?> f = executor.schedule(this, timeout, TimeUnit.MILLISECONDS);
+				ScheduledFuture<?> f = schedule(this, timeout);
 				exchange.setRetransmissionHandle(f);
 			}
 		}
@@ -22,6 +22,8 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.californium.core.network.Exchange;
 import org.eclipse.californium.core.network.stack.CongestionControlLayer.PostponedExchange;
@@ -31,6 +33,9 @@ import org.eclipse.californium.core.network.stack.congestioncontrol.Cocoa;
  * An abstract class representing the current transmissions and parameters for a
  * specific remote endpoint.
  * 
+ * The RTO state is updated lock-free. The exchanges in flight are synchronized
+ * to this remote endpoint.
+ * 
  * @since 3.0 (moved and redesigned)
  */
 public abstract class RemoteEndpoint {
@@ -82,44 +87,42 @@ public abstract class RemoteEndpoint {
 	 * {@code true}, if a timer for throttling notifies is already pending,
 	 * {@code false}, if not.
 	 */
-	private boolean processingNotifies;
+	private final AtomicBoolean processingNotifies = new AtomicBoolean();
 	/**
 	 * {@code true}, if {@link #currentRTO} is already initialized,
 	 * {@code false}, otherwise.
 	 */
-	private boolean initializedRto;
-	/**
-	 * Array with RTOs.
-	 */
-	private long[] overallRTO;
+	private final AtomicBoolean initializedRto = new AtomicBoolean();
 	/**
-	 * Rolling index to access {@link #overallRTO}.
+	 * History of RTOs.
 	 */
-	private int currentOverallIndex;
+	private final AtomicReference<RtoHistory> overallRTO;
 
 	// Current RTO stores the latest updated value
 	private volatile long currentRTO;
 	/**
-	 * Mean of {@link #overallRTO}. Some algorithms apply additional
-	 * modifications for that value.
+	 * Mean of the RTO history. Some algorithms apply additional modifications
+	 * for that value.
+	 * 
+	 * @deprecated use {@link #getMeanOverallRTO()} instead. Only updated for
+	 *             compatibility, concurrent updates may leave a stale value.
 	 */
-	protected long meanOverallRTO;
+	@Deprecated
+	protected volatile long meanOverallRTO;
 
 	public RemoteEndpoint(InetSocketAddress remoteAddress, int ackTimeout, int nstart, boolean usesBlindEstimator) {
 		this.remoteAddress = remoteAddress;
 		this.nstart = nstart;
 		this.usesBlindEstimator = usesBlindEstimator;
 		// Fill Array with initial values
-		overallRTO = new long[RTOARRAYSIZE];
+		long[] rtos = new long[RTOARRAYSIZE];
 		for (int i = 0; i < RTOARRAYSIZE; i++) {
-			overallRTO[i] = ackTimeout;
+			rtos[i] = ackTimeout;
 		}
+		overallRTO = new AtomicReference<>(new RtoHistory(rtos, 0, ackTimeout));
 		currentRTO = ackTimeout;
-
 		meanOverallRTO = ackTimeout;
 
-		currentOverallIndex = 0;
-
 		inFlight = new HashSet<>();
 
 		requestQueue = new LinkedList<>();
@@ -195,13 +198,8 @@ public abstract class RemoteEndpoint {
 	 * @return {@code true}, if timer should be started, {@code false}, if timer
 	 *         is already running.
 	 */
-	public synchronized boolean startProcessingNotifies() {
-		if (processingNotifies) {
-			return false;
-		} else {
-			processingNotifies = true;
-			return true;
-		}
+	public boolean startProcessingNotifies() {
+		return processingNotifies.compareAndSet(false, true);
 	}
 
 	/**
@@ -210,13 +208,8 @@ public abstract class RemoteEndpoint {
 	 * @return {@code true}, if timer should be stopped, {@code false}, if timer
 	 *         is already stopped.
 	 */
-	public synchronized boolean stopProcessingNotifies() {
-		if (processingNotifies) {
-			processingNotifies = false;
-			return true;
-		} else {
-			return false;
-		}
+	public boolean stopProcessingNotifies() {
+		return processingNotifies.compareAndSet(true, false);
 	}
 
 	/**
@@ -228,13 +221,8 @@ public abstract class RemoteEndpoint {
 	 * @return {@code true}, if the value is the initial RTO, {@code false}, if
 	 *         RTO is already initialized.
 	 */
-	public synchronized boolean initialRto() {
-		if (initializedRto) {
-			return false;
-		} else {
-			initializedRto = true;
-			return true;
-		}
+	public boolean initialRto() {
+		return initializedRto.compareAndSet(false, true);
 	}
 
 	/**
@@ -244,9 +232,24 @@ public abstract class RemoteEndpoint {
 	 * @return the RTO in milliseconds
 	 */
 	public long getRTO() {
-		long rto = currentRTO;
+		return getRTO(currentRTO);
+	}
+
+	/**
+	 * Obtains the RTO value for the next transmission based on the provided
+	 * RTO.
+	 * 
+	 * Applies the blind estimator, if no RTT measurements have been done so
+	 * far. Intended for algorithms, which keep the RTO in their estimator
+	 * snapshots to apply updates lock-free.
+	 * 
+	 * @param rto the RTO in milliseconds
+	 * @return the RTO for the next transmission in milliseconds
+	 * @since 3.0
+	 */
+	protected long getRTO(long rto) {
 		int size = getNumberOfOngoingExchanges();
-		if (usesBlindEstimator && size > 1 && !initializedRto) {
+		if (usesBlindEstimator && size > 1 && !initializedRto.get()) {
 			// No RTT measurements have been possible so far =>
 			// apply blind estimator rule
 			rto *= size;
@@ -254,21 +257,34 @@ public abstract class RemoteEndpoint {
 		return Math.min(rto, 32000L);
 	}
 
+	/**
+	 * Get mean of the RTO history.
+	 * 
+	 * Some algorithms apply additional modifications for that value.
+	 * 
+	 * @return mean of the RTO history in milliseconds
+	 * @since 3.0 (replaces the field meanOverallRTO)
+	 */
+	public long getMeanOverallRTO() {
+		return overallRTO.get().mean;
+	}
+
 	/**
 	 * Update stored RTO value.
 	 * 
+	 * Lock-free, concurrent updates are applied one after the other.
+	 * 
 	 * @param newRTO the new RTO value
 	 */
-	public synchronized void updateRTO(long newRTO) {
-		overallRTO[currentOverallIndex++] = newRTO;
-		if (currentOverallIndex >= overallRTO.length) {
-			currentOverallIndex = 0;
-		}
-		long meanRTO = 0;
-		for (int i = 0; i < RTOARRAYSIZE; i++) {
-			meanRTO += overallRTO[i];
-		}
-		meanOverallRTO = meanRTO / RTOARRAYSIZE;
+	@SuppressWarnings("deprecation")
+	public void updateRTO(long newRTO) {
+		RtoHistory history;
+		RtoHistory next;
+		do {
+			history = overallRTO.get();
+			next = history.add(newRTO);
+		} while (!overallRTO.compareAndSet(history, next));
+		meanOverallRTO = next.mean;
 		setCurrentRTO(newRTO);
 	}
 
@@ -340,4 +356,45 @@ public abstract class RemoteEndpoint {
 	 * @param measuredRTT the round-trip time of a CON-ACK pair
 	 */
 	public abstract void processRttMeasurement(RtoType rtoType, long measuredRTT);
+
+	/**
+	 * Immutable history of RTOs.
+	 */
+	private static final class RtoHistory {
+
+		/**
+		 * Array with RTOs.
+		 */
+		private final long[] rtos;
+		/**
+		 * Rolling index to access {@link #rtos}.
+		 */
+		private final int index;
+		/**
+		 * Mean of {@link #rtos}.
+		 */
+		private final long mean;
+
+		private RtoHistory(long[] rtos, int index, long mean) {
+			this.rtos = rtos;
+			this.index = index;
+			this.mean = mean;
+		}
+
+		/**
+		 * Add RTO to history.
+		 * 
+		 * @param rto RTO to add
+		 * @return new history with the added RTO
+		 */
+		private RtoHistory add(long rto) {
+			long[] rtos = this.rtos.clone();
+			rtos[index] = rto;
+			long meanRTO = 0;
+			for (int i = 0; i < RTOARRAYSIZE; i++) {
+				meanRTO += rtos[i];
+			}
+			return new RtoHistory(rtos, (index + 1) % RTOARRAYSIZE, meanRTO / RTOARRAYSIZE);
+		}
+	}
 }
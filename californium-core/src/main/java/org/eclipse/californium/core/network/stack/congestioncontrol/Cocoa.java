@@ -19,6 +19,7 @@ package org.eclipse.californium.core.network.stack.congestioncontrol;
 
 import java.net.InetSocketAddress;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.californium.core.network.stack.CongestionControlLayer;
 import org.eclipse.californium.core.network.stack.RemoteEndpoint;
@@ -78,41 +79,52 @@ public class Cocoa extends CongestionControlLayer {
 	private static class CocoaRemoteEndpoint extends RemoteEndpoint {
 
 		private final boolean onlyStrong;
-		private Rto weakRto;
-		private Rto strongRto;
-		private long nanoTimestamp;
+		/**
+		 * Estimators. Replaced on updates to apply them lock-free.
+		 */
+		private final AtomicReference<Estimators> estimators;
 
 		private CocoaRemoteEndpoint(InetSocketAddress remoteAddress, int ackTimeout, int nstart, boolean strong) {
 			super(remoteAddress, ackTimeout, nstart, true);
 			this.onlyStrong = strong;
-			this.weakRto = new Rto(KWEAK, ackTimeout);
-			this.strongRto = new Rto(KSTRONG, ackTimeout);
-			this.nanoTimestamp = ClockUtil.nanoRealtime();
+			this.estimators = new AtomicReference<>(new Estimators(new Rto(KWEAK, ackTimeout),
+					new Rto(KSTRONG, ackTimeout), ackTimeout, ClockUtil.nanoRealtime()));
 		}
 
 		@Override
-		public synchronized void processRttMeasurement(RtoType rtoType, long measuredRTT) {
+		public void processRttMeasurement(RtoType rtoType, long measuredRTT) {
 			if (onlyStrong && rtoType != RtoType.STRONG) {
 				return;
 			}
 
-			long newRto;
-			double weighting;
-			switch (rtoType) {
-			case WEAK:
-				newRto = weakRto.apply(measuredRTT);
-				weighting = WEAKWEIGHTING;
-				break;
-			case STRONG:
-				newRto = strongRto.apply(measuredRTT);
-				weighting = STRONGWEIGHTING;
-				break;
-			default:
-				return;
+			while (true) {
+				Estimators current = estimators.get();
+				Estimators next;
+				long newRto;
+				double weighting;
+				switch (rtoType) {
+				case WEAK:
+					Rto weakRto = new Rto(current.weakRto);
+					newRto = weakRto.apply(measuredRTT);
+					weighting = WEAKWEIGHTING;
+					newRto = Math.round(weighting * newRto + (1 - weighting) * getRTO(current.rto));
+					next = new Estimators(weakRto, current.strongRto, newRto, ClockUtil.nanoRealtime());
+					break;
+				case STRONG:
+					Rto strongRto = new Rto(current.strongRto);
+					newRto = strongRto.apply(measuredRTT);
+					weighting = STRONGWEIGHTING;
+					newRto = Math.round(weighting * newRto + (1 - weighting) * getRTO(current.rto));
+					next = new Estimators(current.weakRto, strongRto, newRto, ClockUtil.nanoRealtime());
+					break;
+				default:
+					return;
+				}
+				if (estimators.compareAndSet(current, next)) {
+					updateRTO(newRto);
+					return;
+				}
 			}
-			newRto = Math.round(weighting * newRto + (1 - weighting) * getRTO());
-			updateRTO(newRto);
-			this.nanoTimestamp = ClockUtil.nanoRealtime();
 		}
 
 		/**
@@ -122,33 +134,72 @@ public class Cocoa extends CongestionControlLayer {
 		 * 3 s and 4*RTO seconds pass without an update, reduce its value
 		 */
 		@Override
-		public synchronized void checkAging() {
-
-			long overallDifference = getRtoAge(TimeUnit.MILLISECONDS);
+		public void checkAging() {
+
+			Estimators current = estimators.get();
+			long overallDifference = TimeUnit.NANOSECONDS.toMillis(ClockUtil.nanoRealtime() - current.nanoTimestamp);
+
+			long rto = getRTO(current.rto);
+			long agedRto = age(rto, overallDifference, false);
+			if (agedRto != rto) {
+				Estimators next = new Estimators(current.weakRto, current.strongRto, agedRto,
+						ClockUtil.nanoRealtime());
+				// skip, if a concurrent update or aging already refreshed the
+				// estimators
+				if (estimators.compareAndSet(current, next)) {
+					age(rto, overallDifference, true);
+				}
+			}
+		}
 
-			long rto = getRTO();
+		/**
+		 * Age RTO.
+		 * 
+		 * @param rto current RTO
+		 * @param overallDifference milliseconds since the last update
+		 * @param update {@code true}, to update the RTO with each aging step,
+		 *            {@code false}, to only calculate the aged RTO.
+		 * @return aged RTO
+		 */
+		private long age(long rto, long overallDifference, boolean update) {
 			while (true) {
 				if (rto < LOWERVBFLIMIT && overallDifference > (16 * rto)) {
 					overallDifference -= (16 * rto);
 					// Increase mean overall RTO, if condition 1) is true
 					rto *= 2;
-					updateRTO(rto);
-					this.nanoTimestamp = ClockUtil.nanoRealtime();
 				} else if (rto > UPPERVBFLIMIT && overallDifference > (4 * rto)) {
 					overallDifference -= (4 * rto);
 					// Decrease mean overall RTO if condition 2) is true
 					rto = 1000 + rto / 2;
-					updateRTO(rto);
-					this.nanoTimestamp = ClockUtil.nanoRealtime();
 				} else {
-					break;
+					return rto;
+				}
+				if (update) {
+					updateRTO(rto);
 				}
 			}
 		}
+	}
 
-		private long getRtoAge(TimeUnit unit) {
-			long nanos = ClockUtil.nanoRealtime() - nanoTimestamp;
-			return unit.convert(nanos, TimeUnit.NANOSECONDS);
+	/**
+	 * Immutable estimators.
+	 * 
+	 * The {@link Rto} instances are not changed after creation, updates are
+	 * applied to copies. The overall RTO is part of the snapshot, so
+	 * concurrent updates are combined with the RTO of their predecessor.
+	 */
+	private static class Estimators {
+
+		private final Rto weakRto;
+		private final Rto strongRto;
+		private final long rto;
+		private final long nanoTimestamp;
+
+		private Estimators(Rto weakRto, Rto strongRto, long rto, long nanoTimestamp) {
+			this.weakRto = weakRto;
+			this.strongRto = strongRto;
+			this.rto = rto;
+			this.nanoTimestamp = nanoTimestamp;
 		}
 	}
 }
@@ -18,6 +18,7 @@
 package org.eclipse.californium.core.network.stack.congestioncontrol;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.californium.core.network.stack.CongestionControlLayer;
 import org.eclipse.californium.core.network.stack.RemoteEndpoint;
@@ -37,31 +38,78 @@ public class LinuxRto extends CongestionControlLayer {
 
 	private static class LinuxRemoteEndpoint extends RemoteEndpoint {
 
-		/* Linux algorithm variables FOR TESTING ONLY */
-		private long SRTT;
-		private long RTTVAR;
-		private long mdev;
-		private long mdev_max;
+		/**
+		 * Estimator. {@code null}, if no RTT was measured so far. Replaced on
+		 * updates to apply them lock-free.
+		 */
+		private final AtomicReference<Estimator> estimator = new AtomicReference<>();
 
 		private LinuxRemoteEndpoint(InetSocketAddress remoteAddress, int ackTimeout, int nstart) {
 			super(remoteAddress, ackTimeout, nstart, true);
 		}
 
-		private void initializeRTOEstimators(long measuredRTT) {
+		@Override
+		public void processRttMeasurement(RtoType rtoType, long measuredRTT) {
+
+			if (rtoType != RtoType.STRONG) {
+				return;
+			}
+
+			while (true) {
+				Estimator current = estimator.get();
+				Estimator next;
+				if (current == null) {
+					// Received a strong RTT measurement for the first time,
+					// apply strong RTO update
+					next = Estimator.initialize(measuredRTT);
+				} else {
+					// Perform normal update of the RTO
+					next = current.update(measuredRTT);
+				}
+				if (estimator.compareAndSet(current, next)) {
+					if (current == null) {
+						initialRto();
+					}
+					LOGGER.trace("SRTT: {}, RTTVAR: {}, mdev: {}, mdev_max: {}", next.SRTT, next.RTTVAR, next.mdev,
+							next.mdev_max);
+					updateRTO(next.SRTT + 4 * next.RTTVAR);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Immutable Linux algorithm variables.
+	 */
+	private static class Estimator {
+
+		/* Linux algorithm variables FOR TESTING ONLY */
+		private final long SRTT;
+		private final long RTTVAR;
+		private final long mdev;
+		private final long mdev_max;
+
+		private Estimator(long SRTT, long RTTVAR, long mdev, long mdev_max) {
+			this.SRTT = SRTT;
+			this.RTTVAR = RTTVAR;
+			this.mdev = mdev;
+			this.mdev_max = mdev_max;
+		}
+
+		private static Estimator initialize(long measuredRTT) {
 			long RTT = measuredRTT;
-			SRTT = RTT;
-			mdev = RTT / 2;
-			mdev_max = Math.max(mdev, 50);
-			RTTVAR = mdev_max;
-			long newRTO = SRTT + 4 * RTTVAR;
-			printLinuxStats();
-
-			updateRTO(newRTO);
+			long mdev = RTT / 2;
+			long mdev_max = Math.max(mdev, 50);
+			return new Estimator(RTT, mdev_max, mdev, mdev_max);
 		}
 
-		private void updateEstimator(long measuredRTT) {
-			// System.out.println("Measured RTT:" + measuredRTT);
+		private Estimator update(long measuredRTT) {
 			long RTT = measuredRTT;
+			long SRTT = this.SRTT;
+			long RTTVAR = this.RTTVAR;
+			long mdev = this.mdev;
+			long mdev_max = this.mdev_max;
 
 			SRTT = SRTT + Math.round((double) (0.125 * (RTT - SRTT)));
 
@@ -81,32 +129,7 @@ public class LinuxRto extends CongestionControlLayer {
 				RTTVAR = Math.round(0.75 * RTTVAR + 0.25 * mdev_max);
 			}
 			mdev_max = 50;
-			long newRTO = SRTT + 4 * RTTVAR;
-
-			printLinuxStats();
-
-			updateRTO(newRTO);
-		}
-
-		@Override
-		public synchronized void processRttMeasurement(RtoType rtoType, long measuredRTT) {
-
-			if (rtoType != RtoType.STRONG) {
-				return;
-			}
-
-			if (initialRto()) {
-				// Received a strong RTT measurement for the first time, apply
-				// strong RTO update
-				initializeRTOEstimators(measuredRTT);
-			} else {
-				// Perform normal update of the RTO
-				updateEstimator(measuredRTT);
-			}
-		}
-
-		private void printLinuxStats() {
-			LOGGER.trace("SRTT: {}, RTTVAR: {}, mdev: {}, mdev_max: {}", SRTT, RTTVAR, mdev, mdev_max);
+			return new Estimator(SRTT, RTTVAR, mdev, mdev_max);
 		}
 	}
 }
@@ -18,6 +18,7 @@
 package org.eclipse.californium.core.network.stack.congestioncontrol;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.californium.core.network.stack.CongestionControlLayer;
 import org.eclipse.californium.core.network.stack.RemoteEndpoint;
@@ -37,87 +38,111 @@ public class PeakhopperRto extends CongestionControlLayer {
 
 	private static class PeakhopperRemoteEndoint extends RemoteEndpoint {
 
-		private float delta;
-
-		private float B_value;
 		private final static float F_value = 24;
 		private final static float B_max_value = 1;
 		private final static float D_value = (1 - (1 / F_value));
 		private final static int RTT_HISTORY_SIZE = 2;
-		private long RTO_min;
-		private long RTT_max;
-		private long RTT_previous;
-		private long[] RTT_sample = new long[RTT_HISTORY_SIZE];
-		private int currentRtt;
+
+		/**
+		 * Estimator. {@code null}, if no RTT was measured so far. Replaced on
+		 * updates to apply them lock-free.
+		 */
+		private final AtomicReference<Estimator> estimator = new AtomicReference<>();
 
 		private PeakhopperRemoteEndoint(InetSocketAddress remoteAddress, int ackTimeout, int nstart) {
 			super(remoteAddress, ackTimeout, nstart, true);
 		}
 
-		private void initializeRTOEstimators(long measuredRTT) {
-			// Initialize peakhopper variables for the endpoint
-			addRttValue(measuredRTT);
-			long newRTO = (long) ((1 + 0.75) * measuredRTT);
-			updateRTO(newRTO);
-		}
-
-		private void updateEstimator(long measuredRTT) {
-
-			addRttValue(measuredRTT);
-			delta = Math.abs((measuredRTT - RTT_previous) / measuredRTT);
-			B_value = Math.min(Math.max(delta * 2, PeakhopperRemoteEndoint.D_value * B_value),
-					PeakhopperRemoteEndoint.B_max_value);
-			RTT_max = Math.max(measuredRTT, RTT_previous);
-			RTO_min = getMaxRtt() + (2 * 50);
-
-			long newRTO = (long) Math.max(PeakhopperRemoteEndoint.D_value * getRTO(), (1 + B_value) * RTT_max);
-			newRTO = Math.max(Math.max(newRTO, RTT_max + (long) ((1 + PeakhopperRemoteEndoint.B_max_value) * 50)),
-					RTO_min);
-			printPeakhopperStats();
-
-			RTT_previous = measuredRTT;
-
-			updateRTO(newRTO);
-		}
-
 		@Override
-		public synchronized void processRttMeasurement(RtoType rtoType, long measuredRTT) {
+		public void processRttMeasurement(RtoType rtoType, long measuredRTT) {
 
 			if (rtoType != RtoType.STRONG) {
 				return;
 			}
 
-			if (initialRto()) {
-				// Received a strong RTT measurement for the first time,
-				// apply strong RTO update
-				initializeRTOEstimators(measuredRTT);
-			} else {
-				// Perform normal update of the RTO
-				updateEstimator(measuredRTT);
+			while (true) {
+				Estimator current = estimator.get();
+				Estimator next;
+				long newRTO;
+				if (current == null) {
+					// Received a strong RTT measurement for the first time,
+					// apply strong RTO update
+					newRTO = (long) ((1 + 0.75) * measuredRTT);
+					next = new Estimator(0, 0, 0, 0, new long[RTT_HISTORY_SIZE], 0, newRTO)
+							.addRttValue(measuredRTT);
+				} else {
+					// Perform normal update of the RTO
+					next = current.update(measuredRTT, getRTO(current.rto));
+					newRTO = next.rto;
+					LOGGER.trace("Delta: {}, D: {}, B: {}, RTT_max: {}", next.delta, D_value, next.B_value,
+							next.RTT_max);
+				}
+				if (estimator.compareAndSet(current, next)) {
+					if (current == null) {
+						initialRto();
+					}
+					updateRTO(newRTO);
+					return;
+				}
 			}
 		}
 
-		private void addRttValue(long rtt) {
-			synchronized (RTT_sample) {
-				RTT_sample[currentRtt++] = rtt;
-				if (currentRtt >= RTT_sample.length) {
-					currentRtt = 0;
-				}
+		/**
+		 * Immutable Peakhopper algorithm variables.
+		 */
+		private static class Estimator {
+
+			private final float delta;
+			private final float B_value;
+			private final long RTT_max;
+			private final long RTT_previous;
+			private final long[] RTT_sample;
+			private final int currentRtt;
+			/**
+			 * Calculated RTO. Part of the snapshot, so concurrent updates are
+			 * based on the RTO of their predecessor.
+			 */
+			private final long rto;
+
+			private Estimator(float delta, float B_value, long RTT_max, long RTT_previous, long[] RTT_sample,
+					int currentRtt, long rto) {
+				this.delta = delta;
+				this.B_value = B_value;
+				this.RTT_max = RTT_max;
+				this.RTT_previous = RTT_previous;
+				this.RTT_sample = RTT_sample;
+				this.currentRtt = currentRtt;
+				this.rto = rto;
 			}
-		}
 
-		private long getMaxRtt() {
-			long max = -1;
-			synchronized (RTT_sample) {
+			private Estimator addRttValue(long rtt) {
+				long[] RTT_sample = this.RTT_sample.clone();
+				RTT_sample[currentRtt] = rtt;
+				return new Estimator(delta, B_value, RTT_max, RTT_previous, RTT_sample,
+						(currentRtt + 1) % RTT_HISTORY_SIZE, rto);
+			}
+
+			private Estimator update(long measuredRTT, long currentRTO) {
+				Estimator added = addRttValue(measuredRTT);
+				float delta = Math.abs((measuredRTT - RTT_previous) / measuredRTT);
+				float B_value = Math.min(Math.max(delta * 2, D_value * this.B_value), B_max_value);
+				long RTT_max = Math.max(measuredRTT, RTT_previous);
+				long RTO_min = added.getMaxRtt() + (2 * 50);
+
+				long newRTO = (long) Math.max(D_value * currentRTO, (1 + B_value) * RTT_max);
+				newRTO = Math.max(Math.max(newRTO, RTT_max + (long) ((1 + B_max_value) * 50)), RTO_min);
+
+				return new Estimator(delta, B_value, RTT_max, measuredRTT, added.RTT_sample, added.currentRtt,
+						newRTO);
+			}
+
+			private long getMaxRtt() {
+				long max = -1;
 				for (long rtt : RTT_sample) {
 					max = Math.max(max, rtt);
 				}
+				return max;
 			}
-			return max;
-		}
-
-		private void printPeakhopperStats() {
-			LOGGER.trace("Delta: {}, D: {}, B: {}, RTT_max: {}", delta, D_value, B_value, RTT_max);
 		}
 	}
 }
@@ -50,6 +50,22 @@ public class Rto {
 		this.rto = ackTimeout;
 	}
 
+	/**
+	 * Create copy of RTO calculator.
+	 * 
+	 * Intended to apply measured RTTs to the copy and keep the original
+	 * unchanged.
+	 * 
+	 * @param rto RTO calculator to copy
+	 */
+	public Rto(Rto rto) {
+		this.kFactor = rto.kFactor;
+		this.init = rto.init;
+		this.rto = rto.rto;
+		this.rtt = rto.rtt;
+		this.rttVar = rto.rttVar;
+	}
+
 	/**
 	 * Apply measured RTT.
 	 * 
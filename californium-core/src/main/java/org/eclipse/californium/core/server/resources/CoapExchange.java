@@ -524,6 +524,9 @@ public class CoapExchange {
 			response.getOptions().addETag(eTag);
 		}
 
+		if (resource.isSharedRepresentation()) {
+			response.setSharedRepresentation(true);
+		}
 		resource.checkObserveRelation(exchange, response);
 		if (response.getDestinationContext() == null) {
 			response.setDestinationContext(applyHandshakeMode());
@@ -17,7 +17,9 @@ package org.eclipse.californium.core.coap;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -104,6 +106,68 @@ public class MessageTest {
 		assertThat(content.hasBlock(exceeds), is(false));
 	}
 
+	@Test
+	public void testPayloadBuffer() {
+		byte[] data = "##1234567890ABCDEF##".getBytes(CoAP.UTF8_CHARSET);
+		ByteBuffer buffer = ByteBuffer.wrap(data, 2, 16);
+		Response content = new Response(ResponseCode.CONTENT);
+		content.setPayload(buffer);
+		assertThat(buffer.position(), is(2));
+		assertThat(content.getPayloadSize(), is(16));
+		assertThat(content.getPayloadString(), is("1234567890ABCDEF"));
+
+		ByteBuffer view = content.getPayloadBuffer();
+		assertThat(view.isReadOnly(), is(true));
+		assertThat(view.remaining(), is(16));
+		assertThat(view.get(), is((byte) '1'));
+		assertThat(content.getPayloadBuffer().remaining(), is(16));
+
+		assertThat(content.getPayload(), is("1234567890ABCDEF".getBytes(CoAP.UTF8_CHARSET)));
+		assertThat(content.getPayloadBuffer().remaining(), is(16));
+
+		Request get = Request.newGet();
+		get.setPayload(ByteBuffer.allocate(0));
+		assertThat(get.getPayloadSize(), is(0));
+		try {
+			get.setPayload(buffer);
+			fail("GET must not have payload");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testSharedPayloadBuffer() {
+		byte[] data = "##1234567890ABCDEF##".getBytes(CoAP.UTF8_CHARSET);
+		Response content = new Response(ResponseCode.CONTENT);
+		content.setPayload(ByteBuffer.wrap(data, 2, 16));
+
+		ByteBuffer shared = content.getSharedPayloadBuffer();
+		assertThat(shared.isReadOnly(), is(false));
+		assertThat(shared.hasArray(), is(true));
+		// no copy
+		assertThat(shared.array() == data, is(true));
+		assertThat(shared.arrayOffset() + shared.position(), is(2));
+		assertThat(shared.remaining(), is(16));
+
+		// a shared slice passed on is still not copied
+		Response next = new Response(ResponseCode.CONTENT);
+		next.setPayload(shared);
+		assertThat(next.getSharedPayloadBuffer().array() == data, is(true));
+
+		byte[] payload = "1234567890ABCDEF".getBytes(CoAP.UTF8_CHARSET);
+		content.setPayload(payload);
+		assertThat(content.getSharedPayloadBuffer().array() == payload, is(true));
+	}
+
+	@Test
+	public void testPayloadBufferWrapsArray() {
+		byte[] data = "1234567890ABCDEF".getBytes(CoAP.UTF8_CHARSET);
+		Request put = Request.newPut();
+		put.setPayload(ByteBuffer.wrap(data));
+		assertThat(put.getPayload() == data, is(true));
+	}
+
 	@Test
 	public void testInitalEmptyMessageObservers() {
 		Request ping = new Request(null, Type.CON);
@@ -95,6 +95,13 @@ public class InMemoryMessageIdProviderTest {
 		testLimitedTrackerGetNextMessageIdReturnsMid(provider);
 	}
 
+	@Test
+	public void testConcurrentGroupedTrackerGetNextMessageIdReturnsMid() {
+		config.set(CoapConfig.MID_TRACKER, TrackerMode.CONCURRENT_GROUPED);
+		InMemoryMessageIdProvider provider = new InMemoryMessageIdProvider(config);
+		testLimitedTrackerGetNextMessageIdReturnsMid(provider);
+	}
+
 	private void testLimitedTrackerGetNextMessageIdReturnsMid(InMemoryMessageIdProvider provider) {
 		InetSocketAddress peerAddress = getPeerAddress(1);
 		int mid1 = provider.getNextMessageId(peerAddress);
@@ -163,6 +170,37 @@ public class InMemoryMessageIdProviderTest {
 		assertThat(provider.getNextMessageId(getPeerAddress(MAX_PEERS + 1)), is(not(-1)));
 	}
 
+	@Test
+	public void testConcurrentGroupedGetNextMessageIdFailsIfMaxPeersIsReached() {
+
+		int MAX_PEERS = 2;
+		config.set(CoapConfig.MID_TRACKER, TrackerMode.CONCURRENT_GROUPED);
+		config.set(CoapConfig.MAX_ACTIVE_PEERS, MAX_PEERS);
+		InMemoryMessageIdProvider provider = new InMemoryMessageIdProvider(config);
+		addPeers(provider, MAX_PEERS);
+
+		exception.expect(IllegalStateException.class);
+		exception.expectMessage(containsString("No MID available, max."));
+
+		provider.getNextMessageId(getPeerAddress(MAX_PEERS + 1));
+	}
+
+	@Test
+	public void testConcurrentGroupedGetNextMessageIdIfMaxPeersIsReachedWithStaleEntry() {
+
+		int MAX_PEERS = 2;
+		int MAX_PEER_INACTIVITY_PERIOD = 1; // seconds
+		config.set(CoapConfig.MID_TRACKER, TrackerMode.CONCURRENT_GROUPED);
+		config.set(CoapConfig.MAX_ACTIVE_PEERS, MAX_PEERS);
+		config.set(CoapConfig.MAX_PEER_INACTIVITY_PERIOD, MAX_PEER_INACTIVITY_PERIOD, TimeUnit.SECONDS);
+		InMemoryMessageIdProvider provider = new InMemoryMessageIdProvider(config);
+		addPeers(provider, MAX_PEERS);
+
+		time.addTestTimeShift(MAX_PEER_INACTIVITY_PERIOD * 1200, TimeUnit.MILLISECONDS);
+
+		assertThat(provider.getNextMessageId(getPeerAddress(MAX_PEERS + 1)), is(not(-1)));
+	}
+
 	private static void addPeers(final MessageIdProvider provider, final int peerCount) {
 		for (int i = 0; i < peerCount; i++) {
 			provider.getNextMessageId(getPeerAddress(i));
@@ -58,7 +58,8 @@ public class DeduplicatorTest {
 	public static Iterable<String> deduplicatorParams() {
 		return Arrays.asList(CoapConfig.DEDUPLICATOR_MARK_AND_SWEEP,
 				CoapConfig.DEDUPLICATOR_PEERS_MARK_AND_SWEEP,
-				CoapConfig.DEDUPLICATOR_CROP_ROTATION);
+				CoapConfig.DEDUPLICATOR_CROP_ROTATION,
+				CoapConfig.DEDUPLICATOR_TIMING_WHEEL);
 	}
 
 	KeyMID key;
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.core.network.deduplication;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.core.network.Exchange;
+import org.eclipse.californium.core.network.KeyMID;
+import org.eclipse.californium.elements.AddressEndpointContext;
+import org.eclipse.californium.elements.category.Small;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.rule.TestTimeRule;
+import org.eclipse.californium.elements.util.ExecutorsUtil;
+import org.eclipse.californium.elements.util.NamedThreadFactory;
+import org.eclipse.californium.elements.util.TestCondition;
+import org.eclipse.californium.elements.util.TestConditionTools;
+import org.eclipse.californium.elements.util.TestSynchroneExecutor;
+import org.eclipse.californium.rule.CoapThreadsRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(Small.class)
+public class TimingWheelDeduplicatorTest {
+
+	private static final InetSocketAddress PEER = new InetSocketAddress(InetAddress.getLoopbackAddress(), 5683);
+	private static final int TICK_IN_MILLIS = 100;
+	private static final int NUMBER_OF_MESSAGES = 1024;
+
+	@Rule
+	public CoapThreadsRule cleanup = new CoapThreadsRule();
+
+	@Rule
+	public TestTimeRule time = new TestTimeRule();
+
+	Configuration config;
+	Deduplicator deduplicator;
+	long exchangeLifetime;
+
+	@Before
+	public void init() {
+		config = new Configuration();
+		config.set(CoapConfig.DEDUPLICATOR, CoapConfig.DEDUPLICATOR_TIMING_WHEEL);
+		config.set(CoapConfig.TIMING_WHEEL_TICK, TICK_IN_MILLIS, TimeUnit.MILLISECONDS);
+		config.set(CoapConfig.DEDUPLICATOR_AUTO_REPLACE, true);
+		exchangeLifetime = config.get(CoapConfig.EXCHANGE_LIFETIME, TimeUnit.MILLISECONDS);
+		deduplicator = DeduplicatorFactory.getDeduplicatorFactory().createDeduplicator(config);
+		ScheduledExecutorService executor = ExecutorsUtil.newSingleThreadScheduledExecutor(
+				new NamedThreadFactory("DedupTest#"));
+		cleanup.add(executor);
+		deduplicator.setExecutor(executor);
+		deduplicator.start();
+	}
+
+	@Test
+	public void testExpireAfterExchangeLifetime() throws Exception {
+		for (int mid = 0; mid < NUMBER_OF_MESSAGES; ++mid) {
+			assertThat(addExchange(mid), is(nullValue()));
+		}
+		assertThat(deduplicator.size(), is(NUMBER_OF_MESSAGES));
+
+		// not expired before exchange lifetime
+		time.setTestTimeShift(exchangeLifetime - 1000L, TimeUnit.MILLISECONDS);
+		Thread.sleep(TICK_IN_MILLIS * 3);
+		assertThat(deduplicator.size(), is(NUMBER_OF_MESSAGES));
+		assertThat(deduplicator.find(new KeyMID(0, PEER)), is(notNullValue()));
+
+		// expired after exchange lifetime
+		time.setTestTimeShift(exchangeLifetime + TICK_IN_MILLIS, TimeUnit.MILLISECONDS);
+		waitForSize(0);
+		assertThat(deduplicator.size(), is(0));
+		assertThat(deduplicator.find(new KeyMID(0, PEER)), is(nullValue()));
+	}
+
+	@Test
+	public void testReplacedEntryIsKeptForNewLifetime() throws Exception {
+		KeyMID key = new KeyMID(10, PEER);
+		Exchange exchange1 = newExchange(10);
+		Exchange exchange2 = newExchange(10);
+		assertThat(deduplicator.findPrevious(key, exchange1), is(nullValue()));
+
+		time.setTestTimeShift(exchangeLifetime / 2, TimeUnit.MILLISECONDS);
+		assertThat(deduplicator.replacePrevious(key, exchange1, exchange2), is(true));
+
+		// lifetime of the first entry expired, the replacing one is kept
+		time.setTestTimeShift(exchangeLifetime + TICK_IN_MILLIS, TimeUnit.MILLISECONDS);
+		Thread.sleep(TICK_IN_MILLIS * 3);
+		assertThat(deduplicator.find(key), is(exchange2));
+
+		// lifetime of the replacing entry expired
+		time.setTestTimeShift(exchangeLifetime + exchangeLifetime / 2 + TICK_IN_MILLIS, TimeUnit.MILLISECONDS);
+		waitForSize(0);
+		assertThat(deduplicator.find(key), is(nullValue()));
+	}
+
+	private void waitForSize(final int size) throws InterruptedException {
+		TestConditionTools.waitForCondition(TICK_IN_MILLIS * 50, TICK_IN_MILLIS, TimeUnit.MILLISECONDS,
+				new TestCondition() {
+
+					@Override
+					public boolean isFulFilled() throws IllegalStateException {
+						return deduplicator.size() == size;
+					}
+				});
+	}
+
+	private Exchange addExchange(int mid) {
+		KeyMID key = new KeyMID(mid, PEER);
+		return deduplicator.findPrevious(key, newExchange(mid));
+	}
+
+	private static Exchange newExchange(int mid) {
+		Request incoming = Request.newGet();
+		incoming.setMID(mid);
+		incoming.setSourceContext(new AddressEndpointContext(PEER));
+		return new Exchange(incoming, PEER, Exchange.Origin.REMOTE, TestSynchroneExecutor.TEST_EXECUTOR);
+	}
+}
@@ -23,13 +23,16 @@
  ******************************************************************************/
 package org.eclipse.californium.core.network.serialization;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -40,6 +43,7 @@ import org.eclipse.californium.core.coap.CoAPMessageFormatException;
 import org.eclipse.californium.core.coap.Message;
 import org.eclipse.californium.core.coap.MessageFormatException;
 import org.eclipse.californium.core.coap.Option;
+import org.eclipse.californium.core.coap.OptionSet;
 import org.eclipse.californium.core.coap.Request;
 import org.eclipse.californium.core.coap.Response;
 import org.eclipse.californium.core.coap.Token;
@@ -84,6 +88,8 @@ public class DataParserTest {
 		List<Object[]> parameters = new ArrayList<>();
 		parameters.add(new Object[] { new UdpDataSerializer(), new UdpDataParser(), false });
 		parameters.add(new Object[] { new TcpDataSerializer(), new TcpDataParser(), true });
+		parameters.add(new Object[] { new UdpDataSerializer(), new UdpDataParser(true), false });
+		parameters.add(new Object[] { new TcpDataSerializer(), new TcpDataParser(true), true });
 		return parameters;
 	}
 
@@ -165,6 +171,63 @@ public class DataParserTest {
 		}
 	}
 
+	@Test public void testParseMessageDetectsIllegalOptionLength() {
+		assumeFalse("UDP message encoding only", tcp);
+		// GIVEN a request with a content format option exceeding 2 bytes
+		byte[] malformedGetRequest = new byte[] { 
+				0b01000000, // ver 1, CON, token length: 0
+				0b00000001, // code: 0.01 (GET request)
+				0x00, 0x10, // message ID
+				(byte) 0xC3, // option number 12, length: 3
+				0x01, 0x02, 0x03
+		};
+
+		// WHEN parsing the request
+		try {
+			parser.parseMessage(malformedGetRequest);
+			fail("Parser should have detected illegal option length");
+		} catch (CoAPMessageFormatException e) {
+			// THEN an exception is thrown by the parser
+			assertEquals(0b00000001, e.getCode());
+			assertEquals(true, e.isConfirmable());
+		}
+	}
+
+	@Test public void testOptionsAccess() {
+		Request request = new Request(Code.GET);
+		request.setDestinationContext(ENDPOINT_CONTEXT);
+		request.setType(Type.CON);
+		request.setMID(expectedMid);
+		request.setToken(new byte[] { 1, 2, 3, 4 });
+		request.getOptions().setUriHost("example.com").setUriPath("sensors/temperature").setUriQuery("unit=c&rate=1")
+				.setObserve(0).setBlock2(2, false, 3).setAccept(60).addETag(new byte[] { 1, 2 })
+				.addETag(new byte[] { 3, 4 }).addOption(new Option(65000, "other"));
+
+		RawData rawData = serializer.serializeRequest(request);
+		rawData = receive(rawData, CONNECTOR);
+
+		Request result = (Request) parser.parseMessage(rawData);
+		OptionSet options = result.getOptions();
+		assertEquals("sensors/temperature", options.getUriPathString());
+		assertEquals(Integer.valueOf(0), options.getObserve());
+		assertEquals(2, options.getBlock2().getSzx());
+		assertEquals(3, options.getBlock2().getNum());
+		assertEquals(60, options.getAccept());
+		assertEquals("unit=c&rate=1", options.getUriQueryString());
+		assertEquals("example.com", options.getUriHost());
+		assertTrue(options.containsETag(new byte[] { 3, 4 }));
+		assertEquals(2, options.getETagCount());
+		assertEquals(1, options.getOthers().size());
+		assertFalse(options.hasContentFormat());
+		assertEquals(request.getOptions().asSortedList(), new OptionSet(options).asSortedList());
+
+		options.setUriPath("actors");
+		options.removeObserve();
+		assertEquals("actors", options.getUriPathString());
+		assertFalse(options.hasObserve());
+		assertEquals(request.getOptions().getUriQueryString(), options.getUriQueryString());
+	}
+
 	@Test public void testParseMessageDetectsMalformedToken() {
 		// GIVEN a request with an option value shorter than specified
 		byte[] malformedGetRequest = new byte[] { 
@@ -250,6 +313,76 @@ public class DataParserTest {
 		assertEquals(response.getMID(), result.getMID());
 	}
 
+	@Test public void testPayloadBuffer() {
+		Response response = new Response(ResponseCode.CONTENT);
+		response.setDestinationContext(ENDPOINT_CONTEXT);
+		response.setType(Type.NON);
+		response.setMID(expectedMid);
+		response.setToken(Token.EMPTY);
+		byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+		response.setPayload(ByteBuffer.wrap(data, 2, 6));
+
+		RawData rawData = serializer.serializeResponse(response);
+		rawData = receive(rawData, CONNECTOR);
+
+		Response result = (Response) parser.parseMessage(rawData);
+		assertEquals(6, result.getPayloadSize());
+		assertEquals(ByteBuffer.wrap(data, 2, 6), result.getPayloadBuffer());
+		assertArrayEquals(new byte[] { 3, 4, 5, 6, 7, 8 }, result.getPayload());
+	}
+
+	@Test public void testSharedPayloadBufferNoCopy() {
+		Response response = new Response(ResponseCode.CONTENT);
+		response.setDestinationContext(ENDPOINT_CONTEXT);
+		response.setType(Type.NON);
+		response.setMID(expectedMid);
+		response.setToken(Token.EMPTY);
+		byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+		response.setPayload(ByteBuffer.wrap(data, 2, 6));
+		// the serializer writes from the backing array
+		assertTrue(response.getSharedPayloadBuffer().hasArray());
+		assertTrue(response.getSharedPayloadBuffer().array() == data);
+
+		RawData rawData = serializer.serializeResponse(response);
+		rawData = receive(rawData, CONNECTOR);
+		byte[] bytes = rawData.getBytes();
+
+		Response result = (Response) parser.parseMessage(rawData);
+		ByteBuffer shared = result.getSharedPayloadBuffer();
+		assertEquals(ByteBuffer.wrap(data, 2, 6), shared);
+		if (parser.useLazyOptions()) {
+			// the lazy parser keeps the payload as view on the received bytes
+			assertTrue(shared.array() == bytes);
+			assertEquals(bytes.length - 6, shared.arrayOffset() + shared.position());
+		}
+	}
+
+	@Test public void testPayloadSizes() {
+		// covers all TCP length field sizes
+		int[] sizes = { 0, 1, 12, 13, 268, 269, 65804, 65805, 70000 };
+		for (int size : sizes) {
+			Response response = new Response(ResponseCode.CONTENT);
+			response.setDestinationContext(ENDPOINT_CONTEXT);
+			response.setType(Type.NON);
+			response.setMID(expectedMid);
+			response.setToken(new byte[] { 1, 2 });
+			response.getOptions().setContentFormat(42);
+			byte[] data = new byte[size];
+			for (int index = 0; index < size; ++index) {
+				data[index] = (byte) index;
+			}
+			response.setPayload(data);
+
+			RawData rawData = serializer.serializeResponse(response);
+			rawData = receive(rawData, CONNECTOR);
+
+			Response result = (Response) parser.parseMessage(rawData);
+			assertEquals(response.getToken(), result.getToken());
+			assertEquals(response.getOptions().asSortedList(), result.getOptions().asSortedList());
+			assertArrayEquals("payload size " + size, data, result.getPayload());
+		}
+	}
+
 	private static RawData receive(RawData data, InetSocketAddress connector) {
 		return RawData.inbound(data.getBytes(), data.getEndpointContext(), data.isMulticast(),
 				data.getReceiveNanoTimestamp(), connector);
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.core.network.stack.congestioncontrol;
+
+import static org.hamcrest.CoreMatchers.anyOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.californium.core.network.stack.CongestionControlLayer;
+import org.eclipse.californium.core.network.stack.RemoteEndpoint;
+import org.eclipse.californium.core.network.stack.RemoteEndpoint.RtoType;
+import org.eclipse.californium.elements.category.Small;
+import org.eclipse.californium.elements.config.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Test cases verifying, that concurrent RTO updates of the lock-free estimator
+ * snapshots are not lost.
+ */
+@Category(Small.class)
+public class ConcurrentRtoUpdateTest {
+
+	private static final int THREADS = 4;
+	private static final int MEASUREMENTS_PER_THREAD = 3;
+	private static final int ROUNDS = 200;
+	private static final long RTT = 1000;
+	private static final long LAST_RTT = 300;
+
+	private final InetSocketAddress peer = new InetSocketAddress("127.0.0.1", 5683);
+
+	private Configuration config;
+
+	@Before
+	public void setup() {
+		config = Configuration.createStandardWithoutFile();
+	}
+
+	@Test
+	public void testConcurrentRtoHistoryUpdates() throws Exception {
+		LinuxRto layer = new LinuxRto("test ", config);
+		final long[] rtos = { 300, 600, 900 };
+		for (int round = 0; round < ROUNDS; ++round) {
+			final RemoteEndpoint endpoint = layer.createRemoteEndpoint(peer);
+			runConcurrently(rtos.length, new Task() {
+
+				@Override
+				public void run(int index) {
+					endpoint.updateRTO(rtos[index]);
+				}
+			});
+			assertThat(endpoint.getMeanOverallRTO(), is(600L));
+			assertThat(endpoint.getRTO(), anyOf(is(300L), is(600L), is(900L)));
+		}
+	}
+
+	@Test
+	public void testConcurrentLinuxRtoUpdates() throws Exception {
+		assertConcurrentUpdates(new LinuxRto("test ", config), RtoType.STRONG);
+	}
+
+	@Test
+	public void testConcurrentPeakhopperRtoUpdates() throws Exception {
+		assertConcurrentUpdates(new PeakhopperRto("test ", config), RtoType.STRONG);
+	}
+
+	@Test
+	public void testConcurrentCocoaStrongUpdates() throws Exception {
+		assertConcurrentUpdates(new Cocoa("test ", config, true), RtoType.STRONG);
+	}
+
+	@Test
+	public void testConcurrentCocoaWeakUpdates() throws Exception {
+		assertConcurrentUpdates(new Cocoa("test ", config, false), RtoType.WEAK);
+	}
+
+	/**
+	 * Assert, that concurrent RTT measurements result in the same RTO as
+	 * sequential ones.
+	 *
+	 * All measurements use the same RTT, so the resulting estimator doesn't
+	 * depend on the order of the updates. A final measurement with an other
+	 * RTT publishes the RTO of the resulting estimator.
+	 *
+	 * @param layer congestion control layer
+	 * @param type type of RTT measurements
+	 * @throws Exception if the test fails
+	 */
+	private void assertConcurrentUpdates(CongestionControlLayer layer, final RtoType type) throws Exception {
+		RemoteEndpoint reference = createRemoteEndpoint(layer);
+		for (int index = 0; index < THREADS * MEASUREMENTS_PER_THREAD; ++index) {
+			reference.processRttMeasurement(type, RTT);
+		}
+		reference.processRttMeasurement(type, LAST_RTT);
+		for (int round = 0; round < ROUNDS; ++round) {
+			final RemoteEndpoint endpoint = createRemoteEndpoint(layer);
+			runConcurrently(THREADS, new Task() {
+
+				@Override
+				public void run(int index) {
+					for (int measurement = 0; measurement < MEASUREMENTS_PER_THREAD; ++measurement) {
+						endpoint.processRttMeasurement(type, RTT);
+					}
+				}
+			});
+			endpoint.processRttMeasurement(type, LAST_RTT);
+			assertThat("round " + round, endpoint.getRTO(), is(reference.getRTO()));
+		}
+	}
+
+	private RemoteEndpoint createRemoteEndpoint(CongestionControlLayer layer) {
+		if (layer instanceof LinuxRto) {
+			return ((LinuxRto) layer).createRemoteEndpoint(peer);
+		} else if (layer instanceof PeakhopperRto) {
+			return ((PeakhopperRto) layer).createRemoteEndpoint(peer);
+		} else {
+			return ((Cocoa) layer).createRemoteEndpoint(peer);
+		}
+	}
+
+	private static void runConcurrently(int threads, final Task task) throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		List<Thread> workers = new ArrayList<>();
+		for (int index = 0; index < threads; ++index) {
+			final int taskIndex = index;
+			Thread worker = new Thread("rto-update-" + index) {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+						task.run(taskIndex);
+					} catch (Throwable t) {
+						error.compareAndSet(null, t);
+					}
+				}
+			};
+			worker.start();
+			workers.add(worker);
+		}
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		if (error.get() != null) {
+			throw new AssertionError("concurrent update failed", error.get());
+		}
+	}
+
+	private interface Task {
+
+		void run(int index);
+	}
+}
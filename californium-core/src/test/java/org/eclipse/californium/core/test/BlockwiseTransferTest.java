@@ -30,13 +30,18 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.californium.core.CoapResource;
 import org.eclipse.californium.core.CoapServer;
 import org.eclipse.californium.core.coap.BlockOption;
+import org.eclipse.californium.core.coap.CoAP;
 import org.eclipse.californium.core.coap.CoAP.ResponseCode;
 import org.eclipse.californium.core.config.CoapConfig;
 import org.eclipse.californium.core.coap.Request;
@@ -83,6 +88,8 @@ public class BlockwiseTransferTest {
 	private static final String PARAM_SHORT_REQ = "sr";
 	private static final String RESOURCE_TEST = "test";
 	private static final String RESOURCE_BIG = "big";
+	private static final String RESOURCE_CONCURRENT = "concurrent";
+	private static final String RESOURCE_CONCURRENT_GET = "concurrent-get";
 
 	private static final String SHORT_POST_REQUEST  = generateRandomPayload(15);
 	private static final String LONG_POST_REQUEST   = generateRandomPayload(150);
@@ -349,6 +356,105 @@ public class BlockwiseTransferTest {
 		}
 	}
 
+	/**
+	 * Test parallel block1 and block2 transfers with the same {@code KeyUri}
+	 * and with different {@code KeyUri}s.
+	 * 
+	 * The clients with transparent blockwise transfers use different
+	 * resources for block1 and block2, RFC7959, section 2.4, doesn't support
+	 * concurrent transfers for the same resource from a single endpoint. The
+	 * client without transparent blockwise transfers interleaves the blocks of
+	 * a block1 and a block2 transfer for the same resource, which results in
+	 * the server side in transfers with the same {@code KeyUri}.
+	 */
+	@Test
+	public void testConcurrentTransfers() throws Exception {
+		int clients = 4;
+		int rounds = 5;
+		List<Endpoint> endpoints = new ArrayList<>();
+		try {
+			for (int index = 0; index < clients; ++index) {
+				CoapEndpoint.Builder builder = new CoapEndpoint.Builder();
+				builder.setConfiguration(config);
+				Endpoint endpoint = builder.build();
+				endpoint.start();
+				endpoints.add(endpoint);
+			}
+			for (int round = 0; round < rounds; ++round) {
+				List<Request> posts = new ArrayList<>();
+				List<Request> gets = new ArrayList<>();
+				for (Endpoint endpoint : endpoints) {
+					// block1 and block2 transfer with different KeyUris
+					Request post = Request.newPost().setURI(getUri(serverEndpoint, RESOURCE_CONCURRENT));
+					post.setPayload(LONG_POST_REQUEST);
+					Request get = Request.newGet().setURI(getUri(serverEndpoint, RESOURCE_CONCURRENT_GET));
+					endpoint.sendRequest(post);
+					endpoint.sendRequest(get);
+					posts.add(post);
+					gets.add(get);
+				}
+				// block1 and block2 transfer with the same KeyUri
+				executeInterleavedTransfers(RESOURCE_CONCURRENT);
+				for (Request post : posts) {
+					Response response = post.waitForResponse(2000);
+					assertNotNull("Client received no POST response", response);
+					assertEquals(ResponseCode.CHANGED, response.getCode());
+					assertEquals(SHORT_POST_RESPONSE, response.getPayloadString());
+				}
+				for (Request get : gets) {
+					Response response = get.waitForResponse(2000);
+					assertNotNull("Client received no GET response", response);
+					assertEquals(LONG_GET_RESPONSE, response.getPayloadString());
+				}
+			}
+		} finally {
+			for (Endpoint endpoint : endpoints) {
+				endpoint.destroy();
+			}
+		}
+	}
+
+	private void executeInterleavedTransfers(String resource) throws Exception {
+		String uri = getUri(serverEndpoint, resource);
+		byte[] body = LONG_POST_REQUEST.getBytes(CoAP.UTF8_CHARSET);
+		ByteArrayOutputStream received = new ByteArrayOutputStream();
+		boolean more1 = true;
+		boolean more2 = true;
+		for (int num = 0; more1 || more2; ++num) {
+			if (more1) {
+				int offset = num * 32;
+				int length = Math.min(32, body.length - offset);
+				more1 = offset + length < body.length;
+				Request post = Request.newPost().setURI(uri);
+				post.setPayload(Arrays.copyOfRange(body, offset, offset + length));
+				post.getOptions().setBlock1(BlockOption.size2Szx(32), more1, num);
+				clientEndpointWithoutTransparentBlockwise.sendRequest(post);
+				Response response = post.waitForResponse(1000);
+				assertNotNull("Client received no block1 response", response);
+				if (more1) {
+					assertEquals(ResponseCode.CONTINUE, response.getCode());
+				} else {
+					assertEquals(ResponseCode.CHANGED, response.getCode());
+					assertEquals(SHORT_POST_RESPONSE, response.getPayloadString());
+				}
+			}
+			if (more2) {
+				Request get = Request.newGet().setURI(uri);
+				get.getOptions().setBlock2(BlockOption.size2Szx(32), false, num);
+				clientEndpointWithoutTransparentBlockwise.sendRequest(get);
+				Response response = get.waitForResponse(1000);
+				assertNotNull("Client received no block2 response", response);
+				assertEquals(ResponseCode.CONTENT, response.getCode());
+				BlockOption block2 = response.getOptions().getBlock2();
+				assertNotNull(block2);
+				assertEquals(num, block2.getNum());
+				more2 = block2.isM();
+				received.write(response.getPayload());
+			}
+		}
+		assertEquals(LONG_GET_RESPONSE, new String(received.toByteArray(), CoAP.UTF8_CHARSET));
+	}
+
 	private void executePOSTRequest(final boolean shortRequest, final boolean respondShort) throws Exception {
 		String payload = "--no payload--";
 		try {
@@ -450,6 +556,29 @@ public class BlockwiseTransferTest {
 				}
 			}
 		});
+		result.add(new CoapResource(RESOURCE_CONCURRENT) {
+
+			@Override
+			public void handleGET(final CoapExchange exchange) {
+				exchange.respond(LONG_GET_RESPONSE);
+			}
+
+			@Override
+			public void handlePOST(final CoapExchange exchange) {
+				if (LONG_POST_REQUEST.equals(exchange.getRequestText())) {
+					exchange.respond(ResponseCode.CHANGED, SHORT_POST_RESPONSE);
+				} else {
+					exchange.respond(ResponseCode.BAD_REQUEST);
+				}
+			}
+		});
+		result.add(new CoapResource(RESOURCE_CONCURRENT_GET) {
+
+			@Override
+			public void handleGET(final CoapExchange exchange) {
+				exchange.respond(LONG_GET_RESPONSE);
+			}
+		});
 		result.add(new CoapResource(RESOURCE_BIG) {
 
 			@Override
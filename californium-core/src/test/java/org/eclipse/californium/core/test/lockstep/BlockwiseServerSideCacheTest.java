@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.core.test.lockstep;
+
+import static org.eclipse.californium.TestTools.generateRandomPayload;
+import static org.eclipse.californium.core.coap.CoAP.Code.GET;
+import static org.eclipse.californium.core.coap.CoAP.ResponseCode.BAD_OPTION;
+import static org.eclipse.californium.core.coap.CoAP.ResponseCode.CONTENT;
+import static org.eclipse.californium.core.coap.CoAP.ResponseCode.VALID;
+import static org.eclipse.californium.core.coap.CoAP.Type.ACK;
+import static org.eclipse.californium.core.coap.CoAP.Type.CON;
+import static org.eclipse.californium.core.test.MessageExchangeStoreTool.assertAllExchangesAreCompleted;
+import static org.eclipse.californium.core.test.lockstep.IntegrationTestTools.createLockstepEndpoint;
+import static org.eclipse.californium.core.test.lockstep.IntegrationTestTools.generateNextToken;
+import static org.eclipse.californium.core.test.lockstep.IntegrationTestTools.printServerLog;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.californium.TestTools;
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.CoapServer;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.OptionNumberRegistry;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.core.network.stack.Block2ResponseCache;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+import org.eclipse.californium.core.test.MessageExchangeStoreTool.CoapTestEndpoint;
+import org.eclipse.californium.elements.category.Medium;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.rule.TestNameLoggerRule;
+import org.eclipse.californium.elements.rule.TestTimeRule;
+import org.eclipse.californium.rule.CoapNetworkRule;
+import org.eclipse.californium.rule.CoapThreadsRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Test cases verifying the server side blockwise transfer using the
+ * {@link Block2ResponseCache}.
+ */
+@Category(Medium.class)
+public class BlockwiseServerSideCacheTest {
+
+	@ClassRule
+	public static CoapNetworkRule network = new CoapNetworkRule(CoapNetworkRule.Mode.DIRECT,
+			CoapNetworkRule.Mode.NATIVE);
+
+	@Rule
+	public CoapThreadsRule cleanup = new CoapThreadsRule();
+
+	@Rule
+	public TestTimeRule time = new TestTimeRule();
+
+	@Rule
+	public TestNameLoggerRule name = new TestNameLoggerRule();
+
+	private static final int TEST_EXCHANGE_LIFETIME = 247; // milliseconds
+	private static final int TEST_SWEEP_DEDUPLICATOR_INTERVAL = 100; // milliseconds
+	private static final int TEST_PREFERRED_BLOCK_SIZE = 128; // bytes
+	private static final int TEST_BLOCKWISE_STATUS_INTERVAL = 100;
+	private static final int TEST_BLOCKWISE_STATUS_LIFETIME = 500;
+	private static final int TEST_RESPONSE_CACHE_LIFETIME = 2000; // milliseconds
+	private static final int MAX_RESOURCE_BODY_SIZE = 1024;
+	private static final String RESOURCE_PATH = "test";
+
+	private CoapServer server;
+	private CoapTestEndpoint serverEndpoint;
+	private LockstepEndpoint client1;
+	private LockstepEndpoint client2;
+	private int mid = 7000;
+	private String respPayload;
+	private byte[] etag;
+	private Long maxAge;
+	private AtomicInteger getRequests = new AtomicInteger();
+	private TestResource resource;
+	private ServerBlockwiseInterceptor serverInterceptor = new ServerBlockwiseInterceptor();
+
+	@Before
+	public void setup() throws Exception {
+		Configuration config = network.createStandardTestConfig()
+				.set(CoapConfig.MAX_MESSAGE_SIZE, 128)
+				.set(CoapConfig.PREFERRED_BLOCK_SIZE, TEST_PREFERRED_BLOCK_SIZE)
+				.set(CoapConfig.MAX_RESOURCE_BODY_SIZE, MAX_RESOURCE_BODY_SIZE)
+				.set(CoapConfig.MARK_AND_SWEEP_INTERVAL, TEST_SWEEP_DEDUPLICATOR_INTERVAL, TimeUnit.MILLISECONDS)
+				.set(CoapConfig.EXCHANGE_LIFETIME, TEST_EXCHANGE_LIFETIME, TimeUnit.MILLISECONDS)
+				.set(CoapConfig.BLOCKWISE_STATUS_INTERVAL, TEST_BLOCKWISE_STATUS_INTERVAL, TimeUnit.MILLISECONDS)
+				.set(CoapConfig.BLOCKWISE_STATUS_LIFETIME, TEST_BLOCKWISE_STATUS_LIFETIME, TimeUnit.MILLISECONDS)
+				.set(CoapConfig.BLOCKWISE_RESPONSE_CACHE_SIZE, 10)
+				.set(CoapConfig.BLOCKWISE_RESPONSE_CACHE_LIFETIME, TEST_RESPONSE_CACHE_LIFETIME,
+						TimeUnit.MILLISECONDS);
+
+		respPayload = generateRandomPayload(300);
+		etag = new byte[] { 0x00, 0x01 };
+		// bind to loopback address using an ephemeral port
+		serverEndpoint = new CoapTestEndpoint(TestTools.LOCALHOST_EPHEMERAL, config);
+		serverEndpoint.addInterceptor(serverInterceptor);
+		server = new CoapServer(config);
+		server.addEndpoint(serverEndpoint);
+		resource = new TestResource(RESOURCE_PATH);
+		server.add(resource);
+		server.start();
+		cleanup.add(server);
+		InetSocketAddress serverAddress = serverEndpoint.getAddress();
+		System.out.println("Server binds to port " + serverAddress.getPort());
+		client1 = createLockstepEndpoint(serverAddress, config);
+		cleanup.add(client1);
+		client2 = createLockstepEndpoint(serverAddress, config);
+		cleanup.add(client2);
+	}
+
+	@After
+	public void shutdown() {
+		try {
+			assertAllExchangesAreCompleted(serverEndpoint, time);
+		} finally {
+			printServerLog(serverInterceptor);
+		}
+	}
+
+	/**
+	 * Verify, that the second client retrieves all blocks from the cache
+	 * without invoking the resource again.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testGETServedFromCache() throws Exception {
+		getBlockwise(client1);
+		getBlockwise(client2);
+		assertThat(getRequests.get(), is(1));
+	}
+
+	/**
+	 * Verify, that responses of resources without shared representation are
+	 * not cached.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testGETNotSharedIsNotCached() throws Exception {
+		resource.setSharedRepresentation(false);
+		getBlockwise(client1);
+		getBlockwise(client2);
+		assertThat(getRequests.get(), is(2));
+	}
+
+	/**
+	 * Verify, that a request with a matching ETag is validated from the cache.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testGETValidatedFromCache() throws Exception {
+		getBlockwise(client1);
+
+		Token tok = generateNextToken();
+		client2.sendRequest(CON, GET, tok, ++mid).path(RESOURCE_PATH).etag(etag).go();
+		client2.expectResponse(ACK, VALID, tok, mid).hasEtag(etag).noOption(OptionNumberRegistry.BLOCK2)
+				.payload("").go();
+		assertThat(getRequests.get(), is(1));
+	}
+
+	/**
+	 * Verify, that a follow-up block is served from the cache for a client
+	 * without blockwise status, if the ETag matches.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testGETFollowUpBlockServedFromCache() throws Exception {
+		getBlockwise(client1);
+
+		Token tok = generateNextToken();
+		client2.sendRequest(CON, GET, tok, ++mid).path(RESOURCE_PATH).block2(1, false, 128).etag(etag).go();
+		client2.expectResponse(ACK, CONTENT, tok, mid).block2(1, true, 128).hasEtag(etag)
+				.payload(respPayload.substring(128, 256)).go();
+		assertThat(getRequests.get(), is(1));
+	}
+
+	/**
+	 * Verify, that a follow-up block with an other ETag is passed to the
+	 * resource.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testGETFollowUpBlockWithOtherETag() throws Exception {
+		getBlockwise(client1);
+
+		Token tok = generateNextToken();
+		client2.sendRequest(CON, GET, tok, ++mid).path(RESOURCE_PATH).block2(1, false, 128)
+				.etag(new byte[] { 0x00, 0x02 }).go();
+		client2.expectResponse(ACK, CONTENT, tok, mid).block2(1, true, 128).hasEtag(etag)
+				.payload(respPayload.substring(128, 256)).go();
+		assertThat(getRequests.get(), is(2));
+	}
+
+	/**
+	 * Verify, that responses without ETag are not cached.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testGETWithoutETagIsNotCached() throws Exception {
+		etag = null;
+		getBlockwise(client1);
+		getBlockwise(client2);
+		assertThat(getRequests.get(), is(2));
+	}
+
+	/**
+	 * Verify, that the resource is invoked again, when the cached response
+	 * has expired.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testGETCachedResponseExpires() throws Exception {
+		getBlockwise(client1);
+		time.addTestTimeShift(TEST_RESPONSE_CACHE_LIFETIME * 2, TimeUnit.MILLISECONDS);
+		getBlockwise(client2);
+		assertThat(getRequests.get(), is(2));
+	}
+
+	/**
+	 * Verify, that a request for a non existing block of a cached
+	 * representation is rejected with {@link ResponseCode#BAD_OPTION}.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testGETNonExistingBlockFromCache() throws Exception {
+		getBlockwise(client1);
+
+		Token tok = generateNextToken();
+		client2.sendRequest(CON, GET, tok, ++mid).path(RESOURCE_PATH).block2(3, false, 128).etag(etag).go();
+		client2.expectResponse(ACK, BAD_OPTION, tok, mid).noOption(OptionNumberRegistry.BLOCK2).go();
+		assertThat(getRequests.get(), is(1));
+	}
+
+	/**
+	 * Verify, that the Max-Age of a cached representation is reduced by the
+	 * time it has been cached.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testGETMaxAgeReducedFromCache() throws Exception {
+		maxAge = 100L;
+		getBlockwise(client1);
+		time.addTestTimeShift(TEST_RESPONSE_CACHE_LIFETIME / 2, TimeUnit.MILLISECONDS);
+
+		Token tok = generateNextToken();
+		client2.sendRequest(CON, GET, tok, ++mid).path(RESOURCE_PATH).block2(1, false, 128).etag(etag).go();
+		client2.expectResponse(ACK, CONTENT, tok, mid).block2(1, true, 128).hasEtag(etag)
+				.maxAge(maxAge - TimeUnit.MILLISECONDS.toSeconds(TEST_RESPONSE_CACHE_LIFETIME / 2))
+				.payload(respPayload.substring(128, 256)).go();
+
+		tok = generateNextToken();
+		client2.sendRequest(CON, GET, tok, ++mid).path(RESOURCE_PATH).etag(etag).go();
+		client2.expectResponse(ACK, VALID, tok, mid).hasEtag(etag)
+				.maxAge(maxAge - TimeUnit.MILLISECONDS.toSeconds(TEST_RESPONSE_CACHE_LIFETIME / 2)).go();
+		assertThat(getRequests.get(), is(1));
+	}
+
+	private void getBlockwise(LockstepEndpoint client) throws Exception {
+		Token tok = generateNextToken();
+
+		client.sendRequest(CON, GET, tok, ++mid).path(RESOURCE_PATH).go();
+		client.expectResponse(ACK, CONTENT, tok, mid).block2(0, true, 128).size2(300)
+				.payload(respPayload.substring(0, 128)).go();
+		for (int num = 1; num < 3; ++num) {
+			boolean m = num < 2;
+			int end = Math.min(respPayload.length(), (num + 1) * 128);
+			if (etag != null) {
+				client.sendRequest(CON, GET, tok, ++mid).path(RESOURCE_PATH).block2(num, false, 128).etag(etag).go();
+				client.expectResponse(ACK, CONTENT, tok, mid).block2(num, m, 128).hasEtag(etag)
+						.payload(respPayload.substring(num * 128, end)).go();
+			} else {
+				client.sendRequest(CON, GET, tok, ++mid).path(RESOURCE_PATH).block2(num, false, 128).go();
+				client.expectResponse(ACK, CONTENT, tok, mid).block2(num, m, 128)
+						.payload(respPayload.substring(num * 128, end)).go();
+			}
+		}
+	}
+
+	private class TestResource extends CoapResource {
+
+		public TestResource(String name) {
+			super(name);
+			setSharedRepresentation(true);
+		}
+
+		public void handleGET(final CoapExchange exchange) {
+			getRequests.incrementAndGet();
+			Response response = Response.createResponse(exchange.advanced().getRequest(), ResponseCode.CONTENT);
+			response.setPayload(respPayload);
+			if (etag != null) {
+				response.getOptions().addETag(etag);
+			}
+			if (maxAge != null) {
+				response.getOptions().setMaxAge(maxAge);
+			}
+			exchange.respond(response);
+		}
+	}
+}
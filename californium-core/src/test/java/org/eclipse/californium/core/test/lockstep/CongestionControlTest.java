@@ -24,6 +24,7 @@ import static org.eclipse.californium.core.test.lockstep.IntegrationTestTools.cr
 import static org.eclipse.californium.core.test.lockstep.IntegrationTestTools.createRequest;
 import static org.eclipse.californium.core.test.lockstep.IntegrationTestTools.printServerLog;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -174,4 +175,16 @@ public class CongestionControlTest {
 		assertThat(rto.apply(1000), is(1100L));
 	}
 
+	@Test
+	public void testRtoCopy() throws Exception {
+		Rto rto = new Rto(4, 2000);
+		assertThat(rto.apply(1000), is(3000L));
+		Rto copy = new Rto(rto);
+		assertThat(copy.getRto(), is(3000L));
+		assertThat(copy.apply(1000), is(rto.apply(1000)));
+		copy.apply(2000);
+		// original is not changed by the copy
+		assertThat(rto.getRto(), is(not(copy.getRto())));
+	}
+
 }
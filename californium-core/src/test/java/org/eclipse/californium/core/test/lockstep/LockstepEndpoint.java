@@ -1117,6 +1117,22 @@ public class LockstepEndpoint {
 			return this;
 		}
 
+		public ResponseExpectation maxAge(final long expectedMaxAge) {
+			expectations.add(new Expectation<Response>() {
+
+				@Override
+				public void check(final Response response) {
+					assertThat("Wrong Max-Age", response.getOptions().getMaxAge(), is(expectedMaxAge));
+				}
+
+				@Override
+				public String toString() {
+					return "Expected Max-Age option: " + expectedMaxAge;
+				}
+			});
+			return this;
+		}
+
 		@Override
 		public ResponseExpectation noOption(final int... numbers) {
 			super.noOption(numbers);
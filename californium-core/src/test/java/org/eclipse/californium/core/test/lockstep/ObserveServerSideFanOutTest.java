@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.core.test.lockstep;
+
+import static org.eclipse.californium.TestTools.generateRandomPayload;
+import static org.eclipse.californium.core.coap.CoAP.Code.GET;
+import static org.eclipse.californium.core.coap.CoAP.ResponseCode.CONTENT;
+import static org.eclipse.californium.core.coap.CoAP.Type.ACK;
+import static org.eclipse.californium.core.coap.CoAP.Type.CON;
+import static org.eclipse.californium.core.coap.CoAP.Type.NON;
+import static org.eclipse.californium.core.test.MessageExchangeStoreTool.assertAllExchangesAreCompleted;
+import static org.eclipse.californium.core.test.lockstep.IntegrationTestTools.createLockstepEndpoint;
+import static org.eclipse.californium.core.test.lockstep.IntegrationTestTools.generateNextToken;
+import static org.eclipse.californium.core.test.lockstep.IntegrationTestTools.printServerLog;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.californium.TestTools;
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.CoapServer;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.core.server.resources.CoapExchange;
+import org.eclipse.californium.core.test.MessageExchangeStoreTool.CoapTestEndpoint;
+import org.eclipse.californium.elements.category.Medium;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.rule.TestNameLoggerRule;
+import org.eclipse.californium.elements.rule.TestTimeRule;
+import org.eclipse.californium.rule.CoapNetworkRule;
+import org.eclipse.californium.rule.CoapThreadsRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Test cases verifying the server side notification fan-out.
+ *
+ * @see CoapResource#setNotificationFanOut(boolean)
+ */
+@Category(Medium.class)
+public class ObserveServerSideFanOutTest {
+
+	@ClassRule
+	public static CoapNetworkRule network = new CoapNetworkRule(CoapNetworkRule.Mode.DIRECT,
+			CoapNetworkRule.Mode.NATIVE);
+
+	@Rule
+	public CoapThreadsRule cleanup = new CoapThreadsRule();
+
+	@Rule
+	public TestTimeRule time = new TestTimeRule();
+
+	@Rule
+	public TestNameLoggerRule name = new TestNameLoggerRule();
+
+	private static final int ACK_TIMEOUT = 200;
+	private static final String RESOURCE_PATH = "obs";
+
+	private CoapServer server;
+	private CoapTestEndpoint serverEndpoint;
+	private TestObserveResource resource;
+	private LockstepEndpoint client1;
+	private LockstepEndpoint client2;
+	private LockstepEndpoint client3;
+	private int mid = 7000;
+	private volatile String respPayload;
+	private volatile boolean asynchronous;
+	private List<CoapExchange> pendingExchanges = new CopyOnWriteArrayList<>();
+	private AtomicInteger getRequests = new AtomicInteger();
+	private ServerBlockwiseInterceptor serverInterceptor = new ServerBlockwiseInterceptor();
+
+	@Before
+	public void setup() throws Exception {
+		Configuration config = network.createStandardTestConfig()
+				.set(CoapConfig.ACK_TIMEOUT, ACK_TIMEOUT, TimeUnit.MILLISECONDS)
+				.set(CoapConfig.ACK_INIT_RANDOM, 1f)
+				.set(CoapConfig.ACK_TIMEOUT_SCALE, 1f)
+				.set(CoapConfig.MARK_AND_SWEEP_INTERVAL, 200, TimeUnit.MILLISECONDS)
+				.set(CoapConfig.EXCHANGE_LIFETIME, 247, TimeUnit.MILLISECONDS);
+
+		respPayload = generateRandomPayload(30);
+		resource = new TestObserveResource(RESOURCE_PATH);
+		// bind to loopback address using an ephemeral port
+		serverEndpoint = new CoapTestEndpoint(TestTools.LOCALHOST_EPHEMERAL, config);
+		serverEndpoint.addInterceptor(serverInterceptor);
+		server = new CoapServer(config);
+		server.addEndpoint(serverEndpoint);
+		server.add(resource);
+		server.start();
+		cleanup.add(server);
+		InetSocketAddress serverAddress = serverEndpoint.getAddress();
+		System.out.println("Server binds to port " + serverAddress.getPort());
+		client1 = createLockstepEndpoint(serverAddress, config);
+		cleanup.add(client1);
+		client2 = createLockstepEndpoint(serverAddress, config);
+		cleanup.add(client2);
+		client3 = createLockstepEndpoint(serverAddress, config);
+		cleanup.add(client3);
+	}
+
+	@After
+	public void shutdown() {
+		try {
+			resource.clearObserveRelations();
+			assertAllExchangesAreCompleted(serverEndpoint, time);
+		} finally {
+			printServerLog(serverInterceptor);
+		}
+	}
+
+	/**
+	 * Verify, that a change is notified to all observers with only one
+	 * invocation of the resource.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testNotificationFanOut() throws Exception {
+		Token tok1 = observe(client1);
+		Token tok2 = observe(client2);
+		assertThat(resource.getObserverCount(), is(2));
+		assertThat(getRequests.get(), is(2));
+
+		respPayload = generateRandomPayload(30);
+		resource.changed();
+		client1.expectResponse().type(NON).code(CONTENT).token(tok1).checkObs("Z", "A").payload(respPayload).go();
+		client2.expectResponse().type(NON).code(CONTENT).token(tok2).checkObs("Z", "A").payload(respPayload).go();
+		assertThat(getRequests.get(), is(3));
+
+		respPayload = generateRandomPayload(30);
+		resource.changed();
+		client1.expectResponse().type(NON).code(CONTENT).token(tok1).checkObs("A", "B").payload(respPayload).go();
+		client2.expectResponse().type(NON).code(CONTENT).token(tok2).checkObs("A", "B").payload(respPayload).go();
+		assertThat(getRequests.get(), is(4));
+	}
+
+	/**
+	 * Verify, that the message type of the resource is applied to all
+	 * notifications of the fan-out.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testConfirmableNotificationFanOut() throws Exception {
+		Token tok1 = observe(client1);
+		Token tok2 = observe(client2);
+
+		resource.setObserveType(CON);
+		respPayload = generateRandomPayload(30);
+		resource.changed();
+		client1.expectResponse().type(CON).code(CONTENT).token(tok1).storeMID("MID").checkObs("Z", "A")
+				.payload(respPayload).go();
+		client1.sendEmpty(ACK).loadMID("MID").go();
+		client2.expectResponse().type(CON).code(CONTENT).token(tok2).storeMID("MID").checkObs("Z", "A")
+				.payload(respPayload).go();
+		client2.sendEmpty(ACK).loadMID("MID").go();
+		assertThat(getRequests.get(), is(3));
+	}
+
+	/**
+	 * Verify, that the fan-out continues, when pending notifications are sent.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testNotificationFanOutWithMaxPendingNotifications() throws Exception {
+		Token tok1 = observe(client1);
+		Token tok2 = observe(client2);
+		Token tok3 = observe(client3);
+
+		resource.setMaxPendingNotifications(1);
+		resource.setObserveType(CON);
+		respPayload = generateRandomPayload(30);
+		resource.changed();
+		client1.expectResponse().type(CON).code(CONTENT).token(tok1).storeMID("MID").checkObs("Z", "A")
+				.payload(respPayload).go();
+		client1.sendEmpty(ACK).loadMID("MID").go();
+		client2.expectResponse().type(CON).code(CONTENT).token(tok2).storeMID("MID").checkObs("Z", "A")
+				.payload(respPayload).go();
+		client2.sendEmpty(ACK).loadMID("MID").go();
+		client3.expectResponse().type(CON).code(CONTENT).token(tok3).storeMID("MID").checkObs("Z", "A")
+				.payload(respPayload).go();
+		client3.sendEmpty(ACK).loadMID("MID").go();
+		assertThat(getRequests.get(), is(4));
+	}
+
+	/**
+	 * Verify, that an asynchronous response is used for the fan-out.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testAsynchronousResponseIsFannedOut() throws Exception {
+		Token tok1 = observe(client1);
+		Token tok2 = observe(client2);
+
+		asynchronous = true;
+		respPayload = generateRandomPayload(30);
+		resource.changed();
+		assertThat(pendingExchanges.size(), is(1));
+		Response response = new Response(CONTENT);
+		response.setPayload(respPayload);
+		pendingExchanges.get(0).respond(response);
+		client1.expectResponse().type(NON).code(CONTENT).token(tok1).checkObs("Z", "A").payload(respPayload).go();
+		client2.expectResponse().type(NON).code(CONTENT).token(tok2).checkObs("Z", "A").payload(respPayload).go();
+		assertThat(getRequests.get(), is(3));
+	}
+
+	/**
+	 * Verify, that a change during a pending fan-out notifies all observers
+	 * with the new state.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testChangeReplacesPendingFanOut() throws Exception {
+		Token tok1 = observe(client1);
+		Token tok2 = observe(client2);
+
+		asynchronous = true;
+		resource.changed();
+		assertThat(pendingExchanges.size(), is(1));
+		asynchronous = false;
+		respPayload = generateRandomPayload(30);
+		resource.changed();
+		client1.expectResponse().type(NON).code(CONTENT).token(tok1).checkObs("Z", "A").payload(respPayload).go();
+		client2.expectResponse().type(NON).code(CONTENT).token(tok2).checkObs("Z", "A").payload(respPayload).go();
+		assertThat(getRequests.get(), is(4));
+	}
+
+	private Token observe(LockstepEndpoint client) throws Exception {
+		Token tok = generateNextToken();
+		client.sendRequest(CON, GET, tok, ++mid).path(RESOURCE_PATH).observe(0).go();
+		client.expectResponse(ACK, CONTENT, tok, mid).storeObserve("Z").payload(respPayload).go();
+		return tok;
+	}
+
+	private class TestObserveResource extends CoapResource {
+
+		public TestObserveResource(String name) {
+			super(name);
+			setObservable(true);
+			setObserveType(NON);
+			setNotificationFanOut(true);
+		}
+
+		public void handleGET(final CoapExchange exchange) {
+			getRequests.incrementAndGet();
+			if (asynchronous) {
+				pendingExchanges.add(exchange);
+			} else {
+				Response response = new Response(CONTENT);
+				response.setPayload(respPayload);
+				exchange.respond(response);
+			}
+		}
+	}
+}
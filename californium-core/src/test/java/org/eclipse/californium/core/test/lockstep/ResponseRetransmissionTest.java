@@ -26,6 +26,7 @@ import static org.eclipse.californium.core.test.lockstep.IntegrationTestTools.pr
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertNull;
 
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.californium.TestTools;
@@ -51,10 +52,15 @@ import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
 
 /**
  * This test checks for correct MID namespaces and deduplication.
  */
+@RunWith(Parameterized.class)
 @Category(Medium.class)
 public class ResponseRetransmissionTest {
 
@@ -77,6 +83,20 @@ public class ResponseRetransmissionTest {
 	@Rule
 	public TestTimeRule time = new TestTimeRule();
 
+	/**
+	 * Tick of retransmission timer. {@code 0} to use the main executor.
+	 */
+	@Parameter
+	public int timerTick;
+
+	/**
+	 * @return List of retransmission timer ticks.
+	 */
+	@Parameters(name = "timer-tick = {0}")
+	public static Iterable<Integer> timerTickParams() {
+		return Arrays.asList(0, 10);
+	}
+
 	private int mid = 17000;
 	private LockstepEndpoint client;
 
@@ -94,7 +114,8 @@ public class ResponseRetransmissionTest {
 				.set(CoapConfig.ACK_INIT_RANDOM, 1F)
 				.set(CoapConfig.MAX_RETRANSMIT, 1)
 				.set(CoapConfig.MARK_AND_SWEEP_INTERVAL, TEST_SWEEP_DEDUPLICATOR_INTERVAL, TimeUnit.MILLISECONDS)
-				.set(CoapConfig.EXCHANGE_LIFETIME, TEST_EXCHANGE_LIFETIME, TimeUnit.MILLISECONDS);
+				.set(CoapConfig.EXCHANGE_LIFETIME, TEST_EXCHANGE_LIFETIME, TimeUnit.MILLISECONDS)
+				.set(CoapConfig.RETRANSMISSION_TIMER_TICK, timerTick, TimeUnit.MILLISECONDS);
 		serverConnector = new UDPTestConnector(TestTools.LOCALHOST_EPHEMERAL, config);
 		serverEndpoint = new CoapTestEndpoint(serverConnector, config, false);
 		serverEndpoint.addInterceptor(serverInterceptor);
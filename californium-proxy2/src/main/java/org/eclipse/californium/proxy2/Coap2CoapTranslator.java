@@ -66,9 +66,8 @@ public class Coap2CoapTranslator extends CoapUriTranslator {
 		Request outgoingRequest = new Request(code);
 		outgoingRequest.setConfirmable(type == Type.CON);
 
-		// copy payload
-		byte[] payload = incomingRequest.getPayload();
-		outgoingRequest.setPayload(payload);
+		// copy payload, shares the payload without copying the bytes
+		outgoingRequest.setPayload(incomingRequest.getSharedPayloadBuffer());
 
 		// copy every option from the original message
 		// do not copy the proxy-uri option because it is not necessary in the new message
@@ -112,9 +111,8 @@ public class Coap2CoapTranslator extends CoapUriTranslator {
 		// create the response
 		Response outgoingResponse = new Response(status);
 
-		// copy payload
-		byte[] payload = incomingResponse.getPayload();
-		outgoingResponse.setPayload(payload);
+		// copy payload, shares the payload without copying the bytes
+		outgoingResponse.setPayload(incomingResponse.getSharedPayloadBuffer());
 
 		// copy the timestamp
 		long timestamp = incomingResponse.getNanoTimestamp();
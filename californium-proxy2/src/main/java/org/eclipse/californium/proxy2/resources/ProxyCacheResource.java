@@ -324,7 +324,7 @@ public class ProxyCacheResource extends CoapResource implements CacheResource {
 				// mid & token are set, when sending the response
 				Response proxyResponse = new Response(response.getCode());
 				proxyResponse.setOptions(new OptionSet(response.getOptions()));
-				proxyResponse.setPayload(response.getPayload());
+				proxyResponse.setPayload(response.getSharedPayloadBuffer());
 				proxyResponse.getOptions().setMaxAge(secondsLeft);
 				return proxyResponse;
 			}
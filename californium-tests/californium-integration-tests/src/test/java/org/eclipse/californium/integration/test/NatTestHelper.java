@@ -81,6 +81,11 @@ public class NatTestHelper {
 	static final ConnectionIdGenerator USE_CID_4 = new SingleNodeConnectionIdGenerator(4);
 
 	CoapsNetworkRule network;
+	/**
+	 * Number of selector shards of the NAT. {@code 0} for the
+	 * single-threaded NAT.
+	 */
+	int shards;
 
 	boolean first;
 	Random rand;
@@ -100,8 +105,9 @@ public class NatTestHelper {
 	MyResource resource;
 	String uri;
 
-	NatTestHelper(CoapsNetworkRule network) {
+	NatTestHelper(CoapsNetworkRule network, int shards) {
 		this.network = network;
+		this.shards = shards;
 		this.rand = new Random(System.currentTimeMillis());
 		this.first = true;
 	}
@@ -329,7 +335,7 @@ public class NatTestHelper {
 		for (CoapEndpoint serverEndpoint : serverEndpoints) {
 			InetSocketAddress address = serverEndpoint.getAddress();
 			if (nat == null) {
-				nat = new NioNatUtil(TestTools.LOCALHOST_EPHEMERAL, address);
+				nat = new NioNatUtil(TestTools.LOCALHOST_EPHEMERAL, address, shards);
 				uri = TestTools.getUri(serverEndpoint, TARGET);
 				destinationPort = address.getPort();
 			} else {
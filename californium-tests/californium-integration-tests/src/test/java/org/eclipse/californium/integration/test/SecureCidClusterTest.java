@@ -22,6 +22,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.californium.core.CoapClient;
@@ -39,7 +40,12 @@ import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
 
+@RunWith(Parameterized.class)
 @Category(NativeDatagramSocketImplRequired.class)
 public class SecureCidClusterTest {
 
@@ -56,11 +62,25 @@ public class SecureCidClusterTest {
 	static final int NUM_OF_CLIENTS = 20;
 	static final int NUM_OF_LOOPS = 50;
 
+	/**
+	 * Number of selector shards of the NAT.
+	 */
+	@Parameter
+	public int shards;
+
+	/**
+	 * @return List of NAT selector shards.
+	 */
+	@Parameters(name = "shards = {0}")
+	public static Iterable<Integer> shardsParams() {
+		return Arrays.asList(0, 2);
+	}
+
 	private NatTestHelper helper;
 
 	@Before
 	public void init() {
-		helper = new NatTestHelper(network);
+		helper = new NatTestHelper(network, shards);
 	}
 
 	@After
@@ -0,0 +1,613 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ ******************************************************************************/
+package org.eclipse.californium.oscore;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.elements.util.Bytes;
+import org.eclipse.californium.elements.util.ClockUtil;
+import org.eclipse.californium.elements.util.ConcurrentLeastRecentlyUsedCache;
+import org.eclipse.californium.elements.util.LeastRecentlyUsedCache.EvictionListener;
+import org.eclipse.californium.elements.util.LeastRecentlyUsedCache.Timestamped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implements the OSCoreCtxDB interface with
+ * {@link ConcurrentLeastRecentlyUsedCache}s.
+ *
+ * In difference to the {@link HashMapCtxDB}, the lookups are not synchronized
+ * and therefore don't block each other. Only the modification of the contexts
+ * and token associations is synchronized.
+ *
+ * The number of contexts is limited. If that limit is exceeded, the least
+ * recently used context is evicted. The associations of tokens are also
+ * limited and expire, if not used for the token expiration time. If the limit
+ * of the token associations is exceeded, the least recently used one is
+ * evicted.
+ *
+ * @since 3.0
+ */
+public class ConcurrentCtxDB implements OSCoreCtxDB {
+
+	/**
+	 * The logger
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentCtxDB.class);
+
+	/**
+	 * Default maximum number of contexts.
+	 */
+	public static final int DEFAULT_MAX_CONTEXTS = 10000;
+	/**
+	 * Default maximum number of token associations.
+	 */
+	public static final int DEFAULT_MAX_TOKENS = 10000;
+	/**
+	 * Default expiration of token associations in seconds.
+	 */
+	public static final long DEFAULT_TOKEN_EXPIRATION_SECS = 30 * 60; // 30 minutes
+
+	/**
+	 * Expiration of token associations in nanoseconds.
+	 */
+	private final long tokenExpirationNanos;
+
+	/**
+	 * Contexts in least recently used order.
+	 *
+	 * Uses an expiration threshold of {@code 0}, which evicts the least
+	 * recently used context, if the maximum number of contexts is exceeded.
+	 * Modifications are guarded by this.
+	 */
+	private final ConcurrentLeastRecentlyUsedCache<ContextKey, OSCoreCtx> contexts;
+	/**
+	 * Token associations in least recently used order.
+	 *
+	 * Uses an expiration threshold of {@code 0}, which evicts the least
+	 * recently used token association, if the maximum number of token
+	 * associations is exceeded. The token expiration is checked on access.
+	 * Modifications are guarded by this cache.
+	 */
+	private final ConcurrentLeastRecentlyUsedCache<Token, TokenEntry> tokens;
+
+	// The outer map has RID as key and the inner ID Context.
+	// Index of the contexts, modifications are guarded by this.
+	private final ConcurrentMap<ByteId, ConcurrentMap<ByteId, OSCoreCtx>> contextMap = new ConcurrentHashMap<>();
+
+	// Modifications are guarded by this.
+	private final ConcurrentMap<String, OSCoreCtx> uriMap = new ConcurrentHashMap<>();
+
+	/**
+	 * Create the database with {@link #DEFAULT_MAX_CONTEXTS},
+	 * {@link #DEFAULT_MAX_TOKENS}, and
+	 * {@link #DEFAULT_TOKEN_EXPIRATION_SECS}.
+	 */
+	public ConcurrentCtxDB() {
+		this(DEFAULT_MAX_CONTEXTS, DEFAULT_MAX_TOKENS, DEFAULT_TOKEN_EXPIRATION_SECS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Create the database.
+	 *
+	 * @param maxContexts maximum number of contexts
+	 * @param maxTokens maximum number of token associations
+	 * @param tokenExpiration expiration of token associations
+	 * @param unit time unit of token expiration
+	 * @throws IllegalArgumentException if maxContexts or maxTokens is less
+	 *             than {@code 1}, or tokenExpiration is less than {@code 1}
+	 * @throws NullPointerException if unit is {@code null}
+	 */
+	public ConcurrentCtxDB(int maxContexts, int maxTokens, long tokenExpiration, TimeUnit unit) {
+		if (maxContexts < 1) {
+			throw new IllegalArgumentException("Maximum contexts " + maxContexts + " must be at least 1!");
+		}
+		if (maxTokens < 1) {
+			throw new IllegalArgumentException("Maximum tokens " + maxTokens + " must be at least 1!");
+		}
+		if (tokenExpiration < 1) {
+			throw new IllegalArgumentException("Token expiration " + tokenExpiration + " must be at least 1!");
+		}
+		if (unit == null) {
+			throw new NullPointerException("Unit must not be null!");
+		}
+		this.tokenExpirationNanos = unit.toNanos(tokenExpiration);
+		this.contexts = new ConcurrentLeastRecentlyUsedCache<>(maxContexts, 0);
+		this.contexts.addEvictionListener(new EvictionListener<OSCoreCtx>() {
+
+			@Override
+			public void onEviction(OSCoreCtx ctx) {
+				// called by contexts.put, which is synchronized on this
+				removeIndex(ctx);
+				LOGGER.debug("evicted context {}", new ByteId(ctx.getRecipientId()));
+			}
+		});
+		this.tokens = new ConcurrentLeastRecentlyUsedCache<>(maxTokens, 0);
+		this.tokens.addEvictionListener(new EvictionListener<TokenEntry>() {
+
+			@Override
+			public void onEviction(TokenEntry entry) {
+				LOGGER.debug("evicted token {}", entry.token);
+			}
+		});
+	}
+
+	/**
+	 * Retrieve context using RID and ID Context. If the provided ID Context is
+	 * null a result will be returned if there is only one unique context for
+	 * that RID.
+	 */
+	@Override
+	public OSCoreCtx getContext(byte[] rid, byte[] IDContext) throws CoapOSException {
+		// Do not allow a null RID
+		if (rid == null) {
+			LOGGER.error(ErrorDescriptions.BYTE_ARRAY_NULL);
+			throw new NullPointerException(ErrorDescriptions.BYTE_ARRAY_NULL);
+		}
+
+		// If retrieving using both RID and ID Context
+		if (IDContext != null) {
+			return contexts.get(new ContextKey(new ByteId(rid), new ByteId(IDContext)));
+		}
+
+		Map<ByteId, OSCoreCtx> matchingRidMap = contextMap.get(new ByteId(rid));
+
+		// No matching RID found at all
+		if (matchingRidMap == null) {
+			return null;
+		}
+
+		// If retrieving using only RID, there must be only 1 match maximum
+		if (matchingRidMap.size() > 1) {
+			throw new CoapOSException(ErrorDescriptions.CONTEXT_NOT_FOUND_IDCONTEXT, ResponseCode.UNAUTHORIZED);
+		}
+		return access(first(matchingRidMap));
+	}
+
+	/**
+	 * Retrieve context using only RID when it is certain it is unique.
+	 */
+	@Override
+	public OSCoreCtx getContext(byte[] rid) {
+		Map<ByteId, OSCoreCtx> matchingRidMap = contextMap.get(new ByteId(rid));
+
+		if (matchingRidMap == null) {
+			return null;
+		}
+
+		if (matchingRidMap.size() > 1) {
+			throw new RuntimeException("Attempting to retrieve context with only non-unique RID.");
+		}
+
+		return access(first(matchingRidMap));
+	}
+
+	@Override
+	public OSCoreCtx getContextByToken(Token token) {
+		if (token != null) {
+			TokenEntry entry = getTokenEntry(token);
+			return entry == null ? null : entry.ctx;
+		} else {
+			LOGGER.error(ErrorDescriptions.TOKEN_NULL);
+			throw new NullPointerException(ErrorDescriptions.TOKEN_NULL);
+		}
+	}
+
+	@Override
+	public OSCoreCtx getContext(String uri) throws OSException {
+		if (uri != null) {
+			return access(uriMap.get(HashMapCtxDB.normalizeServerUri(uri)));
+		} else {
+			LOGGER.error(ErrorDescriptions.STRING_NULL);
+			throw new NullPointerException(ErrorDescriptions.STRING_NULL);
+		}
+	}
+
+	@Override
+	public void addContext(Token token, OSCoreCtx ctx) {
+		if (token != null) {
+			synchronized (tokens) {
+				TokenEntry previous = getTokenEntry(token);
+				tokens.put(token, new TokenEntry(token, ctx, previous == null ? null : previous.seq));
+			}
+		}
+		addContext(ctx);
+	}
+
+	@Override
+	public synchronized void addContext(String uri, OSCoreCtx ctx) throws OSException {
+		if (uri != null) {
+			String normalizedUri = HashMapCtxDB.normalizeServerUri(uri);
+			ctx.setUri(normalizedUri);
+			addContextEntry(ctx);
+			uriMap.put(normalizedUri, ctx);
+		} else {
+			addContext(ctx);
+		}
+	}
+
+	@Override
+	public void addContext(OSCoreCtx ctx) {
+		if (ctx != null) {
+			// fast path without lock, if the context is already added
+			if (contexts.get(getKey(ctx)) == ctx) {
+				return;
+			}
+		}
+		synchronized (this) {
+			addContextEntry(ctx);
+		}
+	}
+
+	@Override
+	public synchronized void removeContext(OSCoreCtx ctx) {
+		if (ctx != null) {
+			if (contexts.remove(getKey(ctx), ctx) != null) {
+				removeIndex(ctx);
+			}
+		} else {
+			LOGGER.error(ErrorDescriptions.CONTEXT_NULL);
+			throw new NullPointerException(ErrorDescriptions.CONTEXT_NULL);
+		}
+	}
+
+	@Override
+	public Integer getSeqByToken(Token token) {
+		if (token != null) {
+			TokenEntry entry = getTokenEntry(token);
+			return entry == null ? null : entry.seq;
+		} else {
+			LOGGER.error(ErrorDescriptions.TOKEN_NULL);
+			throw new NullPointerException(ErrorDescriptions.TOKEN_NULL);
+		}
+	}
+
+	@Override
+	public void addSeqByToken(Token token, Integer seq) {
+		if (seq == null || seq < 0) {
+			throw new NullPointerException(ErrorDescriptions.SEQ_NBR_INVALID);
+		}
+		if (token == null) {
+			throw new NullPointerException(ErrorDescriptions.TOKEN_NULL);
+		}
+		TokenEntry previous;
+		synchronized (tokens) {
+			previous = getTokenEntry(token);
+			tokens.put(token, new TokenEntry(token, previous == null ? null : previous.ctx, seq));
+		}
+		if (previous != null) {
+			LOGGER.info("Token exists, but this could be a refresh if not there is a problem");
+		}
+	}
+
+	@Override
+	public boolean tokenExist(Token token) {
+		if (token != null) {
+			return getTokenEntry(token) != null;
+		} else {
+			LOGGER.error(ErrorDescriptions.TOKEN_NULL);
+			throw new NullPointerException(ErrorDescriptions.TOKEN_NULL);
+		}
+	}
+
+	@Override
+	public void removeSeqByToken(Token token) {
+		if (token != null) {
+			synchronized (tokens) {
+				TokenEntry previous = getTokenEntry(token);
+				if (previous == null) {
+					return;
+				}
+				if (previous.ctx == null) {
+					tokens.remove(token, previous);
+				} else {
+					tokens.put(token, new TokenEntry(token, previous.ctx, null));
+				}
+			}
+		} else {
+			LOGGER.error(ErrorDescriptions.TOKEN_NULL);
+			throw new NullPointerException(ErrorDescriptions.TOKEN_NULL);
+		}
+	}
+
+	@Override
+	public void updateSeqByToken(Token token, Integer seq) {
+		if (tokenExist(token)) {
+			addSeqByToken(token, seq);
+		}
+	}
+
+	/**
+	 * Removes associations for this token.
+	 *
+	 * @param token the token to remove
+	 */
+	@Override
+	public void removeToken(Token token) {
+		synchronized (tokens) {
+			tokens.remove(token);
+		}
+	}
+
+	/**
+	 * Used mainly for test purpose, to purge the db of all contexts
+	 */
+	@Override
+	public synchronized void purge() {
+		contexts.clear();
+		contextMap.clear();
+		uriMap.clear();
+		synchronized (tokens) {
+			tokens.clear();
+		}
+	}
+
+	/**
+	 * Get number of contexts.
+	 *
+	 * @return number of contexts
+	 */
+	public int getNumberOfContexts() {
+		return contexts.size();
+	}
+
+	/**
+	 * Get number of token associations.
+	 *
+	 * @return number of token associations, including expired, but not
+	 *         removed ones.
+	 */
+	public int getNumberOfTokens() {
+		return tokens.size();
+	}
+
+	/**
+	 * Remove contexts, which are not used for the provided idle time.
+	 *
+	 * Intended to be called periodically by the application.
+	 *
+	 * @param idleTime idle time
+	 * @param unit time unit of idle time
+	 * @return number of removed contexts
+	 */
+	public synchronized int removeIdleContexts(long idleTime, TimeUnit unit) {
+		long now = ClockUtil.nanoRealtime();
+		long idleNanos = unit.toNanos(idleTime);
+		int count = 0;
+		Iterator<Timestamped<OSCoreCtx>> iterator = contexts.timestampedIterator();
+		while (iterator.hasNext()) {
+			Timestamped<OSCoreCtx> entry = iterator.next();
+			if (now - entry.getLastUpdate() < idleNanos) {
+				// the order may change concurrently, check all entries
+				continue;
+			}
+			OSCoreCtx ctx = entry.getValue();
+			if (contexts.remove(getKey(ctx), ctx) != null) {
+				removeIndex(ctx);
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Remove expired token associations.
+	 *
+	 * Intended to be called periodically by the application.
+	 *
+	 * @return number of removed token associations
+	 */
+	public int removeExpiredTokens() {
+		long now = ClockUtil.nanoRealtime();
+		int count = 0;
+		Iterator<Timestamped<TokenEntry>> iterator = tokens.timestampedIterator();
+		while (iterator.hasNext()) {
+			Timestamped<TokenEntry> entry = iterator.next();
+			if (now - entry.getLastUpdate() < tokenExpirationNanos) {
+				// the order may change concurrently, check all entries
+				continue;
+			}
+			if (tokens.remove(entry.getValue().token, entry.getValue()) != null) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Add context.
+	 *
+	 * Evicts the least recently used context, if the maximum number of
+	 * contexts is exceeded. Must be called synchronized.
+	 *
+	 * @param ctx context to add
+	 * @throws NullPointerException if ctx is {@code null}
+	 */
+	private void addContextEntry(OSCoreCtx ctx) {
+		if (ctx == null) {
+			LOGGER.error(ErrorDescriptions.CONTEXT_NULL);
+			throw new NullPointerException(ErrorDescriptions.CONTEXT_NULL);
+		}
+		ContextKey key = getKey(ctx);
+		OSCoreCtx previous = contexts.get(key);
+		if (previous == ctx) {
+			return;
+		}
+		if (previous != null) {
+			// context replaced
+			removeUri(previous);
+		}
+		ConcurrentMap<ByteId, OSCoreCtx> ridMap = contextMap.get(key.rid);
+		if (ridMap == null) {
+			ridMap = new ConcurrentHashMap<>();
+			contextMap.put(key.rid, ridMap);
+		}
+		ridMap.put(key.idContext, ctx);
+		// may evict the least recently used context
+		contexts.put(key, ctx);
+	}
+
+	/**
+	 * Remove the context from the RID and uri index.
+	 *
+	 * Must be called synchronized.
+	 *
+	 * @param ctx context to remove
+	 */
+	private void removeIndex(OSCoreCtx ctx) {
+		ByteId rid = new ByteId(ctx.getRecipientId());
+		ConcurrentMap<ByteId, OSCoreCtx> ridMap = contextMap.get(rid);
+		if (ridMap != null && ridMap.remove(getIdContext(ctx), ctx) && ridMap.isEmpty()) {
+			contextMap.remove(rid, ridMap);
+		}
+		removeUri(ctx);
+	}
+
+	/**
+	 * Remove the uri association of the context.
+	 *
+	 * @param ctx context
+	 */
+	private void removeUri(OSCoreCtx ctx) {
+		String uri = ctx.getUri();
+		if (uri != null) {
+			uriMap.remove(uri, ctx);
+		}
+	}
+
+	/**
+	 * Access context.
+	 *
+	 * Updates the last access time of the context.
+	 *
+	 * @param ctx context. May be {@code null}.
+	 * @return context, or {@code null}, if ctx is {@code null}.
+	 */
+	private OSCoreCtx access(OSCoreCtx ctx) {
+		if (ctx != null) {
+			contexts.update(getKey(ctx));
+		}
+		return ctx;
+	}
+
+	/**
+	 * Get token entry.
+	 *
+	 * Removes expired token entry and updates the last access time otherwise.
+	 *
+	 * @param token token
+	 * @return token entry, or {@code null}, if not available or expired.
+	 */
+	private TokenEntry getTokenEntry(Token token) {
+		Timestamped<TokenEntry> entry = tokens.getTimestamped(token);
+		if (entry == null) {
+			return null;
+		}
+		if (ClockUtil.nanoRealtime() - entry.getLastUpdate() >= tokenExpirationNanos) {
+			tokens.remove(token, entry.getValue());
+			return null;
+		}
+		return entry.getValue();
+	}
+
+	/**
+	 * Get key of context.
+	 *
+	 * @param ctx context
+	 * @return key with RID and ID Context
+	 */
+	private static ContextKey getKey(OSCoreCtx ctx) {
+		return new ContextKey(new ByteId(ctx.getRecipientId()), getIdContext(ctx));
+	}
+
+	/**
+	 * Get ID Context of context.
+	 *
+	 * @param ctx context
+	 * @return ID Context. {@link Bytes#EMPTY}, if the context has no ID
+	 *         Context.
+	 */
+	private static ByteId getIdContext(OSCoreCtx ctx) {
+		byte[] IDContext = ctx.getIdContext();
+		if (IDContext == null) {
+			IDContext = Bytes.EMPTY;
+		}
+		return new ByteId(IDContext);
+	}
+
+	/**
+	 * Get first context of map.
+	 *
+	 * @param map map of contexts
+	 * @return first context, or {@code null}, if map is empty.
+	 */
+	private static OSCoreCtx first(Map<ByteId, OSCoreCtx> map) {
+		Iterator<OSCoreCtx> iterator = map.values().iterator();
+		return iterator.hasNext() ? iterator.next() : null;
+	}
+
+	/**
+	 * Key of context, RID and ID Context.
+	 */
+	private static final class ContextKey {
+
+		private final ByteId rid;
+		private final ByteId idContext;
+		private final int hash;
+
+		private ContextKey(ByteId rid, ByteId idContext) {
+			this.rid = rid;
+			this.idContext = idContext;
+			this.hash = 31 * rid.hashCode() + idContext.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof ContextKey)) {
+				return false;
+			}
+			ContextKey other = (ContextKey) obj;
+			return rid.equals(other.rid) && idContext.equals(other.idContext);
+		}
+	}
+
+	/**
+	 * Token association.
+	 */
+	private static class TokenEntry {
+
+		private final Token token;
+		private final OSCoreCtx ctx;
+		private final Integer seq;
+
+		private TokenEntry(Token token, OSCoreCtx ctx, Integer seq) {
+			this.token = token;
+			this.ctx = ctx;
+			this.seq = seq;
+		}
+	}
+}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ ******************************************************************************/
+package org.eclipse.californium.oscore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.cose.AlgorithmID;
+import org.eclipse.californium.elements.rule.TestTimeRule;
+import org.eclipse.californium.elements.util.ExpectedExceptionWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ConcurrentCtxDBTest {
+
+	private final Token token = new Token(new byte[] { 0x09, 0x08, 0x07, 0x06 });
+	private final Token token_2 = new Token(new byte[] { 0x08, 0x07, 0x06, 0x05 });
+	private final Token token_3 = new Token(new byte[] { 0x07, 0x06, 0x05, 0x04 });
+	private final String uri = "coap://localhost";
+	private final byte[] master_secret = { 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B, 0x0C, 0x0D,
+			0x0E, 0x0F, 0x10, 0x11, 0x12, 0x13, 0x14, 0x15, 0x16, 0x17, 0x18, 0x19, 0x1A, 0x1B, 0x1C, 0x1D, 0x1E, 0x1F,
+			0x20, 0x21, 0x22, 0x23 };
+	private final AlgorithmID alg = AlgorithmID.AES_CCM_16_64_128;
+	private final byte[] rid = new byte[] { 0x73, 0x65, 0x72, 0x76, 0x65, 0x72 };
+	private final byte[] rid_2 = new byte[] { 0x14, 0x15, 0x16, 0x17, 0x18, 0x19 };
+	private final byte[] rid_3 = new byte[] { 0x24, 0x25, 0x26, 0x27, 0x28, 0x29 };
+	private final byte[] sid = new byte[] { 0x63, 0x6C, 0x69, 0x65, 0x6E, 0x74 };
+	private final byte[] context_id = { 0x74, 0x65, 0x73, 0x74, 0x74, 0x65, 0x73, 0x74 };
+	private final byte[] context_id_2 = { 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x10, 0x11 };
+	private final Integer seq = 42;
+	private final static int MAX_UNFRAGMENTED_SIZE = 4096;
+
+	@Rule
+	public final ExpectedException exception = ExpectedExceptionWrapper.none();
+
+	@Rule
+	public TestTimeRule time = new TestTimeRule();
+
+	@Test
+	public void testAddGetContext() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB();
+		OSCoreCtx ctx = newContext(rid, context_id);
+		OSCoreCtx ctx2 = newContext(rid, context_id_2);
+		OSCoreCtx ctx3 = newContext(rid_2, null);
+		db.addContext(ctx);
+		db.addContext(ctx2);
+		db.addContext(uri, ctx3);
+		// add again doesn't change the number of contexts
+		db.addContext(ctx3);
+
+		assertEquals(3, db.getNumberOfContexts());
+		assertEquals(ctx, db.getContext(rid, context_id));
+		assertEquals(ctx2, db.getContext(rid, context_id_2));
+		assertEquals(ctx3, db.getContext(rid_2));
+		assertEquals(ctx3, db.getContext(rid_2, null));
+		assertEquals(ctx3, db.getContext(uri));
+		assertNull(db.getContext(rid_3));
+
+		db.removeContext(ctx);
+		assertEquals(2, db.getNumberOfContexts());
+		assertNull(db.getContext(rid, context_id));
+		assertEquals(ctx2, db.getContext(rid, null));
+	}
+
+	@Test
+	public void testAddGetContextRidMultipleFail() throws OSException {
+		exception.expect(CoapOSException.class);
+		exception.expectMessage(ErrorDescriptions.CONTEXT_NOT_FOUND_IDCONTEXT);
+
+		ConcurrentCtxDB db = new ConcurrentCtxDB();
+		db.addContext(newContext(rid, context_id));
+		db.addContext(newContext(rid, context_id_2));
+
+		db.getContext(rid, null);
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsedContext() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB(2, 10, 60, TimeUnit.SECONDS);
+		OSCoreCtx ctx = newContext(rid, null);
+		OSCoreCtx ctx2 = newContext(rid_2, null);
+		OSCoreCtx ctx3 = newContext(rid_3, null);
+		db.addContext(uri, ctx);
+		time.addTestTimeShift(1, TimeUnit.SECONDS);
+		db.addContext(ctx2);
+		time.addTestTimeShift(1, TimeUnit.SECONDS);
+		// access ctx, ctx2 becomes the least recently used
+		assertEquals(ctx, db.getContext(rid));
+		time.addTestTimeShift(1, TimeUnit.SECONDS);
+		db.addContext(ctx3);
+
+		assertEquals(2, db.getNumberOfContexts());
+		assertEquals(ctx, db.getContext(rid));
+		assertNull(db.getContext(rid_2));
+		assertEquals(ctx3, db.getContext(rid_3));
+
+		time.addTestTimeShift(1, TimeUnit.SECONDS);
+		assertEquals(ctx3, db.getContext(rid_3));
+		time.addTestTimeShift(1, TimeUnit.SECONDS);
+		db.addContext(ctx2);
+
+		// ctx is now the least recently used, evict also the uri
+		assertEquals(2, db.getNumberOfContexts());
+		assertNull(db.getContext(rid));
+		assertNull(db.getContext(uri));
+	}
+
+	@Test
+	public void testRemoveIdleContexts() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB();
+		OSCoreCtx ctx = newContext(rid, context_id);
+		OSCoreCtx ctx2 = newContext(rid, context_id_2);
+		db.addContext(ctx);
+		db.addContext(ctx2);
+		time.addTestTimeShift(10, TimeUnit.SECONDS);
+		assertEquals(ctx2, db.getContext(rid, context_id_2));
+		time.addTestTimeShift(5, TimeUnit.SECONDS);
+
+		assertEquals(1, db.removeIdleContexts(10, TimeUnit.SECONDS));
+		assertEquals(1, db.getNumberOfContexts());
+		assertNull(db.getContext(rid, context_id));
+		assertEquals(ctx2, db.getContext(rid, null));
+	}
+
+	@Test
+	public void testTokenAssociations() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB();
+		OSCoreCtx ctx = newContext(rid, null);
+		db.addContext(token, ctx);
+		db.addSeqByToken(token, seq);
+
+		assertTrue(db.tokenExist(token));
+		assertEquals(ctx, db.getContextByToken(token));
+		assertEquals(seq, db.getSeqByToken(token));
+
+		db.updateSeqByToken(token, 43);
+		db.updateSeqByToken(token_2, 44);
+		assertEquals(Integer.valueOf(43), db.getSeqByToken(token));
+		assertFalse(db.tokenExist(token_2));
+
+		db.removeSeqByToken(token);
+		assertNull(db.getSeqByToken(token));
+		assertEquals(ctx, db.getContextByToken(token));
+
+		db.removeToken(token);
+		assertFalse(db.tokenExist(token));
+		assertNull(db.getContextByToken(token));
+		assertEquals(ctx, db.getContext(rid));
+	}
+
+	@Test
+	public void testTokenExpiration() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB(10, 10, 60, TimeUnit.SECONDS);
+		OSCoreCtx ctx = newContext(rid, null);
+		db.addContext(token, ctx);
+		db.addSeqByToken(token_2, seq);
+		time.addTestTimeShift(40, TimeUnit.SECONDS);
+		assertEquals(ctx, db.getContextByToken(token));
+		time.addTestTimeShift(40, TimeUnit.SECONDS);
+
+		assertEquals(ctx, db.getContextByToken(token));
+		assertNull(db.getSeqByToken(token_2));
+		assertFalse(db.tokenExist(token_2));
+
+		time.addTestTimeShift(60, TimeUnit.SECONDS);
+		assertEquals(1, db.removeExpiredTokens());
+		assertEquals(0, db.getNumberOfTokens());
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsedToken() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB(10, 2, 60, TimeUnit.SECONDS);
+		OSCoreCtx ctx = newContext(rid, null);
+		db.addContext(token, ctx);
+		time.addTestTimeShift(1, TimeUnit.SECONDS);
+		db.addContext(token_2, ctx);
+		time.addTestTimeShift(1, TimeUnit.SECONDS);
+		assertEquals(ctx, db.getContextByToken(token));
+		time.addTestTimeShift(1, TimeUnit.SECONDS);
+		db.addContext(token_3, ctx);
+
+		assertEquals(2, db.getNumberOfTokens());
+		assertTrue(db.tokenExist(token));
+		assertFalse(db.tokenExist(token_2));
+		assertTrue(db.tokenExist(token_3));
+	}
+
+	@Test
+	public void testConcurrentEvictLeastRecentlyUsedToken() throws Exception {
+		final int threads = 4;
+		final int tokensPerThread = 100;
+		final ConcurrentCtxDB db = new ConcurrentCtxDB(10, 50, 60, TimeUnit.SECONDS);
+		final OSCoreCtx ctx = newContext(rid, null);
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		List<Thread> workers = new ArrayList<>();
+		for (int index = 0; index < threads; ++index) {
+			final int threadIndex = index;
+			Thread worker = new Thread("token-" + index) {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int count = 0; count < tokensPerThread; ++count) {
+							Token token = new Token(new byte[] { (byte) threadIndex, (byte) count });
+							db.addContext(token, ctx);
+							db.addSeqByToken(token, count);
+						}
+					} catch (Throwable t) {
+						error.compareAndSet(null, t);
+					}
+				}
+			};
+			worker.start();
+			workers.add(worker);
+		}
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		assertNull(error.get());
+		// exactly one token is evicted for each new one
+		assertEquals(50, db.getNumberOfTokens());
+		assertEquals(1, db.getNumberOfContexts());
+	}
+
+	@Test
+	public void testSeqByNullToken() throws OSException {
+		ConcurrentCtxDB db = new ConcurrentCtxDB();
+		exception.expect(NullPointerException.class);
+
+		db.addSeqByToken(null, seq);
+	}
+
+	private OSCoreCtx newContext(byte[] rid, byte[] idContext) throws OSException {
+		return new OSCoreCtx(master_secret, true, alg, sid, rid, AlgorithmID.HKDF_HMAC_SHA_256, 32, null, idContext,
+				MAX_UNFRAGMENTED_SIZE);
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.scandium.dtls;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.eclipse.californium.elements.util.Bytes;
+import org.eclipse.californium.elements.util.ClockUtil;
+import org.eclipse.californium.elements.util.DatagramReader;
+import org.eclipse.californium.scandium.dtls.cipher.CipherSuite;
+import org.eclipse.californium.scandium.dtls.cipher.RandomManager;
+import org.eclipse.californium.scandium.util.SecretIvParameterSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks encryption and decryption of application data {@link Record}s.
+ *
+ * Located in the scandium package to access the {@link DTLSContext} setup,
+ * which is not public.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordBenchmark {
+
+	private static final int EPOCH = 1;
+
+	@Param({ "TLS_ECDHE_ECDSA_WITH_AES_128_CCM_8", "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256" })
+	public CipherSuite cipherSuite;
+
+	@Param({ "64", "1024" })
+	public int payloadSize;
+
+	private DTLSContext context;
+	private byte[] payload;
+	private byte[] encrypted;
+
+	@Setup
+	public void setup() throws GeneralSecurityException {
+		if (!cipherSuite.isSupported()) {
+			throw new IllegalStateException(cipherSuite + " is not supported by the JCE!");
+		}
+		SecureRandom secureRandom = RandomManager.currentSecureRandom();
+		int macKeyLength = cipherSuite.getMacKeyLength();
+		int ivLength = cipherSuite.getFixedIvLength();
+		SecretKey encKey = new SecretKeySpec(Bytes.createBytes(secureRandom, cipherSuite.getEncKeyLength()), "AES");
+		SecretKey macKey = macKeyLength == 0 ? null
+				: new SecretKeySpec(Bytes.createBytes(secureRandom, macKeyLength), "AES");
+		SecretIvParameterSpec iv = ivLength > 0 ? new SecretIvParameterSpec(Bytes.createBytes(secureRandom, ivLength))
+				: null;
+		payload = Bytes.createBytes(secureRandom, payloadSize);
+
+		DTLSSession session = new DTLSSession();
+		session.setCipherSuite(cipherSuite);
+		session.setCompressionMethod(CompressionMethod.NULL);
+		context = new DTLSContext(0);
+		context.getSession().set(session);
+		context.createReadState(encKey, iv, macKey);
+		context.createWriteState(encKey, iv, macKey);
+		encrypted = encrypt();
+	}
+
+	@Benchmark
+	public byte[] encrypt() throws GeneralSecurityException {
+		Record record = new Record(ContentType.APPLICATION_DATA, EPOCH, new ApplicationMessage(payload), context,
+				false, 0);
+		return record.toByteArray();
+	}
+
+	@Benchmark
+	public DTLSMessage decrypt() throws GeneralSecurityException, HandshakeException {
+		List<Record> records = Record.fromReader(new DatagramReader(encrypted), null, ClockUtil.nanoRealtime());
+		Record record = records.get(0);
+		record.decodeFragment(context.getReadState());
+		return record.getFragment();
+	}
+}
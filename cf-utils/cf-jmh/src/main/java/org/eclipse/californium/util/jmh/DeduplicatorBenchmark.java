@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.util.jmh;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.config.CoapConfig;
+import org.eclipse.californium.core.network.Exchange;
+import org.eclipse.californium.core.network.Exchange.Origin;
+import org.eclipse.californium.core.network.KeyMID;
+import org.eclipse.californium.core.network.deduplication.Deduplicator;
+import org.eclipse.californium.core.network.deduplication.DeduplicatorFactory;
+import org.eclipse.californium.elements.config.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the {@link Deduplicator} implementations created by the
+ * {@link DeduplicatorFactory}.
+ *
+ * {@link #addNew()} adds exchanges with new MIDs, the deduplicator is cleared
+ * when all MIDs of all peers are used. {@link #findDuplicate()} finds the
+ * exchange of an already received MID.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeduplicatorBenchmark {
+
+	private static final int PEERS = 16;
+	private static final int MIDS = 1 << 16;
+	private static final int DUPLICATES = 1024;
+
+	private static final Executor DIRECT = new Executor() {
+
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	@Param({ CoapConfig.DEDUPLICATOR_MARK_AND_SWEEP, CoapConfig.DEDUPLICATOR_PEERS_MARK_AND_SWEEP,
+			CoapConfig.DEDUPLICATOR_CROP_ROTATION, CoapConfig.DEDUPLICATOR_TIMING_WHEEL })
+	public String deduplicatorType;
+
+	private final InetSocketAddress[] peers = new InetSocketAddress[PEERS];
+	private final Exchange[] exchanges = new Exchange[PEERS];
+	private final Exchange[] duplicates = new Exchange[PEERS];
+
+	private ScheduledExecutorService executor;
+	private Deduplicator deduplicator;
+	private Deduplicator duplicatesDeduplicator;
+	private int mid;
+	private int peer;
+	private int duplicate;
+
+	@Setup
+	public void setup() throws UnknownHostException {
+		Configuration config = new Configuration(CoapConfig.DEFINITIONS);
+		config.set(CoapConfig.DEDUPLICATOR, deduplicatorType);
+		executor = Executors.newSingleThreadScheduledExecutor();
+		deduplicator = DeduplicatorFactory.getDeduplicatorFactory().createDeduplicator(config);
+		deduplicator.setExecutor(executor);
+		deduplicator.start();
+		duplicatesDeduplicator = DeduplicatorFactory.getDeduplicatorFactory().createDeduplicator(config);
+		duplicatesDeduplicator.setExecutor(executor);
+		duplicatesDeduplicator.start();
+		for (int index = 0; index < PEERS; ++index) {
+			peers[index] = new InetSocketAddress(InetAddress.getByAddress(new byte[] { 10, 0, 0, (byte) index }),
+					5683);
+			exchanges[index] = newExchange(peers[index]);
+			duplicates[index] = newExchange(peers[index]);
+		}
+		for (int index = 0; index < DUPLICATES; ++index) {
+			int peer = index % PEERS;
+			duplicatesDeduplicator.findPrevious(new KeyMID(index, peers[peer]), exchanges[peer]);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		deduplicator.stop();
+		duplicatesDeduplicator.stop();
+		executor.shutdown();
+	}
+
+	@Benchmark
+	public Exchange addNew() {
+		if (++peer == PEERS) {
+			peer = 0;
+			if (++mid == MIDS) {
+				mid = 0;
+				deduplicator.clear();
+			}
+		}
+		return deduplicator.findPrevious(new KeyMID(mid, peers[peer]), exchanges[peer]);
+	}
+
+	@Benchmark
+	public Exchange findDuplicate() {
+		duplicate = (duplicate + 1) & (DUPLICATES - 1);
+		int peer = duplicate % PEERS;
+		return duplicatesDeduplicator.findPrevious(new KeyMID(duplicate, peers[peer]), duplicates[peer]);
+	}
+
+	private static Exchange newExchange(InetSocketAddress peer) {
+		Request request = Request.newGet();
+		request.setURI("coap://localhost/test");
+		return new Exchange(request, peer, Origin.REMOTE, DIRECT);
+	}
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.util.jmh;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.core.network.KeyMID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks creating and hashing {@link Token} and {@link KeyMID}, and using
+ * them as keys of a {@link ConcurrentHashMap}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyBenchmark {
+
+	private static final int KEYS = 1024;
+
+	private final ConcurrentHashMap<Token, Integer> tokens = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<KeyMID, Integer> mids = new ConcurrentHashMap<>();
+	private final byte[][] tokenBytes = new byte[KEYS][];
+	private final InetSocketAddress[] peers = new InetSocketAddress[KEYS];
+	private int index;
+
+	@Setup
+	public void setup() throws UnknownHostException {
+		for (int key = 0; key < KEYS; ++key) {
+			tokenBytes[key] = new byte[] { 1, 2, 3, 4, 5, 6, (byte) (key >> 8), (byte) key };
+			peers[key] = new InetSocketAddress(InetAddress.getByAddress(new byte[] { 10, 0, (byte) (key >> 8), (byte) key }),
+					5683);
+			tokens.put(new Token(tokenBytes[key]), key);
+			mids.put(new KeyMID(key, peers[key]), key);
+		}
+	}
+
+	private int next() {
+		index = (index + 1) & (KEYS - 1);
+		return index;
+	}
+
+	@Benchmark
+	public int tokenHashCode() {
+		return new Token(tokenBytes[next()]).hashCode();
+	}
+
+	@Benchmark
+	public Integer tokenLookup() {
+		return tokens.get(new Token(tokenBytes[next()]));
+	}
+
+	@Benchmark
+	public int keyMidHashCode() {
+		int key = next();
+		return new KeyMID(key, peers[key]).hashCode();
+	}
+
+	@Benchmark
+	public Integer keyMidLookup() {
+		int key = next();
+		return mids.get(new KeyMID(key, peers[key]));
+	}
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.util.jmh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.util.ConcurrentLeastRecentlyUsedCache;
+import org.eclipse.californium.elements.util.LeastRecentlyUsedCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link LeastRecentlyUsedCache}, serialized by a {@code synchronized}
+ * block as its clients do, with {@link ConcurrentLeastRecentlyUsedCache}.
+ *
+ * The key range is twice the capacity, so about the half of the reads miss
+ * and are followed by a put, which evicts the eldest entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeastRecentlyUsedCacheBenchmark {
+
+	/**
+	 * Cache implementation.
+	 */
+	public enum Implementation {
+		/**
+		 * {@link LeastRecentlyUsedCache} with external synchronization.
+		 */
+		SYNCHRONIZED,
+		/**
+		 * {@link ConcurrentLeastRecentlyUsedCache}.
+		 */
+		CONCURRENT
+	}
+
+	@Param({ "SYNCHRONIZED", "CONCURRENT" })
+	public Implementation implementation;
+
+	@Param({ "10000" })
+	public int capacity;
+
+	private Cache cache;
+
+	@Setup
+	public void setup() {
+		if (implementation == Implementation.CONCURRENT) {
+			cache = new ConcurrentCache(capacity);
+		} else {
+			cache = new SynchronizedCache(capacity);
+		}
+		for (int index = 0; index < capacity; ++index) {
+			cache.put(index, index);
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Integer readSingleThread() {
+		return cache.get(ThreadLocalRandom.current().nextInt(capacity));
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Integer read4Threads() {
+		return cache.get(ThreadLocalRandom.current().nextInt(capacity));
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Integer readOrPut4Threads() {
+		Integer key = ThreadLocalRandom.current().nextInt(capacity * 2);
+		Integer value = cache.get(key);
+		if (value == null) {
+			cache.put(key, key);
+		}
+		return value;
+	}
+
+	private interface Cache {
+
+		Integer get(Integer key);
+
+		void put(Integer key, Integer value);
+	}
+
+	private static class SynchronizedCache implements Cache {
+
+		private final LeastRecentlyUsedCache<Integer, Integer> cache;
+
+		private SynchronizedCache(int capacity) {
+			// threshold 0, all entries are stale and could be evicted
+			cache = new LeastRecentlyUsedCache<>(capacity, capacity, 0, TimeUnit.SECONDS);
+		}
+
+		@Override
+		public Integer get(Integer key) {
+			synchronized (cache) {
+				return cache.get(key);
+			}
+		}
+
+		@Override
+		public void put(Integer key, Integer value) {
+			synchronized (cache) {
+				cache.put(key, value);
+			}
+		}
+	}
+
+	private static class ConcurrentCache implements Cache {
+
+		private final ConcurrentLeastRecentlyUsedCache<Integer, Integer> cache;
+
+		private ConcurrentCache(int capacity) {
+			// threshold 0, all entries are stale and could be evicted
+			cache = new ConcurrentLeastRecentlyUsedCache<>(capacity, capacity, 0, TimeUnit.SECONDS);
+		}
+
+		@Override
+		public Integer get(Integer key) {
+			return cache.get(key);
+		}
+
+		@Override
+		public void put(Integer key, Integer value) {
+			cache.put(key, value);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.util.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.core.coap.Option;
+import org.eclipse.californium.core.coap.OptionSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks setting and getting options of an {@link OptionSet}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptionSetBenchmark {
+
+	private static final byte[] ETAG = { 0x0a, 0x0b, 0x0c, 0x0d };
+
+	private OptionSet options;
+
+	@Setup
+	public void setup() {
+		options = new OptionSet();
+		fill(options);
+	}
+
+	@Benchmark
+	public OptionSet set() {
+		return fill(new OptionSet());
+	}
+
+	@Benchmark
+	public void get(Blackhole blackhole) {
+		blackhole.consume(options.getUriPathString());
+		blackhole.consume(options.getContentFormat());
+		blackhole.consume(options.getAccept());
+		blackhole.consume(options.getObserve());
+		blackhole.consume(options.getBlock2());
+		blackhole.consume(options.containsETag(ETAG));
+	}
+
+	@Benchmark
+	public List<Option> asSortedList() {
+		return options.asSortedList();
+	}
+
+	@Benchmark
+	public OptionSet copy() {
+		return new OptionSet(options);
+	}
+
+	private static OptionSet fill(OptionSet options) {
+		return options.setUriPath("sensors/temperature/outdoor").setUriQuery("unit=c")
+				.setContentFormat(MediaTypeRegistry.APPLICATION_CBOR).setAccept(MediaTypeRegistry.APPLICATION_CBOR)
+				.setObserve(4711).setBlock2(2, false, 3).addETag(ETAG);
+	}
+}
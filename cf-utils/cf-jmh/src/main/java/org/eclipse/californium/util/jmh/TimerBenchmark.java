@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.util.jmh;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.util.HashedWheelTimer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks scheduling retransmission timers with the
+ * {@link ScheduledThreadPoolExecutor} and the {@link HashedWheelTimer}.
+ *
+ * {@link #scheduleAndCancel()} schedules a timer and cancels the timer, which
+ * was scheduled {@link #pending} calls before. That keeps {@link #pending}
+ * timers in the scheduler, as for exchanges waiting for their ACK.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimerBenchmark {
+
+	private static final Runnable TASK = new Runnable() {
+
+		@Override
+		public void run() {
+		}
+	};
+
+	@Param({ "executor", "wheel" })
+	public String scheduler;
+
+	@Param({ "1024", "65536" })
+	public int pending;
+
+	private final ScheduledFuture<?>[] futures = new ScheduledFuture<?>[65536];
+
+	private ScheduledExecutorService executor;
+	private HashedWheelTimer timer;
+	private int index;
+
+	@Setup
+	public void setup() {
+		executor = Executors.newSingleThreadScheduledExecutor();
+		if ("wheel".equals(scheduler)) {
+			timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+			timer.start(executor);
+		}
+		for (int index = 0; index < pending; ++index) {
+			futures[index] = schedule();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (timer != null) {
+			timer.stop();
+		}
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public boolean scheduleAndCancel() {
+		index = (index + 1) % pending;
+		boolean cancelled = futures[index].cancel(false);
+		futures[index] = schedule();
+		return cancelled;
+	}
+
+	private ScheduledFuture<?> schedule() {
+		if (timer != null) {
+			return timer.schedule(TASK, 60, TimeUnit.SECONDS);
+		} else {
+			return executor.schedule(TASK, 60, TimeUnit.SECONDS);
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.util.jmh;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.CoAP.Type;
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.core.coap.Message;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.serialization.UdpDataParser;
+import org.eclipse.californium.core.network.serialization.UdpDataSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link UdpDataParser} and {@link UdpDataSerializer} with a
+ * typical request and response.
+ *
+ * The parser is benchmarked with and without lazy option parsing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UdpDataSerializationBenchmark {
+
+	@Param({ "16", "256" })
+	public int payloadSize;
+
+	@Param({ "false", "true" })
+	public boolean lazyOptions;
+
+	private final UdpDataSerializer serializer = new UdpDataSerializer();
+
+	private UdpDataParser parser;
+
+	private Request request;
+	private Response response;
+	private byte[] requestBytes;
+	private byte[] responseBytes;
+
+	@Setup
+	public void setup() {
+		parser = new UdpDataParser(lazyOptions);
+		byte[] payload = new byte[payloadSize];
+		Arrays.fill(payload, (byte) 'p');
+
+		request = Request.newPost();
+		request.setType(Type.CON);
+		request.setMID(0x1234);
+		request.setToken(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+		request.getOptions().setUriPath("sensors/temperature/outdoor").setUriQuery("unit=c")
+				.setContentFormat(MediaTypeRegistry.APPLICATION_CBOR).setAccept(MediaTypeRegistry.APPLICATION_CBOR);
+		request.setPayload(payload);
+
+		response = new Response(ResponseCode.CONTENT);
+		response.setType(Type.ACK);
+		response.setMID(0x1234);
+		response.setToken(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+		response.getOptions().setContentFormat(MediaTypeRegistry.APPLICATION_CBOR).setMaxAge(30).setObserve(4711)
+				.addETag(new byte[] { 0x0a, 0x0b, 0x0c, 0x0d });
+		response.setPayload(payload);
+
+		requestBytes = serializer.getByteArray(request);
+		responseBytes = serializer.getByteArray(response);
+	}
+
+	@Benchmark
+	public byte[] serializeRequest() {
+		return serializer.getByteArray(request);
+	}
+
+	@Benchmark
+	public byte[] serializeResponse() {
+		return serializer.getByteArray(response);
+	}
+
+	@Benchmark
+	public Message parseRequest() {
+		return parser.parseMessage(requestBytes);
+	}
+
+	@Benchmark
+	public Message parseResponse() {
+		return parser.parseMessage(responseBytes);
+	}
+}
@@ -41,7 +41,7 @@ public class Nat {
 	public static void main(String[] args) {
 		if (args.length < 2) {
 			System.out.println(
-					"usage: [localinterface]:port destination:port [destination:port...] [-r] [-d<messageDropping%>|[-f<messageDropping%>][-b<messageDropping%>]] [-s<sizeLimit:probability%>]");
+					"usage: [localinterface]:port destination:port [destination:port...] [-r] [-d<messageDropping%>|[-f<messageDropping%>][-b<messageDropping%>]] [-s<sizeLimit:probability%>] [-t<threads>]");
 			System.out.println(
 					"       -r                                          : enable reverse destination address update");
 			System.out.println(
@@ -52,6 +52,8 @@ public class Nat {
 					"       -b<messageDropping%>                        : drops backward messages with provided probability");
 			System.out.println(
 					"       -s<sizeLimit:probability%>                  : limit message size to provided value");
+			System.out.println(
+					"       -t<threads>                                 : number of selector threads for NAT entries");
 			System.out.println("       use -f and/or -b, if you want to test with different probabilities.");
 			return;
 		}
@@ -63,7 +65,13 @@ public class Nat {
 			InetSocketAddress proxyAddress = create(args[argsIndex++], true);
 			InetSocketAddress destination = create(args[argsIndex++], false);
 
-			util = new NioNatUtil(proxyAddress, destination);
+			int shards = 0;
+			for (int index = argsIndex; index < args.length; ++index) {
+				if (args[index].startsWith("-t")) {
+					shards = parse(2, args[index])[0];
+				}
+			}
+			util = new NioNatUtil(proxyAddress, destination, shards);
 			char droppingMode = 0;
 			while (argsIndex < args.length) {
 				int value;
@@ -110,6 +118,10 @@ public class Nat {
 						util.setForwardMessageSizeLimit(values[1], values[0], true);
 						System.out.println("size limit " + values[0] + " bytes, " + values[1] + " %.");
 						break;
+					case 't':
+						// already applied on creation
+						System.out.println(util.getNumberOfShards() + " selector threads for NAT entries.");
+						break;
 					default:
 						System.out.println("option '" + arg + "' unknown!");
 						break;
@@ -203,6 +215,10 @@ public class Nat {
 		for (NioNatUtil.NatAddress address : destinations) {
 			System.out.println("Destination: " + address.name + ", usage: " + address.usageCounter());
 		}
+		for (NioNatUtil.ShardStatistic shard : util.getShardStatistics()) {
+			System.out.println("Shard " + shard.index + ": " + shard.entries + " NAT entries, forwarded "
+					+ shard.forwarded + ", backwarded " + shard.backwarded + ", dropped " + shard.dropped);
+		}
 	}
 
 	public static int parse(String head, String line) {
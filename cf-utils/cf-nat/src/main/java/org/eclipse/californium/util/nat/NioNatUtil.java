@@ -23,10 +23,12 @@ import java.net.SocketAddress;
 import java.net.SocketException;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -40,6 +42,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -55,8 +58,13 @@ import org.slf4j.LoggerFactory;
  * Provide function to change the address mapping. Uses none-blocking io,
  * intended to replace {@link NatUtil}.
  * 
+ * Since 3.0 the NAT entries may be distributed over several selector shards,
+ * each with its own thread, in order to simulate a NAT with many entries and
+ * high message rates for load-tests.
+ * 
  * @see #assignLocalAddress(InetSocketAddress)
  * @see #reassignNewLocalAddresses()
+ * @see #NioNatUtil(InetSocketAddress, InetSocketAddress, int)
  * @since 2.4
  */
 public class NioNatUtil implements Runnable {
@@ -108,8 +116,20 @@ public class NioNatUtil implements Runnable {
 	private final String proxyName;
 	/**
 	 * Destination addresses.
+	 * 
+	 * Modifications must be synchronized on this list and must call
+	 * {@link #updateDestinationTable()} afterwards.
 	 */
 	private final List<NatAddress> destinations;
+	/**
+	 * Table of destination addresses.
+	 * 
+	 * Copy of {@link #destinations} for lock-free access. Replaced on
+	 * modifications.
+	 * 
+	 * @since 3.0
+	 */
+	private volatile NatAddress[] destinationTable = new NatAddress[0];
 	/**
 	 * Stale destination addresses.
 	 * 
@@ -133,6 +153,14 @@ public class NioNatUtil implements Runnable {
 	 * Selector for received messages.
 	 */
 	private final Selector selector = Selector.open();
+	/**
+	 * Selector shards for the NAT entries.
+	 * 
+	 * Empty, if the NAT entries are processed by the {@link #proxyThread}.
+	 * 
+	 * @since 3.0
+	 */
+	private final Shard[] shards;
 
 	/**
 	 * Scheduler for reordering.
@@ -151,13 +179,6 @@ public class NioNatUtil implements Runnable {
 	 * Running/shutdown indicator.
 	 */
 	private volatile boolean running = true;
-	/**
-	 * Random to select destination in NAT-LoadBalancer mode.
-	 * 
-	 * @see #getRandomDestination()
-	 * @since 2.4
-	 */
-	private final Random random = new Random(System.nanoTime());
 	/**
 	 * Nano time for next message dropping statistic log.
 	 * 
@@ -356,6 +377,52 @@ public class NioNatUtil implements Runnable {
 		}
 	}
 
+	/**
+	 * Statistic of a selector shard.
+	 * 
+	 * @since 3.0
+	 */
+	public static class ShardStatistic {
+
+		/**
+		 * Index of shard.
+		 */
+		public final int index;
+		/**
+		 * Number of NAT entries of the shard.
+		 */
+		public final int entries;
+		/**
+		 * Number of forwarded messages.
+		 */
+		public final long forwarded;
+		/**
+		 * Number of backwarded messages.
+		 */
+		public final long backwarded;
+		/**
+		 * Number of dropped messages.
+		 */
+		public final long dropped;
+
+		/**
+		 * Create statistic of a shard.
+		 * 
+		 * @param index index of shard
+		 * @param entries number of NAT entries
+		 * @param forwarded number of forwarded messages
+		 * @param backwarded number of backwarded messages
+		 * @param dropped number of dropped messages
+		 */
+		private ShardStatistic(int index, int entries, long forwarded, long backwarded, long dropped) {
+			this.index = index;
+			this.entries = entries;
+			this.forwarded = forwarded;
+			this.backwarded = backwarded;
+			this.dropped = dropped;
+		}
+	}
+
 	/**
 	 * Message transmission manipulation configuration.
 	 */
@@ -596,6 +663,32 @@ public class NioNatUtil implements Runnable {
 	 * @throws IOException if an error occurred
 	 */
 	public NioNatUtil(final InetSocketAddress bindAddress, final InetSocketAddress destination) throws IOException {
+		this(bindAddress, destination, 0);
+	}
+
+	/**
+	 * Create a new NAT utility with selector shards.
+	 * 
+	 * The NAT entries are distributed by their incoming address over the
+	 * shards. Each shard uses its own selector and thread to receive the
+	 * messages from the destinations and to send them backwards. The proxy
+	 * thread receives the incoming messages and forwards them.
+	 * 
+	 * @param bindAddress address to bind to, or {@code null}, if any should be
+	 *            used
+	 * @param destination destination address to forward the messages using a
+	 *            local port
+	 * @param shards number of selector shards. {@code 0}, to process all NAT
+	 *            entries by the proxy thread.
+	 * @throws IllegalArgumentException if shards is negative
+	 * @throws IOException if an error occurred
+	 * @since 3.0
+	 */
+	public NioNatUtil(final InetSocketAddress bindAddress, final InetSocketAddress destination, int shards)
+			throws IOException {
+		if (shards < 0) {
+			throw new IllegalArgumentException("Shards " + shards + " must not be negative!");
+		}
 		this.destinations = new ArrayList<>();
 		this.staleDestinations = new ArrayList<>();
 		addDestination(destination);
@@ -606,6 +699,13 @@ public class NioNatUtil implements Runnable {
 		this.proxyChannel.register(selector, SelectionKey.OP_READ);
 		InetSocketAddress proxy = (InetSocketAddress) this.proxyChannel.getLocalAddress();
 		this.proxyName = proxy.getHostString() + ":" + proxy.getPort();
+		this.shards = new Shard[shards];
+		for (int index = 0; index < shards; ++index) {
+			this.shards[index] = new Shard(index, proxy.getPort());
+		}
+		for (Shard shard : this.shards) {
+			shard.thread.start();
+		}
 		this.proxyThread = new Thread(NAT_THREAD_GROUP, this, "NAT-" + proxy.getPort());
 		this.proxyThread.start();
 	}
@@ -624,6 +724,7 @@ public class NioNatUtil implements Runnable {
 			synchronized (destinations) {
 				if (!destinations.contains(dest)) {
 					destinations.add(dest);
+					updateDestinationTable();
 					return true;
 				}
 			}
@@ -645,6 +746,7 @@ public class NioNatUtil implements Runnable {
 				for (NatAddress address : destinations) {
 					if (address.address.equals(destination)) {
 						destinations.remove(address);
+						updateDestinationTable();
 						address.expired = true;
 						return true;
 					}
@@ -671,10 +773,22 @@ public class NioNatUtil implements Runnable {
 				}
 			}
 			staleDestinations.clear();
+			updateDestinationTable();
 		}
 		return added;
 	}
 
+	/**
+	 * Update {@link #destinationTable} with the current {@link #destinations}.
+	 * 
+	 * Must be called synchronized on {@link #destinations}.
+	 * 
+	 * @since 3.0
+	 */
+	private void updateDestinationTable() {
+		destinationTable = destinations.toArray(new NatAddress[destinations.size()]);
+	}
+
 	@Override
 	public void run() {
 		messageDroppingLogTime.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MESSAGE_DROPPING_LOG_INTERVAL_MS));
@@ -706,7 +820,7 @@ public class NioNatUtil implements Runnable {
 							if (entry.receive(proxyBuffer) > 0) {
 								entry.backward(proxyBuffer);
 							}
-						} else if (!destinations.isEmpty()) {
+						} else if (destinationTable.length > 0) {
 							// forward message
 							InetSocketAddress source = (InetSocketAddress) proxyChannel.receive(proxyBuffer);
 							NatEntry newEntry = getNatEntry(source);
@@ -734,6 +848,7 @@ public class NioNatUtil implements Runnable {
 									NatAddress dest = iterator.next();
 									if (dest.expires(expireNanos)) {
 										iterator.remove();
+										updateDestinationTable();
 										staleDestinations.add(dest);
 										LOGGER.warn("expires {}", dest.name);
 										if (destinations.size() < 2) {
@@ -778,7 +893,7 @@ public class NioNatUtil implements Runnable {
 		NatEntry entry = nats.get(source);
 		if (entry == null) {
 
-			entry = new NatEntry(source, selector);
+			entry = new NatEntry(source, getShard(source));
 			NatEntry previousEntry = nats.putIfAbsent(source, entry);
 			if (previousEntry != null) {
 				entry.stop();
@@ -788,6 +903,21 @@ public class NioNatUtil implements Runnable {
 		return entry;
 	}
 
+	/**
+	 * Get selector shard for incoming address.
+	 * 
+	 * @param incoming incoming address
+	 * @return selector shard, or {@code null}, if the NAT entries are processed
+	 *         by the {@link #proxyThread}.
+	 * @since 3.0
+	 */
+	private Shard getShard(InetSocketAddress incoming) {
+		if (shards.length == 0) {
+			return null;
+		}
+		return shards[(incoming.hashCode() & Integer.MAX_VALUE) % shards.length];
+	}
+
 	/**
 	 * Run task in selector's thread.
 	 * 
@@ -815,16 +945,25 @@ public class NioNatUtil implements Runnable {
 			LOGGER.error("io-error on close!", e);
 		}
 		proxyThread.interrupt();
+		for (Shard shard : shards) {
+			shard.selector.wakeup();
+		}
 		stopAllNatEntries();
 		scheduler.shutdownNow();
 		try {
 			proxyThread.join(1000);
+			for (Shard shard : shards) {
+				shard.thread.join(1000);
+			}
 			scheduler.awaitTermination(1000, TimeUnit.MILLISECONDS);
 		} catch (InterruptedException ex) {
 			LOGGER.error("shutdown failed!", ex);
 		}
 		try {
 			selector.close();
+			for (Shard shard : shards) {
+				shard.selector.close();
+			}
 		} catch (IOException e) {
 			LOGGER.error("io-error on close!", e);
 		}
@@ -904,7 +1043,7 @@ public class NioNatUtil implements Runnable {
 	 * @since 2.5
 	 */
 	public int getNumberOfDestinations() {
-		return destinations.size();
+		return destinationTable.length;
 	}
 
 	/**
@@ -924,11 +1063,32 @@ public class NioNatUtil implements Runnable {
 	 * @since 2.5
 	 */
 	public List<NatAddress> getDestinations() {
-		List<NatAddress> result = new ArrayList<>();
-		synchronized (destinations) {
-			for (NatAddress address : destinations) {
-				result.add(address);
-			}
+		return new ArrayList<>(Arrays.asList(destinationTable));
+	}
+
+	/**
+	 * Get number of selector shards.
+	 * 
+	 * @return number of selector shards. {@code 0}, if the NAT entries are
+	 *         processed by the proxy thread.
+	 * @since 3.0
+	 */
+	public int getNumberOfShards() {
+		return shards.length;
+	}
+
+	/**
+	 * Get statistic of selector shards.
+	 * 
+	 * @return list of shard statistics. Empty, if the NAT entries are
+	 *         processed by the proxy thread.
+	 * @since 3.0
+	 */
+	public List<ShardStatistic> getShardStatistics() {
+		List<ShardStatistic> result = new ArrayList<>(shards.length);
+		for (Shard shard : shards) {
+			result.add(new ShardStatistic(shard.index, shard.entries, shard.forwardCounter.get(),
+					shard.backwardCounter.get(), shard.dropCounter.get()));
 		}
 		return result;
 	}
@@ -941,7 +1101,7 @@ public class NioNatUtil implements Runnable {
 	 */
 	public int reassignDestinationAddresses() {
 		int count = 0;
-		if (destinations.size() > 1) {
+		if (destinationTable.length > 1) {
 			for (NatEntry entry : nats.values()) {
 				if (entry.setDestination(getRandomDestination())) {
 					++count;
@@ -974,7 +1134,7 @@ public class NioNatUtil implements Runnable {
 			Set<InetSocketAddress> keys = new HashSet<InetSocketAddress>(nats.keySet());
 			for (InetSocketAddress incoming : keys) {
 				try {
-					NatEntry entry = new NatEntry(incoming, selector);
+					NatEntry entry = new NatEntry(incoming, getShard(incoming));
 					NatEntry old = nats.put(incoming, entry);
 					if (null != old) {
 						old.setIncoming(null);
@@ -1028,7 +1188,7 @@ public class NioNatUtil implements Runnable {
 				return 0;
 			}
 		} else {
-			NatEntry entry = new NatEntry(incoming, selector);
+			NatEntry entry = new NatEntry(incoming, getShard(incoming));
 			NatEntry old = nats.put(incoming, entry);
 			if (null != old) {
 				LOGGER.info("changed NAT for {} from {} to {}.", incoming, old.getPort(), entry.getPort());
@@ -1352,6 +1512,10 @@ public class NioNatUtil implements Runnable {
 					lastTimedoutEntriesCounter);
 			lastTimedoutEntriesCounter = current;
 		}
+		long now = System.nanoTime();
+		for (Shard shard : shards) {
+			shard.dumpStatistic(now);
+		}
 	}
 
 	/**
@@ -1361,18 +1525,14 @@ public class NioNatUtil implements Runnable {
 	 * @since 2.4
 	 */
 	public NatAddress getRandomDestination() {
-		if (destinations.isEmpty()) {
+		NatAddress[] table = destinationTable;
+		int size = table.length;
+		if (size == 0) {
 			return null;
+		} else if (size == 1) {
+			return table[0];
 		} else {
-			synchronized (destinations) {
-				int size = destinations.size();
-				if (size == 1) {
-					return destinations.get(0);
-				} else {
-					int index = random.nextInt(size);
-					return destinations.get(index);
-				}
-			}
+			return table[ThreadLocalRandom.current().nextInt(size)];
 		}
 	}
 
@@ -1385,11 +1545,9 @@ public class NioNatUtil implements Runnable {
 	 */
 	public NatAddress getDestination(InetSocketAddress destination) {
 		if (destination != null) {
-			synchronized (destinations) {
-				for (NatAddress address : destinations) {
-					if (address.address.equals(destination)) {
-						return address;
-					}
+			for (NatAddress address : destinationTable) {
+				if (address.address.equals(destination)) {
+					return address;
 				}
 			}
 		}
@@ -1403,18 +1561,184 @@ public class NioNatUtil implements Runnable {
 	 * @since 2.5
 	 */
 	private String getDestinationForLogging() {
-		if (destinations.isEmpty()) {
+		NatAddress[] table = destinationTable;
+		int size = table.length;
+		if (size == 0) {
 			return "---";
+		} else if (size == 1) {
+			return table[0].name;
 		} else {
-			synchronized (destinations) {
-				int size = destinations.size();
-				if (size == 1) {
-					return destinations.get(0).name;
-				} else {
-					return destinations.get(0).name + "-" + destinations.get(size - 1).name;
+			return table[0].name + "-" + table[size - 1].name;
+		}
+	}
+
+	/**
+	 * Selector shard.
+	 * 
+	 * Receives the messages for the NAT entries of this shard from the
+	 * destinations and sends them backwards.
+	 * 
+	 * @since 3.0
+	 */
+	private class Shard implements Runnable {
+
+		/**
+		 * Index of shard.
+		 */
+		private final int index;
+		/**
+		 * Selector for messages received by the NAT entries of this shard.
+		 */
+		private final Selector selector;
+		/**
+		 * Runnables to be executed by the shard's {@link #thread}.
+		 */
+		private final Queue<Runnable> jobs = new ConcurrentLinkedQueue<>();
+		/**
+		 * Buffer for received messages.
+		 */
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(DATAGRAM_SIZE);
+		/**
+		 * Thread of shard.
+		 */
+		private final Thread thread;
+		/**
+		 * Counter for forwarded messages.
+		 */
+		private final AtomicLong forwardCounter = new AtomicLong();
+		/**
+		 * Counter for backwarded messages.
+		 */
+		private final AtomicLong backwardCounter = new AtomicLong();
+		/**
+		 * Counter for dropped messages.
+		 */
+		private final AtomicLong dropCounter = new AtomicLong();
+		/**
+		 * Number of NAT entries registered at the {@link #selector}.
+		 */
+		private volatile int entries;
+		/**
+		 * Last counter for forwarded messages.
+		 * 
+		 * Used for logging.
+		 */
+		private long lastForwardCounter;
+		/**
+		 * Last counter for backwarded messages.
+		 * 
+		 * Used for logging.
+		 */
+		private long lastBackwardCounter;
+		/**
+		 * Last counter for dropped messages.
+		 * 
+		 * Used for logging.
+		 */
+		private long lastDropCounter;
+		/**
+		 * Nano time of last statistic log.
+		 * 
+		 * Used for logging.
+		 */
+		private long lastLogNanos = System.nanoTime();
+
+		/**
+		 * Create selector shard.
+		 * 
+		 * @param index index of shard
+		 * @param port port of proxy. Used for the thread's name.
+		 * @throws IOException if the selector could not be opened
+		 */
+		private Shard(int index, int port) throws IOException {
+			this.index = index;
+			this.selector = Selector.open();
+			this.thread = new Thread(NAT_THREAD_GROUP, this, "NAT-" + port + "-" + index);
+		}
+
+		/**
+		 * Register NAT entry at the {@link #selector}.
+		 * 
+		 * Executed by the shard's {@link #thread}.
+		 * 
+		 * @param entry NAT entry to register
+		 */
+		private void register(final NatEntry entry) {
+			jobs.add(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						entry.outgoing.register(selector, SelectionKey.OP_READ, entry);
+					} catch (ClosedChannelException e) {
+						// NAT entry already stopped
+					}
+				}
+			});
+			selector.wakeup();
+		}
+
+		@Override
+		public void run() {
+			LOGGER.info("starting NAT {} shard {}.", proxyName, index);
+			while (running) {
+				try {
+					Runnable job;
+					while ((job = jobs.poll()) != null) {
+						job.run();
+					}
+					long timeout = natTimeoutMillis.get();
+					long socketTimeout = timeout > 0 ? timeout / 2 : 1000;
+					int num = selector.select(socketTimeout);
+					entries = selector.keys().size();
+					if (num > 0) {
+						Set<SelectionKey> keys = selector.selectedKeys();
+						for (SelectionKey key : keys) {
+							final NatEntry entry = (NatEntry) key.attachment();
+							((Buffer) buffer).clear();
+							if (entry.receive(buffer) > 0) {
+								entry.backward(buffer);
+							}
+						}
+						keys.clear();
+					}
+				} catch (SocketException e) {
+					if (running) {
+						LOGGER.error("NAT {} shard {} socket error", proxyName, index, e);
+					}
+				} catch (InterruptedIOException e) {
+					if (running) {
+						LOGGER.error("NAT {} shard {} interrupted", proxyName, index, e);
+					}
+				} catch (Exception e) {
+					if (running) {
+						LOGGER.error("NAT {} shard {} error", proxyName, index, e);
+					}
 				}
 			}
 		}
+
+		/**
+		 * Dump statistic of shard to log.
+		 * 
+		 * @param now current nano time
+		 */
+		private void dumpStatistic(long now) {
+			long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(now - lastLogNanos));
+			long forwarded = forwardCounter.get();
+			long backwarded = backwardCounter.get();
+			long dropped = dropCounter.get();
+			long forwardDelta = forwarded - lastForwardCounter;
+			long backwardDelta = backwarded - lastBackwardCounter;
+			long dropDelta = dropped - lastDropCounter;
+			LOGGER.info("shard {}: {} entries, forwarded {} ({}/s), backwarded {} ({}/s), dropped {} (overall {}).",
+					index, entries, forwardDelta, forwardDelta * 1000 / millis, backwardDelta,
+					backwardDelta * 1000 / millis, dropDelta, dropped);
+			lastForwardCounter = forwarded;
+			lastBackwardCounter = backwarded;
+			lastDropCounter = dropped;
+			lastLogNanos = now;
+		}
 	}
 
 	/**
@@ -1427,18 +1751,30 @@ public class NioNatUtil implements Runnable {
 		private final DatagramChannel outgoing;
 		private final String natName;
 		private final InetSocketAddress local;
+		/**
+		 * Selector shard of this entry. {@code null}, if processed by the
+		 * {@link #proxyThread}.
+		 * 
+		 * @since 3.0
+		 */
+		private final Shard shard;
 		private NatAddress incoming;
 		private NatAddress destination;
 
-		public NatEntry(InetSocketAddress incoming, Selector selector) throws IOException {
+		public NatEntry(InetSocketAddress incoming, Shard shard) throws IOException {
 			setDestination(getRandomDestination());
 			this.outgoing = DatagramChannel.open();
 			this.outgoing.configureBlocking(false);
 			this.outgoing.bind(null);
 			this.local = (InetSocketAddress) this.outgoing.getLocalAddress();
 			this.natName = Integer.toString(this.local.getPort());
+			this.shard = shard;
 			setIncoming(incoming);
-			this.outgoing.register(selector, SelectionKey.OP_READ, this);
+			if (shard == null) {
+				this.outgoing.register(selector, SelectionKey.OP_READ, this);
+			} else {
+				shard.register(this);
+			}
 		}
 
 		public synchronized boolean setDestination(NatAddress destination) {
@@ -1539,6 +1875,7 @@ public class NioNatUtil implements Runnable {
 			if (dropping != null && dropping.dropMessage()) {
 				LOGGER.debug("backward drops {} bytes from {} to {} via {}", packet.position(), destination.name,
 						incoming.name, natName);
+				countDrop();
 			} else {
 				MessageSizeLimit limit = backwardSizeLimit;
 				MessageSizeLimit.Manipulation manipulation = limit != null ? limit.limitMessageSize(packet)
@@ -1562,9 +1899,15 @@ public class NioNatUtil implements Runnable {
 					if (proxyChannel.send(packet, incoming.address) == 0) {
 						LOGGER.debug("backward overloaded {} bytes from {} to {} via {}", packet.position(),
 								destination.name, incoming.name, natName);
+						countDrop();
 					} else {
 						backwardCounter.incrementAndGet();
+						if (shard != null) {
+							shard.backwardCounter.incrementAndGet();
+						}
 					}
+				} else {
+					countDrop();
 				}
 			}
 		}
@@ -1592,6 +1935,7 @@ public class NioNatUtil implements Runnable {
 			if (dropping != null && dropping.dropMessage()) {
 				LOGGER.debug("forward drops {} bytes from {} to {} via {}", packet.position(), incoming.name,
 						destination.name, natName);
+				countDrop();
 			} else {
 
 				MessageSizeLimit limit = forwardSizeLimit;
@@ -1616,14 +1960,31 @@ public class NioNatUtil implements Runnable {
 					if (outgoing.send(packet, destination.address) == 0) {
 						LOGGER.info("forward overloaded {} bytes from {} to {} via {}", packet.limit(), incoming.name,
 								destination.name, natName);
+						countDrop();
 						return false;
 					} else {
 						destination.updateSend();
 						forwardCounter.incrementAndGet();
+						if (shard != null) {
+							shard.forwardCounter.incrementAndGet();
+						}
 					}
+				} else {
+					countDrop();
 				}
 			}
 			return true;
 		}
+
+		/**
+		 * Count dropped message for the {@link #shard}.
+		 * 
+		 * @since 3.0
+		 */
+		private void countDrop() {
+			if (shard != null) {
+				shard.dropCounter.incrementAndGet();
+			}
+		}
 	}
 }
@@ -29,6 +29,7 @@ import org.eclipse.californium.core.network.CoapEndpoint;
 import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.elements.config.UdpConfig;
 import org.eclipse.californium.elements.util.ExecutorsUtil;
+import org.eclipse.californium.elements.util.NamedThreadFactory;
 
 
 /**
@@ -52,6 +53,8 @@ public class BenchmarkServer {
 	public static final int DEFAULT_SENDER_COUNT = WINDOWS ? CORES : 1;
 	public static final int DEFAULT_RECEIVER_COUNT = WINDOWS ? CORES : 1;
 
+	public static final long DEFAULT_BLOCKING_DELAY_MILLIS = 10;
+
 	static {
 		CoapConfig.register();
 	}
@@ -69,6 +72,8 @@ public class BenchmarkServer {
 		int udp_receiver = DEFAULT_RECEIVER_COUNT;
 		int protocol_threads = DEFAULT_PROTOCOL_STAGE_THREAD_COUNT;
 		boolean use_workers = false;
+		boolean use_virtual_threads = false;
+		long blocking_delay = DEFAULT_BLOCKING_DELAY_MILLIS;
 
 		// Parse input
 		if (args.length > 0) {
@@ -78,22 +83,26 @@ public class BenchmarkServer {
 				if ("-usage".equals(arg) || "-help".equals(arg) || "-h".equals(arg) || "-?".equals(arg)) {
 					printUsage();
 				} else if ("-t".equals(arg)) {
-					protocol_threads = Integer.parseInt(args[index+1]);
+					protocol_threads = Integer.parseInt(args[++index]);
 				} else if ("-s".equals(arg)) {
-					udp_sender = Integer.parseInt(args[index+1]);
+					udp_sender = Integer.parseInt(args[++index]);
 				} else if ("-r".equals(arg)) {
-					udp_receiver = Integer.parseInt(args[index+1]);
+					udp_receiver = Integer.parseInt(args[++index]);
 				} else if ("-p".equals(arg)) {
-					port = Integer.parseInt(args[index+1]);
+					port = Integer.parseInt(args[++index]);
 				} else if ("-a".equals(arg)) {
-					address = args[index+1];
+					address = args[++index];
+				} else if ("-b".equals(arg)) {
+					blocking_delay = Long.parseLong(args[++index]);
 				} else if ("-use-workers".equals(arg)) {
 					use_workers = true;
+				} else if ("-virtual-threads".equals(arg)) {
+					use_virtual_threads = true;
 				} else {
 					System.err.println("Unknown arg "+arg);
 					printUsage();
 				}
-				index += 2;
+				++index;
 			}
 		}
 
@@ -105,7 +114,16 @@ public class BenchmarkServer {
 
 		// Create server
 		CoapServer server = new CoapServer();
-		if (use_workers) {
+		if (use_virtual_threads) {
+			if (!ExecutorsUtil.isVirtualThreadSupported()) {
+				System.err.println("Virtual threads require java 21!");
+				System.exit(-1);
+			}
+			System.out.println("Endpoint uses virtual threads");
+			server.setExecutors(
+					ExecutorsUtil.newVirtualThreadScheduledExecutor(new NamedThreadFactory("CoapServer(main)#")),
+					ExecutorsUtil.newDefaultSecondaryScheduler("CoapServer(secondary)#"), false);
+		} else if (use_workers) {
 			System.out.println("Use queues with "+protocol_threads+" workers");
 			server.setExecutors(new WorkQueueExecutor(protocol_threads),
 					ExecutorsUtil.newDefaultSecondaryScheduler("CoapServer(secondary)#"), false);
@@ -119,6 +137,8 @@ public class BenchmarkServer {
 		server.add(new BenchmarkResource("benchmark"));
 		server.add(new FibonacciResource("fibonacci"));
 		server.add(new ShutDownResource("shutdown"));
+		server.add(new BlockingResource("blocking", blocking_delay));
+		System.out.println("Blocking resource delay: " + blocking_delay + "ms");
 
 		CoapEndpoint.Builder builder = new CoapEndpoint.Builder();
 		builder.setInetSocketAddress(sockAddr);
@@ -148,7 +168,7 @@ public class BenchmarkServer {
 	private static void printUsage() {
 		System.out.println();
 		System.out.println("SYNOPSIS");
-		System.out.println("	" + BenchmarkServer.class.getSimpleName() + " [-a ADDRESS] [-p PORT] [-t POOLSIZE] [-s SENDERS] [-r RECEIVERS]");
+		System.out.println("	" + BenchmarkServer.class.getSimpleName() + " [-a ADDRESS] [-p PORT] [-t POOLSIZE] [-s SENDERS] [-r RECEIVERS] [-b DELAY] [-use-workers|-virtual-threads]");
 		System.out.println("OPTIONS");
 		System.out.println("	-a ADDRESS");
 		System.out.println("		Bind the server to a specific host IP address given by ADDRESS (default is wildcard address).");
@@ -164,12 +184,18 @@ public class BenchmarkServer {
 		System.out.println("		The default is number of cores on Windows and 1 otherwise.");
 		System.out.println("	-use-workers");
 		System.out.println("		Use a specialized queue for incoming requests that reduces synchronization of threads.");
+		System.out.println("	-virtual-threads");
+		System.out.println("		Use a new virtual thread for each task of the endpoint. Requires java 21.");
+		System.out.println("	-b DELAY");
+		System.out.println("		Block the handler of the resource \"blocking\" for DELAY milliseconds (default is "+DEFAULT_BLOCKING_DELAY_MILLIS+").");
+		System.out.println("		Compare the throughput of \"-t POOLSIZE\" and \"-virtual-threads\" for that resource.");
 		System.out.println("OPTIMIZATIONS");
 		System.out.println("	-Xms4096m -Xmx4096m");
 		System.out.println("		Set the Java heap size to 4 GiB.");
 		System.out.println("EXAMPLES");
 		System.out.println("	java -Xms4096m -Xmx4096m " + BenchmarkServer.class.getSimpleName() + " -p 5684 -t 16");
 		System.out.println("	java -Xms4096m -Xmx4096m -jar " + BenchmarkServer.class.getSimpleName() + ".jar -s 2 -r 2");
+		System.out.println("	java -Xms4096m -Xmx4096m -jar " + BenchmarkServer.class.getSimpleName() + ".jar -b 50 -virtual-threads");
 		System.exit(0);
 	}
 
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.benchmark;
+
+import org.eclipse.californium.core.CoapResource;
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.Exchange;
+
+/**
+ * This resource blocks the handling thread before it responds with a kind
+ * "hello world" to GET requests.
+ * 
+ * Simulates handlers, which are calling databases or other services. Used to
+ * compare the throughput of platform and virtual threads.
+ */
+public class BlockingResource extends CoapResource {
+
+	/**
+	 * Time in milliseconds to block the handling thread.
+	 */
+	private final long delayMillis;
+
+	public BlockingResource(String name, long delayMillis) {
+		super(name);
+		this.delayMillis = delayMillis;
+	}
+
+	@Override
+	public void handleRequest(Exchange exchange) {
+		try {
+			Thread.sleep(delayMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		Response response = new Response(ResponseCode.CONTENT);
+		response.setPayload("hello world");
+		exchange.sendResponse(response);
+	}
+
+}
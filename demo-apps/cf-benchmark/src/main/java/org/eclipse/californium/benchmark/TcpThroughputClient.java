@@ -30,6 +30,7 @@ import org.eclipse.californium.core.network.CoapEndpoint;
 import org.eclipse.californium.core.network.EndpointManager;
 import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.elements.config.TcpConfig;
+import org.eclipse.californium.elements.config.TcpConfig.TransportMode;
 import org.eclipse.californium.elements.exception.ConnectorException;
 import org.eclipse.californium.elements.tcp.netty.TcpClientConnector;
 import org.eclipse.californium.elements.util.Bytes;
@@ -47,6 +48,10 @@ public class TcpThroughputClient {
 	public static void main(String[] args) throws ConnectorException, IOException {
 		Configuration config = Configuration.createWithFile(CONFIG_FILE, CONFIG_HEADER, null);
 		int tcpPort = config.get(CoapConfig.COAP_PORT);
+		if (args.length > 0) {
+			// NIO, EPOLL, or AUTO, to compare the transports
+			config.set(TcpConfig.TCP_TRANSPORT_MODE, TransportMode.valueOf(args[0].toUpperCase()));
+		}
 		TcpClientConnector connector = new TcpClientConnector(config);
 		CoapEndpoint.Builder builder = new CoapEndpoint.Builder();
 		builder.setConnector(connector);
@@ -81,6 +86,7 @@ public class TcpThroughputClient {
 			}
 			long end = System.nanoTime();
 
+			System.out.println("Transport " + connector.getTransportMode());
 			System.out.println(messages + " messages in " + TimeUnit.NANOSECONDS.toMillis(end - start) + "ms");
 			System.out.println("Rate " + messages / TimeUnit.NANOSECONDS.toSeconds(end - start) + " msg/s");
 			System.out.println("Bandwidth " + total / TimeUnit.NANOSECONDS.toSeconds(end - start) / 1024 / 1024 + " MB/s");
@@ -27,9 +27,9 @@ import org.eclipse.californium.core.coap.CoAP;
 import org.eclipse.californium.core.config.CoapConfig;
 import org.eclipse.californium.core.network.CoapEndpoint;
 import org.eclipse.californium.core.server.resources.CoapExchange;
-import org.eclipse.californium.elements.Connector;
 import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.elements.config.TcpConfig;
+import org.eclipse.californium.elements.config.TcpConfig.TransportMode;
 import org.eclipse.californium.elements.config.Configuration.DefinitionsProvider;
 import org.eclipse.californium.elements.tcp.netty.TcpServerConnector;
 
@@ -55,8 +55,13 @@ public class TcpThroughputServer {
 	public static void main(String[] args) {
 		Configuration config = Configuration.createWithFile(CONFIG_FILE, CONFIG_HEADER, DEFAULTS);
 		int tcpPort = config.get(CoapConfig.COAP_PORT);
+		if (args.length > 0) {
+			// NIO, EPOLL, or AUTO, to compare the transports
+			config.set(TcpConfig.TCP_TRANSPORT_MODE, TransportMode.valueOf(args[0].toUpperCase()));
+		}
 
-		Connector serverConnector = new TcpServerConnector(new InetSocketAddress(tcpPort), config);
+		TcpServerConnector serverConnector = new TcpServerConnector(new InetSocketAddress(tcpPort), config);
+		System.out.println("Transport " + serverConnector.getTransportMode());
 		CoapEndpoint.Builder builder = new CoapEndpoint.Builder();
 		builder.setConnector(serverConnector);
 		builder.setConfiguration(config);
@@ -26,7 +26,6 @@ import org.eclipse.californium.elements.EndpointContext;
 import org.eclipse.californium.elements.RawData;
 import org.eclipse.californium.elements.util.ClockUtil;
 
-import java.math.BigInteger;
 import java.net.InetSocketAddress;
 import java.util.List;
 
@@ -62,6 +61,8 @@ public class DatagramFramer extends ByteToMessageDecoder {
 				return;
 			}
 
+			// RawData keeps the frame beyond this call, but the ByteBuf is
+			// released by the ByteToMessageDecoder. Therefore copy it.
 			byte[] data = new byte[coapHeaderSize + bodyLength];
 			in.readBytes(data);
 
@@ -90,20 +91,20 @@ public class DatagramFramer extends ByteToMessageDecoder {
 	}
 
 	private int getBodyLength(ByteBuf in, int lengthNibble, int fieldSize) {
-		byte data[] = new byte[fieldSize];
-		in.getBytes(in.readerIndex() + 1, data);
+		// read the length field in place, without copying it
+		int index = in.readerIndex() + 1;
 
 		switch (fieldSize) {
 		case 0:
 			return lengthNibble;
 		case 1:
-			return new BigInteger(1, data).intValue() + 13;
+			return in.getUnsignedByte(index) + 13;
 		case 2:
-			return new BigInteger(1, data).intValue() + 269;
+			return in.getUnsignedShort(index) + 269;
 		case 4:
 			// Possible overflow here, but is anybody really sending 2GB
 			// messages around?
-			return new BigInteger(1, data).intValue() + 65805;
+			return in.getInt(index) + 65805;
 		default:
 			throw new IllegalArgumentException("Invalid field size: " + fieldSize);
 		}
@@ -0,0 +1,451 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.elements.tcp.netty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.californium.elements.RawData;
+import org.eclipse.californium.elements.util.Bytes;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+/**
+ * Channel pool for the connections to one peer.
+ *
+ * Multiplexes the messages over up to the maximum number of connections. A
+ * message is sent over the connection with the least pending requests. A new
+ * connection is established in the background, if all connections have
+ * pending requests and the maximum number of connections is not reached. The
+ * pending requests of a connection are the sent requests without received
+ * response with matching token, plus the currently acquired, but not yet
+ * released, usages of that connection.
+ *
+ * Messages with an endpoint context containing a connection id are sent over
+ * that connection, if still available, in order to keep the correlation of
+ * exchanges, which span multiple messages.
+ *
+ * @since 3.0
+ */
+final class LeastPendingChannelPool implements ChannelPool {
+
+	/**
+	 * Key for the pending requests of a channel.
+	 */
+	private static final AttributeKey<PendingRequests> PENDING_REQUESTS = AttributeKey.newInstance("pending_requests");
+	/**
+	 * Key for the pool of a channel.
+	 */
+	private static final AttributeKey<LeastPendingChannelPool> POOL = AttributeKey.newInstance("least_pending_pool");
+
+	/**
+	 * Bootstrap to connect new channels.
+	 */
+	private final Bootstrap bootstrap;
+	/**
+	 * Handler for new channels.
+	 */
+	private final ChannelPoolHandler handler;
+	/**
+	 * Maximum number of connections.
+	 */
+	private final int maxConnections;
+	/**
+	 * Connect futures of the connected and connecting channels.
+	 */
+	private final List<ChannelFuture> channels = new ArrayList<>();
+	/**
+	 * Indicates, that the pool is closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * Create channel pool.
+	 *
+	 * @param bootstrap bootstrap with remote address
+	 * @param handler handler for new channels
+	 * @param maxConnections maximum number of connections
+	 * @throws IllegalArgumentException if maxConnections is less than
+	 *             {@code 1}
+	 */
+	LeastPendingChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler, int maxConnections) {
+		if (maxConnections < 1) {
+			throw new IllegalArgumentException("Maximum connections " + maxConnections + " must be at least 1!");
+		}
+		this.handler = handler;
+		this.maxConnections = maxConnections;
+		this.bootstrap = bootstrap.clone();
+		this.bootstrap.handler(new ChannelInitializer<Channel>() {
+
+			@Override
+			protected void initChannel(Channel ch) throws Exception {
+				ch.attr(PENDING_REQUESTS).set(new PendingRequests());
+				ch.attr(POOL).set(LeastPendingChannelPool.this);
+				handler.channelCreated(ch);
+			}
+		});
+	}
+
+	@Override
+	public Future<Channel> acquire() {
+		return acquire(null, bootstrap.config().group().next().<Channel> newPromise());
+	}
+
+	@Override
+	public Future<Channel> acquire(Promise<Channel> promise) {
+		return acquire(null, promise);
+	}
+
+	/**
+	 * Acquire channel.
+	 *
+	 * @param connectionId connection id of the channel to be preferred. May be
+	 *            {@code null}.
+	 * @return future with the channel
+	 */
+	Future<Channel> acquire(String connectionId) {
+		return acquire(connectionId, bootstrap.config().group().next().<Channel> newPromise());
+	}
+
+	/**
+	 * Acquire channel.
+	 *
+	 * Selects the channel with the provided connection id, if available, or
+	 * the channel with the least pending requests.
+	 *
+	 * @param connectionId connection id of the channel to be preferred. May be
+	 *            {@code null}.
+	 * @param promise promise for the channel
+	 * @return future with the channel
+	 */
+	private Future<Channel> acquire(String connectionId, final Promise<Channel> promise) {
+		Channel channel = null;
+		ChannelFuture connecting = null;
+		synchronized (this) {
+			if (closed) {
+				promise.setFailure(new IllegalStateException("Channel pool closed!"));
+				return promise;
+			}
+			int leastPending = Integer.MAX_VALUE;
+			Iterator<ChannelFuture> iterator = channels.iterator();
+			while (iterator.hasNext()) {
+				ChannelFuture future = iterator.next();
+				Channel current = future.channel();
+				if (!current.isOpen()) {
+					iterator.remove();
+				} else if (!future.isDone()) {
+					if (connecting == null) {
+						connecting = future;
+					}
+				} else if (current.isActive()) {
+					if (connectionId != null && connectionId.equals(current.id().asShortText())) {
+						channel = current;
+						leastPending = 0;
+						break;
+					}
+					int pending = current.attr(PENDING_REQUESTS).get().size();
+					if (pending < leastPending) {
+						channel = current;
+						leastPending = pending;
+					}
+				}
+			}
+			if (channels.size() < maxConnections && (channel == null ? connecting == null : leastPending > 0)) {
+				ChannelFuture future = connect();
+				if (channel == null) {
+					connecting = future;
+				}
+			}
+		}
+		if (channel != null) {
+			acquired(channel, promise);
+		} else {
+			connecting.addListener(new ChannelFutureListener() {
+
+				@Override
+				public void operationComplete(ChannelFuture future) throws Exception {
+					if (future.isSuccess()) {
+						acquired(future.channel(), promise);
+					} else {
+						promise.tryFailure(future.cause());
+					}
+				}
+			});
+		}
+		return promise;
+	}
+
+	/**
+	 * Connect new channel.
+	 *
+	 * Must be called synchronized.
+	 *
+	 * @return connect future
+	 */
+	private ChannelFuture connect() {
+		ChannelFuture future = bootstrap.connect();
+		channels.add(future);
+		future.channel().closeFuture().addListener(new ChannelFutureListener() {
+
+			@Override
+			public void operationComplete(ChannelFuture future) throws Exception {
+				synchronized (LeastPendingChannelPool.this) {
+					Iterator<ChannelFuture> iterator = channels.iterator();
+					while (iterator.hasNext()) {
+						if (iterator.next().channel() == future.channel()) {
+							iterator.remove();
+							break;
+						}
+					}
+				}
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Complete acquire of channel.
+	 *
+	 * Increments the acquired usages of the channel.
+	 *
+	 * @param channel acquired channel
+	 * @param promise promise for the channel
+	 */
+	private void acquired(Channel channel, Promise<Channel> promise) {
+		try {
+			handler.channelAcquired(channel);
+			if (promise.trySuccess(channel)) {
+				channel.attr(PENDING_REQUESTS).get().acquired.incrementAndGet();
+			}
+		} catch (Throwable t) {
+			promise.tryFailure(t);
+		}
+	}
+
+	@Override
+	public Future<Void> release(Channel channel) {
+		return release(channel, channel.eventLoop().<Void> newPromise());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Decrements the acquired usages of the channel.
+	 */
+	@Override
+	public Future<Void> release(Channel channel, Promise<Void> promise) {
+		try {
+			PendingRequests pending = channel.attr(PENDING_REQUESTS).get();
+			if (pending != null) {
+				decrement(pending.acquired);
+			}
+			handler.channelReleased(channel);
+			promise.setSuccess(null);
+		} catch (Throwable t) {
+			promise.tryFailure(t);
+		}
+		return promise;
+	}
+
+	/**
+	 * Close the pool, if it has no open channels.
+	 *
+	 * Checks and closes the pool atomically, a concurrent {@link #acquire()}
+	 * either keeps the pool open or fails.
+	 *
+	 * @return {@code true}, if the pool has been closed by this call,
+	 *         {@code false}, if at least one channel is connected or
+	 *         connecting, or the pool was already closed.
+	 */
+	synchronized boolean closeIfEmpty() {
+		if (closed) {
+			return false;
+		}
+		for (ChannelFuture future : channels) {
+			if (future.channel().isOpen()) {
+				return false;
+			}
+		}
+		closed = true;
+		channels.clear();
+		return true;
+	}
+
+	/**
+	 * Get the pool of a channel.
+	 *
+	 * @param channel channel
+	 * @return pool, which created that channel, or {@code null}, if the
+	 *         channel was not created by a {@link LeastPendingChannelPool}.
+	 */
+	static LeastPendingChannelPool getPool(Channel channel) {
+		return channel.attr(POOL).get();
+	}
+
+	@Override
+	public void close() {
+		List<ChannelFuture> close;
+		synchronized (this) {
+			closed = true;
+			close = new ArrayList<>(channels);
+			channels.clear();
+		}
+		for (ChannelFuture future : close) {
+			future.channel().close();
+		}
+	}
+
+	/**
+	 * Get the number of pending requests of a channel.
+	 *
+	 * @param channel channel
+	 * @return number of pending requests, or {@code -1}, if the channel was
+	 *         not created by a {@link LeastPendingChannelPool}.
+	 */
+	static int getPendingRequests(Channel channel) {
+		PendingRequests pending = channel.attr(PENDING_REQUESTS).get();
+		return pending == null ? -1 : pending.size();
+	}
+
+	/**
+	 * Decrement counter, if positive.
+	 * 
+	 * @param counter counter to decrement
+	 */
+	private static void decrement(AtomicInteger counter) {
+		int current;
+		do {
+			current = counter.get();
+		} while (current > 0 && !counter.compareAndSet(current, current - 1));
+	}
+
+	/**
+	 * Get token of CoAP over TCP message.
+	 *
+	 * @param message message with CoAP over TCP framing
+	 * @param request {@code true}, to return the token of a request,
+	 *            {@code false}, to return the token of a response.
+	 * @return token, or {@code null}, if the message is not of the requested
+	 *         kind, has an empty token, or is malformed.
+	 * @see <a href="https://tools.ietf.org/html/rfc8323#section-3.2" target=
+	 *      "_blank">RFC8323, 3.2. Message Format</a>
+	 */
+	static Bytes getToken(ByteBuf message, boolean request) {
+		int index = message.readerIndex();
+		if (message.readableBytes() < 2) {
+			return null;
+		}
+		int firstByte = message.getUnsignedByte(index);
+		int lengthNibble = firstByte >>> 4;
+		int tokenLength = firstByte & 0x0F;
+		if (tokenLength == 0 || tokenLength > 8) {
+			// empty tokens can't be matched
+			return null;
+		}
+		int lengthFieldSize = 0;
+		if (lengthNibble == 13) {
+			lengthFieldSize = 1;
+		} else if (lengthNibble == 14) {
+			lengthFieldSize = 2;
+		} else if (lengthNibble == 15) {
+			lengthFieldSize = 4;
+		}
+		if (message.readableBytes() < 2 + lengthFieldSize + tokenLength) {
+			return null;
+		}
+		int code = message.getUnsignedByte(index + 1 + lengthFieldSize);
+		int codeClass = code >>> 5;
+		if (request ? (codeClass != 0 || code == 0) : (codeClass < 2 || codeClass > 5)) {
+			return null;
+		}
+		byte[] token = new byte[tokenLength];
+		message.getBytes(index + 2 + lengthFieldSize, token);
+		return new Bytes(token);
+	}
+
+	/**
+	 * Pending requests of a channel.
+	 */
+	private static class PendingRequests {
+
+		/**
+		 * Number of acquired, but not yet released, usages.
+		 */
+		private final AtomicInteger acquired = new AtomicInteger();
+		/**
+		 * Tokens of sent requests without received response.
+		 */
+		private final Set<Bytes> tokens = Collections.newSetFromMap(new ConcurrentHashMap<Bytes, Boolean>());
+
+		/**
+		 * Get number of pending requests.
+		 * 
+		 * @return number of pending requests
+		 */
+		private int size() {
+			return acquired.get() + tokens.size();
+		}
+	}
+
+	/**
+	 * Channel handler to track pending requests.
+	 *
+	 * Adds the tokens of sent requests and removes them on received responses
+	 * with matching token. Must be added after the {@link DatagramFramer}.
+	 */
+	static class PendingRequestsHandler extends ChannelDuplexHandler {
+
+		@Override
+		public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+			PendingRequests pending = ctx.channel().attr(PENDING_REQUESTS).get();
+			if (pending != null && msg instanceof ByteBuf) {
+				Bytes token = getToken((ByteBuf) msg, true);
+				if (token != null) {
+					pending.tokens.add(token);
+				}
+			}
+			ctx.write(msg, promise);
+		}
+
+		@Override
+		public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+			PendingRequests pending = ctx.channel().attr(PENDING_REQUESTS).get();
+			if (pending != null && msg instanceof RawData) {
+				Bytes token = getToken(Unpooled.wrappedBuffer(((RawData) msg).getBytes()), false);
+				if (token != null) {
+					pending.tokens.remove(token);
+				}
+			}
+			ctx.fireChannelRead(msg);
+		}
+	}
+}
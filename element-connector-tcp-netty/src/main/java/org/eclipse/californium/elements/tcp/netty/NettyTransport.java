@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.elements.tcp.netty;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.californium.elements.config.TcpConfig.TransportMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * Netty transport for the TCP/TLS connectors.
+ *
+ * The native epoll transport is loaded by reflection, the
+ * "netty-transport-native-epoll" library is therefore an optional runtime
+ * dependency.
+ *
+ * @since 3.0
+ */
+final class NettyTransport {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(NettyTransport.class);
+
+	/**
+	 * Java NIO transport.
+	 */
+	static final NettyTransport NIO = new NettyTransport(TransportMode.NIO, NioServerSocketChannel.class,
+			NioSocketChannel.class, null);
+
+	/**
+	 * Native epoll transport. {@code null}, if not available.
+	 */
+	private static final NettyTransport EPOLL = loadEpoll();
+
+	/**
+	 * Effective transport mode.
+	 */
+	private final TransportMode mode;
+	/**
+	 * Server channel class.
+	 */
+	private final Class<? extends ServerChannel> serverChannelClass;
+	/**
+	 * Client channel class.
+	 */
+	private final Class<? extends SocketChannel> channelClass;
+	/**
+	 * Constructor for event loop groups with number of threads and thread
+	 * factory. {@code null} for {@link NioEventLoopGroup}.
+	 */
+	private final Constructor<? extends EventLoopGroup> eventLoopGroupConstructor;
+
+	private NettyTransport(TransportMode mode, Class<? extends ServerChannel> serverChannelClass,
+			Class<? extends SocketChannel> channelClass,
+			Constructor<? extends EventLoopGroup> eventLoopGroupConstructor) {
+		this.mode = mode;
+		this.serverChannelClass = serverChannelClass;
+		this.channelClass = channelClass;
+		this.eventLoopGroupConstructor = eventLoopGroupConstructor;
+	}
+
+	/**
+	 * Get effective transport mode.
+	 *
+	 * @return effective transport mode. Either {@link TransportMode#NIO} or
+	 *         {@link TransportMode#EPOLL}.
+	 */
+	TransportMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Get server channel class.
+	 *
+	 * @return server channel class
+	 */
+	Class<? extends ServerChannel> getServerChannelClass() {
+		return serverChannelClass;
+	}
+
+	/**
+	 * Get client channel class.
+	 *
+	 * @return client channel class
+	 */
+	Class<? extends SocketChannel> getChannelClass() {
+		return channelClass;
+	}
+
+	/**
+	 * Create event loop group for this transport.
+	 *
+	 * @param threads number of threads
+	 * @param threadFactory thread factory
+	 * @return event loop group
+	 * @throws IllegalStateException if the event loop group could not be
+	 *             created
+	 */
+	EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+		if (eventLoopGroupConstructor != null) {
+			try {
+				return eventLoopGroupConstructor.newInstance(threads, threadFactory);
+			} catch (Exception ex) {
+				throw new IllegalStateException(mode + " event loop group failed!", ex);
+			}
+		}
+		return new NioEventLoopGroup(threads, threadFactory);
+	}
+
+	/**
+	 * Get transport for transport mode.
+	 *
+	 * Falls back to {@link #NIO}, if the native transport is not available.
+	 *
+	 * @param mode transport mode
+	 * @return transport
+	 */
+	static NettyTransport get(TransportMode mode) {
+		if (mode == TransportMode.EPOLL || mode == TransportMode.AUTO) {
+			if (EPOLL != null) {
+				return EPOLL;
+			} else if (mode == TransportMode.EPOLL) {
+				LOGGER.warn("native epoll not available, use NIO!");
+			}
+		}
+		return NIO;
+	}
+
+	/**
+	 * Load native epoll transport.
+	 *
+	 * @return native epoll transport, or {@code null}, if not available.
+	 */
+	@SuppressWarnings("unchecked")
+	private static NettyTransport loadEpoll() {
+		try {
+			Class<?> epoll = Class.forName("io.netty.channel.epoll.Epoll");
+			if (!(Boolean) epoll.getMethod("isAvailable").invoke(null)) {
+				LOGGER.debug("native epoll not available!",
+						(Throwable) epoll.getMethod("unavailabilityCause").invoke(null));
+				return null;
+			}
+			Class<? extends ServerChannel> serverChannelClass = (Class<? extends ServerChannel>) Class
+					.forName("io.netty.channel.epoll.EpollServerSocketChannel");
+			Class<? extends SocketChannel> channelClass = (Class<? extends SocketChannel>) Class
+					.forName("io.netty.channel.epoll.EpollSocketChannel");
+			Class<? extends EventLoopGroup> groupClass = (Class<? extends EventLoopGroup>) Class
+					.forName("io.netty.channel.epoll.EpollEventLoopGroup");
+			Constructor<? extends EventLoopGroup> constructor = groupClass.getConstructor(int.class,
+					ThreadFactory.class);
+			return new NettyTransport(TransportMode.EPOLL, serverChannelClass, channelClass, constructor);
+		} catch (ClassNotFoundException ex) {
+			LOGGER.debug("native epoll not on classpath.");
+		} catch (Throwable ex) {
+			LOGGER.debug("native epoll failed to load!", ex);
+		}
+		return null;
+	}
+}
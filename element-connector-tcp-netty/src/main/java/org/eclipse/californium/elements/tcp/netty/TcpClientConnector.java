@@ -41,12 +41,8 @@ package org.eclipse.californium.elements.tcp.netty;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.pool.AbstractChannelPoolHandler;
 import io.netty.channel.pool.AbstractChannelPoolMap;
-import io.netty.channel.pool.ChannelPool;
-import io.netty.channel.pool.FixedChannelPool;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
@@ -60,8 +56,10 @@ import org.eclipse.californium.elements.util.DaemonThreadFactory;
 import org.eclipse.californium.elements.util.StringUtil;
 import org.eclipse.californium.elements.RawData;
 import org.eclipse.californium.elements.RawDataChannel;
+import org.eclipse.californium.elements.TcpEndpointContext;
 import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.elements.config.TcpConfig;
+import org.eclipse.californium.elements.config.TcpConfig.TransportMode;
 
 import java.io.IOException;
 import java.net.DatagramPacket;
@@ -95,6 +93,18 @@ public class TcpClientConnector implements Connector {
 	private final int numberOfThreads;
 	private final int connectionIdleTimeoutSeconds;
 	private final int connectTimeoutMillis;
+	/**
+	 * Maximum number of connections per peer.
+	 * 
+	 * @since 3.0
+	 */
+	private final int maxConnectionsPerPeer;
+	/**
+	 * Transport of the configured transport mode.
+	 * 
+	 * @since 3.0
+	 */
+	private final NettyTransport transport;
 	private final InetSocketAddress localSocketAddress = new InetSocketAddress(0);
 
 	/**
@@ -109,7 +119,7 @@ public class TcpClientConnector implements Connector {
 
 	private EventLoopGroup workerGroup;
 	private RawDataChannel rawDataChannel;
-	private AbstractChannelPoolMap<SocketAddress, ChannelPool> poolMap;
+	private AbstractChannelPoolMap<SocketAddress, LeastPendingChannelPool> poolMap;
 
 	protected final TcpContextUtil contextUtil;
 
@@ -135,6 +145,8 @@ public class TcpClientConnector implements Connector {
 		this.connectionIdleTimeoutSeconds = configuration.getTimeAsInt(TcpConfig.TCP_CONNECTION_IDLE_TIMEOUT,
 				TimeUnit.SECONDS);
 		this.connectTimeoutMillis = configuration.getTimeAsInt(TcpConfig.TCP_CONNECT_TIMEOUT, TimeUnit.MILLISECONDS);
+		this.transport = NettyTransport.get(configuration.get(TcpConfig.TCP_TRANSPORT_MODE));
+		this.maxConnectionsPerPeer = configuration.get(TcpConfig.TCP_MAX_CONNECTIONS_PER_PEER);
 		this.contextUtil = contextUtil;
 	}
 
@@ -143,6 +155,21 @@ public class TcpClientConnector implements Connector {
 		return running;
 	}
 
+	/**
+	 * Get effective transport mode.
+	 * 
+	 * Differs from the configured {@link TcpConfig#TCP_TRANSPORT_MODE}, if
+	 * that is {@link TransportMode#AUTO}, or if the native transport is not
+	 * available.
+	 * 
+	 * @return effective transport mode. Either {@link TransportMode#NIO} or
+	 *         {@link TransportMode#EPOLL}.
+	 * @since 3.0
+	 */
+	public TransportMode getTransportMode() {
+		return transport.getMode();
+	}
+
 	@Override
 	public synchronized void start() throws IOException {
 		if (rawDataChannel == null) {
@@ -152,20 +179,21 @@ public class TcpClientConnector implements Connector {
 			throw new IllegalStateException("Connector already started");
 		}
 		running = true;
-		workerGroup = new NioEventLoopGroup(numberOfThreads,
+		LOGGER.debug("Starting {} client connector using {}", getProtocol(), transport.getMode());
+		workerGroup = transport.newEventLoopGroup(numberOfThreads,
 				new DaemonThreadFactory("TCP-Client-" + THREAD_COUNTER.incrementAndGet() + "#", TCP_THREAD_GROUP));
-		poolMap = new AbstractChannelPoolMap<SocketAddress, ChannelPool>() {
+		poolMap = new AbstractChannelPoolMap<SocketAddress, LeastPendingChannelPool>() {
 
 			@Override
-			protected ChannelPool newPool(SocketAddress key) {
-				Bootstrap bootstrap = new Bootstrap().group(workerGroup).channel(NioSocketChannel.class)
+			protected LeastPendingChannelPool newPool(SocketAddress key) {
+				Bootstrap bootstrap = new Bootstrap().group(workerGroup).channel(transport.getChannelClass())
 						.option(ChannelOption.SO_KEEPALIVE, true).option(ChannelOption.AUTO_READ, true)
 						.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis).remoteAddress(key);
 
-				// We multiplex over the same TCP connection, so don't acquire
-				// more than one connection per endpoint.
-				// TODO: But perhaps we could make it a configurable property.
-				return new FixedChannelPool(bootstrap, new MyChannelPoolHandler(key), 1);
+				// We multiplex over up to maxConnectionsPerPeer TCP
+				// connections, selecting the one with the least pending
+				// requests.
+				return new LeastPendingChannelPool(bootstrap, new MyChannelPoolHandler(key), maxConnectionsPerPeer);
 			}
 		};
 	}
@@ -179,7 +207,7 @@ public class TcpClientConnector implements Connector {
 				poolMap.close();
 			}
 			if (workerGroup != null) {
-				// FixedChannelPool requires a quietPeriod be larger than 0
+				// closing the channel pools requires a quietPeriod larger than 0
 				workerGroup.shutdownGracefully(50, 500, TimeUnit.MILLISECONDS).syncUninterruptibly();
 				workerGroup = null;
 			}
@@ -224,8 +252,10 @@ public class TcpClientConnector implements Connector {
 		if (!connected) {
 			msg.onConnecting();
 		}
-		final ChannelPool channelPool = poolMap.get(addressKey);
-		Future<Channel> acquire = channelPool.acquire();
+		final LeastPendingChannelPool channelPool = poolMap.get(addressKey);
+		// keep exchanges on their connection
+		Future<Channel> acquire = channelPool
+				.acquire(msg.getEndpointContext().get(TcpEndpointContext.KEY_CONNECTION_ID));
 		acquire.addListener(new GenericFutureListener<Future<Channel>>() {
 
 			@Override
@@ -390,12 +420,14 @@ public class TcpClientConnector implements Connector {
 			// 2. Close idle channels
 			// 3. Remove pools when they are empty.
 			// 4. Stream-to-message decoder
-			// 5. Hand-off decoded messages to CoAP stack
-			// 6. Close connections on errors
+			// 5. Track pending requests
+			// 6. Hand-off decoded messages to CoAP stack
+			// 7. Close connections on errors
 			ch.pipeline().addLast(new IdleStateHandler(0, 0, connectionIdleTimeoutSeconds));
 			ch.pipeline().addLast(new CloseOnIdleHandler());
 			ch.pipeline().addLast(new RemoveEmptyPoolHandler(poolMap, key));
 			ch.pipeline().addLast(new DatagramFramer(contextUtil));
+			ch.pipeline().addLast(new LeastPendingChannelPool.PendingRequestsHandler());
 			ch.pipeline().addLast(new DispatchHandler(rawDataChannel));
 			ch.pipeline().addLast(new CloseOnErrorHandler());
 		}
@@ -403,17 +435,21 @@ public class TcpClientConnector implements Connector {
 
 	private class RemoveEmptyPoolHandler extends ChannelDuplexHandler {
 
-		private final AbstractChannelPoolMap<SocketAddress, ChannelPool> poolMap;
+		private final AbstractChannelPoolMap<SocketAddress, LeastPendingChannelPool> poolMap;
 		private final SocketAddress key;
 
-		RemoveEmptyPoolHandler(AbstractChannelPoolMap<SocketAddress, ChannelPool> poolMap, SocketAddress key) {
+		RemoveEmptyPoolHandler(AbstractChannelPoolMap<SocketAddress, LeastPendingChannelPool> poolMap,
+				SocketAddress key) {
 			this.poolMap = poolMap;
 			this.key = key;
 		}
 
 		@Override
 		public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-			if (poolMap.remove(key)) {
+			LeastPendingChannelPool pool = LeastPendingChannelPool.getPool(ctx.channel());
+			if (pool != null && !pool.closeIfEmpty()) {
+				LOGGER.trace("keep channel pool for {}", key);
+			} else if (poolMap.remove(key)) {
 				LOGGER.trace("removed channel pool for {}", key);
 			}
 		}
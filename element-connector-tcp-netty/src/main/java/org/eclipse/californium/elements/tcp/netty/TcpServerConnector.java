@@ -31,9 +31,7 @@ package org.eclipse.californium.elements.tcp.netty;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.util.concurrent.GenericFutureListener;
 
@@ -49,6 +47,7 @@ import org.eclipse.californium.elements.RawData;
 import org.eclipse.californium.elements.RawDataChannel;
 import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.elements.config.TcpConfig;
+import org.eclipse.californium.elements.config.TcpConfig.TransportMode;
 
 import java.io.IOException;
 import java.net.DatagramPacket;
@@ -81,6 +80,12 @@ public class TcpServerConnector implements Connector {
 
 	private final int numberOfThreads;
 	private final int connectionIdleTimeoutSeconds;
+	/**
+	 * Transport of the configured transport mode.
+	 * 
+	 * @since 3.0
+	 */
+	private final NettyTransport transport;
 	private final InetSocketAddress localAddress;
 	private final TcpContextUtil contextUtil;
 	private final ConcurrentMap<SocketAddress, Channel> activeChannels = new ConcurrentHashMap<>();
@@ -109,6 +114,7 @@ public class TcpServerConnector implements Connector {
 		this.numberOfThreads = configuration.get(TcpConfig.TCP_WORKER_THREADS);
 		this.connectionIdleTimeoutSeconds = configuration.getTimeAsInt(TcpConfig.TCP_CONNECTION_IDLE_TIMEOUT,
 				TimeUnit.SECONDS);
+		this.transport = NettyTransport.get(configuration.get(TcpConfig.TCP_TRANSPORT_MODE));
 		this.localAddress = localAddress;
 		this.contextUtil = contextUtil;
 		this.effectiveLocalAddress = localAddress;
@@ -119,6 +125,21 @@ public class TcpServerConnector implements Connector {
 		return running;
 	}
 
+	/**
+	 * Get effective transport mode.
+	 * 
+	 * Differs from the configured {@link TcpConfig#TCP_TRANSPORT_MODE}, if
+	 * that is {@link TransportMode#AUTO}, or if the native transport is not
+	 * available.
+	 * 
+	 * @return effective transport mode. Either {@link TransportMode#NIO} or
+	 *         {@link TransportMode#EPOLL}.
+	 * @since 3.0
+	 */
+	public TransportMode getTransportMode() {
+		return transport.getMode();
+	}
+
 	@Override
 	public synchronized void start() throws IOException {
 		if (rawDataChannel == null) {
@@ -129,13 +150,14 @@ public class TcpServerConnector implements Connector {
 		}
 		running = true;
 		int id = THREAD_COUNTER.incrementAndGet();
-		bossGroup = new NioEventLoopGroup(1, new DaemonThreadFactory("TCP-Server-" + id, TCP_THREAD_GROUP));
-		workerGroup = new NioEventLoopGroup(numberOfThreads,
+		LOGGER.debug("Starting {} server connector using {}", getProtocol(), transport.getMode());
+		bossGroup = transport.newEventLoopGroup(1, new DaemonThreadFactory("TCP-Server-" + id, TCP_THREAD_GROUP));
+		workerGroup = transport.newEventLoopGroup(numberOfThreads,
 				new DaemonThreadFactory("TCP-Server-" + id + "#", TCP_THREAD_GROUP));
 
 		ServerBootstrap bootstrap = new ServerBootstrap();
 		// server socket
-		bootstrap.group(bossGroup, workerGroup).channel(NioServerSocketChannel.class)
+		bootstrap.group(bossGroup, workerGroup).channel(transport.getServerChannelClass())
 				.childHandler(new ChannelRegistry()).option(ChannelOption.SO_BACKLOG, 100)
 				.option(ChannelOption.AUTO_READ, true).childOption(ChannelOption.SO_KEEPALIVE, true);
 
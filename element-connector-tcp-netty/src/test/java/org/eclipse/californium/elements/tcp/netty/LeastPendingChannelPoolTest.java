@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.elements.tcp.netty;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.AddressEndpointContext;
+import org.eclipse.californium.elements.RawData;
+import org.eclipse.californium.elements.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+
+/**
+ * Verifies the pending requests of the {@link LeastPendingChannelPool}.
+ */
+public class LeastPendingChannelPoolTest {
+
+	private static final byte[] REQUEST = { 0x01, 0x01, 0x01 };
+	private static final byte[] RESPONSE = { 0x01, 0x45, 0x01 };
+	private static final byte[] OTHER_RESPONSE = { 0x01, 0x45, 0x02 };
+	private static final byte[] EMPTY = { 0x00, 0x00 };
+	private static final InetSocketAddress PEER = new InetSocketAddress(InetAddress.getLoopbackAddress(), 5683);
+
+	private EventLoopGroup group;
+	private Channel server;
+	private LeastPendingChannelPool pool;
+
+	@Before
+	public void setup() throws InterruptedException {
+		group = new DefaultEventLoopGroup(1);
+		LocalAddress address = new LocalAddress("least-pending-pool-test");
+		server = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+				.childHandler(new ChannelInboundHandlerAdapter()).bind(address).sync().channel();
+		Bootstrap bootstrap = new Bootstrap().group(group).channel(LocalChannel.class).remoteAddress(address);
+		pool = new LeastPendingChannelPool(bootstrap, new AbstractChannelPoolHandler() {
+
+			@Override
+			public void channelCreated(Channel ch) throws Exception {
+				ch.pipeline().addLast(new LeastPendingChannelPool.PendingRequestsHandler());
+			}
+		}, 1);
+	}
+
+	@After
+	public void tearDown() {
+		pool.close();
+		server.close();
+		group.shutdownGracefully(0, 100, TimeUnit.MILLISECONDS).syncUninterruptibly();
+	}
+
+	@Test
+	public void testGetToken() {
+		assertThat(LeastPendingChannelPool.getToken(Unpooled.wrappedBuffer(REQUEST), true),
+				is(new Bytes(new byte[] { 0x01 })));
+		assertThat(LeastPendingChannelPool.getToken(Unpooled.wrappedBuffer(REQUEST), false), is(nullValue()));
+		assertThat(LeastPendingChannelPool.getToken(Unpooled.wrappedBuffer(RESPONSE), false),
+				is(new Bytes(new byte[] { 0x01 })));
+		assertThat(LeastPendingChannelPool.getToken(Unpooled.wrappedBuffer(RESPONSE), true), is(nullValue()));
+		assertThat(LeastPendingChannelPool.getToken(Unpooled.wrappedBuffer(EMPTY), true), is(nullValue()));
+		// extended length, 13 + 1 bytes payload
+		byte[] extended = new byte[18];
+		extended[0] = (byte) 0xd1;
+		extended[1] = 0x01;
+		extended[2] = 0x45;
+		extended[3] = 0x07;
+		assertThat(LeastPendingChannelPool.getToken(Unpooled.wrappedBuffer(extended), false),
+				is(new Bytes(new byte[] { 0x07 })));
+		// truncated
+		assertThat(LeastPendingChannelPool.getToken(Unpooled.wrappedBuffer(extended, 0, 3), false),
+				is(nullValue()));
+	}
+
+	@Test
+	public void testPendingRequestsDecrementedOnlyByMatchingResponse() throws Exception {
+		Channel channel = pool.acquire().get(1, TimeUnit.SECONDS);
+		assertThat(LeastPendingChannelPool.getPendingRequests(channel), is(1));
+		channel.writeAndFlush(Unpooled.wrappedBuffer(REQUEST)).sync();
+		assertThat(LeastPendingChannelPool.getPendingRequests(channel), is(2));
+		pool.release(channel).sync();
+		assertThat(LeastPendingChannelPool.getPendingRequests(channel), is(1));
+
+		// other response, request, and empty message from peer
+		receive(channel, OTHER_RESPONSE);
+		receive(channel, REQUEST);
+		receive(channel, EMPTY);
+		assertThat(LeastPendingChannelPool.getPendingRequests(channel), is(1));
+
+		receive(channel, RESPONSE);
+		assertThat(LeastPendingChannelPool.getPendingRequests(channel), is(0));
+		// repeated response, e.g. notification
+		receive(channel, RESPONSE);
+		assertThat(LeastPendingChannelPool.getPendingRequests(channel), is(0));
+	}
+
+	@Test
+	public void testNotARequestIsNotPendingAfterRelease() throws Exception {
+		Channel channel = pool.acquire().get(1, TimeUnit.SECONDS);
+		channel.writeAndFlush(Unpooled.wrappedBuffer(RESPONSE)).sync();
+		assertThat(LeastPendingChannelPool.getPendingRequests(channel), is(1));
+		pool.release(channel).sync();
+		assertThat(LeastPendingChannelPool.getPendingRequests(channel), is(0));
+	}
+
+	@Test
+	public void testCloseIfEmpty() throws Exception {
+		Channel channel = pool.acquire().get(1, TimeUnit.SECONDS);
+		pool.release(channel).sync();
+		assertFalse(pool.closeIfEmpty());
+		assertThat(LeastPendingChannelPool.getPool(channel), is(pool));
+		channel.close().sync();
+		assertTrue(pool.closeIfEmpty());
+		// closed only once
+		assertFalse(pool.closeIfEmpty());
+		assertFalse(pool.acquire().isSuccess());
+	}
+
+	private void receive(final Channel channel, final byte[] message) throws Exception {
+		channel.eventLoop().submit(new Runnable() {
+
+			@Override
+			public void run() {
+				channel.pipeline().fireChannelRead(
+						RawData.inbound(message, new AddressEndpointContext(PEER), false, 0, PEER));
+			}
+		}).sync();
+	}
+}
@@ -26,15 +26,21 @@ import static org.eclipse.californium.elements.tcp.netty.ConnectorTestUtil.*;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.californium.elements.Connector;
 import org.eclipse.californium.elements.RawData;
 import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.config.TcpConfig;
+import org.eclipse.californium.elements.config.TcpConfig.TransportMode;
 import org.eclipse.californium.elements.rule.TestNameLoggerRule;
 import org.eclipse.californium.elements.rule.ThreadsRule;
 import org.eclipse.californium.elements.util.SimpleMessageCallback;
@@ -125,6 +131,77 @@ public class TcpConnectorTest {
 		assertArrayEquals(msg.getBytes(), clientCatcher.getMessage(0).getBytes());
 	}
 
+	@Test
+	public void serverClientPingPongEpollTransport() throws Exception {
+		assumeTrue("native epoll not available", NettyTransport.get(TransportMode.EPOLL).getMode() == TransportMode.EPOLL);
+		configuration.set(TcpConfig.TCP_TRANSPORT_MODE, TransportMode.EPOLL);
+		TcpServerConnector server = new TcpServerConnector(createServerAddress(0), configuration);
+		TcpClientConnector client = new TcpClientConnector(configuration);
+		assertThat(server.getTransportMode(), is(TransportMode.EPOLL));
+		assertThat(client.getTransportMode(), is(TransportMode.EPOLL));
+
+		cleanup.add(server);
+		cleanup.add(client);
+
+		Catcher serverCatcher = new Catcher();
+		Catcher clientCatcher = new Catcher();
+		server.setRawDataReceiver(serverCatcher);
+		client.setRawDataReceiver(clientCatcher);
+		server.start();
+		client.start();
+
+		RawData msg = createMessage(server.getAddress(), messageSize, null);
+
+		client.send(msg);
+		serverCatcher.blockUntilSize(1, CATCHER_TIMEOUT_IN_MS);
+		assertArrayEquals(msg.getBytes(), serverCatcher.getMessage(0).getBytes());
+
+		msg = createMessage(serverCatcher.getMessage(0).getInetSocketAddress(), messageSize, null);
+		server.send(msg);
+		clientCatcher.blockUntilSize(1, CATCHER_TIMEOUT_IN_MS);
+		assertArrayEquals(msg.getBytes(), clientCatcher.getMessage(0).getBytes());
+	}
+
+	@Test
+	public void singleClientMultipleConnectionsPerPeer() throws Exception {
+		configuration.set(TcpConfig.TCP_MAX_CONNECTIONS_PER_PEER, 2);
+		TcpServerConnector server = new TcpServerConnector(createServerAddress(0), configuration);
+		TcpClientConnector client = new TcpClientConnector(configuration);
+
+		cleanup.add(server);
+		cleanup.add(client);
+
+		Catcher serverCatcher = new Catcher();
+		Catcher clientCatcher = new Catcher();
+		server.setRawDataReceiver(serverCatcher);
+		client.setRawDataReceiver(clientCatcher);
+		server.start();
+		client.start();
+
+		// without responses, the pending requests open a second connection
+		int count = 0;
+		Set<InetSocketAddress> sources = new HashSet<>();
+		while (sources.size() < 2 && count < 20) {
+			client.send(createMessage(server.getAddress(), messageSize, null));
+			serverCatcher.blockUntilSize(++count, CATCHER_TIMEOUT_IN_MS);
+			sources.add(serverCatcher.getMessage(count - 1).getInetSocketAddress());
+		}
+		assertThat(sources.size(), is(2));
+
+		// response must go over the connection the request was received on
+		RawData request = serverCatcher.getMessage(count - 1);
+		RawData msg = createMessage(request.getInetSocketAddress(), messageSize, null);
+		server.send(msg);
+		clientCatcher.blockUntilSize(1, CATCHER_TIMEOUT_IN_MS);
+		assertArrayEquals(msg.getBytes(), clientCatcher.getMessage(0).getBytes());
+
+		// follow-up message keeps the connection of the received response
+		RawData followUp = createMessage(messageSize, clientCatcher.getMessage(0).getEndpointContext(), null);
+		client.send(followUp);
+		serverCatcher.blockUntilSize(count + 1, CATCHER_TIMEOUT_IN_MS);
+		assertThat(serverCatcher.getMessage(count).getInetSocketAddress(), is(request.getInetSocketAddress()));
+	}
+
 	@Test
 	public void singleServerManyClients() throws Exception {
 		TcpServerConnector server = new TcpServerConnector(createServerAddress(0), configuration);
@@ -41,6 +41,11 @@ import java.io.InterruptedIOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -48,10 +53,12 @@ import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.californium.elements.UdpMulticastConnector.Builder;
 import org.eclipse.californium.elements.config.Configuration;
 import org.eclipse.californium.elements.config.UdpConfig;
+import org.eclipse.californium.elements.config.UdpConfig.ConnectorMode;
 import org.eclipse.californium.elements.exception.EndpointMismatchException;
 import org.eclipse.californium.elements.util.Bytes;
 import org.eclipse.californium.elements.util.ClockUtil;
@@ -83,6 +90,14 @@ import org.slf4j.LoggerFactory;
  * The number of threads can be set through
  * {@link UdpConfig#UDP_RECEIVER_THREAD_COUNT} and
  * {@link UdpConfig#UDP_SEND_BUFFER_SIZE} in the provided {@link Configuration}.
+ * 
+ * With {@link UdpConfig#UDP_CONNECTOR_MODE} set to {@link ConnectorMode#NIO},
+ * a non-blocking {@link DatagramChannel} is used instead of the
+ * {@link DatagramSocket}. The receiver threads then drain up to
+ * {@link UdpConfig#UDP_CONNECTOR_BURST_SIZE} datagrams per wakeup into a
+ * pooled direct buffer, and the sender threads flush up to that number of
+ * pending messages from the outbound queue at once. Multicast receivers always
+ * use the {@link DatagramSocket}.
  */
 public class UDPConnector implements Connector {
 
@@ -117,9 +132,39 @@ public class UDPConnector implements Connector {
 	 */
 	private final List<UdpMulticastConnector> multicastReceivers = new CopyOnWriteArrayList<>();
 
+	/**
+	 * List of selectors used by NIO receiver and sender threads.
+	 * 
+	 * @since 3.0
+	 */
+	private final List<Selector> selectors = new LinkedList<Selector>();
+	/**
+	 * Lock for the selector waiting for the channel to get readable.
+	 * 
+	 * Only one NIO receiver thread waits for the channel at a time, the
+	 * others wait for this lock. That prevents all receiver threads from being
+	 * woken up by every single datagram.
+	 * 
+	 * @since 3.0
+	 */
+	private final ReentrantLock readSelectorLock = new ReentrantLock();
+
 	private final int senderCount;
 	private final int receiverCount;
 	private final int receiverPacketSize;
+	/**
+	 * Connector mode.
+	 * 
+	 * @since 3.0
+	 */
+	private final ConnectorMode mode;
+	/**
+	 * Maximum number of datagrams received or sent in one burst using
+	 * {@link ConnectorMode#NIO}.
+	 * 
+	 * @since 3.0
+	 */
+	private final int burstSize;
 	private final Integer configReceiveBufferSize;
 	private final Integer configSendBufferSize;
 
@@ -127,6 +172,13 @@ public class UDPConnector implements Connector {
 
 	private volatile DatagramSocket socket;
 
+	/**
+	 * Datagram channel, if {@link ConnectorMode#NIO} is used.
+	 * 
+	 * @since 3.0
+	 */
+	private volatile DatagramChannel channel;
+
 	protected volatile InetSocketAddress effectiveAddr;
 
 	/**
@@ -187,6 +239,8 @@ public class UDPConnector implements Connector {
 		this.receiverCount = configuration.get(UdpConfig.UDP_RECEIVER_THREAD_COUNT);
 		this.senderCount = configuration.get(UdpConfig.UDP_SENDER_THREAD_COUNT);
 		this.receiverPacketSize = configuration.get(UdpConfig.UDP_DATAGRAM_SIZE);
+		this.mode = configuration.get(UdpConfig.UDP_CONNECTOR_MODE);
+		this.burstSize = configuration.get(UdpConfig.UDP_CONNECTOR_BURST_SIZE);
 		this.configReceiveBufferSize = configuration.get(UdpConfig.UDP_RECEIVE_BUFFER_SIZE);
 		this.configSendBufferSize = configuration.get(UdpConfig.UDP_SEND_BUFFER_SIZE);
 		this.receiveBufferSize = configReceiveBufferSize;
@@ -209,10 +263,81 @@ public class UDPConnector implements Connector {
 			multicastReceiver.start();
 		}
 
-		DatagramSocket socket = new DatagramSocket(null);
-		socket.setReuseAddress(reuseAddress);
-		socket.bind(localAddr);
-		init(socket);
+		if (mode == ConnectorMode.NIO) {
+			DatagramChannel channel = DatagramChannel.open();
+			try {
+				channel.socket().setReuseAddress(reuseAddress);
+				channel.socket().bind(localAddr);
+				channel.configureBlocking(false);
+				init(channel);
+			} catch (IOException ex) {
+				this.channel = null;
+				channel.close();
+				for (Selector selector : selectors) {
+					selector.close();
+				}
+				selectors.clear();
+				receiverThreads.clear();
+				senderThreads.clear();
+				running = false;
+				throw ex;
+			}
+		} else {
+			DatagramSocket socket = new DatagramSocket(null);
+			socket.setReuseAddress(reuseAddress);
+			socket.bind(localAddr);
+			init(socket);
+		}
+	}
+
+	/**
+	 * Initialize connector using the provided channel.
+	 * 
+	 * @param channel bound, non-blocking datagram channel for communication
+	 * @throws IOException if there is an error in the datagram channel calls.
+	 * @since 3.0
+	 */
+	private void init(DatagramChannel channel) throws IOException {
+		this.channel = channel;
+		DatagramSocket socket = channel.socket();
+		effectiveAddr = (InetSocketAddress) socket.getLocalSocketAddress();
+
+		if (configReceiveBufferSize != null) {
+			socket.setReceiveBufferSize(configReceiveBufferSize);
+		}
+		receiveBufferSize = socket.getReceiveBufferSize();
+
+		if (configSendBufferSize != null) {
+			socket.setSendBufferSize(configSendBufferSize);
+		}
+		sendBufferSize = socket.getSendBufferSize();
+
+		// running only, if the channel could be opened
+		running = true;
+
+		LOGGER.info("UDPConnector (NIO) starts up {} sender threads and {} receiver threads, burst size {}",
+				senderCount, receiverCount, burstSize);
+
+		Selector readSelector = Selector.open();
+		selectors.add(readSelector);
+		channel.register(readSelector, SelectionKey.OP_READ);
+		for (int i = 0; i < receiverCount; i++) {
+			receiverThreads.add(new NioReceiver("UDP-Receiver-" + localAddr + "[" + i + "]", channel, readSelector));
+		}
+
+		for (int i = 0; i < senderCount; i++) {
+			senderThreads.add(new NioSender("UDP-Sender-" + localAddr + "[" + i + "]", channel));
+		}
+
+		for (Thread t : receiverThreads) {
+			t.start();
+		}
+		for (Thread t : senderThreads) {
+			t.start();
+		}
+
+		LOGGER.info("UDPConnector (NIO) listening on {}, recv buf = {}, send buf = {}, recv packet size = {}",
+				effectiveAddr, receiveBufferSize, sendBufferSize, receiverPacketSize);
 	}
 
 	/**
@@ -295,6 +420,14 @@ public class UDPConnector implements Connector {
 				socket.close();
 				socket = null;
 			}
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					LOGGER.debug("UDPConnector on [{}] failed to close channel.", effectiveAddr, e);
+				}
+				channel = null;
+			}
 			// stop all threads
 			for (Thread t : senderThreads) {
 				t.interrupt();
@@ -312,6 +445,13 @@ public class UDPConnector implements Connector {
 				}
 			}
 			receiverThreads.clear();
+			for (Selector selector : selectors) {
+				try {
+					selector.close();
+				} catch (IOException e) {
+				}
+			}
+			selectors.clear();
 			LOGGER.debug("UDPConnector on [{}] has stopped.", effectiveAddr);
 		}
 		for (RawData data : pending) {
@@ -525,6 +665,150 @@ public class UDPConnector implements Connector {
 		}
 	}
 
+	/**
+	 * Receiver for {@link ConnectorMode#NIO}.
+	 * 
+	 * Drains up to {@link UDPConnector#burstSize} datagrams into the pooled
+	 * direct buffer of this thread. If no datagram is available, waits for the
+	 * channel to get readable using the shared read selector. Only one
+	 * receiver thread waits on that selector at a time, see
+	 * {@link UDPConnector#readSelectorLock}.
+	 * 
+	 * @since 3.0
+	 */
+	private class NioReceiver extends NetworkStageThread {
+
+		private final DatagramChannel channel;
+		private final Selector selector;
+		private final ByteBuffer buffer;
+
+		private NioReceiver(String name, DatagramChannel channel, Selector selector) {
+			super(name);
+			this.channel = channel;
+			this.selector = selector;
+			// we add one byte to be able to detect potential truncation.
+			this.buffer = ByteBuffer.allocateDirect(receiverPacketSize + 1);
+		}
+
+		protected void work() throws IOException, InterruptedException {
+			for (int count = 0; count < burstSize && running; ++count) {
+				buffer.clear();
+				SocketAddress source = channel.receive(buffer);
+				if (source == null) {
+					waitReadable();
+					return;
+				}
+				buffer.flip();
+				processDatagram(buffer, (InetSocketAddress) source);
+			}
+		}
+
+		private void waitReadable() throws IOException, InterruptedException {
+			readSelectorLock.lockInterruptibly();
+			try {
+				if (running) {
+					selector.select();
+					selector.selectedKeys().clear();
+				}
+			} finally {
+				readSelectorLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Sender for {@link ConnectorMode#NIO}.
+	 * 
+	 * Takes up to {@link UDPConnector#burstSize} messages from the outbound
+	 * queue at once and sends them using the pooled direct buffer of this
+	 * thread. Waits for the channel to get writable, if the socket's send
+	 * buffer is exhausted. {@link SelectionKey#OP_WRITE} is only registered
+	 * during that wait, otherwise the selector would report the mostly
+	 * writable channel permanently.
+	 * 
+	 * @since 3.0
+	 */
+	private class NioSender extends NetworkStageThread {
+
+		private final DatagramChannel channel;
+		private final Selector selector;
+		private final SelectionKey key;
+		private final ByteBuffer buffer;
+		private final List<RawData> burst;
+
+		private NioSender(String name, DatagramChannel channel) throws IOException {
+			super(name);
+			this.channel = channel;
+			this.selector = Selector.open();
+			selectors.add(selector);
+			this.key = channel.register(selector, 0);
+			this.buffer = ByteBuffer.allocateDirect(receiverPacketSize);
+			this.burst = new ArrayList<RawData>(burstSize);
+		}
+
+		protected void work() throws InterruptedException {
+			burst.add(outgoing.take()); // Blocking
+			if (burstSize > 1) {
+				outgoing.drainTo(burst, burstSize - 1);
+			}
+			try {
+				for (RawData raw : burst) {
+					send(raw);
+				}
+			} finally {
+				burst.clear();
+			}
+		}
+
+		private void send(RawData raw) {
+			/*
+			 * check, if message should be sent with the "none endpoint context"
+			 * of UDP connector
+			 */
+			EndpointContext destination = raw.getEndpointContext();
+			InetSocketAddress destinationAddress = destination.getPeerAddress();
+			EndpointContext connectionContext = new UdpEndpointContext(destinationAddress);
+			EndpointContextMatcher endpointMatcher = UDPConnector.this.endpointContextMatcher;
+			if (endpointMatcher != null && !endpointMatcher.isToBeSent(destination, connectionContext)) {
+				LOGGER.warn("UDPConnector ({}) drops {} bytes to {}", effectiveAddr, raw.getSize(),
+						StringUtil.toLog(destinationAddress));
+				raw.onError(new EndpointMismatchException("UDP sending"));
+				return;
+			}
+			byte[] bytes = raw.getBytes();
+			ByteBuffer data;
+			if (bytes.length <= buffer.capacity()) {
+				buffer.clear();
+				buffer.put(bytes);
+				buffer.flip();
+				data = buffer;
+			} else {
+				data = ByteBuffer.wrap(bytes);
+			}
+			try {
+				raw.onContextEstablished(connectionContext);
+				while (channel.send(data, destinationAddress) == 0) {
+					if (!running) {
+						throw new InterruptedIOException("Connector is not running.");
+					}
+					// socket send buffer exhausted, wait until writable
+					key.interestOps(SelectionKey.OP_WRITE);
+					try {
+						selector.select(1000);
+						selector.selectedKeys().clear();
+					} finally {
+						key.interestOps(0);
+					}
+				}
+				raw.onSent();
+				LOGGER.debug("UDPConnector ({}) sent {} bytes to {}", this, bytes.length,
+						StringUtil.toLog(destinationAddress));
+			} catch (IOException ex) {
+				raw.onError(ex);
+			}
+		}
+	}
+
 	/**
 	 * Process received datagram.
 	 * 
@@ -536,31 +820,71 @@ public class UDPConnector implements Connector {
 	 */
 	@Override
 	public void processDatagram(DatagramPacket datagram) {
+		InetSocketAddress source = new InetSocketAddress(datagram.getAddress(), datagram.getPort());
+		RawDataChannel dataReceiver = getDataReceiver(datagram.getLength(), source);
+		if (dataReceiver != null) {
+			long timestamp = ClockUtil.nanoRealtime();
+			byte[] bytes = Arrays.copyOfRange(datagram.getData(), datagram.getOffset(), datagram.getLength());
+			RawData msg = RawData.inbound(bytes, new UdpEndpointContext(source), multicast, timestamp,
+					effectiveAddr);
+			dataReceiver.receiveData(msg);
+		}
+	}
+
+	/**
+	 * Process received datagram.
+	 * 
+	 * Copy the datagram's content from the (pooled) buffer into
+	 * {@link RawData} and pass it to the {@link RawDataChannel}.
+	 * 
+	 * @param buffer buffer with received datagram. Position and limit
+	 *            enclose the datagram's content.
+	 * @param source source address of datagram
+	 * @since 3.0
+	 */
+	private void processDatagram(ByteBuffer buffer, InetSocketAddress source) {
+		RawDataChannel dataReceiver = getDataReceiver(buffer.remaining(), source);
+		if (dataReceiver != null) {
+			long timestamp = ClockUtil.nanoRealtime();
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.get(bytes);
+			RawData msg = RawData.inbound(bytes, new UdpEndpointContext(source), multicast, timestamp,
+					effectiveAddr);
+			dataReceiver.receiveData(msg);
+		}
+	}
+
+	/**
+	 * Get receiver for received datagram.
+	 * 
+	 * @param length length of received datagram
+	 * @param source source address of datagram
+	 * @return receiver, or {@code null}, if datagram is to be discarded.
+	 * @since 3.0
+	 */
+	private RawDataChannel getDataReceiver(int length, InetSocketAddress source) {
 		InetSocketAddress connector = effectiveAddr;
 		RawDataChannel dataReceiver = receiver;
-		if (datagram.getLength() > receiverPacketSize) {
+		if (length > receiverPacketSize) {
 			// too large datagram for our buffer! data could have been
 			// truncated, so we discard it.
 			LOGGER.debug(
 					"UDPConnector ({}) received truncated UDP datagram from {}. Maximum size allowed {}. Discarding ...",
-					connector, StringUtil.toLog(datagram.getSocketAddress()), receiverPacketSize);
+					connector, StringUtil.toLog(source), receiverPacketSize);
+			return null;
 		} else if (dataReceiver == null) {
 			LOGGER.debug("UDPConnector ({}) received UDP datagram from {} without receiver. Discarding ...", connector,
-					StringUtil.toLog(datagram.getSocketAddress()));
-		} else {
-			long timestamp = ClockUtil.nanoRealtime();
+					StringUtil.toLog(source));
+			return null;
+		}
+		if (LOGGER.isDebugEnabled()) {
 			String local = StringUtil.toString(connector);
 			if (multicast) {
 				local = "mc/" + local;
 			}
-			LOGGER.debug("UDPConnector ({}) received {} bytes from {}", local, datagram.getLength(),
-					StringUtil.toLog(datagram.getSocketAddress()));
-			byte[] bytes = Arrays.copyOfRange(datagram.getData(), datagram.getOffset(), datagram.getLength());
-			RawData msg = RawData.inbound(bytes,
-					new UdpEndpointContext(new InetSocketAddress(datagram.getAddress(), datagram.getPort())), multicast,
-					timestamp, connector);
-			dataReceiver.receiveData(msg);
+			LOGGER.debug("UDPConnector ({}) received {} bytes from {}", local, length, StringUtil.toLog(source));
 		}
+		return dataReceiver;
 	}
 
 	/**
@@ -608,6 +932,16 @@ public class UDPConnector implements Connector {
 		return receiverPacketSize;
 	}
 
+	/**
+	 * Get connector mode.
+	 * 
+	 * @return connector mode
+	 * @since 3.0
+	 */
+	public ConnectorMode getMode() {
+		return mode;
+	}
+
 	@Override
 	public String getProtocol() {
 		return "UDP";
@@ -28,6 +28,27 @@ public final class TcpConfig {
 
 	public static final String MODULE = "TCP.";
 
+	/**
+	 * Transport mode of the netty based TCP/TLS connectors.
+	 */
+	public enum TransportMode {
+		/**
+		 * Use the native epoll transport, if available, otherwise use
+		 * {@link #NIO}.
+		 */
+		AUTO,
+		/**
+		 * Java NIO transport. Available on all platforms.
+		 */
+		NIO,
+		/**
+		 * Native epoll transport. Requires Linux and the
+		 * "netty-transport-native-epoll" library on the classpath. Falls back
+		 * to {@link #NIO}, if not available.
+		 */
+		EPOLL
+	}
+
 	/**
 	 * The default tcp connection idle timeout in seconds.
 	 * <p>
@@ -66,6 +87,19 @@ public final class TcpConfig {
 	 */
 	public static final IntegerDefinition TCP_WORKER_THREADS = new IntegerDefinition(MODULE + "WORKER_THREADS",
 			"Number of TCP worker threads.", 1, 1);
+	/**
+	 * Maximum number of TCP client connections per peer.
+	 * 
+	 * The messages are sent over the connection with the least pending
+	 * requests.
+	 */
+	public static final IntegerDefinition TCP_MAX_CONNECTIONS_PER_PEER = new IntegerDefinition(
+			MODULE + "MAX_CONNECTIONS_PER_PEER", "Maximum number of TCP client connections per peer.", 1, 1);
+	/**
+	 * Transport mode of the TCP/TLS connectors.
+	 */
+	public static final EnumDefinition<TransportMode> TCP_TRANSPORT_MODE = new EnumDefinition<>(
+			MODULE + "TRANSPORT_MODE", "TCP transport mode.", TransportMode.NIO, TransportMode.values());
 	/**
 	 * TLS handshake timeout.
 	 */
@@ -98,6 +132,8 @@ public final class TcpConfig {
 		@Override
 		public void applyDefinitions(Configuration config) {
 			config.set(TCP_WORKER_THREADS, 1);
+			config.set(TCP_TRANSPORT_MODE, TransportMode.NIO);
+			config.set(TCP_MAX_CONNECTIONS_PER_PEER, 1);
 			config.set(TCP_CONNECTION_IDLE_TIMEOUT, DEFAULT_TCP_CONNECTION_IDLE_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
 			config.set(TCP_CONNECT_TIMEOUT, DEFAULT_TCP_CONNECT_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
 			config.set(TLS_HANDSHAKE_TIMEOUT, DEFAULT_TLS_HANDSHAKE_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
@@ -17,6 +17,7 @@ package org.eclipse.californium.elements.config;
 
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.nio.channels.DatagramChannel;
 
 import org.eclipse.californium.elements.UDPConnector;
 import org.eclipse.californium.elements.config.Configuration.ModuleDefinitionsProvider;
@@ -30,6 +31,36 @@ public final class UdpConfig {
 
 	public static final String MODULE = "UDP.";
 
+	/**
+	 * Connector mode.
+	 */
+	public enum ConnectorMode {
+		/**
+		 * Blocking {@link DatagramSocket}. Each receiver and sender thread
+		 * processes one datagram at a time.
+		 */
+		SOCKET,
+		/**
+		 * Non-blocking {@link DatagramChannel}. Each receiver thread drains
+		 * up to {@link UdpConfig#UDP_CONNECTOR_BURST_SIZE} datagrams per
+		 * wakeup, each sender thread flushes up to that number of pending
+		 * messages at once. Uses pooled direct buffers.
+		 */
+		NIO
+	}
+
+	/**
+	 * Mode for {@link UDPConnector}.
+	 */
+	public static final EnumDefinition<ConnectorMode> UDP_CONNECTOR_MODE = new EnumDefinition<>(
+			MODULE + "CONNECTOR_MODE", "UDP connector mode.", ConnectorMode.SOCKET, ConnectorMode.values());
+	/**
+	 * Maximum number of datagrams received or sent in one burst, if
+	 * {@link ConnectorMode#NIO} is used.
+	 */
+	public static final IntegerDefinition UDP_CONNECTOR_BURST_SIZE = new IntegerDefinition(
+			MODULE + "CONNECTOR_BURST_SIZE", "Maximum number of UDP datagrams received or sent in one burst.", 16, 1);
+
 	/**
 	 * Number of receiver threads for {@link UDPConnector}.
 	 */
@@ -76,6 +107,8 @@ public final class UdpConfig {
 			final int CORES = Runtime.getRuntime().availableProcessors();
 			final int THREADS = CORES > 3 ? 2 : 1;
 
+			config.set(UDP_CONNECTOR_MODE, ConnectorMode.SOCKET);
+			config.set(UDP_CONNECTOR_BURST_SIZE, 16);
 			config.set(UDP_RECEIVER_THREAD_COUNT, THREADS);
 			config.set(UDP_SENDER_THREAD_COUNT, THREADS);
 			config.set(UDP_DATAGRAM_SIZE, 2048);
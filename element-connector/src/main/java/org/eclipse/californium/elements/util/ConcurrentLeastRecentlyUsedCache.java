@@ -0,0 +1,955 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.elements.util;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.californium.elements.util.LeastRecentlyUsedCache.EvictionListener;
+import org.eclipse.californium.elements.util.LeastRecentlyUsedCache.Predicate;
+import org.eclipse.californium.elements.util.LeastRecentlyUsedCache.Timestamped;
+
+/**
+ * A thread safe in-memory cache with a maximum capacity and support for
+ * evicting stale entries based on an LRU policy.
+ * <p>
+ * Offers the same API and semantics as {@link LeastRecentlyUsedCache}, but
+ * doesn't require the clients to serialize the access. The entries are kept
+ * in a {@link ConcurrentHashMap}, the doubly-linked list in access-time order
+ * is guarded by a lock.
+ * </p>
+ * <p>
+ * Read access ({@link #get(Object)}, {@link #getTimestamped(Object)},
+ * {@link #update(Object)}, {@link #find(Predicate)} and the iterators) doesn't
+ * acquire that lock. The last-access time of the entry is updated immediately,
+ * the move of the entry to the end of the access list is recorded in one of
+ * several striped read buffers. These buffers are drained into the access list
+ * either, when a buffer gets filled up (using {@link ReentrantLock#tryLock()},
+ * so readers never block), or before the access list is used for writing
+ * ({@link #put(Object, Object)}, {@link #removeExpiredEntries(int)}). If a
+ * read buffer is full, the access is still reflected by the last-access time,
+ * but the order of the access list may then not reflect it. Such entries are
+ * detected as not being stale, when they are at the head of the access list,
+ * and are moved to its tail instead of being evicted.
+ * </p>
+ * <p>
+ * Eviction listeners are called without holding the lock.
+ * </p>
+ *
+ * Note: if the <em>expiration threshold</em> is {@code 0}, "stale" is not
+ * applied in {@link #get(Object)} (otherwise that get would never return
+ * something).
+ *
+ * @param <K> The type of the keys used in the cache.
+ * @param <V> The type of the values used in the cache.
+ * @since 3.0
+ */
+public class ConcurrentLeastRecentlyUsedCache<K, V> {
+
+	/**
+	 * Size of a single read buffer. Must be a power of 2.
+	 */
+	private static final int READ_BUFFER_SIZE = 64;
+	/**
+	 * Mask for the index of a read buffer.
+	 */
+	private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+	/**
+	 * Number of pending accesses in a read buffer, which triggers a drain.
+	 */
+	private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+	/**
+	 * Maximum number of read buffers.
+	 */
+	private static final int MAX_READ_BUFFERS = 64;
+
+	private Collection<V> values;
+	private final ConcurrentHashMap<K, CacheEntry<K, V>> cache;
+	/**
+	 * Lock to guard the access list.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+	/**
+	 * Striped read buffers.
+	 */
+	private final ReadBuffer<K, V>[] readBuffers;
+	/**
+	 * Mask for the index of the read buffers.
+	 */
+	private final int readBuffersMask;
+	private final CacheEntry<K, V> header;
+	private volatile int capacity;
+	/**
+	 * Threshold for expiration in nanoseconds.
+	 */
+	private volatile long expirationThresholdNanos;
+	/**
+	 * Enables eviction on read access ({@link #get(Object)} and
+	 * {@link #find(Predicate)}). Default is {@code true}.
+	 */
+	private volatile boolean evictOnReadAccess = true;
+	/**
+	 * Enables update last-access time on read access ({@link #get(Object)} and
+	 * {@link #find(Predicate)}). Default is {@code true}.
+	 */
+	private volatile boolean updateOnReadAccess = true;
+
+	private final List<EvictionListener<V>> evictionListeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Creates a cache with an initial capacity of
+	 * {@link LeastRecentlyUsedCache#DEFAULT_INITIAL_CAPACITY}, a maximum
+	 * capacity of {@link LeastRecentlyUsedCache#DEFAULT_CAPACITY} entries and
+	 * an expiration threshold of
+	 * {@link LeastRecentlyUsedCache#DEFAULT_THRESHOLD_SECS} seconds.
+	 */
+	public ConcurrentLeastRecentlyUsedCache() {
+		this(LeastRecentlyUsedCache.DEFAULT_INITIAL_CAPACITY, LeastRecentlyUsedCache.DEFAULT_CAPACITY,
+				LeastRecentlyUsedCache.DEFAULT_THRESHOLD_SECS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Creates a cache based on given configuration parameters.
+	 * <p>
+	 * The cache's initial capacity is set to the lesser of
+	 * {@link LeastRecentlyUsedCache#DEFAULT_INITIAL_CAPACITY} and
+	 * <em>capacity</em>.
+	 *
+	 * @param capacity the maximum number of entries the cache can manage
+	 * @param threshold the period of time of inactivity (in seconds) after
+	 *            which an entry is considered stale and can be evicted from the
+	 *            cache if a new entry is to be added to the cache
+	 */
+	public ConcurrentLeastRecentlyUsedCache(int capacity, long threshold) {
+		this(Math.min(capacity, LeastRecentlyUsedCache.DEFAULT_INITIAL_CAPACITY), capacity, threshold,
+				TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Creates a cache based on given configuration parameters.
+	 *
+	 * @param initialCapacity The initial number of entries the cache will be
+	 *            initialized to support. The cache's capacity will be doubled
+	 *            dynamically every time 0.75 percent of its current capacity is
+	 *            used but it will never exceed <em>maxCapacity</em>.
+	 * @param maxCapacity The maximum number of entries the cache can manage
+	 * @param threshold The period of time of inactivity after which an entry
+	 *            is considered stale and can be evicted from the cache if a new
+	 *            entry is to be added to the cache
+	 * @param unit TimeUnit for threshold
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentLeastRecentlyUsedCache(int initialCapacity, int maxCapacity, long threshold, TimeUnit unit) {
+		if (initialCapacity > maxCapacity) {
+			throw new IllegalArgumentException("initial capacity must be <= max capacity");
+		}
+		this.capacity = maxCapacity;
+		this.cache = new ConcurrentHashMap<>(initialCapacity);
+		setExpirationThreshold(threshold, unit);
+		int buffers = 1;
+		int processors = Math.min(Runtime.getRuntime().availableProcessors(), MAX_READ_BUFFERS);
+		while (buffers < processors) {
+			buffers <<= 1;
+		}
+		this.readBuffers = new ReadBuffer[buffers];
+		for (int index = 0; index < buffers; ++index) {
+			this.readBuffers[index] = new ReadBuffer<>();
+		}
+		this.readBuffersMask = buffers - 1;
+		this.header = new CacheEntry<>();
+		this.header.after = this.header.before = this.header;
+	}
+
+	/**
+	 * Registers a listener to be notified about (stale) entries being evicted
+	 * from the cache.
+	 *
+	 * @param listener the listener
+	 */
+	public void addEvictionListener(EvictionListener<V> listener) {
+		if (listener != null) {
+			this.evictionListeners.add(listener);
+		}
+	}
+
+	/**
+	 * Get evict mode on read access.
+	 *
+	 * @return {@code true}, if entries are evicted on read access, when
+	 *         expired, {@code false}, if not.
+	 * @see LeastRecentlyUsedCache#isEvictingOnReadAccess()
+	 */
+	public boolean isEvictingOnReadAccess() {
+		return evictOnReadAccess;
+	}
+
+	/**
+	 * Set evict mode on read access.
+	 *
+	 * @param evict {@code true}, if entries are evicted on read access, when
+	 *            expired, {@code false}, if not.
+	 * @see LeastRecentlyUsedCache#setEvictingOnReadAccess(boolean)
+	 */
+	public void setEvictingOnReadAccess(boolean evict) {
+		evictOnReadAccess = evict;
+	}
+
+	/**
+	 * Get update last-access time mode on read access.
+	 *
+	 * @return {@code true}, if entries last-access time is updated on read
+	 *         access, {@code false}, if not.
+	 * @see LeastRecentlyUsedCache#isUpdatingOnReadAccess()
+	 */
+	public boolean isUpdatingOnReadAccess() {
+		return updateOnReadAccess;
+	}
+
+	/**
+	 * Set update last-access time mode on read access.
+	 *
+	 * @param update {@code true},if entries last-access time is updated on read
+	 *            access, {@code false}, if not.
+	 * @see LeastRecentlyUsedCache#setUpdatingOnReadAccess(boolean)
+	 */
+	public void setUpdatingOnReadAccess(boolean update) {
+		updateOnReadAccess = update;
+	}
+
+	/**
+	 * Gets the period of time after which an entry is considered <em>stale</em>
+	 * if it hasn't be accessed.
+	 *
+	 * @return the threshold in seconds
+	 */
+	public final long getExpirationThreshold() {
+		return TimeUnit.NANOSECONDS.toSeconds(expirationThresholdNanos);
+	}
+
+	/**
+	 * Sets the period of time after which an entry is to be considered stale if
+	 * it hasn't be accessed.
+	 *
+	 * @param newThreshold the threshold in seconds
+	 * @see LeastRecentlyUsedCache#setExpirationThreshold(long)
+	 */
+	public final void setExpirationThreshold(long newThreshold) {
+		setExpirationThreshold(newThreshold, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Sets the period of time after which an entry is to be considered stale if
+	 * it hasn't be accessed.
+	 *
+	 * @param newThreshold the threshold
+	 * @param unit TimeUnit for threshold
+	 * @see LeastRecentlyUsedCache#setExpirationThreshold(long, TimeUnit)
+	 */
+	public final void setExpirationThreshold(long newThreshold, TimeUnit unit) {
+		this.expirationThresholdNanos = unit.toNanos(newThreshold);
+	}
+
+	/**
+	 * Gets the maximum number of entries this cache can manage.
+	 *
+	 * @return the number of entries
+	 */
+	public final int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Sets the maximum number of entries this cache can manage.
+	 *
+	 * @param capacity the maximum number of entries the cache can manage
+	 * @see LeastRecentlyUsedCache#setCapacity(int)
+	 */
+	public final void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Gets the cache's current number of entries.
+	 *
+	 * @return the size
+	 */
+	public final int size() {
+		return cache.size();
+	}
+
+	/**
+	 * Gets the number of entries that can be added to this cache without the
+	 * need for removing stale entries.
+	 *
+	 * @return The number of entries.
+	 */
+	public final int remainingCapacity() {
+		return Math.max(0, capacity - cache.size());
+	}
+
+	/**
+	 * Removes all entries from the cache.
+	 */
+	public final void clear() {
+		lock.lock();
+		try {
+			drainReadBuffers();
+			cache.clear();
+			CacheEntry<K, V> entry = header.after;
+			while (entry != header) {
+				CacheEntry<K, V> next = entry.after;
+				entry.after = entry.before = null;
+				entry = next;
+			}
+			header.after = header.before = header;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Puts an entry to the cache.
+	 *
+	 * If an entry is evicted this method notifies all registered
+	 * {@code EvictionListeners}.
+	 *
+	 * @param key the key to store the value under
+	 * @param value the value to store
+	 * @return {@code true}, if the entry could be added to the cache,
+	 *         {@code false}, otherwise, e.g. because the cache's remaining
+	 *         capacity is zero and no stale entries can be evicted
+	 * @see LeastRecentlyUsedCache#put(Object, Object)
+	 */
+	public final boolean put(K key, V value) {
+		if (value != null) {
+			return put(new CacheEntry<>(key, value, ClockUtil.nanoRealtime()), false);
+		}
+		return false;
+	}
+
+	/**
+	 * Puts an entry with last-update-timestamp to the cache.
+	 *
+	 * Add the entries in ascending last-update-timestamp order for best
+	 * performance.
+	 *
+	 * If an entry is evicted this method notifies all registered
+	 * {@code EvictionListeners}.
+	 *
+	 * @param key the key to store the value under
+	 * @param value the value to store
+	 * @param lastUpdate the last-update timestamp to store
+	 * @return {@code true}, if the entry could be added to the cache,
+	 *         {@code false}, otherwise.
+	 * @see LeastRecentlyUsedCache#put(Object, Object, long)
+	 */
+	public final boolean put(K key, V value, long lastUpdate) {
+		if (value != null) {
+			return put(new CacheEntry<>(key, value, lastUpdate), true);
+		}
+		return false;
+	}
+
+	private boolean put(CacheEntry<K, V> entry, boolean ordered) {
+		CacheEntry<K, V> eldest = null;
+		lock.lock();
+		try {
+			drainReadBuffers();
+			CacheEntry<K, V> existingEntry = cache.get(entry.key);
+			if (existingEntry != null) {
+				existingEntry.unlink();
+			} else if (cache.size() >= capacity) {
+				eldest = getStaleEldest();
+				if (eldest == null || (ordered && (entry.lastUpdate - eldest.lastUpdate) < 0)) {
+					return false;
+				}
+				eldest.unlink();
+				cache.remove(eldest.key, eldest);
+			}
+			cache.put(entry.key, entry);
+			if (ordered) {
+				entry.addOrdered(header);
+			} else {
+				entry.addBefore(header);
+			}
+		} finally {
+			lock.unlock();
+		}
+		if (eldest != null) {
+			notifyEvictionListeners(eldest.value);
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the eldest stale entry.
+	 *
+	 * Entries at the head of the access list, which are not stale, may have
+	 * been accessed without recording that access in the read buffers. These
+	 * are moved to the tail of the access list. Must be called holding the
+	 * lock.
+	 *
+	 * @return eldest stale entry, or {@code null}, if not available
+	 */
+	private CacheEntry<K, V> getStaleEldest() {
+		long thresholdNanos = expirationThresholdNanos;
+		CacheEntry<K, V> last = header.before;
+		CacheEntry<K, V> eldest = header.after;
+		while (eldest != header) {
+			if (eldest.isStale(thresholdNanos)) {
+				return eldest;
+			}
+			if (eldest == last || (eldest.after != header && (eldest.lastUpdate - eldest.after.lastUpdate) <= 0)) {
+				// in order, no stale entry available
+				break;
+			}
+			// accessed, but access not recorded in read buffers
+			eldest.unlink();
+			eldest.addBefore(header);
+			eldest = header.after;
+		}
+		return null;
+	}
+
+	private void notifyEvictionListeners(V value) {
+		for (EvictionListener<V> listener : evictionListeners) {
+			listener.onEviction(value);
+		}
+	}
+
+	/**
+	 * Gets the <em>eldest</em> value in the store.
+	 *
+	 * The eldest value is the one that has been used least recently.
+	 *
+	 * @return the value
+	 */
+	final V getEldest() {
+		lock.lock();
+		try {
+			drainReadBuffers();
+			return header.after.value;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets a value from the cache.
+	 *
+	 * @param key the key to look up in the cache
+	 * @return the value, if the key has been found in the cache and the value
+	 *         is not stale, {@code null}, otherwise
+	 */
+	public final V get(K key) {
+		if (key == null) {
+			return null;
+		}
+		CacheEntry<K, V> entry = cache.get(key);
+		if (entry == null) {
+			return null;
+		}
+		return access(entry);
+	}
+
+	/**
+	 * Gets a timestamped value from the cache.
+	 *
+	 * For {@link #updateOnReadAccess}, the timestamp of the entry is updated
+	 * after access. The returned timestamp is the value before that update.
+	 *
+	 * @param key the key to look up in the cache
+	 * @return the timestamped value, if the key has been found in the cache and
+	 *         the value is not stale, {@code null}, otherwise
+	 */
+	public final Timestamped<V> getTimestamped(K key) {
+		if (key == null) {
+			return null;
+		}
+		CacheEntry<K, V> entry = cache.get(key);
+		if (entry == null) {
+			return null;
+		}
+		Timestamped<V> timestamped = entry.getEntry();
+		if (access(entry) == null) {
+			return null;
+		}
+		return timestamped;
+	}
+
+	private V access(CacheEntry<K, V> entry) {
+		long thresholdNanos = expirationThresholdNanos;
+		if (evictOnReadAccess && thresholdNanos > 0 && entry.isStale(thresholdNanos)) {
+			boolean removed = false;
+			lock.lock();
+			try {
+				if (cache.remove(entry.key, entry)) {
+					entry.unlink();
+					removed = true;
+				}
+			} finally {
+				lock.unlock();
+			}
+			if (removed) {
+				notifyEvictionListeners(entry.value);
+			}
+			return null;
+		} else {
+			if (updateOnReadAccess) {
+				recordAccess(entry);
+			}
+			return entry.value;
+		}
+	}
+
+	/**
+	 * Update the last-access time.
+	 *
+	 * Intended to be used, if automatic updating the last-access time on
+	 * read-access is suppressed by {@link #updateOnReadAccess}.
+	 *
+	 * @param key the key to update the last-access time.
+	 * @return {@code true}, if updated, {@code false}, otherwise.
+	 */
+	public final boolean update(K key) {
+		if (key == null) {
+			return false;
+		}
+		CacheEntry<K, V> entry = cache.get(key);
+		if (entry == null) {
+			return false;
+		}
+		recordAccess(entry);
+		return true;
+	}
+
+	/**
+	 * Record access of entry.
+	 *
+	 * Updates the last-access time and adds the entry to a read buffer. If
+	 * that read buffer exceeds the {@link #READ_BUFFER_DRAIN_THRESHOLD}, try
+	 * to drain the read buffers.
+	 *
+	 * @param entry accessed entry
+	 */
+	private void recordAccess(CacheEntry<K, V> entry) {
+		entry.lastUpdate = ClockUtil.nanoRealtime();
+		ReadBuffer<K, V> buffer = readBuffers[(int) Thread.currentThread().getId() & readBuffersMask];
+		long writes = buffer.writes.get();
+		long pending = writes - buffer.reads;
+		if (pending < READ_BUFFER_SIZE && buffer.writes.compareAndSet(writes, writes + 1)) {
+			buffer.entries.lazySet((int) writes & READ_BUFFER_MASK, entry);
+			++pending;
+		}
+		if (pending >= READ_BUFFER_DRAIN_THRESHOLD && lock.tryLock()) {
+			try {
+				drainReadBuffers();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Drain read buffers.
+	 *
+	 * Move the accessed entries to the tail of the access list. Must be called
+	 * holding the lock.
+	 */
+	private void drainReadBuffers() {
+		for (ReadBuffer<K, V> buffer : readBuffers) {
+			long reads = buffer.reads;
+			long writes = buffer.writes.get();
+			while (reads < writes) {
+				int index = (int) reads & READ_BUFFER_MASK;
+				CacheEntry<K, V> entry = buffer.entries.get(index);
+				if (entry == null) {
+					// not published yet
+					break;
+				}
+				buffer.entries.lazySet(index, null);
+				if (entry.before != null) {
+					entry.unlink();
+					entry.addBefore(header);
+				}
+				++reads;
+			}
+			buffer.reads = reads;
+		}
+	}
+
+	/**
+	 * Removes an entry from the cache.
+	 *
+	 * Doesn't call {@code EvictionListeners}.
+	 *
+	 * @param key the key of the entry to remove
+	 * @return the removed value or {@code null}, if the cache does not contain
+	 *         the key
+	 */
+	public final V remove(K key) {
+		if (key == null) {
+			return null;
+		}
+		lock.lock();
+		try {
+			CacheEntry<K, V> entry = cache.remove(key);
+			if (entry != null) {
+				entry.unlink();
+				return entry.value;
+			}
+		} finally {
+			lock.unlock();
+		}
+		return null;
+	}
+
+	/**
+	 * Removes provided entry from the cache.
+	 *
+	 * Doesn't call {@code EvictionListeners}.
+	 *
+	 * @param key the key of the entry to remove
+	 * @param value value of the entry to remove
+	 * @return the removed value or {@code null}, if the cache does not contain
+	 *         the key or entry
+	 */
+	public final V remove(K key, V value) {
+		if (key == null) {
+			return null;
+		}
+		lock.lock();
+		try {
+			CacheEntry<K, V> entry = cache.get(key);
+			if (entry != null && entry.value == value) {
+				cache.remove(key);
+				entry.unlink();
+				return value;
+			}
+		} finally {
+			lock.unlock();
+		}
+		return null;
+	}
+
+	/**
+	 * Remove expired entries.
+	 *
+	 * @param maxEntries maximum expired entries to remove
+	 * @return number of removed expired entries.
+	 */
+	public final int removeExpiredEntries(int maxEntries) {
+		List<V> evicted = new ArrayList<>();
+		lock.lock();
+		try {
+			drainReadBuffers();
+			while (maxEntries == 0 || evicted.size() < maxEntries) {
+				CacheEntry<K, V> eldest = getStaleEldest();
+				if (eldest == null) {
+					break;
+				}
+				eldest.unlink();
+				cache.remove(eldest.key, eldest);
+				evicted.add(eldest.value);
+			}
+		} finally {
+			lock.unlock();
+		}
+		for (V value : evicted) {
+			notifyEvictionListeners(value);
+		}
+		return evicted.size();
+	}
+
+	/**
+	 * Finds a value based on a predicate.
+	 *
+	 * @param predicate the condition to match. Assumed to match entries in a
+	 *            unique manner. Therefore stops on first match, even if that
+	 *            gets evicted on the read access.
+	 * @return the first value from the cache that matches according to the
+	 *         given predicate, or {@code null}, if no value matches
+	 * @see LeastRecentlyUsedCache#find(Predicate)
+	 */
+	public final V find(Predicate<V> predicate) {
+		return find(predicate, true);
+	}
+
+	/**
+	 * Finds a value based on a predicate.
+	 *
+	 * @param predicate the condition to match
+	 * @param unique {@code true}, if the predicate matches entries in a unique
+	 *            manner and stops, even if that entry gets evicted on the read
+	 *            access. {@code false}, if more entries may be matched and so
+	 *            continue to search, if a matching entry gets evicted on the
+	 *            read access.
+	 * @return the first value from the cache that matches according to the
+	 *         given predicate, or {@code null}, if no value matches
+	 * @see LeastRecentlyUsedCache#find(Predicate, boolean)
+	 */
+	public final V find(Predicate<V> predicate, boolean unique) {
+		if (predicate != null) {
+			for (CacheEntry<K, V> entry : cache.values()) {
+				if (predicate.accept(entry.value)) {
+					V value = access(entry);
+					if (unique || value != null) {
+						return value;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets iterator over all values contained in this cache.
+	 *
+	 * @return an iterator over all values backed by the underlying map.
+	 * @see LeastRecentlyUsedCache#valuesIterator()
+	 */
+	public final Iterator<V> valuesIterator() {
+		return valuesIterator(true);
+	}
+
+	/**
+	 * Gets iterator over all values contained in this cache.
+	 * <p>
+	 * The iterator returned is backed by this cache's underlying
+	 * {@link ConcurrentHashMap#values()} and is "weakly consistent".
+	 * </p>
+	 * <p>
+	 * Removal of values from the iterator is unsupported.
+	 * </p>
+	 *
+	 * @param readAccess {@code true} to enable read access while iterating. The
+	 *            {@link #evictOnReadAccess} and {@link #updateOnReadAccess} are
+	 *            applied on {@link Iterator#hasNext()}, if enabled.
+	 * @return an iterator over all values backed by the underlying map.
+	 * @see LeastRecentlyUsedCache#valuesIterator(boolean)
+	 */
+	public final Iterator<V> valuesIterator(final boolean readAccess) {
+		final Iterator<CacheEntry<K, V>> iterator = cache.values().iterator();
+
+		return new Iterator<V>() {
+
+			private boolean hasNextCalled;
+			private CacheEntry<K, V> nextEntry;
+
+			@Override
+			public boolean hasNext() {
+				if (!hasNextCalled) {
+					nextEntry = null;
+					while (iterator.hasNext()) {
+						CacheEntry<K, V> entry = iterator.next();
+						if (!readAccess || access(entry) != null) {
+							nextEntry = entry;
+							break;
+						}
+					}
+					hasNextCalled = true;
+				}
+				return nextEntry != null;
+			}
+
+			@Override
+			public V next() {
+				hasNext();
+				hasNextCalled = false;
+				if (nextEntry == null) {
+					throw new NoSuchElementException();
+				}
+				return nextEntry.value;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Gets all values contained in this cache.
+	 *
+	 * The returned collection is intended to be used as read access, therefore
+	 * the modifying methods will throw a {@link UnsupportedOperationException}.
+	 * The returned size doesn't reflect potential eviction on read-access.
+	 *
+	 * @return an collection of all values backed by the underlying map.
+	 */
+	public final Collection<V> values() {
+		Collection<V> vs = values;
+		if (vs == null) {
+			vs = new AbstractCollection<V>() {
+
+				@Override
+				public final int size() {
+					return cache.size();
+				}
+
+				@Override
+				public final boolean contains(final Object o) {
+					return null != find(new Predicate<V>() {
+
+						@Override
+						public boolean accept(final V value) {
+							return value.equals(o);
+						}
+					}, false);
+				}
+
+				@Override
+				public final Iterator<V> iterator() {
+					return valuesIterator();
+				}
+
+				@Override
+				public final boolean add(Object o) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public final boolean remove(Object o) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public final void clear() {
+					throw new UnsupportedOperationException();
+				}
+			};
+			values = vs;
+		}
+		return vs;
+	}
+
+	/**
+	 * Gets iterator over all values with timestamp contained in this cache.
+	 * <p>
+	 * In difference to {@link LeastRecentlyUsedCache#timestampedIterator()},
+	 * the iterator is based on a snapshot of the access list, taken when
+	 * calling this method. The entries are ordered according their last
+	 * update.
+	 * </p>
+	 * <p>
+	 * Removal of values from the iterator is unsupported.
+	 * </p>
+	 *
+	 * @return an iterator over all values of the snapshot.
+	 */
+	public final Iterator<Timestamped<V>> timestampedIterator() {
+		List<Timestamped<V>> snapshot = new ArrayList<>(cache.size());
+		lock.lock();
+		try {
+			drainReadBuffers();
+			CacheEntry<K, V> entry = header.after;
+			while (entry != header) {
+				snapshot.add(entry.getEntry());
+				entry = entry.after;
+			}
+		} finally {
+			lock.unlock();
+		}
+		return Collections.unmodifiableList(snapshot).iterator();
+	}
+
+	/**
+	 * Read buffer.
+	 *
+	 * Ring buffer with multiple concurrent writers and a single reader, which
+	 * holds the lock of the cache.
+	 */
+	private static class ReadBuffer<K, V> {
+
+		private final AtomicReferenceArray<CacheEntry<K, V>> entries = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+		private final AtomicLong writes = new AtomicLong();
+		private volatile long reads;
+	}
+
+	private static class CacheEntry<K, V> {
+
+		private final K key;
+		private final V value;
+		private volatile long lastUpdate;
+		/**
+		 * Next entry in access list. Guarded by lock.
+		 */
+		private CacheEntry<K, V> after;
+		/**
+		 * Previous entry in access list. Guarded by lock. {@code null}, if the
+		 * entry is not contained in the access list.
+		 */
+		private CacheEntry<K, V> before;
+
+		private CacheEntry() {
+			this.key = null;
+			this.value = null;
+			this.lastUpdate = -1;
+		}
+
+		private CacheEntry(K key, V value, long lastUpdate) {
+			this.key = key;
+			this.value = value;
+			this.lastUpdate = lastUpdate;
+		}
+
+		private Timestamped<V> getEntry() {
+			return new Timestamped<V>(value, lastUpdate);
+		}
+
+		private boolean isStale(long thresholdNanos) {
+			return (ClockUtil.nanoRealtime() - lastUpdate) >= thresholdNanos;
+		}
+
+		private void addBefore(CacheEntry<K, V> existingEntry) {
+			after = existingEntry;
+			before = existingEntry.before;
+			before.after = this;
+			after.before = this;
+		}
+
+		private void addOrdered(CacheEntry<K, V> header) {
+			CacheEntry<K, V> position = header;
+			while (position.before != header && (lastUpdate - position.before.lastUpdate) < 0) {
+				position = position.before;
+			}
+			addBefore(position);
+		}
+
+		private void unlink() {
+			if (before != null) {
+				before.after = after;
+				after.before = before;
+				before = after = null;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return new StringBuilder("CacheEntry [key: ").append(key).append(", last access: ").append(lastUpdate)
+					.append("]").toString();
+		}
+	}
+}
@@ -15,6 +15,7 @@
  ******************************************************************************/
 package org.eclipse.californium.elements.util;
 
+import java.lang.reflect.Method;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -91,6 +92,15 @@ public class ExecutorsUtil {
 	 * @since 3.0
 	 */
 	private static final Boolean REMOVE_ON_CANCEL;
+	/**
+	 * Factory method for virtual thread executors.
+	 * 
+	 * {@code Executors.newVirtualThreadPerTaskExecutor()}, if supported by the
+	 * java vm (java 21 or newer), {@code null}, otherwise.
+	 * 
+	 * @since 3.0
+	 */
+	private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR;
 
 	static {
 		Boolean remove = StringUtil.getConfigurationBoolean("EXECUTER_REMOVE_ON_CANCEL");
@@ -105,6 +115,76 @@ public class ExecutorsUtil {
 			}
 		}
 		REMOVE_ON_CANCEL = remove;
+		Method factory = null;
+		try {
+			factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			// java 19 and 20 requires --enable-preview
+			ExecutorService executor = (ExecutorService) factory.invoke(null);
+			executor.shutdown();
+		} catch (Throwable t) {
+			factory = null;
+		}
+		NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = factory;
+	}
+
+	/**
+	 * Check, if virtual threads are supported by the java vm.
+	 * 
+	 * @return {@code true}, if virtual threads are supported (java 21 or
+	 *         newer), {@code false}, otherwise.
+	 * @since 3.0
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * Create an executor, which starts a new virtual thread for each task.
+	 * 
+	 * Intended for blocking tasks, e.g. resource handlers, which are calling
+	 * databases or other services. Tasks, which requires to be executed in
+	 * order, must use a {@link SerialExecutor} on top.
+	 * 
+	 * @return virtual thread executor
+	 * @throws UnsupportedOperationException if virtual threads are not
+	 *             supported by the java vm.
+	 * @see #isVirtualThreadSupported()
+	 * @since 3.0
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor() {
+		if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+			throw new UnsupportedOperationException("Virtual threads are not supported!");
+		}
+		try {
+			LOGGER.trace("create virtual thread executor");
+			return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+		} catch (Exception e) {
+			throw new UnsupportedOperationException("Virtual threads are not supported!", e);
+		}
+	}
+
+	/**
+	 * Create a scheduled executor service, which uses virtual threads for the
+	 * direct execution of tasks.
+	 * 
+	 * The scheduled tasks are executed by a single platform thread, the direct
+	 * tasks are executed by a new virtual thread for each task.
+	 * 
+	 * @param threadFactory thread factory for the platform thread
+	 * @return scheduled executor service with virtual threads
+	 * @throws UnsupportedOperationException if virtual threads are not
+	 *             supported by the java vm.
+	 * @see #isVirtualThreadSupported()
+	 * @since 3.0
+	 */
+	public static ScheduledExecutorService newVirtualThreadScheduledExecutor(ThreadFactory threadFactory) {
+		ExecutorService directExecutor = newVirtualThreadPerTaskExecutor();
+		LOGGER.trace("create special thread pool with virtual threads");
+		SplitScheduledThreadPoolExecutor executor = new SplitScheduledThreadPoolExecutor(threadFactory,
+				directExecutor);
+		executor.execute(WARMUP);
+		executor.schedule(WARMUP, 0, TimeUnit.NANOSECONDS);
+		return executor;
 	}
 
 	/**
@@ -285,16 +365,33 @@ public class ExecutorsUtil {
 		 * @param threadFactory thread factory.
 		 */
 		public SplitScheduledThreadPoolExecutor(int corePoolSize, ThreadFactory threadFactory) {
-			super(corePoolSize < SPLIT_THRESHOLD ? corePoolSize : SPLIT_THRESHOLD, threadFactory);
-			setMaximumPoolSize(corePoolSize < SPLIT_THRESHOLD ? corePoolSize : SPLIT_THRESHOLD);
+			this(corePoolSize < SPLIT_THRESHOLD ? corePoolSize : SPLIT_THRESHOLD, threadFactory,
+					corePoolSize > SPLIT_THRESHOLD ? newFixedThreadPool(corePoolSize - SPLIT_THRESHOLD, threadFactory)
+							: null);
+		}
+
+		/**
+		 * Create new executor with provided direct executor.
+		 * 
+		 * Uses a {@link ScheduledThreadPoolExecutor} with
+		 * {@link ExecutorsUtil#SPLIT_THRESHOLD} threads for scheduling.
+		 * 
+		 * @param threadFactory thread factory.
+		 * @param directExecutor executor for direct execution.
+		 * @since 3.0
+		 */
+		public SplitScheduledThreadPoolExecutor(ThreadFactory threadFactory, ExecutorService directExecutor) {
+			this(SPLIT_THRESHOLD, threadFactory, directExecutor);
+		}
+
+		private SplitScheduledThreadPoolExecutor(int schedulerPoolSize, ThreadFactory threadFactory,
+				ExecutorService directExecutor) {
+			super(schedulerPoolSize, threadFactory);
+			setMaximumPoolSize(schedulerPoolSize);
 			Long diff = StringUtil.getConfigurationLong("EXECUTER_LOGGING_QUEUE_SIZE_DIFF");
 			scheduleLoggingQueueSizeDiff = diff == null ? SCHEDULE_EXECUTOR_LOGGING_QUEUE_SIZE_DIFF_DEFAULT : diff;
 			ExecutorsUtil.setRemoveOnCancelPolicy(this);
-			if (corePoolSize > SPLIT_THRESHOLD) {
-				directExecutor = newFixedThreadPool(corePoolSize - SPLIT_THRESHOLD, threadFactory);
-			} else {
-				directExecutor = null;
-			}
+			this.directExecutor = directExecutor;
 			LOGGER.debug("remove on cancel: {}, split: {}, log-diff: {}", REMOVE_ON_CANCEL, directExecutor != null,
 					scheduleLoggingQueueSizeDiff);
 		}
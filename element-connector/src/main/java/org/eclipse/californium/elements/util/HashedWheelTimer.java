@@ -0,0 +1,598 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.elements.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed wheel timer.
+ * <p>
+ * Intended for many short living timers, which are mostly cancelled before
+ * they expire, e.g. retransmission timers. Scheduling a timer is O(1) and
+ * doesn't require a lock. Cancelling a timer is O(1) and removes it from the
+ * wheel, so the task is not kept until the deadline.
+ * </p>
+ * <p>
+ * The time is divided into ticks. While timers are pending, a ticker job is
+ * scheduled on the provided {@link ScheduledExecutorService} for the next
+ * tick. On each tick, the new timers are added to the bucket of the wheel,
+ * which represents the tick of their deadline, and the buckets of the passed
+ * ticks are processed. The expired timers are executed by the ticker job.
+ * Therefore the tasks must be short, and should pass longer work to other
+ * executors. Without pending timers, the ticker job is not scheduled again
+ * until the next timer is scheduled.
+ * </p>
+ * <p>
+ * The timer uses the same time source as the {@link ScheduledExecutorService},
+ * {@link System#nanoTime()}. Using {@link ClockUtil} instead would expire the
+ * timers earlier than the executor, if that time is shifted by tests.
+ * </p>
+ * <p>
+ * The wheel is guarded by the lock of the timer. The expired timers are
+ * executed after that lock is released.
+ * </p>
+ * <p>
+ * Timers expire at the first tick after their deadline, therefore at most
+ * one tick later.
+ * </p>
+ *
+ * @since 3.0
+ */
+public class HashedWheelTimer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+	/**
+	 * Default number of buckets of the wheel.
+	 */
+	public static final int DEFAULT_WHEEL_SIZE = 512;
+
+	/**
+	 * Updater for {@link Timeout#state}.
+	 */
+	private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER = AtomicIntegerFieldUpdater
+			.newUpdater(Timeout.class, "state");
+
+	/**
+	 * Tick in nanoseconds.
+	 */
+	private final long tickNanos;
+	/**
+	 * Buckets of the wheel. Contains the head of the double linked list of
+	 * timers. Guarded by this.
+	 */
+	private final Timeout[] wheel;
+	/**
+	 * Mask for the bucket index. The number of buckets is a power of 2.
+	 */
+	private final int mask;
+	/**
+	 * Queue of new timers. Added to the wheel by the next tick.
+	 */
+	private final Queue<Timeout> scheduledTimeouts = new ConcurrentLinkedQueue<>();
+	/**
+	 * Number of pending timers.
+	 */
+	private final AtomicInteger pending = new AtomicInteger();
+	/**
+	 * Number of expired timers.
+	 */
+	private final AtomicLong expired = new AtomicLong();
+	/**
+	 * Number of cancelled timers.
+	 */
+	private final AtomicLong cancelled = new AtomicLong();
+
+	/**
+	 * Nano-timestamp of tick {@code 0}. Guarded by this.
+	 */
+	private long startNanos;
+	/**
+	 * Last processed tick. Guarded by this.
+	 */
+	private long processedTick;
+	/**
+	 * Current ticker job. Replaced, when the timer is started on an other
+	 * executor, in order to ignore a stale ticker job of the previous
+	 * executor. {@code null}, if not started. Guarded by this.
+	 */
+	private Ticker ticker;
+	/**
+	 * Handle of the scheduled ticker job. {@code null}, if not ticking.
+	 * Guarded by this.
+	 */
+	private ScheduledFuture<?> tickerHandle;
+	/**
+	 * Executor of the ticker job. {@code null}, if not started.
+	 */
+	private volatile ScheduledExecutorService executor;
+	/**
+	 * Indicates, that the ticker job is scheduled.
+	 */
+	private volatile boolean ticking;
+
+	/**
+	 * Create hashed wheel timer with {@link #DEFAULT_WHEEL_SIZE}.
+	 *
+	 * @param tick duration of a tick
+	 * @param unit unit of tick
+	 * @throws IllegalArgumentException if tick is less than 1 millisecond
+	 */
+	public HashedWheelTimer(long tick, TimeUnit unit) {
+		this(tick, unit, DEFAULT_WHEEL_SIZE);
+	}
+
+	/**
+	 * Create hashed wheel timer.
+	 *
+	 * @param tick duration of a tick
+	 * @param unit unit of tick
+	 * @param wheelSize number of buckets. Rounded up to the next power of 2.
+	 * @throws IllegalArgumentException if tick is less than 1 millisecond, or
+	 *             wheelSize is not in range {@code [1..2^30]}
+	 */
+	public HashedWheelTimer(long tick, TimeUnit unit, int wheelSize) {
+		if (unit.toMillis(tick) < 1) {
+			throw new IllegalArgumentException("Tick " + tick + " " + unit + " must not be less than 1ms!");
+		}
+		if (wheelSize < 1 || wheelSize > (1 << 30)) {
+			throw new IllegalArgumentException("Wheel size " + wheelSize + " must be in range [1..2^30]!");
+		}
+		int size = 1;
+		while (size < wheelSize) {
+			size <<= 1;
+		}
+		this.tickNanos = unit.toNanos(tick);
+		this.wheel = new Timeout[size];
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Start timer.
+	 *
+	 * If the timer is already running on an other executor, the ticker job is
+	 * moved to the provided executor. The pending timers are kept.
+	 *
+	 * @param executor scheduled executor to run the ticker job. The expired
+	 *            timers are executed by this executor.
+	 * @throws NullPointerException if executor is {@code null}
+	 */
+	public synchronized void start(ScheduledExecutorService executor) {
+		if (executor == null) {
+			throw new NullPointerException("Executor must not be null!");
+		}
+		if (this.executor == executor) {
+			return;
+		}
+		if (this.executor == null) {
+			startNanos = System.nanoTime();
+			processedTick = 0;
+		}
+		this.executor = executor;
+		this.ticker = new Ticker();
+		if (tickerHandle != null) {
+			tickerHandle.cancel(false);
+			scheduleTicker(processedTick);
+		}
+	}
+
+	/**
+	 * Stop timer.
+	 *
+	 * Cancels all pending timers.
+	 */
+	public synchronized void stop() {
+		if (executor != null) {
+			if (tickerHandle != null) {
+				tickerHandle.cancel(false);
+				tickerHandle = null;
+			}
+			ticking = false;
+			ticker = null;
+			executor = null;
+			Timeout timeout;
+			while ((timeout = scheduledTimeouts.poll()) != null) {
+				timeout.cancel(false);
+			}
+			for (int index = 0; index < wheel.length; ++index) {
+				while ((timeout = wheel[index]) != null) {
+					remove(timeout);
+					timeout.cancel(false);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check, if timer is running.
+	 *
+	 * @return {@code true}, if running, {@code false}, if not.
+	 */
+	public boolean isRunning() {
+		return executor != null;
+	}
+
+	/**
+	 * Schedule task.
+	 *
+	 * @param task task to be executed after the delay
+	 * @param delay delay
+	 * @param unit unit of delay
+	 * @return scheduled future to cancel the timer.
+	 *         {@link ScheduledFuture#get()} returns {@code null} after the
+	 *         execution of the task.
+	 * @throws RejectedExecutionException if timer is not running
+	 */
+	public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+		if (executor == null) {
+			throw new RejectedExecutionException("Hashed wheel timer is not running!");
+		}
+		Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(delay));
+		pending.incrementAndGet();
+		scheduledTimeouts.offer(timeout);
+		if (!ticking) {
+			synchronized (this) {
+				if (executor != null && !ticking) {
+					resume();
+				}
+			}
+		}
+		if (executor == null) {
+			// stopped concurrently, the timeout may have missed the drain of
+			// stop()
+			timeout.cancel(false);
+			throw new RejectedExecutionException("Hashed wheel timer is not running!");
+		}
+		return timeout;
+	}
+
+	/**
+	 * Get number of pending timers.
+	 *
+	 * @return number of pending timers
+	 */
+	public int getPendingTimers() {
+		return pending.get();
+	}
+
+	/**
+	 * Get number of expired timers.
+	 *
+	 * @return number of expired timers
+	 */
+	public long getExpiredTimers() {
+		return expired.get();
+	}
+
+	/**
+	 * Get number of cancelled timers.
+	 *
+	 * @return number of cancelled timers
+	 */
+	public long getCancelledTimers() {
+		return cancelled.get();
+	}
+
+	/**
+	 * Resume ticking.
+	 *
+	 * Must be called synchronized. Without pending timers the wheel is empty,
+	 * therefore the passed ticks are skipped.
+	 */
+	private void resume() {
+		processedTick = (System.nanoTime() - startNanos) / tickNanos;
+		scheduleTicker(processedTick);
+	}
+
+	/**
+	 * Schedule ticker job for the next tick.
+	 *
+	 * Must be called synchronized.
+	 *
+	 * @param currentTick current tick
+	 */
+	private void scheduleTicker(long currentTick) {
+		long delay = startNanos + (currentTick + 1) * tickNanos - System.nanoTime();
+		ticking = true;
+		tickerHandle = executor.schedule(ticker, delay < 0 ? 0 : delay, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Process tick.
+	 *
+	 * Adds the new timers to the wheel and processes the buckets of the passed
+	 * ticks. If the execution was delayed for more than a wheel rotation, each
+	 * bucket is processed once. The expired timers are executed after the lock
+	 * is released. Schedules the ticker job for the next tick, if timers are
+	 * pending.
+	 *
+	 * @param caller calling ticker job
+	 */
+	private void tick(Ticker caller) {
+		List<Timeout> expiredTimeouts = new ArrayList<>();
+		synchronized (this) {
+			if (ticker != caller) {
+				// stopped or moved to other executor
+				return;
+			}
+			long currentTick = tick(expiredTimeouts);
+			if (pending.get() > 0) {
+				scheduleTicker(currentTick);
+			} else {
+				tickerHandle = null;
+				ticking = false;
+				// check again, schedule may have missed ticking = false
+				if (pending.get() > 0) {
+					resume();
+				}
+			}
+		}
+		for (Timeout timeout : expiredTimeouts) {
+			timeout.expire();
+		}
+	}
+
+	/**
+	 * Process tick.
+	 *
+	 * Must be called synchronized.
+	 *
+	 * @param expiredTimeouts list to add the expired timers
+	 * @return current tick
+	 */
+	private long tick(List<Timeout> expiredTimeouts) {
+		final long currentTick = (System.nanoTime() - startNanos) / tickNanos;
+		Timeout timeout;
+		while ((timeout = scheduledTimeouts.poll()) != null) {
+			if (timeout.isDone()) {
+				continue;
+			}
+			// round up, don't expire before the deadline
+			timeout.deadlineTick = (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos;
+			if (timeout.deadlineTick <= currentTick) {
+				expiredTimeouts.add(timeout);
+			} else {
+				add(timeout);
+			}
+		}
+		long tick = processedTick + 1;
+		if (currentTick - tick >= wheel.length) {
+			tick = currentTick - wheel.length + 1;
+		}
+		for (; tick <= currentTick; ++tick) {
+			timeout = wheel[(int) (tick & mask)];
+			while (timeout != null) {
+				Timeout next = timeout.next;
+				if (timeout.deadlineTick <= currentTick) {
+					remove(timeout);
+					expiredTimeouts.add(timeout);
+				}
+				timeout = next;
+			}
+		}
+		if (LOGGER.isDebugEnabled() && (processedTick & ~mask) != (currentTick & ~mask)) {
+			LOGGER.debug("hashed wheel timer: {} pending, {} expired, {} cancelled", pending.get(), expired.get(),
+					cancelled.get());
+		}
+		processedTick = currentTick;
+		return currentTick;
+	}
+
+	/**
+	 * Add timer to the bucket of its deadline.
+	 *
+	 * Must be called synchronized.
+	 *
+	 * @param timeout timer to add
+	 */
+	private void add(Timeout timeout) {
+		int index = (int) (timeout.deadlineTick & mask);
+		Timeout head = wheel[index];
+		timeout.bucket = index;
+		timeout.previous = null;
+		timeout.next = head;
+		if (head != null) {
+			head.previous = timeout;
+		}
+		wheel[index] = timeout;
+	}
+
+	/**
+	 * Remove timer from its bucket.
+	 *
+	 * Must be called synchronized. Ignored, if the timer is not in a bucket.
+	 *
+	 * @param timeout timer to remove
+	 */
+	private void remove(Timeout timeout) {
+		if (timeout.bucket < 0) {
+			return;
+		}
+		if (timeout.previous == null) {
+			wheel[timeout.bucket] = timeout.next;
+		} else {
+			timeout.previous.next = timeout.next;
+		}
+		if (timeout.next != null) {
+			timeout.next.previous = timeout.previous;
+		}
+		timeout.bucket = -1;
+		timeout.previous = null;
+		timeout.next = null;
+	}
+
+	/**
+	 * Ticker job.
+	 */
+	private final class Ticker implements Runnable {
+
+		@Override
+		public void run() {
+			try {
+				tick(this);
+			} catch (Throwable t) {
+				LOGGER.warn("Exception in hashed wheel timer", t);
+			}
+		}
+	}
+
+	/**
+	 * Timer.
+	 */
+	private final class Timeout implements ScheduledFuture<Void> {
+
+		private static final int INIT = 0;
+		private static final int CANCELLED = 1;
+		private static final int EXPIRED = 2;
+
+		private final Runnable task;
+		/**
+		 * Nano-timestamp of deadline.
+		 */
+		private final long deadlineNanos;
+		/**
+		 * Tick of deadline. Guarded by the timer.
+		 */
+		private long deadlineTick;
+		/**
+		 * Index of bucket. {@code -1}, if not in a bucket. Guarded by the
+		 * timer.
+		 */
+		private int bucket = -1;
+		/**
+		 * Previous timer in bucket. Guarded by the timer.
+		 */
+		private Timeout previous;
+		/**
+		 * Next timer in bucket. Guarded by the timer.
+		 */
+		private Timeout next;
+		/**
+		 * State of timer. Not private to be accessible by the
+		 * {@link #STATE_UPDATER}.
+		 */
+		volatile int state;
+
+		private Timeout(Runnable task, long deadlineNanos) {
+			this.task = task;
+			this.deadlineNanos = deadlineNanos;
+		}
+
+		/**
+		 * Expire timer and execute task.
+		 */
+		private void expire() {
+			if (STATE_UPDATER.compareAndSet(this, INIT, EXPIRED)) {
+				pending.decrementAndGet();
+				expired.incrementAndGet();
+				try {
+					task.run();
+				} catch (Throwable t) {
+					LOGGER.warn("Exception in timer task", t);
+				} finally {
+					synchronized (this) {
+						notifyAll();
+					}
+				}
+			}
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			if (other == this) {
+				return 0;
+			}
+			long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+			return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (STATE_UPDATER.compareAndSet(this, INIT, CANCELLED)) {
+				pending.decrementAndGet();
+				cancelled.incrementAndGet();
+				// don't keep the task until the deadline.
+				// timers, which are not yet added to the wheel,
+				// are dropped by the next tick.
+				synchronized (HashedWheelTimer.this) {
+					remove(this);
+				}
+				synchronized (this) {
+					notifyAll();
+				}
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return state == CANCELLED;
+		}
+
+		@Override
+		public boolean isDone() {
+			return state != INIT;
+		}
+
+		@Override
+		public synchronized Void get() throws InterruptedException, ExecutionException {
+			while (state == INIT) {
+				wait();
+			}
+			if (state == CANCELLED) {
+				throw new CancellationException();
+			}
+			return null;
+		}
+
+		@Override
+		public synchronized Void get(long timeout, TimeUnit unit)
+				throws InterruptedException, ExecutionException, TimeoutException {
+			long end = System.nanoTime() + unit.toNanos(timeout);
+			while (state == INIT) {
+				long left = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime());
+				if (left <= 0) {
+					throw new TimeoutException();
+				}
+				wait(left);
+			}
+			if (state == CANCELLED) {
+				throw new CancellationException();
+			}
+			return null;
+		}
+	}
+}
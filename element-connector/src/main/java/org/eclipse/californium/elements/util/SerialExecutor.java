@@ -41,6 +41,19 @@ public class SerialExecutor extends AbstractExecutorService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(SerialExecutor.class);
 
+	/**
+	 * Marker for {@link #currentlyExecutedJob}, if the job is executed inline.
+	 * 
+	 * @see #tryAcquireInline()
+	 * @since 3.0
+	 */
+	private static final Runnable INLINE = new Runnable() {
+
+		@Override
+		public void run() {
+		}
+	};
+
 	/**
 	 * Target executor to execute job serially.
 	 */
@@ -265,6 +278,87 @@ public class SerialExecutor extends AbstractExecutorService {
 		}
 	}
 
+	/**
+	 * Try to acquire this executor for inline execution by the current thread.
+	 * 
+	 * Only succeeds, if no job is currently executed and no job is pending.
+	 * Doesn't block, if the executor is concurrently accessed by other
+	 * threads. If acquired, the current thread becomes the owner, until
+	 * {@link #releaseInline()} is called. Jobs passed to
+	 * {@link #execute(Runnable)} in the meantime are queued and scheduled on
+	 * release. That enables to execute short jobs without allocating and
+	 * passing a job to the target executor, if the serial executor is idle.
+	 * 
+	 * <pre>
+	 * if (serialExecutor.tryAcquireInline()) {
+	 * 	try {
+	 * 		// process inline
+	 * 	} finally {
+	 * 		serialExecutor.releaseInline();
+	 * 	}
+	 * } else {
+	 * 	serialExecutor.execute(job);
+	 * }
+	 * </pre>
+	 * 
+	 * @return {@code true}, if acquired and {@link #releaseInline()} must be
+	 *         called, {@code false}, otherwise.
+	 * @since 3.0
+	 */
+	public boolean tryAcquireInline() {
+		if (!lock.tryLock()) {
+			return false;
+		}
+		try {
+			if (shutdown || currentlyExecutedJob != null || !tasks.isEmpty()) {
+				return false;
+			}
+			currentlyExecutedJob = INLINE;
+			setOwner();
+		} finally {
+			lock.unlock();
+		}
+		ExecutionListener current = listener.get();
+		if (current != null) {
+			try {
+				current.beforeExecution();
+			} catch (Throwable t) {
+				LOGGER.error("unexpected error occurred:", t);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Release this executor after inline execution.
+	 * 
+	 * Schedules jobs, which are queued during the inline execution.
+	 * 
+	 * @throws ConcurrentModificationException if the current thread has not
+	 *             acquired this executor with {@link #tryAcquireInline()}.
+	 * @since 3.0
+	 */
+	public void releaseInline() {
+		assertOwner();
+		ExecutionListener current = listener.get();
+		if (current != null) {
+			try {
+				current.afterExecution();
+			} catch (Throwable t) {
+				LOGGER.error("unexpected error occurred:", t);
+			}
+		}
+		lock.lock();
+		try {
+			clearOwner();
+			scheduleNextJob();
+		} catch (RejectedExecutionException ex) {
+			LOGGER.debug("shutdown?", ex);
+		} finally {
+			lock.unlock();
+		}
+	}
+
 	/**
 	 * Schedule next job from {@link #tasks}. {@link #setOwner()} and
 	 * {@link #clearOwner()} before and after executing the job.
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.elements;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.category.NativeDatagramSocketImplRequired;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.config.UdpConfig;
+import org.eclipse.californium.elements.config.UdpConfig.ConnectorMode;
+import org.eclipse.californium.elements.rule.NetworkRule;
+import org.eclipse.californium.elements.rule.ThreadsRule;
+import org.eclipse.californium.elements.util.SimpleMessageCallback;
+import org.eclipse.californium.elements.util.SimpleRawDataChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests for {@link UDPConnector} using {@link ConnectorMode#NIO}.
+ *
+ * The NIO mode uses a {@link java.nio.channels.DatagramChannel} and therefore
+ * requires native sockets.
+ */
+@Category(NativeDatagramSocketImplRequired.class)
+public class UDPConnectorNioTest {
+
+	@ClassRule
+	public static NetworkRule network = new NetworkRule(NetworkRule.Mode.NATIVE);
+
+	@Rule
+	public ThreadsRule cleanup = new ThreadsRule();
+
+	UDPConnector connector;
+	UDPConnector destination;
+	SimpleRawDataChannel channel;
+
+	@Before
+	public void setup() throws IOException {
+		Configuration config = network.createTestConfig();
+		config.set(UdpConfig.UDP_CONNECTOR_MODE, ConnectorMode.NIO);
+		config.set(UdpConfig.UDP_CONNECTOR_BURST_SIZE, 4);
+		config.set(UdpConfig.UDP_RECEIVER_THREAD_COUNT, 2);
+		connector = new UDPConnector(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), config);
+		connector.start();
+		channel = new SimpleRawDataChannel(1);
+		destination = new UDPConnector(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), config);
+		destination.setRawDataReceiver(channel);
+		destination.start();
+	}
+
+	@After
+	public void stop() {
+		connector.destroy();
+		destination.destroy();
+	}
+
+	@Test
+	public void testSendAndReceiveBurst() throws InterruptedException {
+		int count = 20;
+		InetSocketAddress dest = destination.getAddress();
+		SimpleMessageCallback callback = new SimpleMessageCallback(count, false);
+		for (int index = 0; index < count; ++index) {
+			byte[] data = { 0, 1, (byte) index };
+			RawData message = RawData.outbound(data, new UdpEndpointContext(dest), callback, false);
+			connector.send(message);
+		}
+		assertThat(callback.toString(), callback.await(1000), is(true));
+		for (int index = 0; index < count; ++index) {
+			RawData receivedData = channel.poll(1000, TimeUnit.MILLISECONDS);
+			assertThat("received data:", receivedData, is(notNullValue()));
+			assertThat(receivedData.getSize(), is(3));
+			assertThat(receivedData.getInetSocketAddress(), is(connector.getAddress()));
+		}
+	}
+
+	@Test
+	public void testTooLargeDatagramIsDropped() throws InterruptedException {
+		byte[] data = new byte[destination.getReceiverPacketSize() + 1];
+		Arrays.fill(data, (byte) 1);
+		InetSocketAddress dest = destination.getAddress();
+
+		RawData message = RawData.outbound(data, new UdpEndpointContext(dest), null, false);
+		connector.send(message);
+
+		RawData receivedData = channel.poll(100, TimeUnit.MILLISECONDS);
+		assertThat("first received data:", receivedData, is(nullValue()));
+
+		data = new byte[destination.getReceiverPacketSize()];
+		Arrays.fill(data, (byte) 2);
+		message = RawData.outbound(data, new UdpEndpointContext(dest), null, false);
+		connector.send(message);
+
+		receivedData = channel.poll(1000, TimeUnit.MILLISECONDS);
+		assertThat("second received data:", receivedData, is(notNullValue()));
+		assertThat("bytes received:", receivedData.bytes, is(equalTo(data)));
+	}
+
+	@Test
+	public void testStopCallsMessageCallbackOnError() throws InterruptedException, IOException {
+		byte[] data = { 0, 1, 2 };
+		InetSocketAddress dest = destination.getAddress();
+		int pending = 100;
+
+		for (int loop = 0; loop < 10; ++loop) {
+			SimpleMessageCallback callback = new SimpleMessageCallback(pending, false);
+			for (int i = 0; i < pending; ++i) {
+				RawData message = RawData.outbound(data, new UdpEndpointContext(dest), callback, false);
+				connector.send(message);
+			}
+			connector.stop();
+			assertThat(loop + ": " + callback.toString(), callback.await(100), is(true));
+			connector.start();
+		}
+	}
+}
@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.elements.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.californium.elements.category.Medium;
+import org.eclipse.californium.elements.rule.TestTimeRule;
+import org.eclipse.californium.elements.rule.ThreadsRule;
+import org.eclipse.californium.elements.util.LeastRecentlyUsedCache.EvictionListener;
+import org.eclipse.californium.elements.util.LeastRecentlyUsedCache.Timestamped;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Verifies behavior of {@code ConcurrentLeastRecentlyUsedCache}.
+ */
+@Category(Medium.class)
+public class ConcurrentLeastRecentlyUsedCacheTest {
+
+	private static final long THRESHOLD_MILLIS = 300;
+
+	@Rule
+	public ThreadsRule cleanup = new ThreadsRule();
+	@Rule
+	public TestTimeRule time = new TestTimeRule();
+
+	ConcurrentLeastRecentlyUsedCache<Integer, String> cache;
+
+	@Test
+	public void testGetFailsWhenExpired() {
+		givenACacheWithEntries(5, THRESHOLD_MILLIS, 1);
+		cache.setEvictingOnReadAccess(true);
+		EvictionCounter counter = new EvictionCounter();
+		cache.addEvictionListener(counter);
+		assertThat(cache.get(0), is(notNullValue()));
+		time.addTestTimeShift(THRESHOLD_MILLIS + 100, TimeUnit.MILLISECONDS);
+		assertThat(cache.get(0), is(nullValue()));
+		assertThat(cache.size(), is(0));
+		assertThat(counter.count.get(), is(1));
+	}
+
+	@Test
+	public void testGetSucceedsEvenExpired() {
+		givenACacheWithEntries(5, THRESHOLD_MILLIS, 1);
+		cache.setEvictingOnReadAccess(false);
+		time.addTestTimeShift(THRESHOLD_MILLIS + 100, TimeUnit.MILLISECONDS);
+		assertThat(cache.get(0), is(notNullValue()));
+	}
+
+	@Test
+	public void testReadAccessReordersEntries() {
+		givenACacheWithEntries(5, THRESHOLD_MILLIS, 5);
+		assertThat(cache.getEldest(), is("0"));
+		time.addTestTimeShift(10, TimeUnit.MILLISECONDS);
+		assertThat(cache.get(0), is("0"));
+		assertThat(cache.getEldest(), is("1"));
+		cache.setUpdatingOnReadAccess(false);
+		assertThat(cache.get(1), is("1"));
+		assertThat(cache.getEldest(), is("1"));
+		assertTrue(cache.update(1));
+		assertThat(cache.getEldest(), is("2"));
+		assertOrder();
+	}
+
+	@Test
+	public void testStoreEvictsEldestStaleEntry() {
+		givenACacheWithEntries(10, THRESHOLD_MILLIS, 10);
+		EvictionCounter counter = new EvictionCounter();
+		cache.addEvictionListener(counter);
+		assertFalse(cache.put(50, "50"));
+		time.addTestTimeShift(THRESHOLD_MILLIS / 2, TimeUnit.MILLISECONDS);
+		assertThat(cache.get(0), is(notNullValue()));
+		time.addTestTimeShift(THRESHOLD_MILLIS / 2 + 10, TimeUnit.MILLISECONDS);
+		assertTrue(cache.put(50, "50"));
+		assertThat(counter.count.get(), is(1));
+		assertThat(cache.get(0), is(notNullValue()));
+		assertThat(cache.get(1), is(nullValue()));
+		assertThat(cache.get(50), is("50"));
+	}
+
+	@Test
+	public void testRemoveExpiredEntries() {
+		givenACacheWithEntries(10, THRESHOLD_MILLIS, 10);
+		cache.setEvictingOnReadAccess(false);
+		time.addTestTimeShift(THRESHOLD_MILLIS / 2, TimeUnit.MILLISECONDS);
+		assertThat(cache.get(2), is(notNullValue()));
+		assertThat(cache.get(8), is(notNullValue()));
+		assertThat(cache.get(5), is(notNullValue()));
+		time.addTestTimeShift(THRESHOLD_MILLIS / 2 + 50, TimeUnit.MILLISECONDS);
+		assertThat(cache.removeExpiredEntries(3), is(3));
+		assertThat(cache.removeExpiredEntries(10), is(4));
+		assertThat(cache.removeExpiredEntries(1), is(0));
+		time.addTestTimeShift(THRESHOLD_MILLIS / 2 + 50, TimeUnit.MILLISECONDS);
+		assertThat(cache.removeExpiredEntries(0), is(3));
+		assertThat(cache.size(), is(0));
+	}
+
+	@Test
+	public void testRemove() {
+		givenACacheWithEntries(5, THRESHOLD_MILLIS, 5);
+		assertThat(cache.remove(2), is("2"));
+		assertThat(cache.remove(2), is(nullValue()));
+		assertThat(cache.remove(3, "other"), is(nullValue()));
+		String value = cache.get(3);
+		assertThat(cache.remove(3, value), is(value));
+		assertThat(cache.size(), is(3));
+		assertThat(cache.remainingCapacity(), is(2));
+		assertOrder();
+	}
+
+	@Test
+	public void testPutTimestamped() {
+		givenACacheWithEntries(5, THRESHOLD_MILLIS, 5);
+		cache.setEvictingOnReadAccess(false);
+		cache.setUpdatingOnReadAccess(false);
+		time.addTestTimeShift(THRESHOLD_MILLIS * 2, TimeUnit.MILLISECONDS);
+		Timestamped<String> first = cache.getTimestamped(0);
+		long lastUpdate = first.getLastUpdate();
+
+		assertTrue(cache.put(10, "new1", lastUpdate));
+		assertFalse(cache.put(11, "new2", lastUpdate - 1));
+		assertTrue(cache.put(11, "new3", lastUpdate + 1));
+		assertThat(cache.getTimestamped(11), is(new Timestamped<String>("new3", lastUpdate + 1)));
+		Timestamped<String> middle = cache.getTimestamped(3);
+		assertTrue(cache.put(3, "new4", middle.getLastUpdate() - 1));
+		assertOrder();
+	}
+
+	@Test
+	public void testClear() {
+		givenACacheWithEntries(5, THRESHOLD_MILLIS, 5);
+		assertThat(cache.get(1), is(notNullValue()));
+		cache.clear();
+		assertThat(cache.size(), is(0));
+		assertFalse(cache.timestampedIterator().hasNext());
+		assertTrue(cache.put(1, "1"));
+		assertThat(cache.getEldest(), is("1"));
+	}
+
+	@Test
+	public void testValuesIterator() {
+		givenACacheWithEntries(5, THRESHOLD_MILLIS, 5);
+		int count = 0;
+		for (String value : cache.values()) {
+			assertThat(value, is(notNullValue()));
+			++count;
+		}
+		assertThat(count, is(5));
+		assertTrue(cache.values().contains("3"));
+		time.addTestTimeShift(THRESHOLD_MILLIS + 100, TimeUnit.MILLISECONDS);
+		Iterator<String> iterator = cache.valuesIterator(false);
+		assertTrue(iterator.hasNext());
+		iterator = cache.valuesIterator();
+		assertFalse(iterator.hasNext());
+		assertThat(cache.size(), is(0));
+	}
+
+	@Test
+	public void testConcurrentAccess() throws InterruptedException {
+		final int capacity = 1000;
+		final int threads = 8;
+		final int loops = 20000;
+		cache = new ConcurrentLeastRecentlyUsedCache<>(capacity, capacity, THRESHOLD_MILLIS, TimeUnit.MILLISECONDS);
+		final EvictionCounter counter = new EvictionCounter();
+		cache.addEvictionListener(counter);
+		final AtomicInteger failures = new AtomicInteger();
+		final CountDownLatch ready = new CountDownLatch(threads);
+		for (int thread = 0; thread < threads; ++thread) {
+			final Random random = new Random(thread);
+			new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						for (int loop = 0; loop < loops; ++loop) {
+							Integer key = random.nextInt(capacity * 2);
+							String value = cache.get(key);
+							if (value == null) {
+								cache.put(key, key.toString());
+							} else if (!value.equals(key.toString())) {
+								failures.incrementAndGet();
+							}
+							if (loop % 1000 == 0) {
+								cache.remove(random.nextInt(capacity * 2));
+							}
+						}
+					} catch (Throwable t) {
+						failures.incrementAndGet();
+					} finally {
+						ready.countDown();
+					}
+				}
+			}).start();
+		}
+		assertTrue(ready.await(10, TimeUnit.SECONDS));
+		assertThat(failures.get(), is(0));
+		assertThat(cache.size(), is(lessThanOrEqualTo(capacity)));
+		int count = 0;
+		Iterator<Timestamped<String>> iterator = cache.timestampedIterator();
+		while (iterator.hasNext()) {
+			iterator.next();
+			++count;
+		}
+		assertThat(count, is(cache.size()));
+		time.addTestTimeShift(THRESHOLD_MILLIS + 100, TimeUnit.MILLISECONDS);
+		assertThat(cache.removeExpiredEntries(0), is(count));
+		assertThat(cache.size(), is(0));
+	}
+
+	private void assertOrder() {
+		Iterator<Timestamped<String>> iterator = cache.timestampedIterator();
+		long last = Long.MIN_VALUE;
+		int index = 0;
+		while (iterator.hasNext()) {
+			Timestamped<String> entry = iterator.next();
+			if (index > 0) {
+				assertThat("order violation position " + index + " , value " + entry.getValue(),
+						entry.getLastUpdate(), is(greaterThanOrEqualTo(last)));
+			}
+			last = entry.getLastUpdate();
+			++index;
+		}
+	}
+
+	private void givenACacheWithEntries(int capacity, long expirationThresholdMillis, int noOfEntries) {
+		cache = new ConcurrentLeastRecentlyUsedCache<>(capacity, capacity, expirationThresholdMillis,
+				TimeUnit.MILLISECONDS);
+		for (int i = 0; i < noOfEntries; i++) {
+			cache.put(i, Integer.toString(i));
+		}
+	}
+
+	private static class EvictionCounter implements EvictionListener<String> {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public void onEviction(String value) {
+			count.incrementAndGet();
+		}
+	};
+}
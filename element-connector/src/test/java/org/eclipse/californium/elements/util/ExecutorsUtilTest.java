@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.elements.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.category.Small;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Test virtual thread executors of {@link ExecutorsUtil}.
+ */
+@Category(Small.class)
+public class ExecutorsUtilTest {
+
+	private ScheduledExecutorService executor;
+
+	@After
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * Verify, that many blocking tasks are executed in parallel, and that a
+	 * {@link SerialExecutor} keeps the order.
+	 * 
+	 * @throws Exception if the test fails
+	 */
+	@Test
+	public void testVirtualThreadScheduledExecutor() throws Exception {
+		assumeTrue("requires java 21", ExecutorsUtil.isVirtualThreadSupported());
+		executor = ExecutorsUtil.newVirtualThreadScheduledExecutor(new TestThreadFactory("virtual-test#"));
+
+		final int count = 1000;
+		final CountDownLatch blocking = new CountDownLatch(count);
+		for (int index = 0; index < count; ++index) {
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(500);
+					} catch (InterruptedException e) {
+					}
+					blocking.countDown();
+				}
+			});
+		}
+		assertTrue("blocking tasks not finished", blocking.await(5, TimeUnit.SECONDS));
+
+		final CountDownLatch scheduled = new CountDownLatch(1);
+		executor.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				scheduled.countDown();
+			}
+		}, 10, TimeUnit.MILLISECONDS);
+		assertTrue("scheduled task not executed", scheduled.await(1, TimeUnit.SECONDS));
+
+		final List<Integer> order = new ArrayList<>();
+		final CountDownLatch serial = new CountDownLatch(count);
+		SerialExecutor serialExecutor = new SerialExecutor(executor);
+		for (int index = 0; index < count; ++index) {
+			final int number = index;
+			serialExecutor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					order.add(number);
+					serial.countDown();
+				}
+			});
+		}
+		assertTrue("serial tasks not finished", serial.await(5, TimeUnit.SECONDS));
+		for (int index = 0; index < count; ++index) {
+			assertThat(order.get(index), is(index));
+		}
+	}
+
+	/**
+	 * Verify, that a missing virtual thread support is reported.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testVirtualThreadsNotSupported() {
+		assumeFalse("requires java before 21", ExecutorsUtil.isVirtualThreadSupported());
+		ExecutorsUtil.newVirtualThreadPerTaskExecutor();
+	}
+}
@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.elements.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.californium.elements.category.Medium;
+import org.eclipse.californium.elements.rule.TestTimeRule;
+import org.eclipse.californium.elements.rule.ThreadsRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Verifies behavior of {@link HashedWheelTimer}.
+ */
+@Category(Medium.class)
+public class HashedWheelTimerTest {
+
+	private static final long TICK_MILLIS = 10;
+
+	@Rule
+	public ThreadsRule cleanup = new ThreadsRule();
+
+	@Rule
+	public TestTimeRule time = new TestTimeRule();
+
+	private ScheduledExecutorService executor;
+	private HashedWheelTimer timer;
+
+	@Before
+	public void setup() {
+		executor = ExecutorsUtil.newSingleThreadScheduledExecutor(new TestThreadFactory("timer-"));
+		// small wheel to test multiple rotations
+		timer = new HashedWheelTimer(TICK_MILLIS, TimeUnit.MILLISECONDS, 8);
+		timer.start(executor);
+	}
+
+	@After
+	public void tearDown() {
+		timer.stop();
+		ExecutorsUtil.shutdownExecutorGracefully(100, executor);
+	}
+
+	@Test
+	public void testTimerExpiresAfterDelay() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		long start = ClockUtil.nanoRealtime();
+		ScheduledFuture<?> future = timer.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				latch.countDown();
+			}
+		}, 200, TimeUnit.MILLISECONDS);
+		assertThat(timer.getPendingTimers(), is(1));
+		assertTrue(latch.await(2000, TimeUnit.MILLISECONDS));
+		long time = TimeUnit.NANOSECONDS.toMillis(ClockUtil.nanoRealtime() - start);
+		assertThat(time, is(greaterThanOrEqualTo(200L)));
+		future.get(1000, TimeUnit.MILLISECONDS);
+		assertTrue(future.isDone());
+		assertFalse(future.isCancelled());
+		assertThat(timer.getPendingTimers(), is(0));
+		assertThat(timer.getExpiredTimers(), is(1L));
+	}
+
+	@Test
+	public void testCancelledTimerDoesNotExpire() throws Exception {
+		final AtomicInteger counter = new AtomicInteger();
+		Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+				counter.incrementAndGet();
+			}
+		};
+		ScheduledFuture<?> future1 = timer.schedule(task, 50, TimeUnit.MILLISECONDS);
+		ScheduledFuture<?> future2 = timer.schedule(task, 100, TimeUnit.MILLISECONDS);
+		assertTrue(future1.cancel(false));
+		assertFalse(future1.cancel(false));
+		assertTrue(future1.isCancelled());
+		assertThat(timer.getPendingTimers(), is(1));
+		future2.get(2000, TimeUnit.MILLISECONDS);
+		assertThat(counter.get(), is(1));
+		assertThat(timer.getPendingTimers(), is(0));
+		assertThat(timer.getCancelledTimers(), is(1L));
+		assertFalse(future2.cancel(false));
+	}
+
+	@Test
+	public void testManyTimersExpire() throws Exception {
+		int count = 1000;
+		final CountDownLatch latch = new CountDownLatch(count);
+		Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+				latch.countDown();
+			}
+		};
+		for (int index = 0; index < count; ++index) {
+			// spread the timers over multiple rotations of the wheel
+			timer.schedule(task, index % 300, TimeUnit.MILLISECONDS);
+		}
+		assertTrue(latch.await(2000, TimeUnit.MILLISECONDS));
+		assertThat(timer.getPendingTimers(), is(0));
+		assertThat(timer.getExpiredTimers(), is((long) count));
+	}
+
+	@Test
+	public void testStopCancelsPendingTimers() throws Exception {
+		Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+			}
+		};
+		ScheduledFuture<?> future = timer.schedule(task, 1000, TimeUnit.MILLISECONDS);
+		timer.stop();
+		assertTrue(future.isCancelled());
+		assertThat(timer.getPendingTimers(), is(0));
+		assertFalse(timer.isRunning());
+	}
+
+	@Test
+	public void testScheduleRacingStop() throws Exception {
+		final Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+			}
+		};
+		final List<ScheduledFuture<?>> futures = new CopyOnWriteArrayList<>();
+		final CountDownLatch started = new CountDownLatch(1);
+		Thread scheduler = new Thread("scheduler") {
+
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					while (true) {
+						futures.add(timer.schedule(task, 10000, TimeUnit.MILLISECONDS));
+					}
+				} catch (RejectedExecutionException ex) {
+					// expected after stop
+				}
+			}
+		};
+		scheduler.start();
+		assertTrue(started.await(1000, TimeUnit.MILLISECONDS));
+		Thread.sleep(20);
+		timer.stop();
+		scheduler.join(2000);
+		assertFalse(scheduler.isAlive());
+		for (ScheduledFuture<?> future : futures) {
+			assertTrue(future.isCancelled());
+		}
+		assertThat(timer.getPendingTimers(), is(0));
+	}
+
+	@Test
+	public void testStartOnOtherExecutor() throws Exception {
+		ScheduledExecutorService other = ExecutorsUtil
+				.newSingleThreadScheduledExecutor(new TestThreadFactory("other-timer-"));
+		try {
+			final CountDownLatch latch = new CountDownLatch(1);
+			final AtomicReference<String> thread = new AtomicReference<>();
+			timer.schedule(new Runnable() {
+
+				@Override
+				public void run() {
+					thread.set(Thread.currentThread().getName());
+					latch.countDown();
+				}
+			}, 100, TimeUnit.MILLISECONDS);
+			timer.start(other);
+			assertTrue(latch.await(2000, TimeUnit.MILLISECONDS));
+			assertThat(thread.get().startsWith("other-timer-"), is(true));
+			assertThat(timer.getPendingTimers(), is(0));
+		} finally {
+			timer.stop();
+			ExecutorsUtil.shutdownExecutorGracefully(100, other);
+		}
+	}
+
+	@Test
+	public void testTimerUsesTimeOfExecutor() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		timer.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				latch.countDown();
+			}
+		}, 500, TimeUnit.MILLISECONDS);
+		// the executor doesn't use the shifted test time
+		time.addTestTimeShift(10, TimeUnit.SECONDS);
+		assertFalse(latch.await(100, TimeUnit.MILLISECONDS));
+		assertThat(timer.getPendingTimers(), is(1));
+		assertTrue(latch.await(2000, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testTimerStopsTickingWithoutPendingTimers() throws Exception {
+		ScheduledThreadPoolExecutor idleExecutor = new ScheduledThreadPoolExecutor(1,
+				new TestThreadFactory("idle-timer-"));
+		try {
+			timer.start(idleExecutor);
+			assertThat(idleExecutor.getQueue().size(), is(0));
+			final CountDownLatch latch = new CountDownLatch(1);
+			timer.schedule(new Runnable() {
+
+				@Override
+				public void run() {
+					latch.countDown();
+				}
+			}, 50, TimeUnit.MILLISECONDS);
+			assertThat(idleExecutor.getQueue().size(), is(1));
+			assertTrue(latch.await(2000, TimeUnit.MILLISECONDS));
+			Thread.sleep(TICK_MILLIS * 5);
+			assertThat(idleExecutor.getQueue().size(), is(0));
+			long ticks = idleExecutor.getCompletedTaskCount();
+			Thread.sleep(TICK_MILLIS * 5);
+			assertThat(idleExecutor.getCompletedTaskCount(), is(ticks));
+		} finally {
+			timer.stop();
+			ExecutorsUtil.shutdownExecutorGracefully(100, idleExecutor);
+		}
+	}
+
+	@Test
+	public void testCancelledTimerReleasesTask() throws Exception {
+		WeakReference<Runnable> task = scheduleAndCancel();
+		for (int loop = 0; loop < 10 && task.get() != null; ++loop) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertThat(task.get(), is(nullValue()));
+		// the timer keeping the wheel ticking
+		assertThat(timer.getPendingTimers(), is(1));
+		assertThat(timer.getCancelledTimers(), is(1L));
+	}
+
+	/**
+	 * Schedule a timer, wait until it's added to the wheel, and cancel it.
+	 *
+	 * @return weak reference to the task of the cancelled timer
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private WeakReference<Runnable> scheduleAndCancel() throws InterruptedException {
+		Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+			}
+		};
+		// keep the wheel ticking
+		timer.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+			}
+		}, 10000, TimeUnit.MILLISECONDS);
+		ScheduledFuture<?> future = timer.schedule(task, 10000, TimeUnit.MILLISECONDS);
+		Thread.sleep(TICK_MILLIS * 5);
+		assertTrue(future.cancel(false));
+		return new WeakReference<Runnable>(task);
+	}
+
+	@Test(expected = RejectedExecutionException.class)
+	public void testScheduleFailsWhenStopped() {
+		timer.stop();
+		timer.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+			}
+		}, 10, TimeUnit.MILLISECONDS);
+	}
+}
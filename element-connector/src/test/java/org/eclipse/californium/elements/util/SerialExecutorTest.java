@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.elements.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.californium.elements.category.Small;
+import org.eclipse.californium.elements.util.SerialExecutor.ExecutionListener;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Verifies the inline execution of the {@link SerialExecutor}.
+ */
+@Category(Small.class)
+public class SerialExecutorTest {
+
+	/**
+	 * Jobs passed to the target executor. Executed by {@link #runJobs()}.
+	 */
+	private final Queue<Runnable> jobs = new ConcurrentLinkedQueue<>();
+	private final List<String> executed = new CopyOnWriteArrayList<>();
+
+	private SerialExecutor serialExecutor;
+
+	@Before
+	public void setup() {
+		serialExecutor = new SerialExecutor(new Executor() {
+
+			@Override
+			public void execute(Runnable command) {
+				jobs.add(command);
+			}
+		});
+	}
+
+	@Test
+	public void testTryAcquireInlineWhenIdle() {
+		assertTrue(serialExecutor.tryAcquireInline());
+		assertTrue(serialExecutor.checkOwner());
+		serialExecutor.releaseInline();
+		assertFalse(serialExecutor.checkOwner());
+		assertThat(jobs.isEmpty(), is(true));
+
+		// acquire again after release
+		assertTrue(serialExecutor.tryAcquireInline());
+		serialExecutor.releaseInline();
+	}
+
+	@Test
+	public void testTryAcquireInlineFailsWithQueuedTasks() {
+		serialExecutor.execute(new Job("1"));
+		serialExecutor.execute(new Job("2"));
+		// job 1 is passed to the target executor, job 2 is queued
+		assertThat(jobs.size(), is(1));
+		assertFalse(serialExecutor.tryAcquireInline());
+		assertFalse(serialExecutor.checkOwner());
+
+		runNextJob();
+		// job 2 is passed to the target executor
+		assertThat(jobs.size(), is(1));
+		assertFalse(serialExecutor.tryAcquireInline());
+
+		runNextJob();
+		assertThat(executed, contains("1", "2"));
+		assertTrue(serialExecutor.tryAcquireInline());
+		serialExecutor.releaseInline();
+	}
+
+	@Test
+	public void testTryAcquireInlineIsNotReentrant() {
+		assertTrue(serialExecutor.tryAcquireInline());
+		// already acquired by the current thread
+		assertFalse(serialExecutor.tryAcquireInline());
+		assertTrue(serialExecutor.checkOwner());
+		serialExecutor.releaseInline();
+		assertFalse(serialExecutor.checkOwner());
+	}
+
+	@Test
+	public void testTryAcquireInlineFailsWithinJob() {
+		final AtomicReference<Boolean> acquired = new AtomicReference<>();
+		serialExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				acquired.set(serialExecutor.tryAcquireInline());
+			}
+		});
+		runNextJob();
+		assertThat(acquired.get(), is(false));
+		assertFalse(serialExecutor.checkOwner());
+		assertTrue(serialExecutor.tryAcquireInline());
+		serialExecutor.releaseInline();
+	}
+
+	@Test
+	public void testReleaseInlineSchedulesQueuedTasks() {
+		assertTrue(serialExecutor.tryAcquireInline());
+		serialExecutor.execute(new Job("1"));
+		serialExecutor.execute(new Job("2"));
+		// queued during inline execution
+		assertThat(jobs.isEmpty(), is(true));
+		assertThat(executed.isEmpty(), is(true));
+
+		serialExecutor.releaseInline();
+		assertThat(jobs.size(), is(1));
+		assertFalse(serialExecutor.tryAcquireInline());
+
+		runJobs();
+		assertThat(executed, contains("1", "2"));
+		assertTrue(serialExecutor.tryAcquireInline());
+		serialExecutor.releaseInline();
+	}
+
+	@Test
+	public void testReleaseInlineFromOtherThreadFails() throws InterruptedException {
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		assertTrue(serialExecutor.tryAcquireInline());
+		Thread other = new Thread("other") {
+
+			@Override
+			public void run() {
+				try {
+					serialExecutor.releaseInline();
+				} catch (Throwable t) {
+					error.set(t);
+				}
+			}
+		};
+		other.start();
+		other.join(1000);
+		assertThat(error.get(), is(instanceOf(ConcurrentModificationException.class)));
+		assertTrue(serialExecutor.checkOwner());
+		serialExecutor.releaseInline();
+	}
+
+	@Test
+	public void testReleaseInlineWithoutAcquireFails() {
+		try {
+			serialExecutor.releaseInline();
+			throw new AssertionError("ConcurrentModificationException expected!");
+		} catch (ConcurrentModificationException ex) {
+			assertThat(ex.getMessage().contains("not owned"), is(true));
+		}
+	}
+
+	@Test
+	public void testInlineCallsExecutionListener() {
+		final List<String> calls = new CopyOnWriteArrayList<>();
+		serialExecutor.setExecutionListener(new ExecutionListener() {
+
+			@Override
+			public void beforeExecution() {
+				calls.add("before");
+			}
+
+			@Override
+			public void afterExecution() {
+				calls.add("after");
+			}
+		});
+		assertTrue(serialExecutor.tryAcquireInline());
+		assertThat(calls, contains("before"));
+		serialExecutor.releaseInline();
+		assertThat(calls, contains("before", "after"));
+	}
+
+	@Test
+	public void testTryAcquireInlineFailsAfterShutdown() {
+		serialExecutor.shutdown();
+		assertFalse(serialExecutor.tryAcquireInline());
+	}
+
+	@Test
+	public void testShutdownDuringInlineTerminatesOnRelease() throws InterruptedException {
+		assertTrue(serialExecutor.tryAcquireInline());
+		serialExecutor.shutdown();
+		assertFalse(serialExecutor.isTerminated());
+		serialExecutor.releaseInline();
+		assertTrue(serialExecutor.awaitTermination(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testConcurrentInlineAndQueuedExecutionIsSerial() throws InterruptedException {
+		final int loops = 1000;
+		final AtomicBoolean busy = new AtomicBoolean();
+		final AtomicReference<String> overlap = new AtomicReference<>();
+		final Runnable work = new Runnable() {
+
+			@Override
+			public void run() {
+				if (!busy.compareAndSet(false, true)) {
+					overlap.set("overlapping execution!");
+				}
+				Thread.yield();
+				busy.set(false);
+			}
+		};
+		final SerialExecutor serialExecutor = new SerialExecutor(new Executor() {
+
+			@Override
+			public void execute(Runnable command) {
+				new Thread(command).start();
+			}
+		});
+		Thread[] threads = new Thread[2];
+		for (int index = 0; index < threads.length; ++index) {
+			threads[index] = new Thread("inline-" + index) {
+
+				@Override
+				public void run() {
+					for (int loop = 0; loop < loops; ++loop) {
+						if (serialExecutor.tryAcquireInline()) {
+							try {
+								work.run();
+							} finally {
+								serialExecutor.releaseInline();
+							}
+						} else {
+							serialExecutor.execute(work);
+						}
+					}
+				}
+			};
+			threads[index].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		serialExecutor.shutdown();
+		assertTrue(serialExecutor.awaitTermination(10, TimeUnit.SECONDS));
+		assertThat(overlap.get(), is(nullValue()));
+	}
+
+	private void runNextJob() {
+		Runnable job = jobs.poll();
+		assertThat("no job available", job == null, is(false));
+		job.run();
+	}
+
+	private void runJobs() {
+		Runnable job;
+		while ((job = jobs.poll()) != null) {
+			job.run();
+		}
+	}
+
+	private class Job implements Runnable {
+
+		private final String name;
+
+		private Job(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void run() {
+			executed.add(name);
+		}
+	}
+}
@@ -140,8 +140,11 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
@@ -172,14 +175,18 @@ import org.eclipse.californium.elements.RawDataChannel;
 import org.eclipse.californium.elements.util.Bytes;
 import org.eclipse.californium.elements.util.ClockUtil;
 import org.eclipse.californium.elements.util.DaemonThreadFactory;
+import org.eclipse.californium.elements.util.DataStreamReader;
 import org.eclipse.californium.elements.util.DatagramReader;
+import org.eclipse.californium.elements.util.DatagramWriter;
 import org.eclipse.californium.elements.util.ExecutorsUtil;
 import org.eclipse.californium.elements.util.LeastRecentlyUsedCache;
 import org.eclipse.californium.elements.util.NamedThreadFactory;
 import org.eclipse.californium.elements.util.NetworkInterfacesUtil;
 import org.eclipse.californium.elements.util.NoPublicAPI;
 import org.eclipse.californium.elements.util.SerialExecutor;
+import org.eclipse.californium.elements.util.SerializationUtil;
 import org.eclipse.californium.elements.util.StringUtil;
+import org.eclipse.californium.scandium.config.DtlsConfig;
 import org.eclipse.californium.scandium.config.DtlsConnectorConfig;
 import org.eclipse.californium.scandium.config.DtlsConfig.DtlsRole;
 import org.eclipse.californium.scandium.dtls.AlertMessage;
@@ -207,6 +214,8 @@ import org.eclipse.californium.scandium.dtls.HandshakeMessage;
 import org.eclipse.californium.scandium.dtls.Handshaker;
 import org.eclipse.californium.scandium.dtls.HelloVerifyRequest;
 import org.eclipse.californium.scandium.dtls.InMemoryConnectionStore;
+import org.eclipse.californium.scandium.dtls.InMemoryStripedConnectionStore;
+import org.eclipse.californium.scandium.dtls.OffHeapConnectionStore;
 import org.eclipse.californium.scandium.dtls.MaxFragmentLengthExtension;
 import org.eclipse.californium.scandium.dtls.ProtocolVersion;
 import org.eclipse.californium.scandium.dtls.Record;
@@ -225,6 +234,7 @@ import org.eclipse.californium.scandium.dtls.resumption.ConnectionStoreResumptio
 import org.eclipse.californium.scandium.dtls.resumption.ResumptionVerifier;
 import org.eclipse.californium.scandium.dtls.x509.CertificateProvider;
 import org.eclipse.californium.scandium.dtls.x509.NewAdvancedCertificateVerifier;
+import org.eclipse.californium.scandium.util.SecretUtil;
 import org.eclipse.californium.scandium.util.ServerNames;
 
 /**
@@ -267,6 +277,13 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 	private static final long CLIENT_HELLO_TIMEOUT_NANOS = CookieGenerator.COOKIE_LIFETIME_NANOS * 2
 			+ TimeUnit.SECONDS.toNanos(15);
 
+	/**
+	 * Timeout in milliseconds to save busy connections incrementally.
+	 * 
+	 * @see #saveConnectionsIncremental(OutputStream, Long)
+	 */
+	private static final long INCREMENTAL_SAVE_BUSY_TIMEOUT_MILLIS = 2000;
+
 	/**
 	 * Indicates, that MDC support is available.
 	 * 
@@ -358,6 +375,19 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 			pendingHandshakesWithoutVerifiedPeer.decrementAndGet();
 		}
 	};
+	/**
+	 * Maximum number of pending jobs of the {@link #handshakeExecutorService}.
+	 * 
+	 * @see DtlsConfig#DTLS_MAX_PENDING_HANDSHAKE_JOBS
+	 * @since 3.0
+	 */
+	private final int maxPendingHandshakeJobs;
+	/**
+	 * Counter for pending jobs of the {@link #handshakeExecutorService}.
+	 * 
+	 * @since 3.0
+	 */
+	private final AtomicInteger pendingHandshakeJobs = new AtomicInteger();
 
 	protected final DtlsHealth health;
 
@@ -375,6 +405,13 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 	 * Apply address update only for newer records based on epoch/sequence_number.
 	 */
 	private final boolean useCidUpdateAddressOnNewerRecordFilter;
+	/**
+	 * Process application data records inline by the receiver threads, if the
+	 * connection is idle.
+	 * 
+	 * @since 3.0
+	 */
+	private final boolean useInlineRecordProcessing;
 
 	private final int outboundMessageBufferSize;
 	/**
@@ -445,6 +482,14 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 	private final ConnectionListener connectionListener;
 	private volatile ExecutorService executorService;
 	private boolean hasInternalExecutor;
+	/**
+	 * Executor for handshakes. {@code null}, if handshakes are executed by the
+	 * {@link #executorService}.
+	 * 
+	 * @see DtlsConfig#DTLS_HANDSHAKE_THREAD_COUNT
+	 * @since 3.0
+	 */
+	private volatile ExecutorService handshakeExecutorService;
 
 	/**
 	 * Creates a DTLS connector from a given configuration object using the
@@ -465,6 +510,18 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 	 * @since 3.0 (moved SessionCache from parameter to configuration)
 	 */
 	protected static ResumptionSupportingConnectionStore createConnectionStore(DtlsConnectorConfig configuration) {
+		int offHeap = configuration.getMaxOffHeapConnections();
+		if (offHeap > 0) {
+			return new OffHeapConnectionStore(configuration.getMaxConnections(),
+					configuration.getStaleConnectionThresholdSeconds(), offHeap, configuration.getSessionStore())
+							.setTag(configuration.getLoggingTag());
+		}
+		int stripes = configuration.getConnectionStoreStripes();
+		if (stripes > 1) {
+			return new InMemoryStripedConnectionStore(configuration.getMaxConnections(),
+					configuration.getStaleConnectionThresholdSeconds(), stripes, configuration.getSessionStore())
+							.setTag(configuration.getLoggingTag());
+		}
 		return new InMemoryConnectionStore(configuration.getMaxConnections(),
 				configuration.getStaleConnectionThresholdSeconds(), configuration.getSessionStore()).setTag(configuration.getLoggingTag());
 
@@ -503,6 +560,7 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 			this.useExtendedWindowFilter = config.useDisabledWindowFilter();
 			this.useFilter = config.useAntiReplayFilter();
 			this.useCidUpdateAddressOnNewerRecordFilter = config.useUpdateAddressUsingCidOnNewerRecords();
+			this.useInlineRecordProcessing = config.useInlineRecordProcessing();
 			this.connectionStore = connectionStore;
 			this.connectionStore.attach(connectionIdGenerator);
 			this.connectionStore.setConnectionListener(config.getConnectionListener());
@@ -621,6 +679,7 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 			this.thresholdHandshakesWithoutVerifiedPeer = (int) threshold;
 			this.useHelloVerifyRequest = config.useHelloVerifyRequest();
 			this.useHelloVerifyRequestForPsk = this.useHelloVerifyRequest && config.useHelloVerifyRequestForPsk();
+			this.maxPendingHandshakeJobs = config.getMaxPendingHandshakeJobs();
 		}
 	}
 
@@ -834,6 +893,97 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 		return executorService;
 	}
 
+	/**
+	 * Get executor for the serial execution of a connection.
+	 * 
+	 * If a {@link #handshakeExecutorService} is used, the jobs of connections
+	 * without established DTLS context or with an ongoing handshake are
+	 * executed by the {@link #handshakeExecutorService}, all other jobs by the
+	 * provided executor. The serial execution of the connection ensures, that
+	 * the jobs are not executed in parallel, even if they are switching the
+	 * executor.
+	 * 
+	 * @param connection connection
+	 * @param executor executor for the jobs of the established connection
+	 * @return executor for the serial execution of the connection
+	 * @see DtlsConfig#DTLS_HANDSHAKE_THREAD_COUNT
+	 * @since 3.0
+	 */
+	private Executor getConnectionExecutor(final Connection connection, final Executor executor) {
+		final ExecutorService handshakeExecutor = handshakeExecutorService;
+		if (executor == null || handshakeExecutor == null) {
+			return executor;
+		}
+		return new Executor() {
+
+			@Override
+			public void execute(Runnable command) {
+				if (connection.hasEstablishedDtlsContext() && !connection.hasOngoingHandshake()) {
+					executor.execute(command);
+				} else {
+					executeHandshakeJob(handshakeExecutor, command);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Execute job using the handshake executor.
+	 * 
+	 * Counts the pending jobs and reports the latency to the
+	 * {@link DtlsHealthExtended}, if available.
+	 * 
+	 * @param handshakeExecutor handshake executor
+	 * @param job job to execute
+	 * @throws RejectedExecutionException if the handshake executor is shutdown
+	 * @since 3.0
+	 */
+	private void executeHandshakeJob(ExecutorService handshakeExecutor, final Runnable job) {
+		final long queued = ClockUtil.nanoRealtime();
+		pendingHandshakeJobs.incrementAndGet();
+		try {
+			handshakeExecutor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					int pending = pendingHandshakeJobs.getAndDecrement();
+					if (health instanceof DtlsHealthExtended) {
+						((DtlsHealthExtended) health).executeHandshakeJob(pending, ClockUtil.nanoRealtime() - queued);
+					}
+					job.run();
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			pendingHandshakeJobs.decrementAndGet();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Check, if the {@link #handshakeExecutorService} is saturated.
+	 * 
+	 * @return {@code true}, if the number of pending handshake jobs exceeds
+	 *         the {@link #maxPendingHandshakeJobs}, {@code false}, otherwise or
+	 *         if no {@link #handshakeExecutorService} is used.
+	 * @see DtlsConfig#DTLS_MAX_PENDING_HANDSHAKE_JOBS
+	 * @since 3.0
+	 */
+	private boolean isHandshakeExecutorSaturated() {
+		return handshakeExecutorService != null && pendingHandshakeJobs.get() >= maxPendingHandshakeJobs;
+	}
+
+	/**
+	 * Get number of pending handshake jobs.
+	 * 
+	 * @return number of pending handshake jobs. {@code 0}, if no handshake
+	 *         executor is used.
+	 * @see DtlsConfig#DTLS_HANDSHAKE_THREAD_COUNT
+	 * @since 3.0
+	 */
+	public int getPendingHandshakeJobs() {
+		return pendingHandshakeJobs.get();
+	}
+
 	/**
 	 * Start connector.
 	 * 
@@ -969,7 +1119,10 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 
 		if (executorService == null) {
 			int threadCount = config.getConnectorThreadCount();
-			if (threadCount > 1) {
+			if (config.useConnectorVirtualThreads() && ExecutorsUtil.isVirtualThreadSupported()) {
+				LOGGER.info("DTLS connector on [{}] uses virtual threads", lastBindAddress);
+				executorService = ExecutorsUtil.newVirtualThreadPerTaskExecutor();
+			} else if (threadCount > 1) {
 				executorService = ExecutorsUtil.newFixedThreadPool(threadCount - 1, new DaemonThreadFactory(
 						"DTLS-Worker-" + lastBindAddress + "#", NamedThreadFactory.SCANDIUM_THREAD_GROUP)); //$NON-NLS-1$
 			} else {
@@ -977,16 +1130,22 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 			}
 			this.hasInternalExecutor = true;
 		}
+		int handshakeThreadCount = config.getHandshakeThreadCount();
+		if (handshakeThreadCount > 0) {
+			handshakeExecutorService = ExecutorsUtil.newFixedThreadPool(handshakeThreadCount, new DaemonThreadFactory(
+					"DTLS-Handshake-" + lastBindAddress + "#", NamedThreadFactory.SCANDIUM_THREAD_GROUP)); //$NON-NLS-1$
+		}
 		// prepare restored connections.
 		long expires = calculateRecentHandshakeExpires();
 		int recentCounter = 0;
 		List<Connection> recent = new ArrayList<>();
-		Iterator<Connection> iterator = connectionStore.iterator();
+		// off-heap connections are revived on access
+		Iterator<Connection> iterator = onHeapIterator();
 		while (iterator.hasNext()) {
 			Connection connection = iterator.next();
 			if (connection.hasEstablishedDtlsContext()) {
 				if (!connection.isExecuting()) {
-					connection.setConnectorContext(executorService, connectionListener);
+					connection.setConnectorContext(getConnectionExecutor(connection, executorService), connectionListener);
 				}
 				Long start = connection.getStartNanos();
 				if (start != null) {
@@ -1126,6 +1285,7 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 	public void stop() {
 		ExecutorService shutdownTimer = null;
 		ExecutorService shutdown = null;
+		ExecutorService shutdownHandshake = null;
 		List<Runnable> pending = new ArrayList<>();
 		boolean stop;
 		synchronized (this) {
@@ -1164,6 +1324,11 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 					executorService = null;
 					hasInternalExecutor = false;
 				}
+				if (handshakeExecutorService != null) {
+					pending.addAll(handshakeExecutorService.shutdownNow());
+					shutdownHandshake = handshakeExecutorService;
+					handshakeExecutorService = null;
+				}
 				for (Thread t : receiverThreads) {
 					t.interrupt();
 					try {
@@ -1190,6 +1355,15 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 			} catch (InterruptedException e) {
 			}
 		}
+		if (shutdownHandshake != null) {
+			try {
+				if (!shutdownHandshake.awaitTermination(500, TimeUnit.MILLISECONDS)) {
+					LOGGER.warn("Shutdown DTLS connector on [{}] handshake executor not terminated in time!",
+							lastBindAddress);
+				}
+			} catch (InterruptedException e) {
+			}
+		}
 		for (Runnable job : pending) {
 			try {
 				job.run();
@@ -1236,6 +1410,342 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 		return connectionStore.restore(connection);
 	}
 
+	/**
+	 * Save connections incrementally.
+	 * <p>
+	 * Contrary to {@link #saveConnections(OutputStream, long)}, the connector
+	 * may be running and the connections are kept. Each connection is
+	 * serialized within its serial execution. Connections, which are busy
+	 * longer than {@value #INCREMENTAL_SAVE_BUSY_TIMEOUT_MILLIS}ms, are
+	 * skipped. The stream uses the same format as
+	 * {@link #saveConnections(OutputStream, long)}.
+	 * </p>
+	 * <p>
+	 * Note: the stream will contain not encrypted critical credentials. It is
+	 * required to protect this data before exporting it.
+	 * </p>
+	 * 
+	 * @param out output stream to save connections
+	 * @param sinceNanos realtime nanoseconds. Connections without messages
+	 *            since that time are skipped. {@code null} to save all
+	 *            connections.
+	 * @return number of saved connections
+	 * @throws IOException if an io-error occurred
+	 * @see #loadConnectionsIncremental(InputStream, long, boolean)
+	 * @see DtlsConnectionSnapshots
+	 * @since 3.0
+	 */
+	public int saveConnectionsIncremental(OutputStream out, Long sinceNanos) throws IOException {
+		int count = 0;
+		List<Connection> busy = new ArrayList<>();
+		DatagramWriter writer = new DatagramWriter(4096, true);
+		if (sinceNanos == null && connectionStore instanceof OffHeapConnectionStore) {
+			count += ((OffHeapConnectionStore) connectionStore).saveOffHeapConnections(out, Long.MAX_VALUE);
+		}
+		Iterator<Connection> iterator = onHeapIterator();
+		while (iterator.hasNext()) {
+			Connection connection = iterator.next();
+			if (sinceNanos != null && connection.getLastMessageNanos() - sinceNanos < 0) {
+				continue;
+			}
+			if (!connection.isExecuting()) {
+				if (connection.writeTo(writer)) {
+					writer.writeTo(out);
+					++count;
+				} else {
+					writer.reset();
+				}
+			} else {
+				SerialExecutor executor = connection.getExecutor();
+				if (executor.tryAcquireInline()) {
+					try {
+						if (connection.writeTo(writer)) {
+							writer.writeTo(out);
+							++count;
+						} else {
+							writer.reset();
+						}
+					} finally {
+						executor.releaseInline();
+					}
+				} else {
+					busy.add(connection);
+				}
+			}
+		}
+		if (!busy.isEmpty()) {
+			count += saveBusyConnections(out, busy);
+		}
+		SerializationUtil.writeNoItem(out);
+		out.flush();
+		writer.close();
+		return count;
+	}
+
+	/**
+	 * Get connection ids of all connections.
+	 * 
+	 * Used by {@link DtlsConnectionSnapshots} to record the connections, which
+	 * are not removed.
+	 * 
+	 * @return list of connection ids, or {@code null}, if the connection store
+	 *         keeps connections off-heap, which are not listed.
+	 * @see #loadConnectionsIncremental(InputStream, long, boolean, Set)
+	 * @since 3.0
+	 */
+	public List<ConnectionId> getConnectionIds() {
+		if (connectionStore instanceof OffHeapConnectionStore) {
+			return null;
+		}
+		List<ConnectionId> connectionIds = new ArrayList<>();
+		Iterator<Connection> iterator = connectionStore.iterator();
+		while (iterator.hasNext()) {
+			connectionIds.add(iterator.next().getConnectionId());
+		}
+		return connectionIds;
+	}
+
+	/**
+	 * Save busy connections within their serial execution.
+	 * 
+	 * @param out output stream to save connections
+	 * @param busy busy connections
+	 * @return number of saved connections
+	 * @throws IOException if an io-error occurred
+	 */
+	private int saveBusyConnections(OutputStream out, List<Connection> busy) throws IOException {
+		final Queue<byte[]> serialized = new ConcurrentLinkedQueue<>();
+		final CountDownLatch ready = new CountDownLatch(busy.size());
+		final AtomicBoolean timeout = new AtomicBoolean();
+		for (final Connection connection : busy) {
+			try {
+				connection.getExecutor().execute(new Runnable() {
+
+					@Override
+					public void run() {
+						try {
+							if (!timeout.get()) {
+								DatagramWriter writer = new DatagramWriter(true);
+								if (connection.writeTo(writer)) {
+									serialized.add(writer.toByteArray());
+								}
+								writer.close();
+							}
+						} finally {
+							ready.countDown();
+						}
+					}
+				});
+			} catch (RejectedExecutionException ex) {
+				ready.countDown();
+			}
+		}
+		try {
+			if (!ready.await(INCREMENTAL_SAVE_BUSY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+				LOGGER.warn("{}skipped {} of {} busy connections!", config.getLoggingTag(), ready.getCount(),
+						busy.size());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		timeout.set(true);
+		int count = 0;
+		byte[] data;
+		while ((data = serialized.poll()) != null) {
+			out.write(data);
+			Bytes.clear(data);
+			++count;
+		}
+		return count;
+	}
+
+	/**
+	 * Load connections incrementally.
+	 * <p>
+	 * Contrary to {@link #loadConnections(InputStream, long)}, the connector
+	 * may be running. A loaded connection replaces a previously loaded one with
+	 * the same connection id, if that is not in use since loading. It's
+	 * skipped, if the connection id is in use. The address is only applied, if
+	 * not in use by an other connection.
+	 * </p>
+	 * <p>
+	 * If the connections are saved while the connector was running, they may
+	 * have exchanged records after saving. The saved outbound sequence numbers
+	 * and the saved inbound replay window are then stale, and using them would
+	 * reuse AEAD nonces or accept replayed records. Therefore such connections
+	 * must be loaded with {@code resumptionRequired} set to {@code true}. That
+	 * keeps the session for an abbreviated handshake, but doesn't use the
+	 * saved keys anymore. Only connections saved after the connector has been
+	 * stopped may be loaded with their saved state.
+	 * </p>
+	 * 
+	 * @param in input stream to load connections
+	 * @param delta adjust-delta for nano-uptime. In nanoseconds.
+	 * @param resumptionRequired {@code true}, if the connections were saved
+	 *            while the connector was running and require a resumption
+	 *            handshake, {@code false}, if the connections were saved after
+	 *            the connector has been stopped.
+	 * @return number of loaded connections.
+	 * @throws IOException if an io-error occurred.
+	 * @see #saveConnectionsIncremental(OutputStream, Long)
+	 * @see DtlsConnectionSnapshots
+	 * @since 3.0
+	 */
+	public int loadConnectionsIncremental(InputStream in, long delta, boolean resumptionRequired) throws IOException {
+		return loadConnectionsIncremental(in, delta, resumptionRequired, null);
+	}
+
+	/**
+	 * Load connections incrementally.
+	 * <p>
+	 * Same as {@link #loadConnectionsIncremental(InputStream, long, boolean)},
+	 * but skips the connections, which are not contained in the provided
+	 * connection ids. That prevents connections, which are removed after they
+	 * have been saved, from being loaded again.
+	 * </p>
+	 * 
+	 * @param in input stream to load connections
+	 * @param delta adjust-delta for nano-uptime. In nanoseconds.
+	 * @param resumptionRequired {@code true}, if the connections were saved
+	 *            while the connector was running and require a resumption
+	 *            handshake, {@code false}, if the connections were saved after
+	 *            the connector has been stopped.
+	 * @param connectionIds connection ids of the connections to load.
+	 *            {@code null} to load all connections.
+	 * @return number of loaded connections.
+	 * @throws IOException if an io-error occurred.
+	 * @see #getConnectionIds()
+	 * @see DtlsConnectionSnapshots
+	 * @since 3.0
+	 */
+	public int loadConnectionsIncremental(InputStream in, long delta, boolean resumptionRequired,
+			Set<ConnectionId> connectionIds) throws IOException {
+		int count = 0;
+		DataStreamReader reader = new DataStreamReader(in);
+		try {
+			Connection connection;
+			while ((connection = Connection.fromReader(reader, delta)) != null) {
+				if (connectionIds != null && !connectionIds.contains(connection.getConnectionId())) {
+					// removed after saving
+					SecretUtil.destroy(connection.getDtlsContext());
+					continue;
+				}
+				if (resumptionRequired) {
+					connection.setResumptionRequired(true);
+				}
+				if (restoreConnectionIncremental(connection)) {
+					++count;
+				}
+			}
+		} catch (IllegalArgumentException ex) {
+			LOGGER.warn("{}reading failed after {} connections", config.getLoggingTag(), count, ex);
+		}
+		return count;
+	}
+
+	/**
+	 * Restore connection incrementally.
+	 * 
+	 * @param connection loaded connection
+	 * @return {@code true}, if restored, {@code false}, otherwise.
+	 * @see #loadConnectionsIncremental(InputStream, long, boolean)
+	 */
+	private boolean restoreConnectionIncremental(Connection connection) {
+		InetSocketAddress address = connection.getPeerAddress();
+		if (address == null) {
+			synchronized (getConnectionIdLock(connection.getConnectionId())) {
+				return restoreConnectionIncrementalLocked(connection);
+			}
+		}
+		synchronized (getAddressLock(address)) {
+			synchronized (getConnectionIdLock(connection.getConnectionId())) {
+				return restoreConnectionIncrementalLocked(connection);
+			}
+		}
+	}
+
+	/**
+	 * Restore connection incrementally.
+	 * 
+	 * Must be called holding the locks of
+	 * {@link #getAddressLock(InetSocketAddress)}, if the connection has a
+	 * peer address, and of {@link #getConnectionIdLock(ConnectionId)}.
+	 * 
+	 * @param connection loaded connection
+	 * @return {@code true}, if restored, {@code false}, otherwise.
+	 */
+	private boolean restoreConnectionIncrementalLocked(Connection connection) {
+		Connection previous = connectionStore.get(connection.getConnectionId());
+		if (previous != null) {
+			if (previous.isExecuting()) {
+				// in use
+				SecretUtil.destroy(connection.getDtlsContext());
+				return false;
+			}
+			connectionStore.remove(previous, false);
+		}
+		InetSocketAddress address = connection.getPeerAddress();
+		if (address != null) {
+			previous = connectionStore.get(address);
+			if (previous != null && previous.isExecuting()) {
+				connection.updatePeerAddress(null);
+			}
+		}
+		return connectionStore.restore(connection);
+	}
+
+	/**
+	 * Get lock for creating or replacing the connection of a peer address.
+	 * 
+	 * The {@link InMemoryStripedConnectionStore} provides striped locks, all
+	 * other stores are locked as whole.
+	 * 
+	 * @param peerAddress peer address
+	 * @return lock
+	 * @see InMemoryStripedConnectionStore#getAddressLock(InetSocketAddress)
+	 */
+	private Object getAddressLock(InetSocketAddress peerAddress) {
+		if (connectionStore instanceof InMemoryStripedConnectionStore) {
+			return ((InMemoryStripedConnectionStore) connectionStore).getAddressLock(peerAddress);
+		}
+		return connectionStore;
+	}
+
+	/**
+	 * Get lock for reviving or restoring a connection.
+	 * 
+	 * The {@link InMemoryStripedConnectionStore} provides striped locks, all
+	 * other stores are locked as whole.
+	 * 
+	 * @param cid connection id of the connection
+	 * @return lock
+	 * @see InMemoryStripedConnectionStore#getConnectionIdLock(ConnectionId)
+	 */
+	private Object getConnectionIdLock(ConnectionId cid) {
+		if (connectionStore instanceof InMemoryStripedConnectionStore) {
+			return ((InMemoryStripedConnectionStore) connectionStore).getConnectionIdLock(cid);
+		}
+		return connectionStore;
+	}
+
+	/**
+	 * Revive connection, if not executing.
+	 * 
+	 * @param connection connection to revive
+	 * @param executor executor of the connector
+	 * @return {@code true}, if the connection is revived by this call,
+	 *         {@code false}, if the connection is already executing.
+	 */
+	private boolean reviveConnection(Connection connection, ExecutorService executor) {
+		synchronized (getConnectionIdLock(connection.getConnectionId())) {
+			if (!connection.isExecuting()) {
+				connection.setConnectorContext(getConnectionExecutor(connection, executor), connectionListener);
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Start to terminate connections related to the provided principals.
 	 * 
@@ -1337,6 +1847,20 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 		return result;
 	}
 
+	/**
+	 * Gets iterator over the connections kept on-heap.
+	 *
+	 * @return iterator over the on-heap connections, without loading
+	 *         off-heap connections
+	 * @see OffHeapConnectionStore#onHeapIterator()
+	 */
+	private Iterator<Connection> onHeapIterator() {
+		if (connectionStore instanceof OffHeapConnectionStore) {
+			return ((OffHeapConnectionStore) connectionStore).onHeapIterator();
+		}
+		return connectionStore.iterator();
+	}
+
 	/**
 	 * Calls provided handler for each connection returned be the provided
 	 * iterator.
@@ -1352,36 +1876,44 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 
 		if (!result.isStopped() && iterator.hasNext()) {
 			final Connection next = iterator.next();
-			try {
-				next.getExecutor().execute(new Runnable() {
+			if (!next.isExecuting() && running.get()) {
+				// loaded from off-heap
+				reviveConnection(next, getExecutorService());
+			}
+			SerialExecutor executor = next.getExecutor();
+			if (executor != null) {
+				try {
+					executor.execute(new Runnable() {
 
-					@Override
-					public void run() {
-						boolean done = true;
-						try {
-							if (!result.isStopped() && !handler.accept(next)) {
-								done = false;
-								nextForEach(iterator, handler, result);
-							}
-						} catch (Exception exception) {
-							result.failed(exception);
-						} finally {
-							if (done) {
-								result.done();
+						@Override
+						public void run() {
+							boolean done = true;
+							try {
+								if (!result.isStopped() && !handler.accept(next)) {
+									done = false;
+									nextForEach(iterator, handler, result);
+								}
+							} catch (Exception exception) {
+								result.failed(exception);
+							} finally {
+								if (done) {
+									result.done();
+								}
 							}
 						}
+					});
+					return;
+				} catch (RejectedExecutionException ex) {
+					// call handler without executor
+				}
+			}
+			if (!handler.accept(next)) {
+				while (iterator.hasNext()) {
+					if (handler.accept(iterator.next())) {
+						break;
 					}
-				});
-				return;
-			} catch (RejectedExecutionException ex) {
-				if (!handler.accept(next)) {
-					while (iterator.hasNext()) {
-						if (handler.accept(iterator.next())) {
-							break;
-						}
-						if (result.isStopped()) {
-							break;
-						}
+					if (result.isStopped()) {
+						break;
 					}
 				}
 			}
@@ -1402,35 +1934,65 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 	 */
 	private final Connection getConnection(InetSocketAddress peerAddress, ConnectionId cid, boolean create) {
 		ExecutorService executor = getExecutorService();
+		if (connectionStore instanceof InMemoryStripedConnectionStore) {
+			// lookup without lock, the striped store is thread safe.
+			// only creating and reviving connections requires the striped locks
+			return getConnection(peerAddress, cid, create, executor);
+		}
 		synchronized (connectionStore) {
-			Connection connection;
-			if (cid != null) {
-				connection = connectionStore.get(cid);
-			} else {
-				connection = connectionStore.get(peerAddress);
-				if (connection == null && create) {
-					LOGGER.trace("create new connection for {}", peerAddress);
-					Connection newConnection = new Connection(peerAddress);
-					newConnection.setConnectorContext(executor, connectionListener);
-					if (running.get()) {
-						// only add, if connector is running!
-						if (!connectionStore.put(newConnection)) {
-							return null;
+			return getConnection(peerAddress, cid, create, executor);
+		}
+	}
+
+	/**
+	 * Get connection from store.
+	 * 
+	 * Creates and revives connections using the locks of
+	 * {@link #getAddressLock(InetSocketAddress)} and
+	 * {@link #getConnectionIdLock(ConnectionId)}.
+	 * 
+	 * @param peerAddress peer address
+	 * @param cid connection id
+	 * @param create {@code true}, create new connection, if connection is not
+	 *            available.
+	 * @param executor executor of the connector
+	 * @return connection, or {@code null}, if not available.
+	 */
+	private Connection getConnection(InetSocketAddress peerAddress, ConnectionId cid, boolean create,
+			ExecutorService executor) {
+		Connection connection;
+		if (cid != null) {
+			connection = connectionStore.get(cid);
+		} else {
+			connection = connectionStore.get(peerAddress);
+			if (connection == null && create) {
+				synchronized (getAddressLock(peerAddress)) {
+					connection = connectionStore.get(peerAddress);
+					if (connection == null) {
+						LOGGER.trace("create new connection for {}", peerAddress);
+						Connection newConnection = new Connection(peerAddress);
+						newConnection.setConnectorContext(getConnectionExecutor(newConnection, executor), connectionListener);
+						if (running.get()) {
+							// only add, if connector is running!
+							if (!connectionStore.put(newConnection)) {
+								return null;
+							}
 						}
+						return newConnection;
 					}
-					return newConnection;
 				}
 			}
-			if (connection == null) {
-				LOGGER.trace("no connection available for {},{}", peerAddress, cid);
-			} else if (!connection.isExecuting() && running.get()) {
+		}
+		if (connection == null) {
+			LOGGER.trace("no connection available for {},{}", peerAddress, cid);
+		} else if (!connection.isExecuting() && running.get()) {
+			if (reviveConnection(connection, executor)) {
 				LOGGER.trace("revive connection for {},{}", peerAddress, cid);
-				connection.setConnectorContext(executor, connectionListener);
-			} else {
-				LOGGER.trace("connection available for {},{}", peerAddress, cid);
 			}
-			return connection;
+		} else {
+			LOGGER.trace("connection available for {},{}", peerAddress, cid);
 		}
+		return connection;
 	}
 
 	/**
@@ -1559,15 +2121,27 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 		for (final Record record : records) {
 			try {
 				record.setAddress(peerAddress, router);
-				serialExecutor.execute(new Runnable() {
-
-					@Override
-					public void run() {
+				if (useInlineRecordProcessing && isInlineProcessable(record, connection)
+						&& serialExecutor.tryAcquireInline()) {
+					// connection is idle, process record by receiver thread
+					try {
 						if (running.get()) {
 							processRecord(record, connection);
 						}
+					} finally {
+						serialExecutor.releaseInline();
 					}
-				});
+				} else {
+					serialExecutor.execute(new Runnable() {
+
+						@Override
+						public void run() {
+							if (running.get()) {
+								processRecord(record, connection);
+							}
+						}
+					});
+				}
 			} catch (RejectedExecutionException e) {
 				// dont't terminate connection on shutdown!
 				LOGGER.debug("Execution rejected while processing record [type: {}, peer: {}]",
@@ -1582,6 +2156,27 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 		}
 	}
 
+	/**
+	 * Checks, if the received record is intended to be processed inline by the
+	 * receiver thread.
+	 * 
+	 * Only records of an established connection without ongoing handshake,
+	 * which are expected to contain application data, are processed inline.
+	 * 
+	 * @param record received record.
+	 * @param connection connection to process record.
+	 * @return {@code true}, if the record is intended to be processed inline,
+	 *         {@code false}, if it's passed to the serial executor of the
+	 *         connection.
+	 * @see DtlsConfig#DTLS_INLINE_RECORD_PROCESSING
+	 * @since 3.0
+	 */
+	private boolean isInlineProcessable(Record record, Connection connection) {
+		ContentType type = record.getType();
+		return (type == ContentType.APPLICATION_DATA || type == ContentType.TLS12_CID) && record.getEpoch() > 0
+				&& connection.hasEstablishedDtlsContext() && !connection.hasOngoingHandshake();
+	}
+
 	/**
 	 * Process received record.
 	 * 
@@ -1987,7 +2582,8 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 	 * a connection for that CLIENT_HELLO already exists using the client random
 	 * contained in the CLIENT_HELLO message. If the connection already exists,
 	 * take that, otherwise create a new one and pass the execution to the
-	 * serial execution of that connection.
+	 * serial execution of that connection. If the handshake executor is
+	 * saturated, a CLIENT_HELLO with a valid cookie is dropped.
 	 * 
 	 * @param record record of CLIENT_HELLO message
 	 */
@@ -2014,10 +2610,19 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 			// session we need to make sure that the peer is in possession of
 			// the IP address indicated in the client hello message
 			boolean addressVerified = isClientInControlOfSourceIpAddress(peerAddress, clientHello, expectedCookie);
+			if (addressVerified && isHandshakeExecutorSaturated()) {
+				// the client will retransmit the CLIENT_HELLO
+				DROP_LOGGER.debug("Drop CLIENT_HELLO from peer [{}], {} pending handshake jobs!",
+						StringUtil.toLog(peerAddress), pendingHandshakeJobs.get());
+				if (health instanceof DtlsHealthExtended) {
+					((DtlsHealthExtended) health).rejectHandshake();
+				}
+				return;
+			}
 			if (addressVerified) {
 				Connection connection;
 				ExecutorService executor = getExecutorService();
-				synchronized (connectionStore) {
+				synchronized (getAddressLock(peerAddress)) {
 					connection = connectionStore.get(peerAddress);
 					if (connection != null && !connection.isStartedByClientHello(clientHello)) {
 						if (useHelloVerifyRequest && !clientHello.hasCookie() && clientHello.hasSessionId()) {
@@ -2058,7 +2663,7 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 					}
 					if (connection == null) {
 						connection = new Connection(peerAddress);
-						connection.setConnectorContext(executor, connectionListener);
+						connection.setConnectorContext(getConnectionExecutor(connection, executor), connectionListener);
 						connection.startByClientHello(clientHello);
 						if (!connectionStore.put(connection)) {
 							return;
@@ -2164,7 +2769,9 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 	 * If a matching session id is contained, but no cookie, it depends on the
 	 * number of pending resumption handshakes, if a
 	 * <em>HELLO_VERIFY_REQUEST</em> is send to the peer, of a resumption
-	 * handshake is started without.
+	 * handshake is started without. If the handshake executor is saturated,
+	 * a <em>HELLO_VERIFY_REQUEST</em> is always sent for a CLIENT_HELLO
+	 * without cookie.
 	 * </p>
 	 * Executed outside the connection's serial execution.
 	 * 
@@ -2215,6 +2822,12 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 			return cookie;
 		}
 
+		if (isHandshakeExecutorSaturated()) {
+			// delay new handshakes, first verify the address
+			LOGGER.trace("handshake executor saturated, verify [{}]", StringUtil.toLog(peer));
+			return false;
+		}
+
 		if (!useHelloVerifyRequest) {
 			/* using certificates creates a large amplification! */
 			return true;
@@ -3276,13 +3889,17 @@ public class DTLSConnector implements Connector, PersistentConnector, RecordLaye
 		if (health != null) {
 			health.receivingRecord(true);
 		}
-		byte[] bytes = record.getFragmentBytes();
+		// the fragment bytes are useless for logging,
+		// if they are overwritten by the in place decryption
+		byte[] bytes = record.isFragmentBytesOverwritten() ? null : record.getFragmentBytes();
 		if (DROP_LOGGER.isTraceEnabled()) {
-			String hexString = StringUtil.byteArray2HexString(bytes, StringUtil.NO_SEPARATOR, 64);
+			String hexString = bytes == null ? "<decrypted>"
+					: StringUtil.byteArray2HexString(bytes, StringUtil.NO_SEPARATOR, 64);
 			DROP_LOGGER.trace("Discarding received {} record (epoch {}, payload: {}) from peer [{}]: ",
 					record.getType(), record.getEpoch(), hexString, StringUtil.toLog(record.getPeerAddress()), cause);
 		} else if (DROP_LOGGER.isDebugEnabled()) {
-			String hexString = StringUtil.byteArray2HexString(bytes, StringUtil.NO_SEPARATOR, 16);
+			String hexString = bytes == null ? "<decrypted>"
+					: StringUtil.byteArray2HexString(bytes, StringUtil.NO_SEPARATOR, 16);
 			DROP_LOGGER.debug("Discarding received {} record (epoch {}, payload: {}) from peer [{}]: {}",
 					record.getType(), record.getEpoch(), hexString, StringUtil.toLog(record.getPeerAddress()),
 					cause.getMessage());
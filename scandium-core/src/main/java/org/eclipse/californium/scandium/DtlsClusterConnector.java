@@ -24,6 +24,10 @@ import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.californium.elements.util.DatagramReader;
@@ -62,6 +66,15 @@ import org.slf4j.LoggerFactory;
  * to send outgoing messages also from other endpoints,
  * {@link DtlsClusterConnectorConfig} can be used to configure that.
  * </p>
+ * <p>
+ * On high load, forwarding each record with a separate cluster internal
+ * message results in many small datagrams. If a
+ * {@link DtlsClusterConnectorConfig#getForwardBatchWindow(TimeUnit)} is
+ * configured, the forwarded records for the same node, which are received
+ * within that time window, are coalesced into one cluster internal message of
+ * type {@link #RECORD_TYPE_BATCH}. The receiving node splits such a message
+ * again into the single forwarded records.
+ * </p>
  * 
  * @since 2.5
  */
@@ -126,6 +139,28 @@ public class DtlsClusterConnector extends DTLSConnector {
 	 * Message Format</a> (1. byte, version 0b01, others xx xxxx).
 	 */
 	public static final Byte RECORD_TYPE_OUTGOING = (byte) 62;
+	/**
+	 * Type of coalesced cluster internal messages.
+	 * 
+	 * Contains a sequence of cluster internal messages, each prepended by its
+	 * length encoded in {@link #CLUSTER_BATCH_LENGTH_SIZE} bytes (network byte
+	 * order). Unassigned according <a href=
+	 * "https://www.iana.org/assignments/tls-parameters/tls-parameters.xhtml#tls-parameters-5"
+	 * target= "_blank">IANA, TLS ContentType</a>, and no collision with CoAP
+	 * messages <a href="https://tools.ietf.org/html/rfc7252#section-3" target=
+	 * "_blank">RFC 7252, Message Format</a> (1. byte, version 0b01, others xx
+	 * xxxx).
+	 * 
+	 * @since 3.0
+	 */
+	public static final Byte RECORD_TYPE_BATCH = (byte) 61;
+	/**
+	 * Size of the length of cluster internal messages within coalesced
+	 * messages.
+	 * 
+	 * @since 3.0
+	 */
+	protected static final int CLUSTER_BATCH_LENGTH_SIZE = 2;
 	/**
 	 * Node CID generator to extract node-id from CID and retrieve own node-id.
 	 */
@@ -147,6 +182,12 @@ public class DtlsClusterConnector extends DTLSConnector {
 	 * DTLS cluster health statistic.
 	 */
 	protected final DtlsClusterHealth clusterHealth;
+	/**
+	 * DTLS cluster health statistic for forwarded messages per node.
+	 * 
+	 * @since 3.0
+	 */
+	private final DtlsClusterHealthExtended clusterHealthExtended;
 	/**
 	 * Socket address for cluster internal communication.
 	 */
@@ -159,6 +200,19 @@ public class DtlsClusterConnector extends DTLSConnector {
 	 * Nodes provider for cluster.
 	 */
 	private volatile ClusterNodesProvider nodesProvider;
+	/**
+	 * Time window in nanoseconds to coalesce forwarded records. {@code 0}, if
+	 * coalescing is disabled.
+	 * 
+	 * @since 3.0
+	 */
+	private final long forwardBatchWindowNanos;
+	/**
+	 * Pending coalesced forwarded records by destination node.
+	 * 
+	 * @since 3.0
+	 */
+	private final ConcurrentMap<InetSocketAddress, ForwardBatch> forwardBatches = new ConcurrentHashMap<>();
 
 	/**
 	 * Create dtls connector with cluster support.
@@ -198,10 +252,15 @@ public class DtlsClusterConnector extends DTLSConnector {
 		this.nodeCidGenerator = getNodeConnectionIdGenerator();
 		this.clusterInternalSocketAddress = clusterConfiguration.getAddress();
 		this.backwardMessages = clusterConfiguration.useBackwardMessages();
+		this.forwardBatchWindowNanos = clusterConfiguration.getForwardBatchWindow(TimeUnit.NANOSECONDS);
 		this.clusterHealth = (health instanceof DtlsClusterHealth) ? (DtlsClusterHealth) health : null;
+		this.clusterHealthExtended = (health instanceof DtlsClusterHealthExtended)
+				? (DtlsClusterHealthExtended) health
+				: null;
 		this.startReceiver = startReceiver;
-		LOGGER.info("cluster-node {}: on internal {}, backwards {}", getNodeID(),
-				StringUtil.toLog(clusterInternalSocketAddress), backwardMessages);
+		LOGGER.info("cluster-node {}: on internal {}, backwards {}, forward batch window {}us", getNodeID(),
+				StringUtil.toLog(clusterInternalSocketAddress), backwardMessages,
+				TimeUnit.NANOSECONDS.toMicros(forwardBatchWindowNanos));
 	}
 
 	/**
@@ -274,6 +333,10 @@ public class DtlsClusterConnector extends DTLSConnector {
 				public void doWork() throws Exception {
 					clusterPacket.setData(receiverBuffer);
 					clusterInternalSocket.receive(clusterPacket);
+					if (isClusterBatch(clusterPacket)) {
+						processBatchFromClusterNetwork(clusterPacket);
+						return;
+					}
 					Byte type = getClusterRecordType(clusterPacket);
 					if (type != null) {
 						if (ensureLength(type, clusterPacket)) {
@@ -311,6 +374,7 @@ public class DtlsClusterConnector extends DTLSConnector {
 				}
 			}
 			clusterReceiverThreads.clear();
+			forwardBatches.clear();
 		}
 	}
 
@@ -359,6 +423,19 @@ public class DtlsClusterConnector extends DTLSConnector {
 		return null;
 	}
 
+	/**
+	 * Check, if internal message contains coalesced cluster internal messages.
+	 * 
+	 * @param clusterPacket cluster internal message
+	 * @return {@code true}, if message is of type {@link #RECORD_TYPE_BATCH},
+	 *         {@code false}, otherwise.
+	 * @since 3.0
+	 */
+	protected boolean isClusterBatch(DatagramPacket clusterPacket) {
+		return clusterPacket.getLength() > 0 && clusterPacket.getData()[clusterPacket.getOffset()
+				+ CLUSTER_RECORD_TYPE_OFFSET] == RECORD_TYPE_BATCH.byteValue();
+	}
+
 	/**
 	 * Ensure, that the packet is large enough for a valid cluster internal
 	 * message.
@@ -415,6 +492,47 @@ public class DtlsClusterConnector extends DTLSConnector {
 		}
 	}
 
+	/**
+	 * Process received coalesced cluster internal messages.
+	 * 
+	 * Splits the message into the contained cluster internal messages and
+	 * calls {@link #processDatagramFromClusterNetwork(Byte, DatagramPacket)}
+	 * for each of them. The contained messages are passed in as views on the
+	 * data of the coalesced message.
+	 * 
+	 * @param batchPacket coalesced cluster internal messages
+	 * @throws IOException if an io-error occurred.
+	 * @since 3.0
+	 */
+	protected void processBatchFromClusterNetwork(DatagramPacket batchPacket) throws IOException {
+		InetSocketAddress router = (InetSocketAddress) batchPacket.getSocketAddress();
+		byte[] data = batchPacket.getData();
+		int offset = batchPacket.getOffset() + CLUSTER_RECORD_TYPE_OFFSET + 1;
+		int end = batchPacket.getOffset() + batchPacket.getLength();
+		while (offset + CLUSTER_BATCH_LENGTH_SIZE <= end) {
+			int length = ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
+			offset += CLUSTER_BATCH_LENGTH_SIZE;
+			if (length > end - offset) {
+				break;
+			}
+			DatagramPacket clusterPacket = new DatagramPacket(data, offset, length, router);
+			offset += length;
+			Byte type = getClusterRecordType(clusterPacket);
+			if (type != null && ensureLength(type, clusterPacket)) {
+				processDatagramFromClusterNetwork(type, clusterPacket);
+			} else if (clusterHealth != null) {
+				clusterHealth.dropForwardMessage();
+			}
+		}
+		if (offset != end) {
+			FILTER.debug("cluster-node {}: received malformed coalesced message from {}", getNodeID(),
+					StringUtil.toLog(router));
+			if (clusterHealth != null) {
+				clusterHealth.dropForwardMessage();
+			}
+		}
+	}
+
 	/**
 	 * Process cluster internal management message.
 	 * 
@@ -436,9 +554,24 @@ public class DtlsClusterConnector extends DTLSConnector {
 	 * @throws IOException if an i/o-error occurred.
 	 */
 	protected void sendDatagramToClusterNetwork(DatagramPacket clusterPacket) throws IOException {
+		protectDatagramForClusterNetwork(clusterPacket);
 		clusterInternalSocket.send(clusterPacket);
 	}
 
+	/**
+	 * Protect cluster internal message before sending.
+	 * 
+	 * Used for forwarded or backwarded tls_cid records, before they are sent
+	 * separately or coalesced with other records.
+	 * 
+	 * @param clusterPacket cluster internal message
+	 * @throws IOException if an i/o-error occurred.
+	 * @since 3.0
+	 */
+	protected void protectDatagramForClusterNetwork(DatagramPacket clusterPacket) throws IOException {
+		// empty default implementation
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -467,9 +600,16 @@ public class DtlsClusterConnector extends DTLSConnector {
 							try {
 								LOGGER.trace("cluster-node {}: forwards received message from {} to {}, {} bytes",
 										getNodeID(), StringUtil.toLog(source), StringUtil.toLog(clusterNode), length);
-								sendDatagramToClusterNetwork(clusterPacket);
-								if (clusterHealth != null) {
-									clusterHealth.forwardMessage();
+								if (forwardBatchWindowNanos > 0) {
+									forwardBatched(incomingNodeId, clusterPacket);
+								} else {
+									sendDatagramToClusterNetwork(clusterPacket);
+									if (clusterHealth != null) {
+										clusterHealth.forwardMessage();
+									}
+									if (clusterHealthExtended != null) {
+										clusterHealthExtended.forwardClusterMessage(incomingNodeId, 1);
+									}
 								}
 								return;
 							} catch (IOException e) {
@@ -552,6 +692,28 @@ public class DtlsClusterConnector extends DTLSConnector {
 		}
 	}
 
+	/**
+	 * Add forwarded record to the coalesced records of the destination node.
+	 * 
+	 * @param nodeId node-id of destination node
+	 * @param clusterPacket cluster internal message with forwarded record
+	 * @throws IOException if an i/o-error occurred.
+	 * @since 3.0
+	 */
+	private void forwardBatched(int nodeId, DatagramPacket clusterPacket) throws IOException {
+		protectDatagramForClusterNetwork(clusterPacket);
+		InetSocketAddress node = (InetSocketAddress) clusterPacket.getSocketAddress();
+		ForwardBatch batch = forwardBatches.get(node);
+		if (batch == null) {
+			ForwardBatch newBatch = new ForwardBatch(nodeId, node);
+			batch = forwardBatches.putIfAbsent(node, newBatch);
+			if (batch == null) {
+				batch = newBatch;
+			}
+		}
+		batch.add(clusterPacket);
+	}
+
 	/**
 	 * Encode message for cluster internal communication.
 	 * 
@@ -622,6 +784,140 @@ public class DtlsClusterConnector extends DTLSConnector {
 		}
 	}
 
+	/**
+	 * Coalesced forwarded records for a destination node.
+	 * 
+	 * The records are sent, when the time window is expired or no more record
+	 * fits into the message. A single record is sent as normal cluster internal
+	 * message.
+	 * 
+	 * @since 3.0
+	 */
+	private class ForwardBatch implements Runnable {
+
+		/**
+		 * Node-id of destination node.
+		 */
+		private final int nodeId;
+		/**
+		 * Cluster internal address of destination node.
+		 */
+		private final InetSocketAddress node;
+		/**
+		 * Data of coalesced message. Type at
+		 * {@link DtlsClusterConnector#CLUSTER_RECORD_TYPE_OFFSET}, followed by
+		 * length and data of each record.
+		 */
+		private final byte[] data;
+		/**
+		 * Current length of coalesced message.
+		 */
+		private int length;
+		/**
+		 * Number of coalesced records.
+		 */
+		private int messages;
+		/**
+		 * Indicates, that sending the records is scheduled.
+		 */
+		private boolean scheduled;
+
+		private ForwardBatch(int nodeId, InetSocketAddress node) {
+			this.nodeId = nodeId;
+			this.node = node;
+			// the receiving cluster connectors are using the same size
+			this.data = new byte[inboundDatagramBufferSize + MAX_DATAGRAM_OFFSET];
+			this.data[CLUSTER_RECORD_TYPE_OFFSET] = RECORD_TYPE_BATCH;
+			this.length = CLUSTER_RECORD_TYPE_OFFSET + 1;
+		}
+
+		/**
+		 * Add protected cluster internal message.
+		 * 
+		 * @param clusterPacket protected cluster internal message
+		 */
+		private synchronized void add(DatagramPacket clusterPacket) {
+			int packetLength = clusterPacket.getLength();
+			if (length + CLUSTER_BATCH_LENGTH_SIZE + packetLength > data.length) {
+				flush();
+				if (length + CLUSTER_BATCH_LENGTH_SIZE + packetLength > data.length) {
+					// doesn't fit at all, send it separately
+					send(clusterPacket, 1);
+					return;
+				}
+			}
+			data[length] = (byte) (packetLength >> 8);
+			data[length + 1] = (byte) packetLength;
+			length += CLUSTER_BATCH_LENGTH_SIZE;
+			System.arraycopy(clusterPacket.getData(), clusterPacket.getOffset(), data, length, packetLength);
+			length += packetLength;
+			++messages;
+			if (!scheduled) {
+				scheduled = true;
+				ScheduledExecutorService timer = DtlsClusterConnector.this.timer;
+				try {
+					if (timer != null) {
+						timer.schedule(this, forwardBatchWindowNanos, TimeUnit.NANOSECONDS);
+						return;
+					}
+				} catch (RejectedExecutionException ex) {
+					// stopping
+				}
+				flush();
+			}
+		}
+
+		/**
+		 * Send coalesced records.
+		 */
+		private synchronized void flush() {
+			scheduled = false;
+			if (messages == 1) {
+				int offset = CLUSTER_RECORD_TYPE_OFFSET + 1 + CLUSTER_BATCH_LENGTH_SIZE;
+				send(new DatagramPacket(data, offset, length - offset, node), 1);
+			} else if (messages > 1) {
+				send(new DatagramPacket(data, 0, length, node), messages);
+			}
+			length = CLUSTER_RECORD_TYPE_OFFSET + 1;
+			messages = 0;
+		}
+
+		/**
+		 * Send protected cluster internal message.
+		 * 
+		 * @param clusterPacket protected cluster internal message
+		 * @param records number of contained records
+		 */
+		private void send(DatagramPacket clusterPacket, int records) {
+			try {
+				clusterInternalSocket.send(clusterPacket);
+				if (clusterHealth != null) {
+					for (int index = 0; index < records; ++index) {
+						clusterHealth.forwardMessage();
+					}
+				}
+				if (clusterHealthExtended != null) {
+					clusterHealthExtended.forwardClusterMessage(nodeId, records);
+				}
+			} catch (IOException e) {
+				LOGGER.info("cluster-node {}: error forwarding {} records to {}/{}:", getNodeID(), records, nodeId,
+						StringUtil.toLog(node), e);
+				for (int index = 0; index < records; ++index) {
+					if (clusterHealth != null) {
+						clusterHealth.dropForwardMessage();
+					} else {
+						health.receivingRecord(true);
+					}
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			flush();
+		}
+	}
+
 	/**
 	 * Cluster nodes provider. Maintaining internal addresses of nodes.
 	 * 
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.scandium;
+
+import org.eclipse.californium.scandium.config.DtlsClusterConnectorConfig;
+
+/**
+ * Extended health interface for {@link DtlsClusterConnector}.
+ *
+ * Reports the cluster internal messages with forwarded (CID) messages per
+ * destination node. These messages contain several forwarded messages, if
+ * {@link DtlsClusterConnectorConfig#getForwardBatchWindow(java.util.concurrent.TimeUnit)} is larger than
+ * {@code 0}.
+ *
+ * @since 3.0
+ */
+public interface DtlsClusterHealthExtended extends DtlsClusterHealth {
+
+	/**
+	 * Report sending cluster internal message with forwarded (CID) messages to
+	 * a node.
+	 * 
+	 * @param nodeId node-id of the destination node
+	 * @param messages number of forwarded messages in the cluster internal
+	 *            message. {@code 1}, if the messages are not coalesced.
+	 */
+	void forwardClusterMessage(int nodeId, int messages);
+}
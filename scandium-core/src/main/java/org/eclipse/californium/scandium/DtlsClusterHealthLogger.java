@@ -15,6 +15,9 @@
  ******************************************************************************/
 package org.eclipse.californium.scandium;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -26,7 +29,7 @@ import org.eclipse.californium.elements.util.StringUtil;
  * 
  * @since 2.5
  */
-public class DtlsClusterHealthLogger extends DtlsHealthLogger implements DtlsClusterHealth {
+public class DtlsClusterHealthLogger extends DtlsHealthLogger implements DtlsClusterHealthExtended {
 
 	private final SimpleCounterStatistic forwardedMessage = new SimpleCounterStatistic("forwarded", align);
 	private final SimpleCounterStatistic processedForwardedMessage = new SimpleCounterStatistic("process forwarded",
@@ -42,6 +45,12 @@ public class DtlsClusterHealthLogger extends DtlsHealthLogger implements DtlsClu
 			"sent cluster mgmt", align);
 	private final SimpleCounterStatistic receivingClusterManagementMessage = new SimpleCounterStatistic(
 			"recv cluster mgmt", align);
+	/**
+	 * Forward statistic per destination node.
+	 * 
+	 * @since 3.0
+	 */
+	private final ConcurrentMap<Integer, NodeStatistic> nodes = new ConcurrentHashMap<>();
 
 	/**
 	 * Create passive dtls cluster health logger.
@@ -106,6 +115,50 @@ public class DtlsClusterHealthLogger extends DtlsHealthLogger implements DtlsClu
 		log.append(head).append(dropBackwardMessage).append(eol);
 		log.append(head).append(sendingClusterManagementMessage).append(eol);
 		log.append(head).append(receivingClusterManagementMessage);
+		for (Map.Entry<Integer, NodeStatistic> node : nodes.entrySet()) {
+			NodeStatistic statistic = node.getValue();
+			long clusterMessages = statistic.clusterMessages.getCounter();
+			if (clusterMessages > 0) {
+				long messages = statistic.forwardedMessages.getCounter();
+				log.append(eol).append(head).append(SimpleCounterStatistic.format(align.getAlign(),
+						"node " + node.getKey() + " forwarded", messages));
+				log.append(" (").append(clusterMessages).append(" cluster messages).");
+			}
+		}
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		for (NodeStatistic statistic : nodes.values()) {
+			statistic.forwardedMessages.reset();
+			statistic.clusterMessages.reset();
+		}
+	}
+
+	/**
+	 * Get number of forwarded messages for node.
+	 * 
+	 * @param nodeId node-id of the destination node
+	 * @return number of forwarded messages
+	 * @since 3.0
+	 */
+	public long getForwardedMessages(int nodeId) {
+		NodeStatistic statistic = nodes.get(nodeId);
+		return statistic == null ? 0 : statistic.forwardedMessages.getCounter();
+	}
+
+	/**
+	 * Get number of cluster internal messages with forwarded messages for
+	 * node.
+	 * 
+	 * @param nodeId node-id of the destination node
+	 * @return number of cluster internal messages
+	 * @since 3.0
+	 */
+	public long getForwardClusterMessages(int nodeId) {
+		NodeStatistic statistic = nodes.get(nodeId);
+		return statistic == null ? 0 : statistic.clusterMessages.getCounter();
 	}
 
 	@Override
@@ -113,6 +166,20 @@ public class DtlsClusterHealthLogger extends DtlsHealthLogger implements DtlsClu
 		forwardedMessage.increment();
 	}
 
+	@Override
+	public void forwardClusterMessage(int nodeId, int messages) {
+		NodeStatistic statistic = nodes.get(nodeId);
+		if (statistic == null) {
+			statistic = new NodeStatistic();
+			NodeStatistic previous = nodes.putIfAbsent(nodeId, statistic);
+			if (previous != null) {
+				statistic = previous;
+			}
+		}
+		statistic.forwardedMessages.increment(messages);
+		statistic.clusterMessages.increment();
+	}
+
 	@Override
 	public void backwardMessage() {
 		backwardedMessage.increment();
@@ -158,4 +225,20 @@ public class DtlsClusterHealthLogger extends DtlsHealthLogger implements DtlsClu
 		receivingClusterManagementMessage.increment();
 	}
 
+	/**
+	 * Forward statistic of destination node.
+	 * 
+	 * @since 3.0
+	 */
+	private static class NodeStatistic {
+
+		/**
+		 * Number of forwarded messages.
+		 */
+		private final SimpleCounterStatistic forwardedMessages = new SimpleCounterStatistic("forwarded");
+		/**
+		 * Number of cluster internal messages.
+		 */
+		private final SimpleCounterStatistic clusterMessages = new SimpleCounterStatistic("cluster messages");
+	}
 }
@@ -0,0 +1,527 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.scandium;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.util.ClockUtil;
+import org.eclipse.californium.elements.util.DataStreamReader;
+import org.eclipse.californium.elements.util.DatagramWriter;
+import org.eclipse.californium.elements.util.SerializationUtil;
+import org.eclipse.californium.scandium.dtls.ConnectionId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Incremental snapshots of the connections of a {@link DTLSConnector}.
+ * <p>
+ * Saves the connections periodically into files of a directory, while the
+ * connector is running. The first snapshot contains all connections, the
+ * following delta snapshots only the connections with messages since the
+ * previous snapshot. After the maximum number of delta snapshots, a full
+ * snapshot is written again and the previous files are deleted. On startup,
+ * the snapshots are loaded in the background, while the connector already
+ * accepts traffic.
+ * </p>
+ * <p>
+ * Each snapshot starts with the connection ids of all connections at the time
+ * of the snapshot. On loading, the connections of the previous snapshot files
+ * are skipped, if they are not contained in the connection ids of the last
+ * snapshot. Connections removed after a snapshot are therefore not loaded
+ * again. That requires a connection store, which is able to list all
+ * connections. With an
+ * {@link org.eclipse.californium.scandium.dtls.OffHeapConnectionStore}, all
+ * saved connections are loaded, and removed ones are only removed by the
+ * connection store as stale or replaced by new handshakes.
+ * </p>
+ * <p>
+ * The connections of periodic snapshots may have exchanged records after
+ * saving, so their record sequence numbers and replay windows are stale. They
+ * are loaded with a required resumption handshake. Only the connections of a
+ * final snapshot, saved by {@link #saveFinal()} after the connector has been
+ * stopped, are loaded with their saved state. A final snapshot is marked by an
+ * additional "name-index.final" file, which is deleted, when the snapshots are
+ * loaded.
+ * </p>
+ * <p>
+ * Note: the files contain not encrypted critical credentials. It is required
+ * to protect the directory.
+ * </p>
+ *
+ * @see DTLSConnector#saveConnectionsIncremental(OutputStream, Long)
+ * @see DTLSConnector#loadConnectionsIncremental(InputStream, long, boolean)
+ * @since 3.0
+ */
+public class DtlsConnectionSnapshots {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DtlsConnectionSnapshots.class);
+
+	private static final String SUFFIX = ".snapshot";
+
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private static final String FINAL_SUFFIX = ".final";
+
+	private static final int CONNECTION_IDS_VERSION = 1;
+
+	/**
+	 * Connector to save and load connections.
+	 */
+	private final DTLSConnector connector;
+	/**
+	 * Directory of the snapshot files.
+	 */
+	private final File directory;
+	/**
+	 * Name of the snapshot files.
+	 *
+	 * The files are named "name-index.snapshot".
+	 */
+	private final String name;
+	/**
+	 * Maximum number of delta snapshots after a full snapshot.
+	 */
+	private final int maxDeltaSnapshots;
+	/**
+	 * Index of next snapshot file.
+	 */
+	private long nextIndex;
+	/**
+	 * Number of delta snapshots since last full snapshot.
+	 */
+	private int deltaSnapshots;
+	/**
+	 * Realtime nanoseconds of the start of the last snapshot. {@code null}, if
+	 * the next snapshot must be a full one.
+	 */
+	private Long lastSnapshotNanos;
+	/**
+	 * Indicates, that snapshots are loaded. Guarded by this.
+	 */
+	private boolean loading;
+	/**
+	 * Lock to load snapshots one after the other. Loading doesn't hold the
+	 * lock of this instance, so saving and stopping is not blocked.
+	 */
+	private final Object loadLock = new Object();
+	/**
+	 * Future of periodic save.
+	 */
+	private ScheduledFuture<?> job;
+
+	/**
+	 * Create connection snapshots.
+	 *
+	 * @param connector connector to save and load connections
+	 * @param directory directory for snapshot files
+	 * @param name name of snapshot files. Must be unique, if the directory is
+	 *            used for multiple connectors.
+	 * @param maxDeltaSnapshots maximum number of delta snapshots after a full
+	 *            snapshot
+	 * @throws NullPointerException if any of connector, directory, or name is
+	 *             {@code null}
+	 * @throws IllegalArgumentException if maxDeltaSnapshots is negative
+	 */
+	public DtlsConnectionSnapshots(DTLSConnector connector, File directory, String name, int maxDeltaSnapshots) {
+		if (connector == null) {
+			throw new NullPointerException("Connector must not be null!");
+		}
+		if (directory == null) {
+			throw new NullPointerException("Directory must not be null!");
+		}
+		if (name == null) {
+			throw new NullPointerException("Name must not be null!");
+		}
+		if (maxDeltaSnapshots < 0) {
+			throw new IllegalArgumentException("Maximum delta snapshots " + maxDeltaSnapshots + " must not be negative!");
+		}
+		this.connector = connector;
+		this.directory = directory;
+		this.name = name;
+		this.maxDeltaSnapshots = maxDeltaSnapshots;
+		List<File> files = listSnapshots();
+		if (!files.isEmpty()) {
+			this.nextIndex = getIndex(files.get(files.size() - 1)) + 1;
+		}
+	}
+
+	/**
+	 * Start periodic snapshots.
+	 *
+	 * @param executor scheduled executor to save snapshots
+	 * @param interval interval of snapshots
+	 * @param unit time unit of interval
+	 */
+	public synchronized void start(ScheduledExecutorService executor, long interval, TimeUnit unit) {
+		if (job == null) {
+			job = executor.scheduleWithFixedDelay(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						save();
+					} catch (IOException e) {
+						LOGGER.warn("{}snapshot failed!", name, e);
+					}
+				}
+			}, interval, interval, unit);
+		}
+	}
+
+	/**
+	 * Stop periodic snapshots.
+	 */
+	public synchronized void stop() {
+		if (job != null) {
+			job.cancel(false);
+			job = null;
+		}
+	}
+
+	/**
+	 * Save snapshot.
+	 *
+	 * Saves a full snapshot, if no snapshot was saved before or the maximum
+	 * number of delta snapshots is reached, and deletes the previous snapshot
+	 * files. Otherwise saves a delta snapshot. Skipped, while snapshots are
+	 * loaded in the background.
+	 *
+	 * @return number of saved connections
+	 * @throws IOException if an i/o error occurred
+	 */
+	public synchronized int save() throws IOException {
+		if (loading) {
+			LOGGER.debug("{}loading snapshots, skip save.", name);
+			return 0;
+		}
+		return save(lastSnapshotNanos == null || deltaSnapshots >= maxDeltaSnapshots);
+	}
+
+	/**
+	 * Save final snapshot.
+	 *
+	 * Stops the periodic snapshots, saves a full snapshot, deletes the
+	 * previous snapshot files, and marks the snapshot as final. The
+	 * connections of a final snapshot are loaded with their saved state.
+	 *
+	 * @return number of saved connections
+	 * @throws IllegalStateException if the connector is running or snapshots
+	 *             are loaded in the background
+	 * @throws IOException if an i/o error occurred
+	 */
+	public synchronized int saveFinal() throws IOException {
+		if (connector.isRunning()) {
+			throw new IllegalStateException("Connector must be stopped for a final snapshot!");
+		}
+		if (loading) {
+			throw new IllegalStateException("Snapshots are loading!");
+		}
+		stop();
+		long index = nextIndex;
+		int count = save(true);
+		File mark = new File(directory, name + "-" + index + FINAL_SUFFIX);
+		if (!mark.createNewFile() && !mark.isFile()) {
+			throw new IOException("Failed to create " + mark.getName() + "!");
+		}
+		return count;
+	}
+
+	/**
+	 * Save snapshot.
+	 *
+	 * @param full {@code true}, to save a full snapshot and delete the
+	 *            previous snapshot files, {@code false}, to save a delta
+	 *            snapshot.
+	 * @return number of saved connections
+	 * @throws IOException if an i/o error occurred
+	 */
+	private int save(boolean full) throws IOException {
+		long startNanos = ClockUtil.nanoRealtime();
+		File file = new File(directory, name + "-" + nextIndex + SUFFIX);
+		File temp = new File(directory, file.getName() + TEMP_SUFFIX);
+		int count;
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(temp));
+		try {
+			DatagramWriter writer = new DatagramWriter();
+			SerializationUtil.writeNanotimeSynchronizationMark(writer);
+			writeConnectionIds(writer, connector.getConnectionIds());
+			writer.writeTo(out);
+			count = connector.saveConnectionsIncremental(out, full ? null : lastSnapshotNanos);
+		} finally {
+			out.close();
+		}
+		if (!temp.renameTo(file)) {
+			temp.delete();
+			throw new IOException("Failed to rename " + temp + " to " + file.getName() + "!");
+		}
+		if (full) {
+			for (File previous : listSnapshots()) {
+				if (getIndex(previous) < nextIndex && !previous.delete()) {
+					LOGGER.warn("{}failed to delete {}!", name, previous);
+				}
+			}
+			deleteFinalMarks();
+			deltaSnapshots = 0;
+		} else {
+			++deltaSnapshots;
+		}
+		++nextIndex;
+		lastSnapshotNanos = startNanos;
+		LOGGER.info("{}{} snapshot {}, {} connections, {} ms", name, full ? "full" : "delta", file.getName(), count,
+				TimeUnit.NANOSECONDS.toMillis(ClockUtil.nanoRealtime() - startNanos));
+		return count;
+	}
+
+	/**
+	 * Load snapshots.
+	 *
+	 * Loads the snapshot files in the order they are saved. The connections of
+	 * the previous snapshot files are skipped, if they are not contained in
+	 * the connection ids of the last snapshot. The next snapshot is saved as
+	 * full snapshot. The connections of a final snapshot are loaded with their
+	 * saved state, all others require a resumption handshake. The final mark
+	 * is deleted before loading, because the loaded connections are used
+	 * again. Snapshots are not saved while loading.
+	 *
+	 * @return number of loaded connections
+	 * @throws IOException if an i/o error occurred
+	 */
+	public int load() throws IOException {
+		synchronized (loadLock) {
+			long startNanos = ClockUtil.nanoRealtime();
+			int count = 0;
+			long lastIndex = -1;
+			long finalIndex = -1;
+			List<File> files;
+			synchronized (this) {
+				loading = true;
+				files = listSnapshots();
+			}
+			try {
+				Set<ConnectionId> connectionIds = null;
+				if (!files.isEmpty()) {
+					File last = files.get(files.size() - 1);
+					lastIndex = getIndex(last);
+					if (new File(directory, name + "-" + lastIndex + FINAL_SUFFIX).isFile()) {
+						finalIndex = lastIndex;
+					}
+					connectionIds = readConnectionIds(last);
+				}
+				deleteFinalMarks();
+				for (File file : files) {
+					InputStream in = new BufferedInputStream(new FileInputStream(file));
+					try {
+						DataStreamReader reader = new DataStreamReader(in);
+						long delta = SerializationUtil.readNanotimeSynchronizationMark(reader);
+						readConnectionIds(reader);
+						long index = getIndex(file);
+						boolean resumptionRequired = index != finalIndex;
+						count += connector.loadConnectionsIncremental(in, delta, resumptionRequired,
+								index == lastIndex ? null : connectionIds);
+					} catch (IllegalArgumentException ex) {
+						LOGGER.warn("{}loading {} failed!", name, file.getName(), ex);
+					} finally {
+						in.close();
+					}
+				}
+			} finally {
+				synchronized (this) {
+					nextIndex = Math.max(nextIndex, lastIndex + 1);
+					lastSnapshotNanos = null;
+					loading = false;
+				}
+			}
+			LOGGER.info("{}loaded {} snapshots, {} connections, {} ms", name, files.size(), count,
+					TimeUnit.NANOSECONDS.toMillis(ClockUtil.nanoRealtime() - startNanos));
+			return count;
+		}
+	}
+
+	/**
+	 * Start loading the snapshots in the background.
+	 *
+	 * Snapshots are not saved until loading is finished.
+	 *
+	 * @return future with the number of loaded connections
+	 * @see #load()
+	 */
+	public synchronized Future<Integer> startLoad() {
+		FutureTask<Integer> task = new FutureTask<>(new Callable<Integer>() {
+
+			@Override
+			public Integer call() throws Exception {
+				return load();
+			}
+		});
+		Thread thread = new Thread(task, "DTLS-Snapshots-" + name);
+		thread.setDaemon(true);
+		loading = true;
+		thread.start();
+		return task;
+	}
+
+	/**
+	 * Check, if snapshots are loaded.
+	 *
+	 * @return {@code true}, if snapshots are loaded, {@code false},
+	 *         otherwise.
+	 */
+	public synchronized boolean isLoading() {
+		return loading;
+	}
+
+	/**
+	 * Write connection ids.
+	 *
+	 * @param writer writer
+	 * @param connectionIds list of connection ids. {@code null}, if not
+	 *            available.
+	 */
+	private static void writeConnectionIds(DatagramWriter writer, List<ConnectionId> connectionIds) {
+		if (connectionIds == null) {
+			SerializationUtil.writeNoItem(writer);
+			return;
+		}
+		int position = SerializationUtil.writeStartItem(writer, CONNECTION_IDS_VERSION, Integer.SIZE);
+		writer.write(connectionIds.size(), Integer.SIZE);
+		for (ConnectionId cid : connectionIds) {
+			writer.writeVarBytes(cid, Byte.SIZE);
+		}
+		SerializationUtil.writeFinishedItem(writer, position, Integer.SIZE);
+	}
+
+	/**
+	 * Read connection ids.
+	 *
+	 * @param reader reader
+	 * @return set of connection ids, or {@code null}, if not available.
+	 * @throws IllegalArgumentException if the connection ids could not be
+	 *             read
+	 */
+	private static Set<ConnectionId> readConnectionIds(DataStreamReader reader) {
+		if (SerializationUtil.readStartItem(reader, CONNECTION_IDS_VERSION, Integer.SIZE) < 0) {
+			return null;
+		}
+		int size = reader.read(Integer.SIZE);
+		Set<ConnectionId> connectionIds = new HashSet<>();
+		for (int index = 0; index < size; ++index) {
+			connectionIds.add(new ConnectionId(reader.readVarBytes(Byte.SIZE)));
+		}
+		return connectionIds;
+	}
+
+	/**
+	 * Read connection ids of snapshot file.
+	 *
+	 * @param file snapshot file
+	 * @return set of connection ids, or {@code null}, if not available.
+	 * @throws IOException if an i/o error occurred
+	 */
+	private Set<ConnectionId> readConnectionIds(File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			DataStreamReader reader = new DataStreamReader(in);
+			SerializationUtil.readNanotimeSynchronizationMark(reader);
+			return readConnectionIds(reader);
+		} catch (IllegalArgumentException ex) {
+			LOGGER.warn("{}reading connection ids of {} failed!", name, file.getName(), ex);
+			return null;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * List snapshot files ordered by their index.
+	 *
+	 * @return list of snapshot files
+	 */
+	private List<File> listSnapshots() {
+		List<File> files = new ArrayList<>();
+		File[] list = directory.listFiles();
+		if (list != null) {
+			for (File file : list) {
+				if (getIndex(file) >= 0) {
+					files.add(file);
+				}
+			}
+		}
+		Collections.sort(files, new Comparator<File>() {
+
+			@Override
+			public int compare(File file1, File file2) {
+				long index1 = getIndex(file1);
+				long index2 = getIndex(file2);
+				return index1 < index2 ? -1 : (index1 > index2 ? 1 : 0);
+			}
+		});
+		return files;
+	}
+
+	/**
+	 * Delete all final marks.
+	 *
+	 * @throws IOException if a final mark could not be deleted
+	 */
+	private void deleteFinalMarks() throws IOException {
+		File[] list = directory.listFiles();
+		if (list != null) {
+			String prefix = name + "-";
+			for (File file : list) {
+				String fileName = file.getName();
+				if (fileName.startsWith(prefix) && fileName.endsWith(FINAL_SUFFIX) && !file.delete()) {
+					throw new IOException("Failed to delete " + fileName + "!");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get index of snapshot file.
+	 *
+	 * @param file file
+	 * @return index, or {@code -1}, if the file is not a snapshot file of this
+	 *         instance.
+	 */
+	private long getIndex(File file) {
+		String fileName = file.getName();
+		String prefix = name + "-";
+		if (fileName.startsWith(prefix) && fileName.endsWith(SUFFIX)) {
+			try {
+				return Long.parseLong(fileName.substring(prefix.length(), fileName.length() - SUFFIX.length()));
+			} catch (NumberFormatException ex) {
+				// not a snapshot file of this instance
+			}
+		}
+		return -1;
+	}
+}
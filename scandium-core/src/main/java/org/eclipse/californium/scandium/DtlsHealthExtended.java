@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.scandium;
+
+import org.eclipse.californium.scandium.config.DtlsConfig;
+
+/**
+ * Extended health interface for {@link DTLSConnector}.
+ *
+ * Reports the processing of the handshake executor, if
+ * {@link DtlsConfig#DTLS_HANDSHAKE_THREAD_COUNT} is larger than {@code 0}.
+ *
+ * @since 3.0
+ */
+public interface DtlsHealthExtended extends DtlsHealth {
+
+	/**
+	 * Report execution of handshake job.
+	 *
+	 * @param pendingJobs number of pending handshake jobs, including the
+	 *            reported one.
+	 * @param latencyNanos latency in nanoseconds, the job was pending before
+	 *            execution.
+	 */
+	void executeHandshakeJob(int pendingJobs, long latencyNanos);
+
+	/**
+	 * Report rejected handshake.
+	 *
+	 * Reported, if a CLIENT_HELLO is dropped, because the handshake executor
+	 * exceeds {@link DtlsConfig#DTLS_MAX_PENDING_HANDSHAKE_JOBS}.
+	 */
+	void rejectHandshake();
+}
@@ -18,6 +18,7 @@ package org.eclipse.californium.scandium;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.californium.elements.util.CounterStatisticManager;
 import org.eclipse.californium.elements.util.NoPublicAPI;
@@ -30,7 +31,7 @@ import org.slf4j.LoggerFactory;
  * Health implementation using counter and logging for results.
  */
 @NoPublicAPI
-public class DtlsHealthLogger extends CounterStatisticManager implements DtlsHealth {
+public class DtlsHealthLogger extends CounterStatisticManager implements DtlsHealthExtended {
 
 	/** the logger. */
 	private static final Logger LOGGER = LoggerFactory.getLogger(DTLSConnector.class.getCanonicalName() + ".health");
@@ -47,6 +48,39 @@ public class DtlsHealthLogger extends CounterStatisticManager implements DtlsHea
 	private final SimpleCounterStatistic sentRecords = new SimpleCounterStatistic("sending records", align);
 	private final SimpleCounterStatistic droppedSentRecords = new SimpleCounterStatistic("dropped sending records",
 			align);
+	/**
+	 * Executed handshake jobs.
+	 * 
+	 * @since 3.0
+	 */
+	private final SimpleCounterStatistic handshakeJobs = new SimpleCounterStatistic("handshake jobs", align);
+	/**
+	 * Rejected handshakes.
+	 * 
+	 * @since 3.0
+	 */
+	private final SimpleCounterStatistic rejectedHandshakes = new SimpleCounterStatistic("handshakes rejected",
+			align);
+	/**
+	 * Number of pending handshake jobs of the last reported execution.
+	 * 
+	 * @since 3.0
+	 */
+	private final AtomicInteger pendingHandshakeJobs = new AtomicInteger();
+	/**
+	 * Accumulated latency of handshake jobs in nanoseconds since last
+	 * {@link #reset()}.
+	 * 
+	 * @since 3.0
+	 */
+	private final AtomicLong handshakeJobsLatency = new AtomicLong();
+	/**
+	 * Maximum latency of handshake jobs in nanoseconds since last
+	 * {@link #reset()}.
+	 * 
+	 * @since 3.0
+	 */
+	private final AtomicLong maxHandshakeJobLatency = new AtomicLong();
 
 	/**
 	 * Create passive dtls health logger.
@@ -88,6 +122,8 @@ public class DtlsHealthLogger extends CounterStatisticManager implements DtlsHea
 		add(droppedReceivedRecords);
 		add(sentRecords);
 		add(droppedSentRecords);
+		add(handshakeJobs);
+		add(rejectedHandshakes);
 	}
 
 	@Override
@@ -100,6 +136,7 @@ public class DtlsHealthLogger extends CounterStatisticManager implements DtlsHea
 				log.append(tag).append("statistic:").append(eol);
 				log.append(head).append(succeededHandshakes).append(eol);
 				log.append(head).append(failedHandshakes).append(eol);
+				dumpHandshakeJobs(head, log);
 				log.append(head).append(sentRecords).append(eol);
 				log.append(head).append(droppedSentRecords).append(eol);
 				log.append(head).append(receivedRecords).append(eol);
@@ -132,6 +169,7 @@ public class DtlsHealthLogger extends CounterStatisticManager implements DtlsHea
 				log.append(" (").append(pendingWithoutVerify).append(" without verify).").append(eol);
 				log.append(head).append(succeededHandshakes).append(eol);
 				log.append(head).append(failedHandshakes).append(eol);
+				dumpHandshakeJobs(head, log);
 				log.append(head).append(sentRecords).append(eol);
 				log.append(head).append(droppedSentRecords).append(eol);
 				log.append(head).append(receivedRecords).append(eol);
@@ -144,6 +182,26 @@ public class DtlsHealthLogger extends CounterStatisticManager implements DtlsHea
 		}
 	}
 
+	/**
+	 * Dump handshake executor statistic.
+	 * 
+	 * @param head head for logging lines
+	 * @param log logging lines
+	 * @since 3.0
+	 */
+	private void dumpHandshakeJobs(String head, StringBuilder log) {
+		long jobs = handshakeJobs.getCounter();
+		if (jobs > 0) {
+			String eol = StringUtil.lineSeparator();
+			log.append(head).append(handshakeJobs);
+			log.append(" (").append(pendingHandshakeJobs.get()).append(" pending, ");
+			log.append(TimeUnit.NANOSECONDS.toMillis(handshakeJobsLatency.get() / jobs)).append("ms avg. latency, ");
+			log.append(TimeUnit.NANOSECONDS.toMillis(maxHandshakeJobLatency.get())).append("ms max. latency).");
+			log.append(eol);
+			log.append(head).append(rejectedHandshakes).append(eol);
+		}
+	}
+
 	/**
 	 * Check, if health logger is used.
 	 * 
@@ -173,6 +231,13 @@ public class DtlsHealthLogger extends CounterStatisticManager implements DtlsHea
 		return LOGGER.isDebugEnabled();
 	}
 
+	@Override
+	public void reset() {
+		super.reset();
+		handshakeJobsLatency.set(0);
+		maxHandshakeJobLatency.set(0);
+	}
+
 	@Override
 	public void startHandshake() {
 		pendingHandshakes.incrementAndGet();
@@ -205,4 +270,20 @@ public class DtlsHealthLogger extends CounterStatisticManager implements DtlsHea
 			sentRecords.increment();
 		}
 	}
+
+	@Override
+	public void executeHandshakeJob(int pendingJobs, long latencyNanos) {
+		handshakeJobs.increment();
+		pendingHandshakeJobs.set(pendingJobs);
+		handshakeJobsLatency.addAndGet(latencyNanos);
+		long max = maxHandshakeJobLatency.get();
+		while (max < latencyNanos && !maxHandshakeJobLatency.compareAndSet(max, latencyNanos)) {
+			max = maxHandshakeJobLatency.get();
+		}
+	}
+
+	@Override
+	public void rejectHandshake() {
+		rejectedHandshakes.increment();
+	}
 }
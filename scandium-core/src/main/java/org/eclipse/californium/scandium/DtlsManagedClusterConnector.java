@@ -310,9 +310,11 @@ public class DtlsManagedClusterConnector extends DtlsClusterConnector {
 	 * 
 	 * Fill in cluster MAC for source header of forwarded or backwarded tls_cid
 	 * records, if {@link #useClusterMac} is enabled.
+	 * 
+	 * @since 3.0 (was sendDatagramToClusterNetwork)
 	 */
 	@Override
-	protected void sendDatagramToClusterNetwork(DatagramPacket clusterPacket) throws IOException {
+	protected void protectDatagramForClusterNetwork(DatagramPacket clusterPacket) throws IOException {
 		if (useClusterMac) {
 			try {
 				DTLSContext context = ((DTLSConnector) clusterManagementConnector)
@@ -330,7 +332,6 @@ public class DtlsManagedClusterConnector extends DtlsClusterConnector {
 				throw new IOException("Cluster MAC could not be generated!", ex);
 			}
 		}
-		super.sendDatagramToClusterNetwork(clusterPacket);
 	}
 
 	/**
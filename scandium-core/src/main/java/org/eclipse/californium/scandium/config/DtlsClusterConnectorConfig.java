@@ -16,6 +16,7 @@
 package org.eclipse.californium.scandium.config;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
 
@@ -54,6 +55,13 @@ public final class DtlsClusterConnectorConfig {
 	 * Send outgoing messages back via original receiving connector (router).
 	 */
 	private Boolean backwardMessages;
+	/**
+	 * Time window in nanoseconds to coalesce forwarded records for the same
+	 * node into one cluster internal message. {@code 0} to disable coalescing.
+	 * 
+	 * @since 3.0
+	 */
+	private Long forwardBatchWindowNanos;
 
 	/**
 	 * Get local socket address for internal cluster connector.
@@ -105,6 +113,20 @@ public final class DtlsClusterConnectorConfig {
 		return backwardMessages;
 	}
 
+	/**
+	 * Get time window to coalesce forwarded records.
+	 * 
+	 * Forwarded records for the same node, which are received within that time
+	 * window, are sent using one cluster internal message.
+	 * 
+	 * @param unit time unit of the result
+	 * @return time window. {@code 0}, if coalescing is disabled.
+	 * @since 3.0
+	 */
+	public long getForwardBatchWindow(TimeUnit unit) {
+		return unit.convert(forwardBatchWindowNanos, TimeUnit.NANOSECONDS);
+	}
+
 	/**
 	 * @return a copy of this configuration
 	 */
@@ -116,6 +138,7 @@ public final class DtlsClusterConnectorConfig {
 		cloned.secret = SecretUtil.create(secret);
 		cloned.clusterMac = clusterMac;
 		cloned.backwardMessages = backwardMessages;
+		cloned.forwardBatchWindowNanos = forwardBatchWindowNanos;
 		return cloned;
 	}
 
@@ -234,6 +257,29 @@ public final class DtlsClusterConnectorConfig {
 			return this;
 		}
 
+		/**
+		 * Set time window to coalesce forwarded records.
+		 * 
+		 * Forwarded records for the same node, which are received within that
+		 * time window, are sent using one cluster internal message. That
+		 * reduces the number of cluster internal datagrams on high load, but
+		 * adds up to that time window as latency to the forwarded records. All
+		 * nodes of the cluster must support such coalesced messages.
+		 * 
+		 * @param window time window. {@code 0} to disable coalescing.
+		 * @param unit time unit of window
+		 * @return this builder for command chaining
+		 * @throws IllegalArgumentException if window is negative
+		 * @since 3.0
+		 */
+		public Builder setForwardBatchWindow(long window, TimeUnit unit) {
+			if (window < 0) {
+				throw new IllegalArgumentException("Forward batch window " + window + " must not be negative!");
+			}
+			config.forwardBatchWindowNanos = unit.toNanos(window);
+			return this;
+		}
+
 		/**
 		 * Returns a potentially incomplete configuration. Only fields set by
 		 * users are affected, there is no default value, no consistency check.
@@ -270,6 +316,9 @@ public final class DtlsClusterConnectorConfig {
 			if (config.clusterMac == null) {
 				config.clusterMac = config.identity != null;
 			}
+			if (config.forwardBatchWindowNanos == null) {
+				config.forwardBatchWindowNanos = 0L;
+			}
 			return config;
 		}
 
@@ -39,6 +39,9 @@ import org.eclipse.californium.scandium.dtls.CertificateMessage;
 import org.eclipse.californium.scandium.dtls.CertificateRequest;
 import org.eclipse.californium.scandium.dtls.ExtendedMasterSecretMode;
 import org.eclipse.californium.scandium.dtls.HelloVerifyRequest;
+import org.eclipse.californium.scandium.dtls.InMemoryConnectionStore;
+import org.eclipse.californium.scandium.dtls.InMemoryStripedConnectionStore;
+import org.eclipse.californium.scandium.dtls.OffHeapConnectionStore;
 import org.eclipse.californium.scandium.dtls.MaxFragmentLengthExtension.Length;
 import org.eclipse.californium.scandium.dtls.Record;
 import org.eclipse.californium.scandium.dtls.RecordLayer;
@@ -199,6 +202,13 @@ public final class DtlsConfig {
 	 * property.
 	 */
 	public static final int DEFAULT_MAX_DEFERRED_PROCESSED_INCOMING_RECORDS_SIZE = 8192;
+	/**
+	 * The default value for the {@link #DTLS_MAX_PENDING_HANDSHAKE_JOBS}
+	 * property.
+	 * 
+	 * @since 3.0
+	 */
+	public static final int DEFAULT_MAX_PENDING_HANDSHAKE_JOBS = 1000;
 	/**
 	 * The default value for the
 	 * {@link #DTLS_VERIFY_PEERS_ON_RESUMPTION_THRESHOLD} property in percent.
@@ -473,6 +483,32 @@ public final class DtlsConfig {
 			"DTLS threshold for state connections. Connections will only get removed for new ones, if at least for that threshold no messages are exchanged using that connection.",
 			DEFAULT_STALE_CONNECTION_TRESHOLD_SECONDS, TimeUnit.SECONDS);
 
+	/**
+	 * Specify the number of stripes of the connection store.
+	 * <p>
+	 * A value of {@code 1} uses the {@link InMemoryConnectionStore} with a
+	 * single store-wide lock. Larger values use the
+	 * {@link InMemoryStripedConnectionStore}, which distributes the
+	 * connections and the {@link #DTLS_MAX_CONNECTIONS} over that number of
+	 * stripes, each guarded by its own lock.
+	 */
+	public static final IntegerDefinition DTLS_CONNECTION_STORE_STRIPES = new IntegerDefinition(
+			MODULE + "CONNECTION_STORE_STRIPES",
+			"DTLS number of connection store stripes. 1 for a single store-wide lock.", 1, 1);
+
+	/**
+	 * Specify the maximum number of connections, which are kept serialized
+	 * off-heap.
+	 * <p>
+	 * A value of {@code 0} disables the off-heap part. Larger values use the
+	 * {@link OffHeapConnectionStore}, which moves idle connections off-heap, if
+	 * the {@link #DTLS_MAX_CONNECTIONS} are exhausted, and moves them back, when
+	 * they are used again.
+	 */
+	public static final IntegerDefinition DTLS_MAX_OFF_HEAP_CONNECTIONS = new IntegerDefinition(
+			MODULE + "MAX_OFF_HEAP_CONNECTIONS",
+			"DTLS maximum number of connections kept off-heap. 0 to disable.", 0, 0);
+
 	/**
 	 * Specify the number of outbound messages that can be buffered in memory
 	 * before dropping messages.
@@ -524,6 +560,67 @@ public final class DtlsConfig {
 	 */
 	public static final IntegerDefinition DTLS_CONNECTOR_THREAD_COUNT = new IntegerDefinition(
 			MODULE + "CONNECTOR_THREAD_COUNT", "Number of DTLS connector threads.", 1, 0);
+	/**
+	 * Use virtual threads for the connector instead of
+	 * {@link #DTLS_CONNECTOR_THREAD_COUNT}.
+	 * <p>
+	 * Requires java 21 or newer, falls back to
+	 * {@link #DTLS_CONNECTOR_THREAD_COUNT}, if not supported. The timers are
+	 * still executed by a platform thread. Only applies, if no executor is
+	 * provided by {@link DTLSConnector#setExecutor(java.util.concurrent.ExecutorService)}.
+	 * 
+	 * @since 3.0
+	 */
+	public static final BooleanDefinition DTLS_CONNECTOR_VIRTUAL_THREADS = new BooleanDefinition(
+			MODULE + "CONNECTOR_VIRTUAL_THREADS", "Use virtual threads for the DTLS connector. Requires java 21.",
+			false);
+	/**
+	 * Specify the number of handshake threads used by a {@link DTLSConnector}.
+	 * <p>
+	 * The handshake threads are responsible for the processing of handshakes,
+	 * including the expensive cryptographic functions as ECDHE key agreement,
+	 * signing and certificate path validation. A value of {@code 0} processes
+	 * the handshakes also by the {@link #DTLS_CONNECTOR_THREAD_COUNT}, which
+	 * may delay the processing of application records, when many handshakes
+	 * are pending.
+	 * 
+	 * @since 3.0
+	 */
+	public static final IntegerDefinition DTLS_HANDSHAKE_THREAD_COUNT = new IntegerDefinition(
+			MODULE + "HANDSHAKE_THREAD_COUNT",
+			"Number of DTLS handshake threads. 0 to use the connector threads.", 0, 0);
+	/**
+	 * Specify the maximum number of pending jobs of the
+	 * {@link #DTLS_HANDSHAKE_THREAD_COUNT}.
+	 * <p>
+	 * If exceeded, new handshakes are first verified using a
+	 * {@link HelloVerifyRequest}, and, if the number of pending jobs is still
+	 * exceeded, when the client repeats its CLIENT_HELLO, the CLIENT_HELLO is
+	 * dropped. That delays new handshakes until the pending jobs are processed.
+	 * Only used, if {@link #DTLS_HANDSHAKE_THREAD_COUNT} is larger than
+	 * {@code 0}.
+	 * 
+	 * @since 3.0
+	 */
+	public static final IntegerDefinition DTLS_MAX_PENDING_HANDSHAKE_JOBS = new IntegerDefinition(
+			MODULE + "MAX_PENDING_HANDSHAKE_JOBS", "Maximum number of pending DTLS handshake jobs.",
+			DEFAULT_MAX_PENDING_HANDSHAKE_JOBS, 1);
+	/**
+	 * Process received application data records inline by the receiver
+	 * threads.
+	 * <p>
+	 * If the connection is idle, the receiver thread decrypts and delivers
+	 * the application data records without passing them to the connector
+	 * threads. If the connection is busy, the records are passed to the
+	 * connector threads as usual. Handshake and alert records are always
+	 * processed by the connector threads.
+	 * 
+	 * @since 3.0
+	 */
+	public static final BooleanDefinition DTLS_INLINE_RECORD_PROCESSING = new BooleanDefinition(
+			MODULE + "INLINE_RECORD_PROCESSING",
+			"DTLS process application data records inline by the receiver threads, if the connection is idle.",
+			false);
 	/**
 	 * Specify the DTLS receive buffer size used for
 	 * {@link DatagramSocket#setReceiveBufferSize(int)}.
@@ -801,6 +898,8 @@ public final class DtlsConfig {
 			config.set(DTLS_DEFAULT_HANDSHAKE_MODE, null);
 			config.set(DTLS_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS);
 			config.set(DTLS_STALE_CONNECTION_THRESHOLD, DEFAULT_STALE_CONNECTION_TRESHOLD_SECONDS, TimeUnit.SECONDS);
+			config.set(DTLS_CONNECTION_STORE_STRIPES, 1);
+			config.set(DTLS_MAX_OFF_HEAP_CONNECTIONS, 0);
 			config.set(DTLS_OUTBOUND_MESSAGE_BUFFER_SIZE, DEFAULT_MAX_PENDING_OUTBOUND_MESSAGES);
 			config.set(DTLS_MAX_DEFERRED_OUTBOUND_APPLICATION_MESSAGES,
 					DEFAULT_MAX_DEFERRED_OUTBOUND_APPLICATION_MESSAGES);
@@ -808,6 +907,10 @@ public final class DtlsConfig {
 
 			config.set(DTLS_RECEIVER_THREAD_COUNT, CORES > 3 ? 2 : 1);
 			config.set(DTLS_CONNECTOR_THREAD_COUNT, CORES);
+			config.set(DTLS_CONNECTOR_VIRTUAL_THREADS, false);
+			config.set(DTLS_HANDSHAKE_THREAD_COUNT, 0);
+			config.set(DTLS_MAX_PENDING_HANDSHAKE_JOBS, DEFAULT_MAX_PENDING_HANDSHAKE_JOBS);
+			config.set(DTLS_INLINE_RECORD_PROCESSING, false);
 			config.set(DTLS_RECEIVE_BUFFER_SIZE, null);
 			config.set(DTLS_SEND_BUFFER_SIZE, null);
 			config.set(DTLS_USE_SERVER_NAME_INDICATION, false);
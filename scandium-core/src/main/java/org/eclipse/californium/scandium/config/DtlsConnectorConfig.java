@@ -1059,6 +1059,28 @@ public final class DtlsConnectorConfig {
 		return configuration.get(DtlsConfig.DTLS_STALE_CONNECTION_THRESHOLD, TimeUnit.SECONDS);
 	}
 
+	/**
+	 * Gets the number of stripes of the connection store.
+	 * 
+	 * @return number of stripes. {@code 1} for a single store-wide lock.
+	 * @see DtlsConfig#DTLS_CONNECTION_STORE_STRIPES
+	 * @since 3.0
+	 */
+	public Integer getConnectionStoreStripes() {
+		return configuration.get(DtlsConfig.DTLS_CONNECTION_STORE_STRIPES);
+	}
+
+	/**
+	 * Gets the maximum number of connections kept off-heap.
+	 * 
+	 * @return maximum number of off-heap connections. {@code 0}, if disabled.
+	 * @see DtlsConfig#DTLS_MAX_OFF_HEAP_CONNECTIONS
+	 * @since 3.0
+	 */
+	public Integer getMaxOffHeapConnections() {
+		return configuration.get(DtlsConfig.DTLS_MAX_OFF_HEAP_CONNECTIONS);
+	}
+
 	/**
 	 * Gets the number of threads which should be use to handle DTLS connection.
 	 * 
@@ -1070,6 +1092,42 @@ public final class DtlsConnectorConfig {
 		return configuration.get(DtlsConfig.DTLS_CONNECTOR_THREAD_COUNT);
 	}
 
+	/**
+	 * Checks, whether virtual threads should be used to handle DTLS
+	 * connections.
+	 * 
+	 * @return {@code true}, if virtual threads should be used, {@code false},
+	 *         if {@link #getConnectorThreadCount()} platform threads are used.
+	 * @see DtlsConfig#DTLS_CONNECTOR_VIRTUAL_THREADS
+	 * @since 3.0
+	 */
+	public Boolean useConnectorVirtualThreads() {
+		return configuration.get(DtlsConfig.DTLS_CONNECTOR_VIRTUAL_THREADS);
+	}
+
+	/**
+	 * Gets the number of threads which should be use to process handshakes.
+	 * 
+	 * @return the number of threads. {@code 0}, if handshakes are processed
+	 *         by the {@link #getConnectorThreadCount()} threads.
+	 * @see DtlsConfig#DTLS_HANDSHAKE_THREAD_COUNT
+	 * @since 3.0
+	 */
+	public Integer getHandshakeThreadCount() {
+		return configuration.get(DtlsConfig.DTLS_HANDSHAKE_THREAD_COUNT);
+	}
+
+	/**
+	 * Gets the maximum number of pending handshake jobs.
+	 * 
+	 * @return maximum number of pending handshake jobs.
+	 * @see DtlsConfig#DTLS_MAX_PENDING_HANDSHAKE_JOBS
+	 * @since 3.0
+	 */
+	public Integer getMaxPendingHandshakeJobs() {
+		return configuration.get(DtlsConfig.DTLS_MAX_PENDING_HANDSHAKE_JOBS);
+	}
+
 	/**
 	 * Gets the number of threads which should be use to receive datagrams from
 	 * the socket.
@@ -1081,6 +1139,20 @@ public final class DtlsConnectorConfig {
 		return configuration.get(DtlsConfig.DTLS_RECEIVER_THREAD_COUNT);
 	}
 
+	/**
+	 * Checks, whether received application data records are processed inline
+	 * by the receiver threads, if the connection is idle.
+	 * 
+	 * @return {@code true}, if application data records are processed inline,
+	 *         {@code false}, if all records are processed by the connector
+	 *         threads.
+	 * @see DtlsConfig#DTLS_INLINE_RECORD_PROCESSING
+	 * @since 3.0
+	 */
+	public Boolean useInlineRecordProcessing() {
+		return configuration.get(DtlsConfig.DTLS_INLINE_RECORD_PROCESSING);
+	}
+
 	/**
 	 * Gets size of the socket receive buffer.
 	 * 
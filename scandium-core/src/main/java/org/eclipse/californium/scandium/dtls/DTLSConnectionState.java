@@ -22,6 +22,7 @@
 package org.eclipse.californium.scandium.dtls;
 
 import java.security.GeneralSecurityException;
+import java.util.Arrays;
 
 import javax.crypto.SecretKey;
 import javax.security.auth.DestroyFailedException;
@@ -200,6 +201,36 @@ public abstract class DTLSConnectionState implements Destroyable {
 	 */
 	public abstract byte[] decrypt(Record record, byte[] ciphertextFragment) throws GeneralSecurityException;
 
+	/**
+	 * Decrypt fragment for provided record in place.
+	 * 
+	 * The decrypted fragment is written into the provided byte array starting
+	 * at the offset. The default implementation uses
+	 * {@link #decrypt(Record, byte[])} and copies the result back. Connection
+	 * states, which are able to decrypt without intermediate arrays, override
+	 * this method.
+	 * 
+	 * @param record record to decrypt fragment for
+	 * @param fragment byte array with encrypted fragment. Contains the
+	 *            decrypted fragment on return.
+	 * @param offset offset of the encrypted fragment
+	 * @param length length of the encrypted fragment
+	 * @return length of decrypted fragment, starting at offset
+	 * @throws GeneralSecurityException if an error occurred during decryption
+	 * @since 3.0
+	 */
+	public int decrypt(Record record, byte[] fragment, int offset, int length) throws GeneralSecurityException {
+		byte[] ciphertextFragment = fragment;
+		if (offset != 0 || length != fragment.length) {
+			ciphertextFragment = Arrays.copyOfRange(fragment, offset, offset + length);
+		}
+		byte[] decrypted = decrypt(record, ciphertextFragment);
+		if (decrypted != fragment) {
+			System.arraycopy(decrypted, 0, fragment, offset, decrypted.length);
+		}
+		return decrypted.length;
+	}
+
 	/**
 	 * Write cipher suite specific connection state to writer.
 	 * 
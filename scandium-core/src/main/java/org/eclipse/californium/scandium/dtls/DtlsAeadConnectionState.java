@@ -86,25 +86,8 @@ public class DtlsAeadConnectionState extends DTLSConnectionState {
 		 * explanation of additional data or
 		 * http://tools.ietf.org/html/rfc5116#section-2.1
 		 */
-		/*
-		 * http://tools.ietf.org/html/draft-mcgrew-tls-aes-ccm-ecc-03#section-2:
-		 * 
-		 * <pre> 
-		 * struct { 
-		 * case client: uint32 client_write_IV; // low order 32-bits 
-		 * case server: uint32 server_write_IV; // low order 32-bits
-		 * uint64 seq_num; 
-		 * } CCMNonce. 
-		 * </pre>
-		 * 
-		 * @param iv the write IV (either client or server).
-		 * 
-		 * @return the 12 bytes nonce.
-		 */
-		DatagramWriter writer = new DatagramWriter(12, true);
-		iv.writeTo(writer);
-		record.writeExplicitNonce(writer);
-		byte[] nonce = writer.toByteArray();
+		byte[] nonce = createNonce();
+		record.writeExplicitNonce(nonce, iv.size());
 		byte[] additionalData = record.generateAdditionalData(fragment.length);
 
 		if (LOGGER.isTraceEnabled()) {
@@ -112,14 +95,17 @@ public class DtlsAeadConnectionState extends DTLSConnectionState {
 			LOGGER.trace("nonce: {}", StringUtil.byteArray2HexString(nonce));
 			LOGGER.trace("adata: {}", StringUtil.byteArray2HexString(additionalData));
 		}
-		byte[] encryptedFragment = AeadBlockCipher.encrypt(cipherSuite, encryptionKey, nonce, additionalData, fragment);
+		int recordIvLength = cipherSuite.getRecordIvLength();
+		byte[] encryptedFragment = new byte[recordIvLength + fragment.length + cipherSuite.getMacLength()];
+		AeadBlockCipher.encrypt(cipherSuite, encryptionKey, nonce, additionalData, fragment, 0, fragment.length,
+				encryptedFragment, recordIvLength);
 
 		/*
 		 * Prepend the explicit nonce as specified in
 		 * http://tools.ietf.org/html/rfc5246#section-6.2.3.3 and
 		 * http://tools.ietf.org/html/draft-mcgrew-tls-aes-ccm-04#section-3
 		 */
-		System.arraycopy(nonce, cipherSuite.getFixedIvLength(), encryptedFragment, 0, cipherSuite.getRecordIvLength());
+		System.arraycopy(nonce, cipherSuite.getFixedIvLength(), encryptedFragment, 0, recordIvLength);
 		Bytes.clear(nonce);
 		LOGGER.trace("==> {} bytes", encryptedFragment.length);
 
@@ -131,25 +117,98 @@ public class DtlsAeadConnectionState extends DTLSConnectionState {
 		if (ciphertextFragment == null) {
 			throw new NullPointerException("Ciphertext must not be null");
 		}
-		int recordIvLength = cipherSuite.getRecordIvLength();
-		int applicationDataLength = ciphertextFragment.length - recordIvLength - cipherSuite.getMacLength();
+		int applicationDataLength = getApplicationDataLength(ciphertextFragment.length);
+		byte[] payload = new byte[applicationDataLength];
+		decrypt(record, ciphertextFragment, 0, ciphertextFragment.length, payload, 0);
+		return payload;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Decrypts the fragment without intermediate arrays. The explicit nonce
+	 * at the begin of the fragment is overwritten by the decrypted fragment.
+	 */
+	@Override
+	public int decrypt(Record record, byte[] fragment, int offset, int length) throws GeneralSecurityException {
+		if (fragment == null) {
+			throw new NullPointerException("Ciphertext must not be null");
+		}
+		return decrypt(record, fragment, offset, length, fragment, offset);
+	}
+
+	/**
+	 * Get length of application data.
+	 * 
+	 * The decrypted message is always 16/24 bytes shorter than the cipher
+	 * (8/16 for the authentication tag and 8 for the explicit nonce).
+	 * 
+	 * @param ciphertextLength length of ciphertext fragment
+	 * @return length of application data
+	 * @throws GeneralSecurityException if ciphertext is too short
+	 * @since 3.0
+	 */
+	private int getApplicationDataLength(int ciphertextLength) throws GeneralSecurityException {
+		int applicationDataLength = ciphertextLength - cipherSuite.getRecordIvLength() - cipherSuite.getMacLength();
 		if (applicationDataLength <= 0) {
 			throw new GeneralSecurityException("Ciphertext too short!");
 		}
+		return applicationDataLength;
+	}
+
+	/**
+	 * Create nonce and write the iv into it.
+	 * 
+	 * http://tools.ietf.org/html/draft-mcgrew-tls-aes-ccm-ecc-03#section-2:
+	 * 
+	 * <pre>
+	 * struct {
+	 * case client: uint32 client_write_IV; // low order 32-bits
+	 * case server: uint32 server_write_IV; // low order 32-bits
+	 * uint64 seq_num;
+	 * } CCMNonce.
+	 * </pre>
+	 * 
+	 * The explicit part of the nonce must be written by the caller after the
+	 * iv.
+	 * 
+	 * @return the 12 bytes nonce with the iv written into.
+	 * @since 3.0
+	 */
+	private byte[] createNonce() {
+		byte[] nonce = new byte[iv.size() + cipherSuite.getRecordIvLength()];
+		iv.writeTo(nonce, 0);
+		return nonce;
+	}
+
+	/**
+	 * Decrypt fragment into provided buffer.
+	 * 
+	 * @param record record to decrypt fragment for
+	 * @param ciphertextFragment byte array with encrypted fragment
+	 * @param offset offset of the encrypted fragment
+	 * @param length length of the encrypted fragment
+	 * @param output buffer for the decrypted fragment. May be the
+	 *            ciphertextFragment, if the outputOffset is not larger than
+	 *            the offset.
+	 * @param outputOffset offset within output
+	 * @return length of decrypted fragment
+	 * @throws GeneralSecurityException if an error occurred during decryption
+	 * @since 3.0
+	 */
+	private int decrypt(Record record, byte[] ciphertextFragment, int offset, int length, byte[] output,
+			int outputOffset) throws GeneralSecurityException {
+		int recordIvLength = cipherSuite.getRecordIvLength();
+		int applicationDataLength = getApplicationDataLength(length);
 		/*
 		 * See http://tools.ietf.org/html/rfc5246#section-6.2.3.3 and
 		 * http://tools.ietf.org/html/rfc5116#section-2.1 for an explanation of
 		 * "additional data" and its structure
-		 * 
-		 * The decrypted message is always 16/24 bytes shorter than the cipher
-		 * (8/16 for the authentication tag and 8 for the explicit nonce).
 		 */
 		byte[] additionalData = record.generateAdditionalData(applicationDataLength);
 
-		DatagramWriter writer = new DatagramWriter(12, true);
-		iv.writeTo(writer);
-		writer.writeBytes(ciphertextFragment, 0, recordIvLength);
-		byte[] nonce = writer.toByteArray();
+		byte[] nonce = createNonce();
+		System.arraycopy(ciphertextFragment, offset, nonce, iv.size(), recordIvLength);
 
 		if (LOGGER.isTraceEnabled()) {
 			LOGGER.trace("decrypt: {} bytes", applicationDataLength);
@@ -158,11 +217,11 @@ public class DtlsAeadConnectionState extends DTLSConnectionState {
 		}
 		if (LOGGER.isDebugEnabled() && AeadBlockCipher.AES_CCM.equals(cipherSuite.getTransformation())) {
 			// create explicit nonce from values provided in DTLS record
-			byte[] explicitNonceUsed = Arrays.copyOf(ciphertextFragment, recordIvLength);
+			byte[] explicitNonceUsed = Arrays.copyOfRange(ciphertextFragment, offset, offset + recordIvLength);
 			// retrieve actual explicit nonce as contained in GenericAEADCipher
 			// struct (8 bytes long)
-			record.writeExplicitNonce(writer);
-			byte[] explicitNonce = writer.toByteArray();
+			byte[] explicitNonce = new byte[recordIvLength];
+			record.writeExplicitNonce(explicitNonce, 0);
 			if (!Arrays.equals(explicitNonce, explicitNonceUsed)) {
 				StringBuilder b = new StringBuilder(
 						"The explicit nonce used by the sender does not match the values provided in the DTLS record");
@@ -173,10 +232,12 @@ public class DtlsAeadConnectionState extends DTLSConnectionState {
 				LOGGER.debug(b.toString());
 			}
 		}
-		byte[] payload = AeadBlockCipher.decrypt(cipherSuite, encryptionKey, nonce, additionalData, ciphertextFragment,
-				recordIvLength, ciphertextFragment.length - recordIvLength);
-		Bytes.clear(nonce);
-		return payload;
+		try {
+			return AeadBlockCipher.decrypt(cipherSuite, encryptionKey, nonce, additionalData, ciphertextFragment,
+					offset + recordIvLength, length - recordIvLength, output, outputOffset);
+		} finally {
+			Bytes.clear(nonce);
+		}
 	}
 
 	@Override
@@ -233,13 +233,25 @@ public class InMemoryConnectionStore implements ResumptionSupportingConnectionSt
 	private ConnectionId newConnectionId() {
 		for (int i = 0; i < 10; ++i) {
 			ConnectionId cid = connectionIdGenerator.createConnectionId();
-			if (connections.get(cid) == null) {
+			if (!containsConnectionId(cid)) {
 				return cid;
 			}
 		}
 		return null;
 	}
 
+	/**
+	 * Checks, if the connection id is already in use.
+	 * 
+	 * @param cid connection id
+	 * @return {@code true}, if the connection id is in use, {@code false},
+	 *         otherwise.
+	 * @since 3.0
+	 */
+	protected boolean containsConnectionId(ConnectionId cid) {
+		return connections.get(cid) != null;
+	}
+
 	@Override
 	public void setConnectionListener(ConnectionListener listener) {
 		this.connectionListener = listener;
@@ -292,7 +304,7 @@ public class InMemoryConnectionStore implements ResumptionSupportingConnectionSt
 				connection.setConnectionId(connectionId);
 			} else if (connectionId.isEmpty()) {
 				throw new IllegalStateException("Connection must have a none empty connection id!");
-			} else if (connections.get(connectionId) != null) {
+			} else if (containsConnectionId(connectionId)) {
 				throw new IllegalStateException("Connection id already used! " + connectionId);
 			}
 			DTLSSession session = connection.getEstablishedSession();
@@ -609,7 +621,7 @@ public class InMemoryConnectionStore implements ResumptionSupportingConnectionSt
 	}
 
 	@Override
-	public final synchronized void clear() {
+	public synchronized void clear() {
 		for (Connection connection : connections.values()) {
 			SerialExecutor executor = connection.getExecutor();
 			if (executor != null) {
@@ -730,27 +742,78 @@ public class InMemoryConnectionStore implements ResumptionSupportingConnectionSt
 			throw new IllegalStateException("Connection must have a connection id!");
 		} else if (connectionId.isEmpty()) {
 			throw new IllegalStateException("Connection must have a none empty connection id!");
-		} else if (connections.get(connectionId) != null) {
+		} else if (containsConnectionId(connectionId)) {
 			throw new IllegalStateException("Connection id already used! " + connectionId);
 		}
-		boolean restored = false;
-		synchronized (connections) {
-			if (connections.put(connectionId, connection, connection.getLastMessageNanos())) {
-				if (LOGGER.isTraceEnabled()) {
-					LOGGER.trace("{}connection: add {} (size {})", tag, connection, connections.size(),
-							new Throwable("connection added!"));
-				} else {
-					LOGGER.debug("{}connection: add {} (size {})", tag, connectionId, connections.size());
-				}
-				addToAddressConnections(connection);
-				restored = true;
-			} else {
-				LOGGER.warn("{}connection store is full! {} max. entries.", tag, connections.getCapacity());
-			}
-		}
+		boolean restored = addLocally(connection, connection.getLastMessageNanos());
 		if (restored && connection.hasEstablishedDtlsContext()) {
 			putEstablishedSession(connection);
 		}
 		return restored;
 	}
+
+	/**
+	 * Add connection to this store.
+	 * 
+	 * Adds the connection to the indexes of this store without notifying the
+	 * {@link ConnectionListener} and without adding the session to the
+	 * {@link SessionStore}.
+	 * 
+	 * @param connection connection to add
+	 * @param lastUpdate last update in nanoseconds for the least recently used
+	 *            order.
+	 * @return {@code true}, if added, {@code false}, if the store is full.
+	 * @since 3.0
+	 */
+	protected synchronized boolean addLocally(Connection connection, long lastUpdate) {
+		ConnectionId connectionId = connection.getConnectionId();
+		if (connections.put(connectionId, connection, lastUpdate)) {
+			if (LOGGER.isTraceEnabled()) {
+				LOGGER.trace("{}connection: add {} (size {})", tag, connection, connections.size(),
+						new Throwable("connection added!"));
+			} else {
+				LOGGER.debug("{}connection: add {} (size {})", tag, connectionId, connections.size());
+			}
+			addToAddressConnections(connection);
+			SessionId sessionId = connection.getEstablishedSessionIdentifier();
+			if (sessionId != null && !sessionId.isEmpty()) {
+				addToEstablishedConnections(sessionId, connection);
+			}
+			return true;
+		} else {
+			LOGGER.warn("{}connection store is full! {} max. entries.", tag, connections.getCapacity());
+			return false;
+		}
+	}
+
+	/**
+	 * Remove connection from this store.
+	 * 
+	 * Shutdown the executor of the connection, removes the connection from the
+	 * indexes of this store and destroys the keys. Neither notifies the
+	 * {@link ConnectionListener} nor removes the session from the
+	 * {@link SessionStore}.
+	 * 
+	 * @param connection connection to remove
+	 * @return {@code true}, if removed, {@code false}, if not contained in this
+	 *         store.
+	 * @since 3.0
+	 */
+	protected synchronized boolean removeLocally(Connection connection) {
+		SessionId sessionId = connection.getEstablishedSessionIdentifier();
+		if (connections.remove(connection.getConnectionId(), connection) == connection) {
+			if (connection.isExecuting()) {
+				List<Runnable> pendings = connection.getExecutor().shutdownNow();
+				if (!pendings.isEmpty()) {
+					LOGGER.debug("{}connection: remove locally {} (left jobs: {})", tag, connection.getConnectionId(),
+							pendings.size());
+				}
+			}
+			removeByAddressConnections(connection);
+			removeByEstablishedSessions(sessionId, connection);
+			SecretUtil.destroy(connection.getDtlsContext());
+			return true;
+		}
+		return false;
+	}
 }
@@ -0,0 +1,963 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.scandium.dtls;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.util.ClockUtil;
+import org.eclipse.californium.elements.util.DataStreamReader;
+import org.eclipse.californium.elements.util.DatagramWriter;
+import org.eclipse.californium.elements.util.LeastRecentlyUsedCache;
+import org.eclipse.californium.elements.util.LeastRecentlyUsedCache.Timestamped;
+import org.eclipse.californium.elements.util.SerialExecutor;
+import org.eclipse.californium.elements.util.SerializationUtil;
+import org.eclipse.californium.elements.util.StringUtil;
+import org.eclipse.californium.scandium.ConnectionListener;
+import org.eclipse.californium.scandium.util.SecretUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An in-memory {@code ResumptionSupportingConnectionStore} using lock
+ * striping.
+ * <p>
+ * The connections are distributed by the hash of their connection id over a
+ * number of stripes. Each stripe keeps its own {@link LeastRecentlyUsedCache}
+ * with a share of the total capacity and is guarded by its own lock.
+ * Connections of different stripes are therefore added, updated, and removed
+ * without contending on a single store-wide lock. The lookups by peer address
+ * and session id are backed by {@link ConcurrentHashMap}s, the lookups by
+ * connection id read the {@link ConcurrentHashMap} of the stripe's cache. All
+ * lookups are done without any lock.
+ * </p>
+ * <p>
+ * Creating or replacing the connection of a peer address, and reviving a
+ * connection, requires a lock on the caller's side as well. Instead of
+ * locking the whole store, such callers use the striped locks of
+ * {@link #getAddressLock(InetSocketAddress)} and
+ * {@link #getConnectionIdLock(ConnectionId)}. If both are required, the
+ * address lock must be acquired first.
+ * </p>
+ * <p>
+ * The semantics are the same as for the {@link InMemoryConnectionStore}, with
+ * the exception, that the capacity and the <em>least recently used</em> policy
+ * are applied per stripe. A connection can be successfully added to the store,
+ * if the stripe of its connection id has remaining capacity, or contains at
+ * least one <em>stale</em> connection. In that case, the least recently
+ * accessed stale connection of that stripe gets evicted. With the random
+ * connection ids, the connections are evenly distributed over the stripes.
+ * </p>
+ * <p>
+ * Supports also a {@link SessionStore} implementation to keep sessions for
+ * longer or in a distribute system. If the connection store evicts a connection
+ * in order to gain storage for new connections, the associated session remains
+ * in the session store. Therefore the session store requires a own, independent
+ * cleanup for stale sessions. If a connection is removed by a critical ALERT,
+ * the session get's removed also from the session store.
+ * </p>
+ *
+ * @since 3.0
+ */
+public class InMemoryStripedConnectionStore implements ResumptionSupportingConnectionStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryStripedConnectionStore.class);
+	// extra cid bytes additionally to required bytes for small capacity.
+	private static final int DEFAULT_SMALL_EXTRA_CID_LENGTH = 2;
+	// extra cid bytes additionally to required bytes for large capacity.
+	private static final int DEFAULT_LARGE_EXTRA_CID_LENGTH = 3;
+	private static final int DEFAULT_CACHE_SIZE = 150000;
+	private static final long DEFAULT_EXPIRATION_THRESHOLD = 36 * 60 * 60; // 36h
+	/**
+	 * Default number of stripes.
+	 */
+	public static final int DEFAULT_STRIPES = 16;
+	private static boolean SINGLE_SESSION_STORE = true;
+	private final SessionStore sessionStore;
+	private final Stripe[] stripes;
+	/**
+	 * Striped locks for peer addresses.
+	 *
+	 * @see #getAddressLock(InetSocketAddress)
+	 */
+	private final Object[] addressLocks;
+	/**
+	 * Striped locks for connection ids.
+	 *
+	 * @see #getConnectionIdLock(ConnectionId)
+	 */
+	private final Object[] connectionIdLocks;
+	private final int capacity;
+	protected final ConcurrentMap<InetSocketAddress, Connection> connectionsByAddress;
+	protected final ConcurrentMap<SessionId, Connection> connectionsByEstablishedSession;
+
+	private volatile ConnectionListener connectionListener;
+	/**
+	 * Connection id generator.
+	 *
+	 * @see #attach(ConnectionIdGenerator)
+	 */
+	private volatile ConnectionIdGenerator connectionIdGenerator;
+
+	protected volatile String tag = "";
+
+	/**
+	 * Creates a store with a capacity of 150000 connections, a connection
+	 * expiration threshold of 36 hours, and {@link #DEFAULT_STRIPES}.
+	 */
+	public InMemoryStripedConnectionStore() {
+		this(DEFAULT_CACHE_SIZE, DEFAULT_EXPIRATION_THRESHOLD, DEFAULT_STRIPES, null);
+	}
+
+	/**
+	 * Creates a store based on given configuration parameters.
+	 *
+	 * @param capacity the maximum number of connections the store can manage
+	 * @param threshold the period of time of inactivity (in seconds) after
+	 *            which a connection is considered stale and can be evicted from
+	 *            the store if a new connection is to be added to the store
+	 * @param stripes number of stripes. Limited to the capacity.
+	 * @param sessionStore a second level store to use for <em>current</em>
+	 *            connection state of established DTLS sessions.
+	 * @throws IllegalArgumentException if capacity or stripes are less than
+	 *             {@code 1}.
+	 */
+	public InMemoryStripedConnectionStore(int capacity, long threshold, int stripes, SessionStore sessionStore) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must not be less than 1!");
+		}
+		if (stripes < 1) {
+			throw new IllegalArgumentException("Stripes must not be less than 1!");
+		}
+		if (stripes > capacity) {
+			stripes = capacity;
+		}
+		this.capacity = capacity;
+		this.stripes = new Stripe[stripes];
+		int stripeCapacity = capacity / stripes;
+		int remainder = capacity % stripes;
+		for (int index = 0; index < stripes; ++index) {
+			this.stripes[index] = new Stripe(index < remainder ? stripeCapacity + 1 : stripeCapacity, threshold);
+		}
+		this.addressLocks = new Object[stripes];
+		this.connectionIdLocks = new Object[stripes];
+		for (int index = 0; index < stripes; ++index) {
+			this.addressLocks[index] = new Object();
+			this.connectionIdLocks[index] = new Object();
+		}
+		this.connectionsByAddress = new ConcurrentHashMap<>();
+		this.sessionStore = sessionStore;
+		if (SINGLE_SESSION_STORE && sessionStore != null) {
+			this.connectionsByEstablishedSession = null;
+		} else {
+			this.connectionsByEstablishedSession = new ConcurrentHashMap<>();
+		}
+		LOGGER.info(
+				"Created new InMemoryStripedConnectionStore [capacity: {}, stripes: {}, connection expiration threshold: {}s]",
+				capacity, stripes, threshold);
+	}
+
+	/**
+	 * Set tag for logging outputs.
+	 *
+	 * @param tag tag for logging
+	 * @return this connection store for calls chaining
+	 */
+	public InMemoryStripedConnectionStore setTag(final String tag) {
+		this.tag = StringUtil.normalizeLoggingTag(tag);
+		return this;
+	}
+
+	/**
+	 * Get number of stripes.
+	 *
+	 * @return number of stripes
+	 */
+	public int getStripes() {
+		return stripes.length;
+	}
+
+	/**
+	 * Get stripe for connection id.
+	 *
+	 * @param cid connection id
+	 * @return stripe
+	 */
+	private Stripe getStripe(ConnectionId cid) {
+		return stripes[getIndex(cid)];
+	}
+
+	/**
+	 * Get index of stripe for key.
+	 *
+	 * @param key key
+	 * @return index of stripe
+	 */
+	private int getIndex(Object key) {
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		return (hash & Integer.MAX_VALUE) % stripes.length;
+	}
+
+	/**
+	 * Get lock for the connection of a peer address.
+	 *
+	 * Used by callers to create or replace the connection of a peer address
+	 * atomically without locking the whole store. Must not be acquired while
+	 * holding a lock of {@link #getConnectionIdLock(ConnectionId)}.
+	 *
+	 * @param peerAddress peer address
+	 * @return lock for the peer address
+	 */
+	public Object getAddressLock(InetSocketAddress peerAddress) {
+		return addressLocks[getIndex(peerAddress)];
+	}
+
+	/**
+	 * Get lock for a connection.
+	 *
+	 * Used by callers to revive or restore a connection atomically without
+	 * locking the whole store.
+	 *
+	 * @param cid connection id of the connection
+	 * @return lock for the connection id
+	 */
+	public Object getConnectionIdLock(ConnectionId cid) {
+		return connectionIdLocks[getIndex(cid)];
+	}
+
+	/**
+	 * Creates a new unused connection id.
+	 *
+	 * @return connection id, or {@code null}, if no free connection id could
+	 *         created
+	 * @see #connectionIdGenerator
+	 * @see ConnectionIdGenerator
+	 */
+	private ConnectionId newConnectionId() {
+		for (int i = 0; i < 10; ++i) {
+			ConnectionId cid = connectionIdGenerator.createConnectionId();
+			if (getStripe(cid).connections.get(cid) == null) {
+				return cid;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void setConnectionListener(ConnectionListener listener) {
+		this.connectionListener = listener;
+	}
+
+	@Override
+	public void attach(ConnectionIdGenerator connectionIdGenerator) {
+		if (this.connectionIdGenerator != null) {
+			throw new IllegalStateException("Connection id generator already attached!");
+		}
+		if (connectionIdGenerator == null || !connectionIdGenerator.useConnectionId()) {
+			int bits = Integer.SIZE - Integer.numberOfLeadingZeros(capacity);
+			int cidLength = ((bits + 7) / 8); // required bytes for capacity
+			cidLength += (cidLength < 3) ? DEFAULT_SMALL_EXTRA_CID_LENGTH : DEFAULT_LARGE_EXTRA_CID_LENGTH;
+			this.connectionIdGenerator = new SingleNodeConnectionIdGenerator(cidLength);
+		} else {
+			this.connectionIdGenerator = connectionIdGenerator;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * A connection can be successfully added to the store if any of the
+	 * following conditions is met:
+	 * <ul>
+	 * <li>The remaining capacity of the connection id's stripe is greater than
+	 * zero.</li>
+	 * <li>The connection id's stripe contains at least one <em>stale</em>
+	 * connection, i.e. a connection that has not been accessed for at least the
+	 * store's <em> connection expiration threshold</em> period. In such a case
+	 * the least- recently accessed stale connection of that stripe gets evicted
+	 * from the store to make place for the new connection to be added.</li>
+	 * </ul>
+	 */
+	@Override
+	public boolean put(final Connection connection) {
+		if (connection != null) {
+			if (!connection.isExecuting()) {
+				throw new IllegalStateException("Connection is not executing!");
+			}
+			ConnectionId connectionId = connection.getConnectionId();
+			if (connectionId == null) {
+				if (connectionIdGenerator == null) {
+					throw new IllegalStateException("Connection id generator must be attached before!");
+				}
+				connectionId = newConnectionId();
+				if (connectionId == null) {
+					throw new IllegalStateException("Connection ids exhausted!");
+				}
+				connection.setConnectionId(connectionId);
+			} else if (connectionId.isEmpty()) {
+				throw new IllegalStateException("Connection must have a none empty connection id!");
+			} else if (get(connectionId) != null) {
+				throw new IllegalStateException("Connection id already used! " + connectionId);
+			}
+			DTLSSession session = connection.getEstablishedSession();
+			boolean success = false;
+			Runnable removeAddress = null;
+			Runnable removeSession = null;
+			Stripe stripe = getStripe(connectionId);
+			synchronized (stripe) {
+				if (stripe.connections.put(connectionId, connection)) {
+					if (LOGGER.isTraceEnabled()) {
+						LOGGER.trace("{}connection: add {} (stripe size {})", tag, connection,
+								stripe.connections.size(), new Throwable("connection added!"));
+					} else {
+						LOGGER.debug("{}connection: add {} (stripe size {})", tag, connectionId,
+								stripe.connections.size());
+					}
+					removeAddress = addToAddressConnections(connection);
+					if (session != null) {
+						removeSession = addToEstablishedConnections(session.getSessionIdentifier(), connection);
+					}
+					success = true;
+				} else {
+					LOGGER.warn("{}connection store stripe is full! {} max. entries.", tag,
+							stripe.connections.getCapacity());
+				}
+			}
+			run(removeAddress);
+			run(removeSession);
+			if (success && sessionStore != null && session != null) {
+				sessionStore.put(session);
+			}
+			return success;
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public boolean update(final Connection connection, InetSocketAddress newPeerAddress) {
+		if (connection == null) {
+			return false;
+		}
+		ConnectionId connectionId = connection.getConnectionId();
+		Runnable removeAddress = null;
+		Stripe stripe = getStripe(connectionId);
+		synchronized (stripe) {
+			if (stripe.connections.update(connectionId)) {
+				connection.refreshAutoResumptionTime();
+				if (newPeerAddress == null) {
+					LOGGER.debug("{}connection: {} updated usage!", tag, connectionId);
+				} else if (!connection.equalsPeerAddress(newPeerAddress)) {
+					InetSocketAddress oldPeerAddress = connection.getPeerAddress();
+					if (LOGGER.isTraceEnabled()) {
+						LOGGER.trace("{}connection: {} updated, address changed from {} to {}!", tag, connectionId,
+								StringUtil.toLog(oldPeerAddress), StringUtil.toLog(newPeerAddress),
+								new Throwable("connection updated!"));
+					} else {
+						LOGGER.debug("{}connection: {} updated, address changed from {} to {}!", tag, connectionId,
+								StringUtil.toLog(oldPeerAddress), StringUtil.toLog(newPeerAddress));
+					}
+					if (oldPeerAddress != null) {
+						connectionsByAddress.remove(oldPeerAddress, connection);
+						connection.updatePeerAddress(null);
+					}
+					connection.updatePeerAddress(newPeerAddress);
+					removeAddress = addToAddressConnections(connection);
+				}
+			} else {
+				connectionId = null;
+			}
+		}
+		if (connectionId != null) {
+			run(removeAddress);
+			return true;
+		}
+		LOGGER.debug("{}connection: {} - {} update failed!", tag, connection.getConnectionId(),
+				StringUtil.toLog(newPeerAddress));
+		return false;
+	}
+
+	@Override
+	public void putEstablishedSession(Connection connection) {
+		DTLSSession session = connection.getEstablishedSession();
+		if (session == null) {
+			throw new IllegalArgumentException("connection has no established session!");
+		}
+		ConnectionListener listener = connectionListener;
+		if (listener != null) {
+			listener.onConnectionEstablished(connection);
+		}
+		SessionId sessionId = session.getSessionIdentifier();
+		if (!sessionId.isEmpty()) {
+			Runnable removeSession;
+			synchronized (getStripe(connection.getConnectionId())) {
+				removeSession = addToEstablishedConnections(sessionId, connection);
+			}
+			run(removeSession);
+			if (sessionStore != null) {
+				sessionStore.put(session);
+			}
+		}
+	}
+
+	@Override
+	public void removeFromEstablishedSessions(Connection connection) {
+		SessionId sessionId = connection.getEstablishedSessionIdentifier();
+		if (sessionId == null) {
+			throw new IllegalArgumentException("connection has no established session!");
+		}
+		synchronized (getStripe(connection.getConnectionId())) {
+			removeByEstablishedSessions(sessionId, connection);
+		}
+	}
+
+	@Override
+	public DTLSSession find(SessionId id) {
+
+		if (id == null || id.isEmpty()) {
+			return null;
+		} else {
+			DTLSSession session = null;
+			if (sessionStore != null) {
+				session = sessionStore.get(id);
+			}
+			Connection connection = findLocally(id);
+			if (connection != null) {
+				if (sessionStore == null) {
+					DTLSSession establishedSession = connection.getEstablishedSession();
+					if (establishedSession != null) {
+						session = new DTLSSession(establishedSession);
+					}
+				} else if (session == null) {
+					// remove corresponding connection from this store
+					remove(connection, false);
+					return null;
+				}
+			}
+			return session;
+		}
+	}
+
+	private Connection findLocally(final SessionId id) {
+		if (id == null) {
+			throw new NullPointerException("DTLS Session ID must not be null!");
+		}
+		if (connectionsByEstablishedSession == null) {
+			return null;
+		}
+		Connection connection = connectionsByEstablishedSession.get(id);
+		if (connection != null) {
+			SessionId establishedId = connection.getEstablishedSessionIdentifier();
+			if (establishedId != null) {
+				if (!id.equals(establishedId)) {
+					LOGGER.warn("{}connection {} changed session {}!={}!", tag, connection.getConnectionId(), id,
+							establishedId);
+				}
+			} else {
+				LOGGER.warn("{}connection {} lost session {}!", tag, connection.getConnectionId(), id);
+			}
+			ConnectionId connectionId = connection.getConnectionId();
+			Stripe stripe = getStripe(connectionId);
+			synchronized (stripe) {
+				stripe.connections.update(connectionId);
+			}
+		}
+		return connection;
+	}
+
+	@Override
+	public void markAllAsResumptionRequired() {
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				for (Connection connection : stripe.connections.values()) {
+					if (connection.getPeerAddress() != null && !connection.isResumptionRequired()) {
+						connection.setResumptionRequired(true);
+						LOGGER.debug("{}connection: mark for resumption {}!", tag, connection);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public int remainingCapacity() {
+		int size = 0;
+		int remaining = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.connections.size();
+				remaining += stripe.connections.remainingCapacity();
+			}
+		}
+		LOGGER.debug("{}connection: size {}, remaining {}!", tag, size, remaining);
+		return remaining;
+	}
+
+	@Override
+	public Connection get(final InetSocketAddress peerAddress) {
+		Connection connection = connectionsByAddress.get(peerAddress);
+		if (connection == null) {
+			LOGGER.debug("{}connection: missing connection for {}!", tag, StringUtil.toLog(peerAddress));
+		} else {
+			InetSocketAddress address = connection.getPeerAddress();
+			if (address == null) {
+				LOGGER.warn("{}connection {} lost ip-address {}!", tag, connection.getConnectionId(),
+						StringUtil.toLog(peerAddress));
+			} else if (!address.equals(peerAddress)) {
+				LOGGER.warn("{}connection {} changed ip-address {}!={}!", tag, connection.getConnectionId(),
+						StringUtil.toLog(peerAddress), StringUtil.toLog(address));
+			}
+		}
+		return connection;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * The stripe's cache neither evicts nor updates entries on read access.
+	 * Therefore the lookup reads only the underlying {@link ConcurrentHashMap}
+	 * and doesn't require the stripe's lock.
+	 */
+	@Override
+	public Connection get(final ConnectionId cid) {
+		Connection connection = getStripe(cid).connections.get(cid);
+		if (connection == null) {
+			LOGGER.debug("{}connection: missing connection for {}!", tag, cid);
+		} else {
+			ConnectionId connectionId = connection.getConnectionId();
+			if (connectionId == null) {
+				LOGGER.warn("{}connection lost cid {}!", tag, cid);
+			} else if (!connectionId.equals(cid)) {
+				LOGGER.warn("{}connection changed cid {}!={}!", tag, connectionId, cid);
+			}
+		}
+		return connection;
+	}
+
+	@Override
+	public boolean remove(final Connection connection, final boolean removeFromSessionCache) {
+		boolean removed;
+		SessionId sessionId = connection.getEstablishedSessionIdentifier();
+		Stripe stripe = getStripe(connection.getConnectionId());
+		synchronized (stripe) {
+			removed = stripe.connections.remove(connection.getConnectionId(), connection) == connection;
+			if (removed) {
+				if (connection.isExecuting()) {
+					List<Runnable> pendings = connection.getExecutor().shutdownNow();
+					if (LOGGER.isTraceEnabled()) {
+						LOGGER.trace("{}connection: remove {} (stripe size {}, left jobs: {})", tag, connection,
+								stripe.connections.size(), pendings.size(), new Throwable("connection removed!"));
+					} else if (pendings.isEmpty()) {
+						LOGGER.debug("{}connection: remove {} (stripe size {})", tag, connection,
+								stripe.connections.size());
+					} else {
+						LOGGER.debug("{}connection: remove {} (stripe size {}, left jobs: {})", tag, connection,
+								stripe.connections.size(), pendings.size());
+					}
+				} else {
+					if (LOGGER.isTraceEnabled()) {
+						LOGGER.trace("{}connection: remove {} (stripe size {})", tag, connection,
+								stripe.connections.size(), new Throwable("connection removed!"));
+					} else {
+						LOGGER.debug("{}connection: remove {} (stripe size {})", tag, connection,
+								stripe.connections.size());
+					}
+				}
+				removeByAddressConnections(connection);
+				removeByEstablishedSessions(sessionId, connection);
+				ConnectionListener listener = connectionListener;
+				if (listener != null) {
+					listener.onConnectionRemoved(connection);
+				}
+				// destroy keys.
+				SecretUtil.destroy(connection.getDtlsContext());
+			}
+		}
+		if (removeFromSessionCache) {
+			removeSessionFromStore(sessionId);
+		}
+		return removed;
+	}
+
+	private void removeByEstablishedSessions(SessionId sessionId, Connection connection) {
+		if (connectionsByEstablishedSession != null && sessionId != null && !sessionId.isEmpty()) {
+			connectionsByEstablishedSession.remove(sessionId, connection);
+		}
+	}
+
+	private void removeByAddressConnections(Connection connection) {
+		InetSocketAddress peerAddress = connection.getPeerAddress();
+		if (peerAddress != null) {
+			connectionsByAddress.remove(peerAddress, connection);
+			connection.updatePeerAddress(null);
+		}
+	}
+
+	private void removeSessionFromStore(SessionId sessionId) {
+		if (sessionStore != null && sessionId != null && !sessionId.isEmpty()) {
+			sessionStore.remove(sessionId);
+		}
+	}
+
+	/**
+	 * Run job, if available.
+	 *
+	 * Used to execute jobs, which must not be executed while holding the lock
+	 * of a stripe.
+	 *
+	 * @param job job to run. May be {@code null}.
+	 */
+	private static void run(Runnable job) {
+		if (job != null) {
+			job.run();
+		}
+	}
+
+	/**
+	 * Add connection to the address map.
+	 *
+	 * If the address was used by a previous connection, the address is removed
+	 * from that previous connection using its executor. If that previous
+	 * connection is not executing, the job is returned and must be executed by
+	 * the caller after releasing the lock of the stripe. That job may acquire
+	 * the lock of a other stripe.
+	 *
+	 * @param connection connection to add
+	 * @return job to execute after releasing the lock, or {@code null}.
+	 */
+	private Runnable addToAddressConnections(Connection connection) {
+		final InetSocketAddress peerAddress = connection.getPeerAddress();
+		if (peerAddress != null) {
+			final Connection previous = connectionsByAddress.put(peerAddress, connection);
+			if (previous != null && previous != connection) {
+				Runnable removeAddress = new Runnable() {
+
+					@Override
+					public void run() {
+						if (previous.equalsPeerAddress(peerAddress)) {
+							previous.updatePeerAddress(null);
+							if (connectionsByEstablishedSession == null) {
+								if (!previous.expectCid()) {
+									remove(previous, false);
+								}
+							}
+						}
+					}
+				};
+				LOGGER.debug("{}connection: {} - {} added! {} removed from address.", tag, connection.getConnectionId(),
+						StringUtil.toLog(peerAddress), previous.getConnectionId());
+				if (previous.isExecuting()) {
+					previous.getExecutor().execute(removeAddress);
+				} else {
+					return removeAddress;
+				}
+			} else {
+				LOGGER.debug("{}connection: {} - {} added!", tag, connection.getConnectionId(),
+						StringUtil.toLog(peerAddress));
+			}
+		} else {
+			LOGGER.debug("{}connection: {} - missing address!", tag, connection.getConnectionId());
+		}
+		return null;
+	}
+
+	/**
+	 * Add connection to the established sessions map.
+	 *
+	 * If the session was used by a previous connection, that connection is
+	 * removed using its executor. If that previous connection is not
+	 * executing, the job is returned and must be executed by the caller after
+	 * releasing the lock of the stripe.
+	 *
+	 * @param sessionId session id of the connection
+	 * @param connection connection to add
+	 * @return job to execute after releasing the lock, or {@code null}.
+	 */
+	private Runnable addToEstablishedConnections(SessionId sessionId, Connection connection) {
+		if (connectionsByEstablishedSession != null) {
+			final Connection previous = connectionsByEstablishedSession.put(sessionId, connection);
+			if (previous != null && previous != connection) {
+				Runnable removePreviousConnection = new Runnable() {
+
+					@Override
+					public void run() {
+						remove(previous, false);
+					}
+				};
+				if (previous.isExecuting()) {
+					previous.getExecutor().execute(removePreviousConnection);
+				} else {
+					return removePreviousConnection;
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public final void clear() {
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				for (Connection connection : stripe.connections.values()) {
+					SerialExecutor executor = connection.getExecutor();
+					if (executor != null) {
+						executor.shutdownNow();
+					}
+				}
+				stripe.connections.clear();
+			}
+		}
+		if (connectionsByEstablishedSession != null) {
+			connectionsByEstablishedSession.clear();
+		}
+		connectionsByAddress.clear();
+	}
+
+	@Override
+	public final void stop(List<Runnable> pending) {
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				for (Connection connection : stripe.connections.values()) {
+					SerialExecutor executor = connection.getExecutor();
+					if (executor != null) {
+						executor.shutdownNow(pending);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Iterates the stripes one after the other.
+	 *
+	 * @see LeastRecentlyUsedCache#valuesIterator()
+	 */
+	@Override
+	public Iterator<Connection> iterator() {
+		return new Iterator<Connection>() {
+
+			private int index;
+			private Iterator<Connection> current = stripes[0].connections.valuesIterator();
+
+			@Override
+			public boolean hasNext() {
+				while (!current.hasNext()) {
+					if (++index >= stripes.length) {
+						return false;
+					}
+					current = stripes[index].connections.valuesIterator();
+				}
+				return true;
+			}
+
+			@Override
+			public Connection next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return current.next();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Writes the connections stripe by stripe. Within a stripe, the
+	 * connections are written in access-time order.
+	 */
+	@Override
+	public int saveConnections(OutputStream out, long maxQuietPeriodInSeconds) throws IOException {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			size += stripe.connections.size();
+		}
+		int progress = size / 20;
+		int count = 0;
+		DatagramWriter writer = new DatagramWriter(4096);
+		long startNanos = ClockUtil.nanoRealtime();
+		boolean writeProgress = false;
+		long progressNanos = startNanos;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				Iterator<Timestamped<Connection>> iterator = stripe.connections.timestampedIterator();
+				while (iterator.hasNext()) {
+					Timestamped<Connection> connection = iterator.next();
+					long updateNanos = connection.getLastUpdate();
+					long quiet = TimeUnit.NANOSECONDS.toSeconds(startNanos - updateNanos);
+					if (quiet > maxQuietPeriodInSeconds) {
+						LOGGER.trace("{}skip {} ts, {}s too quiet!", tag, updateNanos, quiet);
+					} else {
+						LOGGER.trace("{}write {} ts, {}s ", tag, updateNanos, quiet);
+						if (connection.getValue().writeTo(writer)) {
+							writer.writeTo(out);
+							++count;
+						} else {
+							writer.reset();
+						}
+						if (progress > 100 && (count % progress) == 0) {
+							writeProgress = true;
+						}
+						if (writeProgress) {
+							long now = ClockUtil.nanoRealtime();
+							if ((now - progressNanos) > TimeUnit.SECONDS.toNanos(2)) {
+								LOGGER.info("{}written {} connections of {}", tag, count, size);
+								writeProgress = false;
+								progressNanos = now;
+							}
+						}
+					}
+				}
+			}
+		}
+		SerializationUtil.writeNoItem(out);
+		out.flush();
+		writer.close();
+		clear();
+		return count;
+	}
+
+	@Override
+	public int loadConnections(InputStream in, long delta) throws IOException {
+		boolean clear = true;
+		int count = 0;
+		long startNanos = ClockUtil.nanoRealtime();
+		DataStreamReader reader = new DataStreamReader(in);
+		try {
+			Connection connection;
+			while ((connection = Connection.fromReader(reader, delta)) != null) {
+				long lastUpdate = connection.getLastMessageNanos();
+				if (lastUpdate - startNanos > 0) {
+					LOGGER.warn("{}read {} ts is after {} (future)", tag, lastUpdate, startNanos);
+				}
+				LOGGER.trace("{}read {} ts, {}s", tag, lastUpdate,
+						TimeUnit.NANOSECONDS.toSeconds(startNanos - lastUpdate));
+				restore(connection);
+				++count;
+			}
+			clear = false;
+		} catch (IllegalArgumentException ex) {
+			LOGGER.warn("{}reading failed after {} connections", tag, count, ex);
+			clear();
+			throw ex;
+		} finally {
+			if (clear) {
+				clear();
+				count = 0;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public boolean restore(Connection connection) {
+
+		ConnectionId connectionId = connection.getConnectionId();
+		if (connectionId == null) {
+			throw new IllegalStateException("Connection must have a connection id!");
+		} else if (connectionId.isEmpty()) {
+			throw new IllegalStateException("Connection must have a none empty connection id!");
+		} else if (get(connectionId) != null) {
+			throw new IllegalStateException("Connection id already used! " + connectionId);
+		}
+		boolean restored = false;
+		Runnable removeAddress = null;
+		Stripe stripe = getStripe(connectionId);
+		synchronized (stripe) {
+			if (stripe.connections.put(connectionId, connection, connection.getLastMessageNanos())) {
+				if (LOGGER.isTraceEnabled()) {
+					LOGGER.trace("{}connection: add {} (stripe size {})", tag, connection,
+							stripe.connections.size(), new Throwable("connection added!"));
+				} else {
+					LOGGER.debug("{}connection: add {} (stripe size {})", tag, connectionId,
+							stripe.connections.size());
+				}
+				removeAddress = addToAddressConnections(connection);
+				restored = true;
+			} else {
+				LOGGER.warn("{}connection store stripe is full! {} max. entries.", tag,
+						stripe.connections.getCapacity());
+			}
+		}
+		run(removeAddress);
+		if (restored && connection.hasEstablishedDtlsContext()) {
+			putEstablishedSession(connection);
+		}
+		return restored;
+	}
+
+	/**
+	 * Stripe of the connection store.
+	 *
+	 * Modifications of the {@link #connections} must be synchronized on the
+	 * stripe.
+	 */
+	private final class Stripe {
+
+		private final LeastRecentlyUsedCache<ConnectionId, Connection> connections;
+
+		private Stripe(int capacity, long threshold) {
+			this.connections = new LeastRecentlyUsedCache<>(capacity, threshold);
+			this.connections.setEvictingOnReadAccess(false);
+			this.connections.setUpdatingOnReadAccess(false);
+			// make sure that stale (evicted) connection is removed from other
+			// maps.
+			this.connections.addEvictionListener(new LeastRecentlyUsedCache.EvictionListener<Connection>() {
+
+				@Override
+				public void onEviction(final Connection staleConnection) {
+					Runnable remove = new Runnable() {
+
+						@Override
+						public void run() {
+							Handshaker handshaker = staleConnection.getOngoingHandshake();
+							if (handshaker != null) {
+								handshaker.handshakeFailed(new ConnectionEvictedException("Evicted!"));
+							}
+							synchronized (Stripe.this) {
+								removeByAddressConnections(staleConnection);
+								removeByEstablishedSessions(staleConnection.getEstablishedSessionIdentifier(),
+										staleConnection);
+								ConnectionListener listener = connectionListener;
+								if (listener != null) {
+									listener.onConnectionRemoved(staleConnection);
+								}
+							}
+						}
+					};
+					if (staleConnection.isExecuting()) {
+						staleConnection.getExecutor().execute(remove);
+					} else {
+						remove.run();
+					}
+				}
+			});
+		}
+	}
+}
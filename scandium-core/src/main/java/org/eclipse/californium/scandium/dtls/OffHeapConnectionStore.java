@@ -0,0 +1,808 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.scandium.dtls;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.util.ClockUtil;
+import org.eclipse.californium.elements.util.DataStreamReader;
+import org.eclipse.californium.elements.util.DatagramWriter;
+import org.eclipse.californium.elements.util.LeastRecentlyUsedCache.Timestamped;
+import org.eclipse.californium.elements.util.SerialExecutor;
+import org.eclipse.californium.elements.util.StringUtil;
+import org.eclipse.californium.scandium.util.SecretUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An in-memory {@code ResumptionSupportingConnectionStore}, which keeps idle
+ * connections serialized off-heap.
+ * <p>
+ * The on-heap part works as {@link InMemoryConnectionStore} with the provided
+ * capacity. If that capacity is exhausted, the least recently used connections
+ * are serialized using {@link Connection#writeTo(DatagramWriter)}, the same
+ * serialization as used by {@link #saveConnections(OutputStream, long)}, and
+ * moved into direct {@link ByteBuffer}s. Only connections with an established
+ * DTLS context, without ongoing handshake and without pending jobs are moved.
+ * A moved connection is read back, when it is accessed by its connection id,
+ * its peer's address or its session id. The off-heap part keeps only the
+ * connection id, the address and the session id on-heap for that.
+ * </p>
+ * <p>
+ * The off-heap memory is organized in slabs of 1 MB, split into slots of the
+ * size classes 256, 512, 1024, 2048 and 4096 bytes. Connections with larger
+ * serialized states are not moved off-heap. The slabs are kept until
+ * {@link #clear()}.
+ * </p>
+ * <p>
+ * The off-heap part is bounded by the maximum number of connections. If that
+ * is exhausted, the eldest connection is removed from it, if that is stale
+ * according the connection expiration threshold. Such a removal is not
+ * reported to the {@link org.eclipse.californium.scandium.ConnectionListener}.
+ * </p>
+ * <p>
+ * The slots are overwritten with zeros, when they are freed, because they
+ * contain the master secrets and keys of the connections.
+ * {@link #iterator()} loads the off-heap connections back on-heap, when the
+ * iteration reaches them, {@link #onHeapIterator()} doesn't.
+ * </p>
+ *
+ * @since 3.0
+ */
+public class OffHeapConnectionStore extends InMemoryConnectionStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapConnectionStore.class);
+
+	/**
+	 * Size of slabs in bytes.
+	 */
+	private static final int SLAB_SIZE = 1024 * 1024;
+	/**
+	 * Size classes of slots in bytes.
+	 */
+	private static final int[] SLOT_SIZES = { 256, 512, 1024, 2048, 4096 };
+	/**
+	 * Number of bits for the slot index within a handle.
+	 */
+	private static final int SLOT_BITS = 28;
+	/**
+	 * Zeros to overwrite freed slots.
+	 */
+	private static final byte[] ZEROS = new byte[SLOT_SIZES[SLOT_SIZES.length - 1]];
+	/**
+	 * Maximum number of connections moved off-heap at once.
+	 */
+	private static final int MAX_OFFLOAD_BATCH = 256;
+
+	/**
+	 * Maximum number of off-heap connections.
+	 */
+	private final int maxOffHeapConnections;
+	/**
+	 * Number of connections moved off-heap at once, when the on-heap part is
+	 * exhausted.
+	 */
+	private final int offloadBatch;
+	/**
+	 * Off-heap slab allocator.
+	 */
+	private final SlabAllocator allocator = new SlabAllocator();
+	/**
+	 * Off-heap connections by connection id in access order.
+	 */
+	private final LinkedHashMap<ConnectionId, OffHeapConnection> offHeapConnections = new LinkedHashMap<>();
+	/**
+	 * Off-heap connections by peer's address.
+	 */
+	private final Map<InetSocketAddress, OffHeapConnection> offHeapConnectionsByAddress = new HashMap<>();
+	/**
+	 * Off-heap connections by session id.
+	 */
+	private final Map<SessionId, OffHeapConnection> offHeapConnectionsBySession = new HashMap<>();
+	/**
+	 * Writer for serialization.
+	 */
+	private final DatagramWriter writer = new DatagramWriter(SLOT_SIZES[SLOT_SIZES.length - 1], true);
+	/**
+	 * Counter for {@link #markAllAsResumptionRequired()}.
+	 */
+	private int resumptionMark;
+
+	/**
+	 * Creates a store based on given configuration parameters.
+	 *
+	 * @param capacity the maximum number of connections the store keeps
+	 *            on-heap
+	 * @param threshold the period of time of inactivity (in seconds) after
+	 *            which a connection is considered stale and can be evicted from
+	 *            the store if a new connection is to be added to the store
+	 * @param maxOffHeapConnections the maximum number of connections the store
+	 *            keeps off-heap
+	 * @param sessionStore a second level store to use for <em>current</em>
+	 *            connection state of established DTLS sessions.
+	 * @throws IllegalArgumentException if maxOffHeapConnections is less than
+	 *             {@code 1}
+	 */
+	public OffHeapConnectionStore(int capacity, long threshold, int maxOffHeapConnections,
+			SessionStore sessionStore) {
+		super(capacity, threshold, sessionStore);
+		if (maxOffHeapConnections < 1) {
+			throw new IllegalArgumentException(
+					"Maximum off-heap connections " + maxOffHeapConnections + " must be at least 1!");
+		}
+		this.maxOffHeapConnections = maxOffHeapConnections;
+		this.offloadBatch = Math.max(1, Math.min(capacity / 100, MAX_OFFLOAD_BATCH));
+		LOGGER.info("Created new OffHeapConnectionStore [capacity: {}, off-heap: {}]", capacity,
+				maxOffHeapConnections);
+	}
+
+	@Override
+	public synchronized OffHeapConnectionStore setTag(String tag) {
+		super.setTag(tag);
+		return this;
+	}
+
+	@Override
+	protected synchronized boolean containsConnectionId(ConnectionId cid) {
+		return offHeapConnections.containsKey(cid) || super.containsConnectionId(cid);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Moves least recently used connections off-heap, if the on-heap part is
+	 * exhausted.
+	 */
+	@Override
+	public boolean put(Connection connection) {
+		if (connection != null) {
+			synchronized (this) {
+				ensureOnHeapCapacity();
+				if (super.put(connection)) {
+					removeOffHeapAddress(connection.getPeerAddress());
+					return true;
+				}
+				return false;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized boolean update(Connection connection, InetSocketAddress newPeerAddress) {
+		if (super.update(connection, newPeerAddress)) {
+			removeOffHeapAddress(newPeerAddress);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Moves least recently used connections off-heap, if the on-heap part is
+	 * exhausted.
+	 */
+	@Override
+	public boolean restore(Connection connection) {
+		synchronized (this) {
+			ensureOnHeapCapacity();
+			removeOffHeapAddress(connection.getPeerAddress());
+		}
+		return super.restore(connection);
+	}
+
+	@Override
+	public synchronized void markAllAsResumptionRequired() {
+		super.markAllAsResumptionRequired();
+		++resumptionMark;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Includes the remaining capacity of the off-heap part.
+	 */
+	@Override
+	public synchronized int remainingCapacity() {
+		return super.remainingCapacity() + maxOffHeapConnections - offHeapConnections.size();
+	}
+
+	@Override
+	public Connection get(InetSocketAddress peerAddress) {
+		OffHeapConnection offHeap = null;
+		byte[] data = null;
+		synchronized (this) {
+			if (connectionsByAddress.get(peerAddress) == null) {
+				offHeap = offHeapConnectionsByAddress.get(peerAddress);
+				if (offHeap != null) {
+					data = allocator.read(offHeap.handle, offHeap.length);
+				}
+			}
+		}
+		if (offHeap != null) {
+			load(offHeap, data);
+		}
+		return super.get(peerAddress);
+	}
+
+	@Override
+	public Connection get(ConnectionId cid) {
+		OffHeapConnection offHeap = null;
+		byte[] data = null;
+		synchronized (this) {
+			if (connections.get(cid) == null) {
+				offHeap = offHeapConnections.get(cid);
+				if (offHeap != null) {
+					data = allocator.read(offHeap.handle, offHeap.length);
+				}
+			}
+		}
+		if (offHeap != null) {
+			load(offHeap, data);
+		}
+		return super.get(cid);
+	}
+
+	@Override
+	public DTLSSession find(SessionId id) {
+		if (id != null && !id.isEmpty()) {
+			OffHeapConnection offHeap;
+			byte[] data = null;
+			synchronized (this) {
+				offHeap = offHeapConnectionsBySession.get(id);
+				if (offHeap != null) {
+					data = allocator.read(offHeap.handle, offHeap.length);
+				}
+			}
+			if (offHeap != null) {
+				load(offHeap, data);
+			}
+		}
+		return super.find(id);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Iterates the on-heap connections first. The off-heap connections are
+	 * loaded back on-heap, when the iteration reaches them. That may move
+	 * already iterated connections off-heap.
+	 *
+	 * @see #onHeapIterator()
+	 */
+	@Override
+	public Iterator<Connection> iterator() {
+		final Iterator<Connection> onHeap = onHeapIterator();
+		return new Iterator<Connection>() {
+
+			private Iterator<ConnectionId> offHeap;
+			private Connection next;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null) {
+					if (onHeap.hasNext()) {
+						next = onHeap.next();
+					} else {
+						if (offHeap == null) {
+							synchronized (OffHeapConnectionStore.this) {
+								offHeap = new ArrayList<>(offHeapConnections.keySet()).iterator();
+							}
+						}
+						if (!offHeap.hasNext()) {
+							return false;
+						}
+						// null, if removed or failed to load
+						next = get(offHeap.next());
+					}
+				}
+				return true;
+			}
+
+			@Override
+			public Connection next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Connection result = next;
+				next = null;
+				return result;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Gets iterator over the connections kept on-heap.
+	 *
+	 * Doesn't load off-heap connections.
+	 *
+	 * @return iterator over the on-heap connections
+	 * @see #iterator()
+	 */
+	public Iterator<Connection> onHeapIterator() {
+		return super.iterator();
+	}
+
+	@Override
+	public synchronized void clear() {
+		super.clear();
+		offHeapConnections.clear();
+		offHeapConnectionsByAddress.clear();
+		offHeapConnectionsBySession.clear();
+		allocator.clear();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Writes the off-heap connections first, without reading them back.
+	 */
+	@Override
+	public int saveConnections(OutputStream out, long maxQuietPeriodInSeconds) throws IOException {
+		int count = saveOffHeapConnections(out, maxQuietPeriodInSeconds);
+		return count + super.saveConnections(out, maxQuietPeriodInSeconds);
+	}
+
+	/**
+	 * Save off-heap connections.
+	 *
+	 * Writes the off-heap connections without reading them back and without
+	 * removing them. Doesn't write the end mark of the stream.
+	 *
+	 * @param out output stream to save connections
+	 * @param maxQuietPeriodInSeconds maximum quiet period of the connections in
+	 *            seconds. Connections without traffic for that time are skipped
+	 *            during serialization.
+	 * @return number of saved connections
+	 * @throws IOException if an io-error occurred
+	 */
+	public int saveOffHeapConnections(OutputStream out, long maxQuietPeriodInSeconds) throws IOException {
+		int count = 0;
+		long startNanos = ClockUtil.nanoRealtime();
+		synchronized (this) {
+			for (OffHeapConnection offHeap : offHeapConnections.values()) {
+				long quiet = TimeUnit.NANOSECONDS.toSeconds(startNanos - offHeap.lastUpdate);
+				if (quiet > maxQuietPeriodInSeconds) {
+					LOGGER.trace("{}skip off-heap {} ts, {}s too quiet!", tag, offHeap.lastUpdate, quiet);
+				} else {
+					byte[] data = allocator.read(offHeap.handle, offHeap.length);
+					out.write(data);
+					Arrays.fill(data, (byte) 0);
+					++count;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the number of off-heap connections.
+	 *
+	 * @return number of off-heap connections
+	 */
+	public synchronized int offHeapSize() {
+		return offHeapConnections.size();
+	}
+
+	/**
+	 * Moves idle connections off-heap.
+	 *
+	 * Processes the connections in least recently used order. Connections
+	 * with ongoing handshakes or pending jobs are skipped.
+	 *
+	 * @param max maximum number of connections to move
+	 * @return number of moved connections
+	 */
+	public synchronized int offloadIdleConnections(int max) {
+		List<Timestamped<Connection>> candidates = new ArrayList<>();
+		synchronized (connections) {
+			Iterator<Timestamped<Connection>> iterator = connections.timestampedIterator();
+			while (iterator.hasNext() && candidates.size() < max * 2) {
+				Timestamped<Connection> candidate = iterator.next();
+				Connection connection = candidate.getValue();
+				if (connection.hasEstablishedDtlsContext() && connection.getOngoingHandshake() == null) {
+					candidates.add(candidate);
+				}
+			}
+		}
+		int count = 0;
+		for (Timestamped<Connection> candidate : candidates) {
+			if (count >= max) {
+				break;
+			}
+			if (offload(candidate.getValue(), candidate.getLastUpdate())) {
+				++count;
+			}
+		}
+		if (count > 0) {
+			LOGGER.debug("{}connection: {} moved off-heap (off-heap size {})", tag, count,
+					offHeapConnections.size());
+		}
+		return count;
+	}
+
+	/**
+	 * Ensures, that the on-heap part has capacity for a new connection.
+	 *
+	 * Moves a batch of least recently used connections off-heap, if the
+	 * on-heap part is exhausted.
+	 */
+	private void ensureOnHeapCapacity() {
+		if (connections.remainingCapacity() == 0) {
+			offloadIdleConnections(offloadBatch);
+		}
+	}
+
+	/**
+	 * Move connection off-heap.
+	 *
+	 * @param connection connection to move
+	 * @param lastUpdate last update of the connection in nanoseconds
+	 * @return {@code true}, if moved, {@code false}, if the connection is busy,
+	 *         the off-heap part is exhausted, or the serialized connection
+	 *         exceeds the largest slot size.
+	 */
+	private boolean offload(Connection connection, long lastUpdate) {
+		if (offHeapConnections.size() >= maxOffHeapConnections && !removeEldestStaleOffHeap()) {
+			return false;
+		}
+		SerialExecutor executor = connection.getExecutor();
+		if (executor != null && !executor.tryAcquireInline()) {
+			// busy
+			return false;
+		}
+		try {
+			if (connection.getOngoingHandshake() != null || !connection.writeTo(writer)) {
+				writer.reset();
+				return false;
+			}
+			byte[] data = writer.toByteArray();
+			int handle = allocator.allocate(data.length);
+			if (handle < 0) {
+				LOGGER.debug("{}connection: {} too large for off-heap ({} bytes)!", tag,
+						connection.getConnectionId(), data.length);
+				Arrays.fill(data, (byte) 0);
+				return false;
+			}
+			allocator.write(handle, data);
+			Arrays.fill(data, (byte) 0);
+			OffHeapConnection offHeap = new OffHeapConnection(connection, lastUpdate, resumptionMark, handle,
+					data.length);
+			// removing the connection clears the address, keep it before
+			if (removeLocally(connection)) {
+				addOffHeap(offHeap);
+				return true;
+			} else {
+				allocator.free(handle);
+				return false;
+			}
+		} finally {
+			if (executor != null) {
+				executor.releaseInline();
+			}
+		}
+	}
+
+	/**
+	 * Load off-heap connection back on-heap.
+	 *
+	 * Deserializes the connection outside of the store's lock. Adds it
+	 * on-heap, if the off-heap connection is still unchanged in the store.
+	 * Otherwise the connection was loaded, removed or evicted concurrently and
+	 * the deserialized connection is dropped.
+	 *
+	 * @param offHeap off-heap connection
+	 * @param data serialized connection read from the slot of the off-heap
+	 *            connection. Cleared after deserialization.
+	 */
+	private void load(OffHeapConnection offHeap, byte[] data) {
+		Connection connection;
+		try {
+			connection = Connection.fromReader(new DataStreamReader(new ByteArrayInputStream(data)), 0);
+		} catch (IllegalArgumentException ex) {
+			LOGGER.warn("{}connection: {} failed to read from off-heap!", tag, offHeap.cid, ex);
+			connection = null;
+		} finally {
+			Arrays.fill(data, (byte) 0);
+		}
+		synchronized (this) {
+			if (offHeapConnections.get(offHeap.cid) != offHeap) {
+				LOGGER.trace("{}connection: {} already moved from off-heap.", tag, offHeap.cid);
+				if (connection != null) {
+					SecretUtil.destroy(connection.getDtlsContext());
+				}
+				return;
+			}
+			// remove before moving other connections off-heap
+			removeOffHeap(offHeap);
+			if (connection == null) {
+				allocator.free(offHeap.handle);
+				return;
+			}
+			ensureOnHeapCapacity();
+			if (offHeap.resumptionMark != resumptionMark) {
+				connection.setResumptionRequired(true);
+			}
+			InetSocketAddress address = connection.getPeerAddress();
+			if (address != null && (offHeap.address == null || connectionsByAddress.get(address) != null)) {
+				// address is used by an other connection
+				connection.updatePeerAddress(null);
+			}
+			if (addLocally(connection, offHeap.lastUpdate)) {
+				allocator.free(offHeap.handle);
+				LOGGER.debug("{}connection: {} moved on-heap (off-heap size {})", tag, offHeap.cid,
+						offHeapConnections.size());
+			} else {
+				SecretUtil.destroy(connection.getDtlsContext());
+				addOffHeap(offHeap);
+				LOGGER.debug("{}connection: {} on-heap exhausted, keep off-heap!", tag, offHeap.cid);
+			}
+		}
+	}
+
+	/**
+	 * Remove eldest off-heap connection, if stale.
+	 *
+	 * @return {@code true}, if removed, {@code false}, otherwise.
+	 */
+	private boolean removeEldestStaleOffHeap() {
+		Iterator<OffHeapConnection> iterator = offHeapConnections.values().iterator();
+		if (iterator.hasNext()) {
+			OffHeapConnection eldest = iterator.next();
+			if (isStale(eldest.lastUpdate, ClockUtil.nanoRealtime())) {
+				LOGGER.debug("{}connection: {} evicted from off-heap!", tag, eldest.cid);
+				removeOffHeap(eldest);
+				allocator.free(eldest.handle);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isStale(long lastUpdate, long now) {
+		return TimeUnit.NANOSECONDS.toSeconds(now - lastUpdate) >= connections.getExpirationThreshold();
+	}
+
+	private void addOffHeap(OffHeapConnection offHeap) {
+		offHeapConnections.put(offHeap.cid, offHeap);
+		if (offHeap.address != null) {
+			offHeapConnectionsByAddress.put(offHeap.address, offHeap);
+		}
+		if (offHeap.sessionId != null) {
+			offHeapConnectionsBySession.put(offHeap.sessionId, offHeap);
+		}
+	}
+
+	private void removeOffHeap(OffHeapConnection offHeap) {
+		offHeapConnections.remove(offHeap.cid);
+		if (offHeap.address != null) {
+			offHeapConnectionsByAddress.remove(offHeap.address);
+		}
+		if (offHeap.sessionId != null) {
+			offHeapConnectionsBySession.remove(offHeap.sessionId);
+		}
+	}
+
+	/**
+	 * Remove the address from the off-heap connection, which uses that
+	 * address.
+	 *
+	 * Removes the off-heap connection, if the session is not indexed and the
+	 * connection doesn't use a connection id. Aligned with
+	 * {@link InMemoryConnectionStore}.
+	 *
+	 * @param address address used by an on-heap connection
+	 */
+	private void removeOffHeapAddress(InetSocketAddress address) {
+		if (address != null) {
+			OffHeapConnection offHeap = offHeapConnectionsByAddress.remove(address);
+			if (offHeap != null) {
+				LOGGER.debug("{}connection: {} - {} removed from off-heap address.", tag, offHeap.cid,
+						StringUtil.toLog(address));
+				offHeap.address = null;
+				if (connectionsByEstablishedSession == null && !offHeap.expectCid) {
+					removeOffHeap(offHeap);
+					allocator.free(offHeap.handle);
+				}
+			}
+		}
+	}
+
+	/**
+	 * On-heap index entry of an off-heap connection.
+	 */
+	private static final class OffHeapConnection {
+
+		private final ConnectionId cid;
+		private final SessionId sessionId;
+		private final boolean expectCid;
+		private final long lastUpdate;
+		private final int resumptionMark;
+		private final int handle;
+		private final int length;
+		/**
+		 * Peer's address. {@code null}, if the address is used by an other
+		 * connection.
+		 */
+		private InetSocketAddress address;
+
+		private OffHeapConnection(Connection connection, long lastUpdate, int resumptionMark, int handle,
+				int length) {
+			this.cid = connection.getConnectionId();
+			SessionId sessionId = connection.getEstablishedSessionIdentifier();
+			this.sessionId = sessionId == null || sessionId.isEmpty() ? null : sessionId;
+			this.expectCid = connection.expectCid();
+			this.address = connection.getPeerAddress();
+			this.lastUpdate = lastUpdate;
+			this.resumptionMark = resumptionMark;
+			this.handle = handle;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * Slab allocator for off-heap memory.
+	 *
+	 * Uses direct {@link ByteBuffer}s of {@link OffHeapConnectionStore#SLAB_SIZE}
+	 * split into slots of fixed size classes. A handle contains the size class
+	 * in the upper bits and the slot index in the lower
+	 * {@link OffHeapConnectionStore#SLOT_BITS}. Not thread-safe.
+	 */
+	private static final class SlabAllocator {
+
+		private final SizeClass[] sizeClasses = new SizeClass[SLOT_SIZES.length];
+
+		private SlabAllocator() {
+			for (int index = 0; index < SLOT_SIZES.length; ++index) {
+				sizeClasses[index] = new SizeClass(SLOT_SIZES[index]);
+			}
+		}
+
+		/**
+		 * Allocate slot.
+		 *
+		 * @param length length in bytes
+		 * @return handle of slot, or {@code -1}, if length exceeds the largest
+		 *         slot size.
+		 */
+		private int allocate(int length) {
+			for (int index = 0; index < sizeClasses.length; ++index) {
+				if (length <= sizeClasses[index].slotSize) {
+					return (index << SLOT_BITS) | sizeClasses[index].allocate();
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Free slot.
+		 *
+		 * Overwrites the slot with zeros.
+		 *
+		 * @param handle handle of slot
+		 */
+		private void free(int handle) {
+			sizeClasses[handle >>> SLOT_BITS].free(handle & ((1 << SLOT_BITS) - 1));
+		}
+
+		private void write(int handle, byte[] data) {
+			sizeClasses[handle >>> SLOT_BITS].slot(handle & ((1 << SLOT_BITS) - 1)).put(data);
+		}
+
+		private byte[] read(int handle, int length) {
+			byte[] data = new byte[length];
+			sizeClasses[handle >>> SLOT_BITS].slot(handle & ((1 << SLOT_BITS) - 1)).get(data);
+			return data;
+		}
+
+		/**
+		 * Free all slabs.
+		 *
+		 * Overwrites the slabs with zeros before.
+		 */
+		private void clear() {
+			for (SizeClass sizeClass : sizeClasses) {
+				sizeClass.clear();
+			}
+		}
+	}
+
+	/**
+	 * Slots of a size class.
+	 */
+	private static final class SizeClass {
+
+		private final int slotSize;
+		private final int slotsPerSlab;
+		private final List<ByteBuffer> slabs = new ArrayList<>();
+		/**
+		 * Stack of freed slots.
+		 */
+		private int[] freeSlots = new int[16];
+		private int freeSlotsCount;
+		/**
+		 * Next never used slot.
+		 */
+		private int nextSlot;
+
+		private SizeClass(int slotSize) {
+			this.slotSize = slotSize;
+			this.slotsPerSlab = SLAB_SIZE / slotSize;
+		}
+
+		private int allocate() {
+			if (freeSlotsCount > 0) {
+				return freeSlots[--freeSlotsCount];
+			}
+			if (nextSlot == slabs.size() * slotsPerSlab) {
+				if (nextSlot + slotsPerSlab > (1 << SLOT_BITS)) {
+					throw new IllegalStateException("Off-heap slots exhausted!");
+				}
+				slabs.add(ByteBuffer.allocateDirect(SLAB_SIZE));
+			}
+			return nextSlot++;
+		}
+
+		private void free(int slot) {
+			// the slot contains the master secret and keys
+			slot(slot).put(ZEROS, 0, slotSize);
+			if (freeSlotsCount == freeSlots.length) {
+				freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+			}
+			freeSlots[freeSlotsCount++] = slot;
+		}
+
+		private ByteBuffer slot(int slot) {
+			ByteBuffer buffer = slabs.get(slot / slotsPerSlab).duplicate();
+			int position = (slot % slotsPerSlab) * slotSize;
+			((Buffer) buffer).limit(position + slotSize);
+			((Buffer) buffer).position(position);
+			return buffer;
+		}
+
+		private void clear() {
+			// the slots contain master secrets and keys
+			for (ByteBuffer slab : slabs) {
+				ByteBuffer buffer = slab.duplicate();
+				((Buffer) buffer).clear();
+				while (buffer.hasRemaining()) {
+					buffer.put(ZEROS, 0, Math.min(ZEROS.length, buffer.remaining()));
+				}
+			}
+			slabs.clear();
+			freeSlots = new int[16];
+			freeSlotsCount = 0;
+			nextSlot = 0;
+		}
+	}
+}
@@ -137,6 +137,14 @@ public class Record {
 	/** The raw byte representation of the fragment. */
 	private byte[] fragmentBytes;
 
+	/**
+	 * Indicates, that the {@link #fragmentBytes} are overwritten by the in
+	 * place decryption.
+	 * 
+	 * @since 3.0
+	 */
+	private boolean fragmentBytesOverwritten;
+
 	/** The connection id. */
 	private ConnectionId connectionId;
 	/**
@@ -480,11 +488,27 @@ public class Record {
 	 * @param writer writer for nonce
 	 */
 	protected void writeExplicitNonce(DatagramWriter writer) {
-		//TODO: re-factor to use simple byte array manipulation instead of using bit-based DatagramWriter
 		writer.write(epoch, EPOCH_BITS);
 		writer.writeLong(sequenceNumber, SEQUENCE_NUMBER_BITS);
 	}
 
+	/**
+	 * Generates the explicit part of the nonce to be used with the AEAD Cipher
+	 * into the provided byte array.
+	 * 
+	 * @param buffer byte array for nonce. Must provide 8 bytes at offset.
+	 * @param offset offset within buffer
+	 * @see #writeExplicitNonce(DatagramWriter)
+	 * @since 3.0
+	 */
+	protected void writeExplicitNonce(byte[] buffer, int offset) {
+		buffer[offset++] = (byte) (epoch >> 8);
+		buffer[offset++] = (byte) epoch;
+		for (int shift = SEQUENCE_NUMBER_BITS - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+			buffer[offset++] = (byte) (sequenceNumber >> shift);
+		}
+	}
+
 	/**
 	 * Generates the additional authentication data.
 	 * 
@@ -707,12 +731,31 @@ public class Record {
 	/**
 	 * Get fragment payload as byte array.
 	 * 
+	 * For incoming records, the fragment is decrypted in place by
+	 * {@link #decodeFragment(DTLSConnectionState)}. Therefore the encrypted
+	 * payload is only available before that.
+	 * 
 	 * @return fragments byte array.
+	 * @see #isFragmentBytesOverwritten()
 	 */
 	public byte[] getFragmentBytes() {
 		return fragmentBytes;
 	}
 
+	/**
+	 * Check, if the fragment bytes are overwritten by the in place decryption.
+	 * 
+	 * If the decryption fails, the fragment bytes may contain partially
+	 * decrypted or cleared data.
+	 * 
+	 * @return {@code true}, if the fragment bytes are overwritten,
+	 *         {@code false}, if not.
+	 * @since 3.0
+	 */
+	public boolean isFragmentBytesOverwritten() {
+		return fragmentBytesOverwritten;
+	}
+
 	/**
 	 * Gets the object representation of this record's
 	 * <em>DTLSPlaintext.fragment</em>.
@@ -768,23 +811,31 @@ public class Record {
 		}
 
 		ContentType actualType = type;
-		// decide, which type of fragment need de-cryption
-		byte[] decryptedMessage = readState.decrypt(this, fragmentBytes);
+		// decide, which type of fragment need de-cryption.
+		// decrypts in place, the fragment bytes are overwritten.
+		fragmentBytesOverwritten = true;
+		int length = readState.decrypt(this, fragmentBytes, 0, fragmentBytes.length);
 
 		if (ContentType.TLS12_CID == type) {
-			int index = decryptedMessage.length - 1;
-			while (index >= 0 && decryptedMessage[index] == 0) {
+			int index = length - 1;
+			while (index >= 0 && fragmentBytes[index] == 0) {
 				--index;
 			}
 			if (index < 0) {
 				throw new GeneralSecurityException("no inner type!");
 			}
-			int typeCode = decryptedMessage[index];
+			int typeCode = fragmentBytes[index];
 			actualType = ContentType.getTypeByValue(typeCode);
 			if (actualType == null) {
 				throw new GeneralSecurityException("unknown inner type! " + typeCode);
 			}
-			decryptedMessage = Arrays.copyOf(decryptedMessage, index);
+			length = index;
+		}
+		// the messages keep the provided array,
+		// therefore copy the plaintext into an array of the exact size.
+		byte[] decryptedMessage = fragmentBytes;
+		if (length < fragmentBytes.length) {
+			decryptedMessage = Arrays.copyOf(fragmentBytes, length);
 		}
 
 		switch (actualType) {
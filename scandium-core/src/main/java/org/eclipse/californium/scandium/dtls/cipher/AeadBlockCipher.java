@@ -104,6 +104,87 @@ public class AeadBlockCipher {
 		}
 	}
 
+	/**
+	 * Decrypt with AEAD cipher into provided buffer.
+	 * 
+	 * The output may be the same array as crypted in order to decrypt the
+	 * message in place. In that case, the outputOffset must not be larger
+	 * than the cryptedOffset.
+	 * 
+	 * @param cipherSuite the cipher suite
+	 * @param key the encryption key K.
+	 * @param nonce the nonce N.
+	 * @param additionalData the additional authenticated data a.
+	 * @param crypted the encrypted and authenticated message c.
+	 * @param cryptedOffset the offset within crypted.
+	 * @param cryptedLength the length within crypted.
+	 * @param output buffer for the decrypted message.
+	 * @param outputOffset the offset within output.
+	 * @return the length of the decrypted message
+	 * 
+	 * @throws IllegalArgumentException if output is crypted and the
+	 *             outputOffset is larger than the cryptedOffset.
+	 * @throws GeneralSecurityException if the message could not be de-crypted,
+	 *             e.g. because the ciphertext's block size is not correct
+	 * @throws InvalidMacException if the message could not be authenticated
+	 * @since 3.0
+	 */
+	public final static int decrypt(CipherSuite cipherSuite, SecretKey key, byte[] nonce, byte[] additionalData,
+			byte[] crypted, int cryptedOffset, int cryptedLength, byte[] output, int outputOffset)
+			throws GeneralSecurityException {
+		if (AES_CCM.equals(cipherSuite.getTransformation())) {
+			return CCMBlockCipher.decrypt(key, nonce, additionalData, crypted, cryptedOffset, cryptedLength, output,
+					outputOffset, cipherSuite.getMacLength());
+		} else {
+			if (output == crypted && outputOffset > cryptedOffset) {
+				throw new IllegalArgumentException("In place decryption requires output offset " + outputOffset
+						+ " not larger than crypted offset " + cryptedOffset + "!");
+			}
+			Cipher cipher = jreInit(Cipher.DECRYPT_MODE, cipherSuite, key, nonce, additionalData);
+			return cipher.doFinal(crypted, cryptedOffset, cryptedLength, output, outputOffset);
+		}
+	}
+
+	/**
+	 * Encrypt with AEAD cipher into provided buffer.
+	 * 
+	 * The output may be the same array as message in order to encrypt the
+	 * message in place. In that case, the outputOffset must not be larger
+	 * than the messageOffset. The output must provide space for the message
+	 * and the authentication tag.
+	 * 
+	 * @param cipherSuite the cipher suite
+	 * @param key the encryption key K.
+	 * @param nonce the nonce N.
+	 * @param additionalData the additional authenticated data a.
+	 * @param message the message to authenticate and encrypt.
+	 * @param messageOffset the offset within message.
+	 * @param messageLength the length within message.
+	 * @param output buffer for the encrypted and authenticated message.
+	 * @param outputOffset the offset within output.
+	 * @return the length of the encrypted and authenticated message.
+	 * @throws IllegalArgumentException if output is message and the
+	 *             outputOffset is larger than the messageOffset.
+	 * @throws GeneralSecurityException if the data could not be encrypted, e.g.
+	 *             because the JVM does not support the AES cipher algorithm
+	 * @since 3.0
+	 */
+	public final static int encrypt(CipherSuite cipherSuite, SecretKey key, byte[] nonce, byte[] additionalData,
+			byte[] message, int messageOffset, int messageLength, byte[] output, int outputOffset)
+			throws GeneralSecurityException {
+		if (AES_CCM.equals(cipherSuite.getTransformation())) {
+			return CCMBlockCipher.encrypt(key, nonce, additionalData, message, messageOffset, messageLength, output,
+					outputOffset, cipherSuite.getMacLength());
+		} else {
+			if (output == message && outputOffset > messageOffset) {
+				throw new IllegalArgumentException("In place encryption requires output offset " + outputOffset
+						+ " not larger than message offset " + messageOffset + "!");
+			}
+			Cipher cipher = jreInit(Cipher.ENCRYPT_MODE, cipherSuite, key, nonce, additionalData);
+			return cipher.doFinal(message, messageOffset, messageLength, output, outputOffset);
+		}
+	}
+
 	/**
 	 * Decrypt with jre AEAD cipher.
 	 * 
@@ -123,10 +204,7 @@ public class AeadBlockCipher {
 	private final static byte[] jreDecrypt(CipherSuite suite, SecretKey key, byte[] nonce, byte[] additionalData,
 			byte[] crypted, int cryptedOffset, int cryptedLength) throws GeneralSecurityException {
 
-		Cipher cipher = suite.getThreadLocalCipher();
-		GCMParameterSpec parameterSpec = new GCMParameterSpec(suite.getMacLength() * 8, nonce);
-		cipher.init(Cipher.DECRYPT_MODE, key, parameterSpec);
-		cipher.updateAAD(additionalData);
+		Cipher cipher = jreInit(Cipher.DECRYPT_MODE, suite, key, nonce, additionalData);
 		return cipher.doFinal(crypted, cryptedOffset, cryptedLength);
 	}
 
@@ -146,13 +224,31 @@ public class AeadBlockCipher {
 	 */
 	private final static byte[] jreEncrypt(int outputOffset, CipherSuite suite, SecretKey key, byte[] nonce,
 			byte[] additionalData, byte[] message) throws GeneralSecurityException {
-		Cipher cipher = suite.getThreadLocalCipher();
-		GCMParameterSpec parameterSpec = new GCMParameterSpec(suite.getMacLength() * 8, nonce);
-		cipher.init(Cipher.ENCRYPT_MODE, key, parameterSpec);
-		cipher.updateAAD(additionalData);
+		Cipher cipher = jreInit(Cipher.ENCRYPT_MODE, suite, key, nonce, additionalData);
 		int length = cipher.getOutputSize(message.length);
 		byte[] result = new byte[length + outputOffset];
 		cipher.doFinal(message, 0, message.length, result, outputOffset);
 		return result;
 	}
+
+	/**
+	 * Initialize jre AEAD cipher.
+	 * 
+	 * @param mode {@link Cipher#ENCRYPT_MODE} or {@link Cipher#DECRYPT_MODE}
+	 * @param suite the cipher suite
+	 * @param key the encryption key K.
+	 * @param nonce the nonce N.
+	 * @param additionalData the additional authenticated data a.
+	 * @return the initialized thread local cipher
+	 * @throws GeneralSecurityException if the cipher could not be initialized
+	 * @since 3.0
+	 */
+	private final static Cipher jreInit(int mode, CipherSuite suite, SecretKey key, byte[] nonce,
+			byte[] additionalData) throws GeneralSecurityException {
+		Cipher cipher = suite.getThreadLocalCipher();
+		GCMParameterSpec parameterSpec = new GCMParameterSpec(suite.getMacLength() * 8, nonce);
+		cipher.init(mode, key, parameterSpec);
+		cipher.updateAAD(additionalData);
+		return cipher;
+	}
 }
@@ -22,7 +22,6 @@
 package org.eclipse.californium.scandium.dtls.cipher;
 
 import java.security.GeneralSecurityException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 
@@ -149,7 +148,7 @@ public class CCMBlockCipher {
 	private static class MacCipher extends Block {
 
 		private final Cipher cipher;
-		private final byte[] mac;
+		private final int numAuthenticationBytes;
 
 		/**
 		 * Computes CBC-MAC. See
@@ -160,15 +159,17 @@ public class CCMBlockCipher {
 		 * @param nonce the nonce.
 		 * @param a the additional authenticated data.
 		 * @param m the message to authenticate and encrypt.
+		 * @param mOffset offset of the message within m.
+		 * @param lengthM length of the message within m.
 		 * @param numAuthenticationBytes Number of octets in authentication
 		 *            field.
 		 * @throws ShortBufferException if cipher can not be realized.
 		 */
-		private MacCipher(Cipher cipher, byte[] nonce, byte[] a, byte[] m, int numAuthenticationBytes)
-				throws ShortBufferException {
+		private MacCipher(Cipher cipher, byte[] nonce, byte[] a, byte[] m, int mOffset, int lengthM,
+				int numAuthenticationBytes) throws ShortBufferException {
 			super(cipher.getBlockSize());
 			this.cipher = cipher;
-			int lengthM = m.length;
+			this.numAuthenticationBytes = numAuthenticationBytes;
 			int lengthA = a.length;
 			int nonceL = nonce.length;
 			int L = blockSize - 1 - nonceL;
@@ -252,18 +253,18 @@ public class CCMBlockCipher {
 					offset = 6;
 				}
 
-				update(a, offset);
+				update(a, 0, lengthA, offset);
 			}
-			update(m, 0);
-			mac = Arrays.copyOf(block, numAuthenticationBytes);
+			update(m, mOffset, lengthM, 0);
 		}
 
-		private void update(byte[] data, int initialBlockOffset) throws ShortBufferException {
-			int length = data.length;
-			for (int i = 0; i < length;) {
+		private void update(byte[] data, int offset, int length, int initialBlockOffset)
+				throws ShortBufferException {
+			int end = offset + length;
+			for (int i = offset; i < end;) {
 				int blockEnd = i + blockSize - initialBlockOffset;
-				if (blockEnd > length) {
-					blockEnd = length;
+				if (blockEnd > end) {
+					blockEnd = end;
 				}
 				for (int j = initialBlockOffset; i < blockEnd; ++i, ++j) {
 					block[j] ^= data[i];
@@ -274,7 +275,25 @@ public class CCMBlockCipher {
 		}
 
 		private byte[] getMac() {
-			return mac;
+			return Arrays.copyOf(block, numAuthenticationBytes);
+		}
+
+		/**
+		 * Check, if the MAC matches the encrypted authentication field.
+		 * 
+		 * Compares in constant time without creating intermediate arrays.
+		 * 
+		 * @param crypted array with the encrypted authentication field U.
+		 * @param offset offset of U within crypted
+		 * @param s0 the key stream block S_0 used to encrypt U.
+		 * @return {@code true}, if T matches, {@code false}, otherwise.
+		 */
+		private boolean verify(byte[] crypted, int offset, byte[] s0) {
+			int result = 0;
+			for (int i = 0; i < numAuthenticationBytes; ++i) {
+				result |= block[i] ^ crypted[offset + i] ^ s0[i];
+			}
+			return result == 0;
 		}
 
 		protected int xorInt(int offset, int end, int number) {
@@ -354,6 +373,49 @@ public class CCMBlockCipher {
 	 */
 	public final static byte[] decrypt(SecretKey key, byte[] nonce, byte[] additionalData, byte[] crypted,
 			int cryptedOffset, int cryptedLength, int numAuthenticationBytes) throws GeneralSecurityException {
+		// decrypted data without MAC
+		byte[] decrypted = new byte[cryptedLength - numAuthenticationBytes];
+		decrypt(key, nonce, additionalData, crypted, cryptedOffset, cryptedLength, decrypted, 0,
+				numAuthenticationBytes);
+		return decrypted;
+	}
+
+	/**
+	 * Decrypt into provided buffer.
+	 * 
+	 * See <a href="https://tools.ietf.org/html/rfc3610#section-2.5" target="_blank">RFC 3610</a>
+	 * for details.
+	 * 
+	 * The output may be the same array as crypted in order to decrypt the
+	 * message in place. In that case, the outputOffset must not be larger
+	 * than the cryptedOffset. If the message could not be authenticated, the
+	 * decrypted message is cleared in the output.
+	 * 
+	 * @param key the encryption key K.
+	 * @param nonce the nonce N.
+	 * @param additionalData the additional authenticated data a.
+	 * @param crypted the encrypted and authenticated message c.
+	 * @param cryptedOffset offset within crypted
+	 * @param cryptedLength length within crypted
+	 * @param output buffer for the decrypted message
+	 * @param outputOffset offset within output
+	 * @param numAuthenticationBytes Number of octets in authentication field.
+	 * @return the length of the decrypted message
+	 * 
+	 * @throws IllegalArgumentException if output is crypted and the
+	 *             outputOffset is larger than the cryptedOffset.
+	 * @throws GeneralSecurityException if the message could not be de-crypted,
+	 *             e.g. because the ciphertext's block size is not correct
+	 * @throws InvalidMacException if the message could not be authenticated
+	 * @since 3.0
+	 */
+	public final static int decrypt(SecretKey key, byte[] nonce, byte[] additionalData, byte[] crypted,
+			int cryptedOffset, int cryptedLength, byte[] output, int outputOffset, int numAuthenticationBytes)
+			throws GeneralSecurityException {
+		if (output == crypted && outputOffset > cryptedOffset) {
+			throw new IllegalArgumentException("In place decryption requires output offset " + outputOffset
+					+ " not larger than crypted offset " + cryptedOffset + "!");
+		}
 
 		// instantiate the underlying block cipher
 		Cipher cipher = CIPHER.current();
@@ -362,20 +424,11 @@ public class CCMBlockCipher {
 		int lengthM = cryptedLength - numAuthenticationBytes;
 		int blockSize = cipher.getBlockSize();
 
-		// decrypted data without MAC
-		byte[] decrypted = new byte[lengthM];
-		// separate MAC
-		byte[] T = new byte[numAuthenticationBytes];
-
 		BlockCipher blockCiper = new BlockCipher(cipher, nonce);
-		// block 0 for MAC
-		int blockNo = 0;
-		byte[] block = blockCiper.updateBlock(blockNo++);
-		int tOffset = cryptedOffset + lengthM;
-		for (int i = 0; i < numAuthenticationBytes; ++i) {
-			T[i] = (byte) (crypted[tOffset + i] ^ block[i]);
-		}
-
+		// block 0 for MAC, used after decryption.
+		// Moving the output forward doesn't overwrite the crypted MAC.
+		int blockNo = 1;
+		byte[] block;
 		for (int i = 0; i < lengthM;) {
 			block = blockCiper.updateBlock(blockNo++);
 			int blockEnd = i + blockSize;
@@ -383,7 +436,7 @@ public class CCMBlockCipher {
 				blockEnd = lengthM;
 			}
 			for (int j = 0; i < blockEnd; ++i, ++j) {
-				decrypted[i] = (byte) (crypted[cryptedOffset + i] ^ block[j]);
+				output[outputOffset + i] = (byte) (crypted[cryptedOffset + i] ^ block[j]);
 			}
 		}
 
@@ -391,8 +444,10 @@ public class CCMBlockCipher {
 		 * The message and additional authentication data is then used to
 		 * recompute the CBC-MAC value and check T.
 		 */
-		MacCipher macCipher = new MacCipher(cipher, nonce, additionalData, decrypted, numAuthenticationBytes);
-		byte[] mac = macCipher.getMac();
+		MacCipher macCipher = new MacCipher(cipher, nonce, additionalData, output, outputOffset, lengthM,
+				numAuthenticationBytes);
+		block = blockCiper.updateBlock(0);
+		int tOffset = cryptedOffset + lengthM;
 
 		/*
 		 * If the T value is not correct, the receiver MUST NOT reveal any
@@ -400,10 +455,15 @@ public class CCMBlockCipher {
 		 * MUST NOT reveal the decrypted message, the value T, or any other
 		 * information.
 		 */
-		if (MessageDigest.isEqual(T, mac)) {
-			return decrypted;
+		if (macCipher.verify(crypted, tOffset, block)) {
+			return lengthM;
 		} else {
-			throw new InvalidMacException(mac, T);
+			Arrays.fill(output, outputOffset, outputOffset + lengthM, (byte) 0);
+			byte[] T = new byte[numAuthenticationBytes];
+			for (int i = 0; i < numAuthenticationBytes; ++i) {
+				T[i] = (byte) (crypted[tOffset + i] ^ block[i]);
+			}
+			throw new InvalidMacException(macCipher.getMac(), T);
 		}
 	}
 
@@ -442,33 +502,69 @@ public class CCMBlockCipher {
 	 */
 	public final static byte[] encrypt(int outputOffset, SecretKey key, byte[] nonce, byte[] additionalData, byte[] message,
 			int numAuthenticationBytes) throws GeneralSecurityException {
+		// encrypted data with MAC
+		byte[] encrypted = new byte[outputOffset + message.length + numAuthenticationBytes];
+		encrypt(key, nonce, additionalData, message, 0, message.length, encrypted, outputOffset,
+				numAuthenticationBytes);
+		return encrypted;
+	}
+
+	/**
+	 * Encrypt into provided buffer.
+	 * 
+	 * See <a href="https://tools.ietf.org/html/rfc3610#section-2.2" target="_blank">RFC 3610</a>
+	 * for details.
+	 * 
+	 * The output may be the same array as message in order to encrypt the
+	 * message in place. In that case, the outputOffset must not be larger
+	 * than the messageOffset. The output must provide space for the message
+	 * and the authentication field.
+	 * 
+	 * @param key the encryption key K.
+	 * @param nonce the nonce N.
+	 * @param additionalData the additional authenticated data a.
+	 * @param message the message to authenticate and encrypt.
+	 * @param messageOffset offset within message
+	 * @param messageLength length within message
+	 * @param output buffer for the encrypted and authenticated message.
+	 * @param outputOffset offset within output
+	 * @param numAuthenticationBytes Number of octets in authentication field.
+	 * @return the length of the encrypted and authenticated message.
+	 * @throws IllegalArgumentException if output is message and the
+	 *             outputOffset is larger than the messageOffset.
+	 * @throws GeneralSecurityException if the data could not be encrypted, e.g.
+	 *             because the JVM does not support the AES cipher algorithm
+	 * @since 3.0
+	 */
+	public final static int encrypt(SecretKey key, byte[] nonce, byte[] additionalData, byte[] message,
+			int messageOffset, int messageLength, byte[] output, int outputOffset, int numAuthenticationBytes)
+			throws GeneralSecurityException {
+		if (output == message && outputOffset > messageOffset) {
+			throw new IllegalArgumentException("In place encryption requires output offset " + outputOffset
+					+ " not larger than message offset " + messageOffset + "!");
+		}
 
 		// instantiate the cipher
 		Cipher cipher = CIPHER.current();
 		cipher.init(Cipher.ENCRYPT_MODE, key);
 		int blockSize = cipher.getBlockSize();
-		int lengthM = message.length;
+		int lengthM = messageLength;
 
 		/*
 		 * First, authentication: http://tools.ietf.org/html/rfc3610#section-2.2
 		 */
 		// compute the authentication field T
-		MacCipher macCipher = new MacCipher(cipher, nonce, additionalData, message, numAuthenticationBytes);
-		byte[] mac = macCipher.getMac();
+		MacCipher macCipher = new MacCipher(cipher, nonce, additionalData, message, messageOffset, lengthM,
+				numAuthenticationBytes);
 
 		/*
 		 * Second, encryption http://tools.ietf.org/html/rfc3610#section-2.3
 		 */
-		// encrypted data with MAC
-		byte[] encrypted = new byte[outputOffset + lengthM + numAuthenticationBytes];
 		BlockCipher blockCiper = new BlockCipher(cipher, nonce);
-		// block 0 for MAC
-		int blockNo = 0;
-		byte[] block = blockCiper.updateBlock(blockNo++);
-		int tOffset = outputOffset + lengthM;
-		for (int i = 0; i < numAuthenticationBytes; ++i) {
-			encrypted[i + tOffset] = (byte) (mac[i] ^ block[i]);
-		}
+		// block 0 for MAC, used after encryption.
+		// Writing the MAC last doesn't overwrite the message.
+		int blockNo = 1;
+		byte[] block;
 		for (int i = 0; i < lengthM;) {
 			block = blockCiper.updateBlock(blockNo++);
 			int blockEnd = i + blockSize;
@@ -476,10 +572,15 @@ public class CCMBlockCipher {
 				blockEnd = lengthM;
 			}
 			for (int j = 0; i < blockEnd; ++i, ++j) {
-				encrypted[i + outputOffset] = (byte) (message[i] ^ block[j]);
+				output[i + outputOffset] = (byte) (message[i + messageOffset] ^ block[j]);
 			}
 		}
+		block = blockCiper.updateBlock(0);
+		int tOffset = outputOffset + lengthM;
+		for (int i = 0; i < numAuthenticationBytes; ++i) {
+			output[i + tOffset] = (byte) (macCipher.block[i] ^ block[i]);
+		}
 
-		return encrypted;
+		return lengthM + numAuthenticationBytes;
 	}
 }
@@ -114,6 +114,19 @@ public class SecretIvParameterSpec implements AlgorithmParameterSpec, Destroyabl
 		writer.writeBytes(iv);
 	}
 
+	/**
+	 * Write iv to byte array.
+	 * 
+	 * @param buffer byte array to write iv to
+	 * @param offset offset within buffer
+	 * @return offset after the written iv
+	 * @since 3.0
+	 */
+	public int writeTo(byte[] buffer, int offset) {
+		System.arraycopy(iv, 0, buffer, offset, iv.length);
+		return offset + iv.length;
+	}
+
 	/**
 	 * Destroy iv material.
 	 */
@@ -316,8 +316,13 @@ public class ConnectorHelper {
 
 	LatchDecrementingRawDataChannel givenAnEstablishedSession(DTLSConnector client, RawData msgToSend,
 			boolean releaseSocket) throws Exception {
+		return givenAnEstablishedSession(client, msgToSend, new LatchDecrementingRawDataChannel(), releaseSocket);
+	}
+
+	LatchDecrementingRawDataChannel givenAnEstablishedSession(DTLSConnector client, RawData msgToSend,
+			LatchDecrementingRawDataChannel clientChannel, boolean releaseSocket) throws Exception {
 
-		LatchDecrementingRawDataChannel clientChannel = new LatchDecrementingRawDataChannel(1);
+		clientChannel.setLatchCount(1);
 		client.setRawDataReceiver(clientChannel);
 		client.start();
 		clientChannel.setAddress(client.getAddress());
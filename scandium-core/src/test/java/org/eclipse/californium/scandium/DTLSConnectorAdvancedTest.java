@@ -71,6 +71,7 @@ import org.eclipse.californium.elements.rule.ThreadsRule;
 import org.eclipse.californium.elements.util.ExecutorsUtil;
 import org.eclipse.californium.elements.util.SerialExecutor;
 import org.eclipse.californium.elements.util.StringUtil;
+import org.eclipse.californium.elements.util.TestCondition;
 import org.eclipse.californium.elements.util.TestConditionTools;
 import org.eclipse.californium.elements.util.TestScheduledExecutorService;
 import org.eclipse.californium.elements.util.TestScope;
@@ -3270,6 +3271,106 @@ public class DTLSConnectorAdvancedTest {
 		}
 	}
 
+	@Test
+	public void testHandshakeExecutorSaturated() throws Exception {
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		AdvancedSinglePskStore blockingPskStore = new AdvancedSinglePskStore(CLIENT_IDENTITY,
+				CLIENT_IDENTITY_SECRET.getBytes()) {
+
+			@Override
+			public PskSecretResult requestPskSecretResult(ConnectionId cid, ServerNames serverName,
+					PskPublicInformation identity, String hmacAlgorithm, SecretKey otherSecret, byte[] seed,
+					boolean useExtendedMasterSecret) {
+				blocked.countDown();
+				try {
+					release.await(MAX_TIME_TO_WAIT_SECS, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+				}
+				return super.requestPskSecretResult(cid, serverName, identity, hmacAlgorithm, otherSecret, seed,
+						useExtendedMasterSecret);
+			}
+		};
+		alternativeServerHelper = new ConnectorHelper(network);
+
+		alternativeServerHelper.serverBuilder
+				.set(DtlsConfig.DTLS_RETRANSMISSION_TIMEOUT, RETRANSMISSION_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+				.set(DtlsConfig.DTLS_MAX_RETRANSMISSIONS, MAX_RETRANSMISSIONS)
+				.set(DtlsConfig.DTLS_USE_HELLO_VERIFY_REQUEST_FOR_PSK, false)
+				.set(DtlsConfig.DTLS_HANDSHAKE_THREAD_COUNT, 1)
+				.set(DtlsConfig.DTLS_MAX_PENDING_HANDSHAKE_JOBS, 1)
+				.setAdvancedPskStore(blockingPskStore)
+				.setConnectionIdGenerator(serverCidGenerator)
+				.setHealthHandler(serverHealth);
+
+		clientConfigBuilder
+				.setAdvancedPskStore(new AdvancedSinglePskStore(CLIENT_IDENTITY, CLIENT_IDENTITY_SECRET.getBytes()))
+				.setSupportedCipherSuites(CipherSuite.TLS_PSK_WITH_AES_128_CCM_8,
+						CipherSuite.TLS_ECDHE_ECDSA_WITH_AES_128_CCM_8);
+		DtlsConnectorConfig clientConfig = clientConfigBuilder.build();
+
+		RecordCollectorDataHandler collector1 = new RecordCollectorDataHandler(clientCidGenerator);
+		UdpConnector rawClient1 = new UdpConnector(0, collector1);
+		RecordCollectorDataHandler collector2 = new RecordCollectorDataHandler(clientCidGenerator);
+		UdpConnector rawClient2 = new UdpConnector(0, collector2);
+		RecordCollectorDataHandler collector3 = new RecordCollectorDataHandler(clientCidGenerator);
+		UdpConnector rawClient3 = new UdpConnector(0, collector3);
+		try {
+			alternativeServerHelper.startServer();
+			final DTLSConnector server = alternativeServerHelper.server;
+			InetSocketAddress serverEndpoint = alternativeServerHelper.serverEndpoint;
+			rawClient1.start();
+			rawClient2.start();
+			rawClient3.start();
+
+			// 1. client blocks the handshake executor
+			ClientHandshaker clientHandshaker1 = new ClientHandshaker(null, new TestRecordLayer(rawClient1, true),
+					timer, createConnection(clientCidGenerator, serverEndpoint), clientConfig, false);
+			clientHandshaker1.startHandshake();
+			List<Record> rs = waitForFlightReceived("flight 4", collector1, 2);
+			LatchSessionListener serverSessionListener = getSessionListenerForEndpoint("server", rawClient1);
+			processAll(clientHandshaker1, rs);
+			assertTrue("handshake executor not blocked", blocked.await(MAX_TIME_TO_WAIT_SECS, TimeUnit.SECONDS));
+
+			// 2. client is queued
+			ClientHandshaker clientHandshaker2 = new ClientHandshaker(null, new TestRecordLayer(rawClient2, true),
+					timer, createConnection(clientCidGenerator, serverEndpoint), clientConfig, false);
+			clientHandshaker2.startHandshake();
+			assertTrue("handshake job not queued", TestConditionTools.waitForCondition(MAX_TIME_TO_WAIT_SECS * 1000,
+					10, TimeUnit.MILLISECONDS, new TestCondition() {
+
+						@Override
+						public boolean isFulFilled() throws IllegalStateException {
+							return server.getPendingHandshakeJobs() == 1;
+						}
+					}));
+
+			// 3. client is verified and then rejected
+			ClientHandshaker clientHandshaker3 = new ClientHandshaker(null, new TestRecordLayer(rawClient3, true),
+					timer, createConnection(clientCidGenerator, serverEndpoint), clientConfig, false);
+			clientHandshaker3.startHandshake();
+			rs = waitForFlightReceived("flight 2", collector3, 1);
+			processAll(clientHandshaker3, rs);
+			assertThat(rs.get(0).getFragment(), is(instanceOf(HelloVerifyRequest.class)));
+			TestConditionTools.assertStatisticCounter(serverHealth, "handshakes rejected", is(1L),
+					MAX_TIME_TO_WAIT_SECS, TimeUnit.SECONDS);
+
+			release.countDown();
+
+			// 1. client continues
+			rs = waitForFlightReceived("flight 6", collector1, 2);
+			processAll(clientHandshaker1, rs);
+			assertTrue("server handshake failed",
+					serverSessionListener.waitForSessionEstablished(MAX_TIME_TO_WAIT_SECS, TimeUnit.SECONDS));
+			TestConditionTools.assertStatisticCounter(serverHealth, "handshake jobs", is(greaterThan(1L)));
+		} finally {
+			release.countDown();
+			rawClient1.stop();
+			rawClient2.stop();
+			rawClient3.stop();
+		}
+	}
+
 	@Test
 	public void testDisabledHelloVerifRequestForPskWithCertificate() throws Exception {
 		alternativeServerHelper = new ConnectorHelper(network);
@@ -55,6 +55,7 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -67,10 +68,14 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.californium.elements.AddressEndpointContext;
 import org.eclipse.californium.elements.RawData;
@@ -88,6 +93,7 @@ import org.eclipse.californium.elements.util.SimpleMessageCallback;
 import org.eclipse.californium.elements.util.TestThreadFactory;
 import org.eclipse.californium.scandium.ConnectorHelper.LatchDecrementingRawDataChannel;
 import org.eclipse.californium.scandium.ConnectorHelper.LatchSessionListener;
+import org.eclipse.californium.scandium.ConnectorHelper.MessageCapturingProcessor;
 import org.eclipse.californium.scandium.ConnectorHelper.RecordCollectorDataHandler;
 import org.eclipse.californium.scandium.ConnectorHelper.AlertCatcher;
 import org.eclipse.californium.scandium.ConnectorHelper.UdpConnector;
@@ -113,6 +119,7 @@ import org.eclipse.californium.scandium.dtls.Handshaker;
 import org.eclipse.californium.scandium.dtls.HelloRequest;
 import org.eclipse.californium.scandium.dtls.HelloVerifyRequest;
 import org.eclipse.californium.scandium.dtls.InMemoryConnectionStore;
+import org.eclipse.californium.scandium.dtls.InMemoryStripedConnectionStore;
 import org.eclipse.californium.scandium.dtls.PSKClientKeyExchange;
 import org.eclipse.californium.scandium.dtls.ProtocolVersion;
 import org.eclipse.californium.scandium.dtls.PskPublicInformation;
@@ -270,6 +277,118 @@ public class DTLSConnectorTest {
 		givenAnEstablishedSession();
 	}
 
+	@Test
+	public void testConnectorProcessesApplicationDataInline() throws Exception {
+		int messages = 50;
+		client.destroy();
+		clientConnectionStore = new InMemoryConnectionStore(CLIENT_CONNECTION_STORE_CAPACITY, 60);
+		clientConnectionStore.setTag("client-inline");
+		clientConfig = newClientConfigBuilder().set(DtlsConfig.DTLS_INLINE_RECORD_PROCESSING, true)
+				.setAddress(clientEndpoint).build();
+		client = serverHelper.createClient(clientConfig, clientConnectionStore);
+		client.setExecutor(executor);
+		serverHelper.serverRawDataChannel.setProcessor(new EchoProcessor());
+
+		RecordingRawDataChannel channel = new RecordingRawDataChannel();
+		RawData raw = RawData.outbound("Hello World".getBytes(),
+				new AddressEndpointContext(serverHelper.serverEndpoint), null, false);
+		clientRawDataChannel = serverHelper.givenAnEstablishedSession(client, raw, channel, false);
+		Connection con = clientConnectionStore.get(serverHelper.serverEndpoint);
+		assertNotNull(con);
+		final SerialExecutor connectionExecutor = con.getExecutor();
+		channel.start(connectionExecutor);
+
+		// WHEN sending messages one by one
+		for (int index = 0; index < 10; ++index) {
+			channel.setLatchCount(1);
+			RawData data = RawData.outbound(("Hello " + index).getBytes(),
+					new AddressEndpointContext(serverHelper.serverEndpoint), null, false);
+			client.send(data);
+			assertTrue(channel.await(MAX_TIME_TO_WAIT_SECS, TimeUnit.SECONDS));
+		}
+
+		// THEN answers are processed by the receiver thread
+		assertThat(channel.getInlineCount(), is(greaterThan(0)));
+		assertThat(channel.getNotOwnedCount(), is(0));
+
+		// WHEN sending messages, while the connection's executor is busy
+		final AtomicBoolean stop = new AtomicBoolean();
+		Thread contention = new Thread("contention") {
+
+			@Override
+			public void run() {
+				Runnable job = new Runnable() {
+
+					@Override
+					public void run() {
+						Thread.yield();
+					}
+				};
+				while (!stop.get()) {
+					connectionExecutor.execute(job);
+					try {
+						Thread.sleep(1);
+					} catch (InterruptedException e) {
+						break;
+					}
+				}
+			}
+		};
+		channel.start(connectionExecutor);
+		contention.start();
+		List<String> expected = new ArrayList<>();
+		try {
+			channel.setLatchCount(messages);
+			for (int index = 0; index < messages; ++index) {
+				String message = "Hello " + index;
+				expected.add(message);
+				RawData data = RawData.outbound(message.getBytes(),
+						new AddressEndpointContext(serverHelper.serverEndpoint), null, false);
+				client.send(data);
+			}
+
+			// THEN all answers are received by the client in order
+			assertTrue(channel.await(MAX_TIME_TO_WAIT_SECS, TimeUnit.SECONDS));
+		} finally {
+			stop.set(true);
+			contention.join(1000);
+		}
+		assertThat(channel.getPayloads(), is(expected));
+		assertThat(channel.getNotOwnedCount(), is(0));
+	}
+
+	@Test
+	public void testConnectorWithStripedConnectionStore() throws Exception {
+		int messages = 10;
+		client.destroy();
+		InMemoryStripedConnectionStore stripedConnectionStore = new InMemoryStripedConnectionStore(
+				CLIENT_CONNECTION_STORE_CAPACITY, 60, 4, null);
+		stripedConnectionStore.setTag("client-striped");
+		client = serverHelper.createClient(newClientConfigBuilder().setAddress(clientEndpoint).build(),
+				stripedConnectionStore);
+		client.setExecutor(executor);
+
+		RawData raw = RawData.outbound("Hello World".getBytes(),
+				new AddressEndpointContext(serverHelper.serverEndpoint), null, false);
+		clientRawDataChannel = serverHelper.givenAnEstablishedSession(client, raw, false);
+		Connection con = stripedConnectionStore.get(serverHelper.serverEndpoint);
+		assertNotNull(con);
+		assertNotNull(con.getEstablishedDtlsContext());
+
+		// WHEN sending messages, each answered by the server
+		clientRawDataChannel.setLatchCount(messages);
+		for (int index = 0; index < messages; ++index) {
+			RawData data = RawData.outbound(("Hello " + index).getBytes(),
+					new AddressEndpointContext(serverHelper.serverEndpoint), null, false);
+			client.send(data);
+		}
+
+		// THEN all answers are received by the client using the same connection
+		assertTrue(clientRawDataChannel.await(MAX_TIME_TO_WAIT_SECS, TimeUnit.SECONDS));
+		assertThat(stripedConnectionStore.get(serverHelper.serverEndpoint), is(con));
+		assertThat(stripedConnectionStore.remainingCapacity(), is(CLIENT_CONNECTION_STORE_CAPACITY - 1));
+	}
+
 	/**
 	 * Verifies that a DTLSConnector terminates its connection with a peer when
 	 * receiving a CLOSE_NOTIFY alert from the peer (bug #478538).
@@ -1342,4 +1461,70 @@ public class DTLSConnectorTest {
 			}
 		}
 	}
+
+	/**
+	 * Processor echoing the payload of the request.
+	 */
+	private static class EchoProcessor extends MessageCapturingProcessor {
+
+		@Override
+		public RawData process(RawData request) {
+			if (super.process(request) == null) {
+				return null;
+			}
+			return RawData.outbound(request.getBytes(), request.getEndpointContext(), null, false);
+		}
+	}
+
+	/**
+	 * Channel recording the received payloads and the threads processing
+	 * them.
+	 */
+	private static class RecordingRawDataChannel extends LatchDecrementingRawDataChannel {
+
+		private final List<String> payloads = new CopyOnWriteArrayList<>();
+		private final AtomicInteger inline = new AtomicInteger();
+		private final AtomicInteger notOwned = new AtomicInteger();
+		private volatile SerialExecutor executor;
+
+		/**
+		 * Start recording.
+		 * 
+		 * @param executor serial executor of the connection. Processing
+		 *            must be owned by this executor.
+		 */
+		private void start(SerialExecutor executor) {
+			this.executor = executor;
+			payloads.clear();
+			inline.set(0);
+			notOwned.set(0);
+		}
+
+		@Override
+		public void receiveData(RawData raw) {
+			SerialExecutor executor = this.executor;
+			if (executor != null) {
+				payloads.add(new String(raw.getBytes()));
+				if (Thread.currentThread().getName().startsWith("DTLS-Receiver-")) {
+					inline.incrementAndGet();
+				}
+				if (!executor.checkOwner()) {
+					notOwned.incrementAndGet();
+				}
+			}
+			super.receiveData(raw);
+		}
+
+		private List<String> getPayloads() {
+			return new ArrayList<>(payloads);
+		}
+
+		private int getInlineCount() {
+			return inline.get();
+		}
+
+		private int getNotOwnedCount() {
+			return notOwned.get();
+		}
+	}
 }
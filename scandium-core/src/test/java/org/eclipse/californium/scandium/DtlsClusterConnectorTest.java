@@ -16,6 +16,9 @@
 package org.eclipse.californium.scandium;
 
 import static org.junit.Assert.assertEquals;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.number.OrderingComparison.lessThan;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -35,6 +38,8 @@ import org.eclipse.californium.elements.rule.TestNameLoggerRule;
 import org.eclipse.californium.elements.rule.ThreadsRule;
 import org.eclipse.californium.elements.util.LeastRecentlyUsedCache.Predicate;
 import org.eclipse.californium.elements.util.SimpleMessageCallback;
+import org.eclipse.californium.elements.util.TestCondition;
+import org.eclipse.californium.elements.util.TestConditionTools;
 import org.eclipse.californium.scandium.ConnectorHelper.LatchDecrementingRawDataChannel;
 import org.eclipse.californium.scandium.ConnectorHelper.MessageCapturingProcessor;
 import org.eclipse.californium.scandium.ConnectorHelper.SimpleRawDataChannel;
@@ -73,6 +78,9 @@ public class DtlsClusterConnectorTest {
 	public TestNameLoggerRule names = new TestNameLoggerRule();
 
 	private static final long DEFAULT_TIMEOUT_MILLIS = 2000;
+	private static final long FORWARD_BATCH_WINDOW_MILLIS = 100;
+	private static final int NODE_ID_1 = 1;
+	private static final int NODE_ID_2 = 2;
 
 	private static InetAddress loopback = InetAddress.getLoopbackAddress();
 	private static InetSocketAddress dtlsAddress1 = new InetSocketAddress(loopback, 15684);
@@ -84,6 +92,7 @@ public class DtlsClusterConnectorTest {
 	private static DtlsClusterConnector connector2;
 	private static MessageCapturingProcessor messages1;
 	private static MessageCapturingProcessor messages2;
+	private static DtlsClusterHealthLogger health2;
 	private static Configuration configuration;
 
 	private DTLSConnector clientConnector;
@@ -93,8 +102,6 @@ public class DtlsClusterConnectorTest {
 	@BeforeClass
 	public static void initServer() throws IOException {
 		final int CID_LENGTH = 6;
-		final int NODE_ID_1 = 1;
-		final int NODE_ID_2 = 2;
 		AdvancedSinglePskStore testPskStore1 = new AdvancedSinglePskStore(ConnectorHelper.CLIENT_IDENTITY,
 				ConnectorHelper.CLIENT_IDENTITY_SECRET.getBytes());
 
@@ -113,12 +120,15 @@ public class DtlsClusterConnectorTest {
 				.build();
 		AdvancedSinglePskStore testPskStore2 = new AdvancedSinglePskStore(ConnectorHelper.CLIENT_IDENTITY,
 				ConnectorHelper.CLIENT_IDENTITY_SECRET.getBytes());
+		health2 = new DtlsClusterHealthLogger("node2");
 		DtlsConnectorConfig config2 = DtlsConnectorConfig.builder(configuration)
 				.setAddress(dtlsAddress2)
 				.setAdvancedPskStore(testPskStore2)
+				.setHealthHandler(health2)
 				.setConnectionIdGenerator(new MultiNodeConnectionIdGenerator(NODE_ID_2, CID_LENGTH)).build();
 		DtlsClusterConnectorConfig clusterConfig2 = DtlsClusterConnectorConfig.builder()
 				.setAddress(mgmtAddress2)
+				.setForwardBatchWindow(FORWARD_BATCH_WINDOW_MILLIS, TimeUnit.MILLISECONDS)
 				.build();
 		DtlsClusterConnector.ClusterNodesProvider nodesProvider = new DtlsClusterConnector.ClusterNodesProvider() {
 
@@ -252,4 +262,68 @@ public class DtlsClusterConnectorTest {
 
 		assertEquals(9, clientConnections.remainingCapacity());
 	}
+
+	/**
+	 * Send first a message to connector 1. Then send a burst of messages to
+	 * connector 2, which are forwarded to connector 1 using coalesced cluster
+	 * internal messages.
+	 * 
+	 * @throws Exception if an error occurred
+	 */
+	@Test
+	public void testForwardBatch() throws Exception {
+		final int count = 10;
+		// send message to connector 1
+		clientChannel.setLatchCount(1);
+
+		SimpleMessageCallback callback = new SimpleMessageCallback();
+		RawData message = RawData.outbound("hello!".getBytes(), new AddressEndpointContext(dtlsAddress1), callback,
+				false);
+		clientConnector.send(message);
+		assertTrue(callback.isSent(DEFAULT_TIMEOUT_MILLIS));
+		assertTrue(clientChannel.await(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+		// adapt the destination address to connector 2
+		Future<Void> result = clientConnector.startForEach(new Predicate<Connection>() {
+
+			@Override
+			public boolean accept(Connection value) {
+				if (value.equalsPeerAddress(dtlsAddress1)) {
+					clientConnections.update(value, dtlsAddress2);
+					return true;
+				} else {
+					return false;
+				}
+			}
+		});
+
+		result.get(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		assertTrue(result.isDone());
+
+		long forwarded = health2.getForwardedMessages(NODE_ID_1);
+		long clusterMessages = health2.getForwardClusterMessages(NODE_ID_1);
+
+		// send burst of messages to connector 2
+		clientChannel.setLatchCount(count);
+		for (int index = 0; index < count; ++index) {
+			RawData burst = RawData.outbound(("hello " + index + "!").getBytes(),
+					new AddressEndpointContext(dtlsAddress2), null, false);
+			clientConnector.send(burst);
+		}
+		assertTrue(clientChannel.await(DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+		// the statistic is updated after sending the cluster message
+		final long expected = forwarded + count;
+		TestConditionTools.waitForCondition(DEFAULT_TIMEOUT_MILLIS, 10, TimeUnit.MILLISECONDS, new TestCondition() {
+
+			@Override
+			public boolean isFulFilled() throws IllegalStateException {
+				return health2.getForwardedMessages(NODE_ID_1) >= expected;
+			}
+		});
+		forwarded = health2.getForwardedMessages(NODE_ID_1) - forwarded;
+		clusterMessages = health2.getForwardClusterMessages(NODE_ID_1) - clusterMessages;
+		assertThat(forwarded, is((long) count));
+		assertThat(clusterMessages, is(lessThan(forwarded)));
+	}
 }
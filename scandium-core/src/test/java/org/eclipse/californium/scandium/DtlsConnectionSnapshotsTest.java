@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.scandium;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.category.Medium;
+import org.eclipse.californium.elements.config.Configuration;
+import org.eclipse.californium.elements.rule.TestTimeRule;
+import org.eclipse.californium.elements.util.ExecutorsUtil;
+import org.eclipse.californium.elements.util.TestSynchroneExecutor;
+import org.eclipse.californium.elements.util.TestThreadFactory;
+import org.eclipse.californium.scandium.config.DtlsConnectorConfig;
+import org.eclipse.californium.scandium.dtls.CertificateType;
+import org.eclipse.californium.scandium.dtls.Connection;
+import org.eclipse.californium.scandium.dtls.ConnectionId;
+import org.eclipse.californium.scandium.dtls.DTLSContext;
+import org.eclipse.californium.scandium.dtls.DTLSContextTest;
+import org.eclipse.californium.scandium.dtls.InMemoryConnectionStore;
+import org.eclipse.californium.scandium.dtls.SessionId;
+import org.eclipse.californium.scandium.dtls.cipher.CipherSuite;
+import org.eclipse.californium.scandium.dtls.pskstore.AdvancedSinglePskStore;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Verifies the incremental snapshots of the connections.
+ */
+@Category(Medium.class)
+public class DtlsConnectionSnapshotsTest {
+
+	@Rule
+	public TestTimeRule time = new TestTimeRule();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final int CAPACITY = 20;
+
+	private File directory;
+	private InMemoryConnectionStore store;
+	private DTLSConnector connector;
+	private List<ConnectionId> connectionIds = new ArrayList<>();
+	private List<SessionId> sessionIds = new ArrayList<>();
+	private int ip;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = folder.newFolder();
+		store = new InMemoryConnectionStore(CAPACITY, 1000);
+		connector = new DTLSConnector(newConfig(), store);
+	}
+
+	@Test
+	public void testSaveFullAndDeltaSnapshots() throws Exception {
+		DtlsConnectionSnapshots snapshots = new DtlsConnectionSnapshots(connector, directory, "test", 2);
+		addConnections(3);
+		assertThat(snapshots.save(), is(3));
+		time.addTestTimeShift(10, TimeUnit.MILLISECONDS);
+		addConnections(2);
+		assertThat(snapshots.save(), is(2));
+		time.addTestTimeShift(10, TimeUnit.MILLISECONDS);
+		assertThat(snapshots.save(), is(0));
+		assertThat(directory.listFiles().length, is(3));
+		// maximum delta snapshots reached, full snapshot
+		assertThat(snapshots.save(), is(5));
+		assertThat(directory.listFiles().length, is(1));
+	}
+
+	@Test
+	public void testLoadSnapshots() throws Exception {
+		DtlsConnectionSnapshots snapshots = new DtlsConnectionSnapshots(connector, directory, "test", 2);
+		addConnections(3);
+		snapshots.save();
+		time.addTestTimeShift(10, TimeUnit.MILLISECONDS);
+		addConnections(2);
+		snapshots.save();
+
+		InMemoryConnectionStore store2 = new InMemoryConnectionStore(CAPACITY, 1000);
+		DTLSConnector connector2 = new DTLSConnector(newConfig(), store2);
+		DtlsConnectionSnapshots snapshots2 = new DtlsConnectionSnapshots(connector2, directory, "test", 2);
+		Future<Integer> load = snapshots2.startLoad();
+		assertThat(load.get(5, TimeUnit.SECONDS), is(5));
+		for (int index = 0; index < connectionIds.size(); ++index) {
+			Connection connection = store2.get(connectionIds.get(index));
+			assertThat(connection, is(notNullValue()));
+			assertThat(connection.getEstablishedSessionIdentifier(), is(sessionIds.get(index)));
+			// saved while running, the sequence numbers may be stale
+			assertThat(connection.isResumptionRequired(), is(true));
+		}
+		// after loading, the next snapshot is a full one
+		assertThat(snapshots2.save(), is(5));
+		assertThat(directory.listFiles().length, is(1));
+	}
+
+	@Test
+	public void testLoadFinalSnapshot() throws Exception {
+		DtlsConnectionSnapshots snapshots = new DtlsConnectionSnapshots(connector, directory, "test", 2);
+		addConnections(3);
+		snapshots.save();
+		time.addTestTimeShift(10, TimeUnit.MILLISECONDS);
+		addConnections(2);
+		// consumes a sequence number of each connection
+		List<Long> sequenceNumbers = new ArrayList<>();
+		for (ConnectionId cid : connectionIds) {
+			sequenceNumbers.add(store.get(cid).getEstablishedDtlsContext().getNextSequenceNumber());
+		}
+		assertThat(snapshots.saveFinal(), is(5));
+		// final full snapshot and mark
+		assertThat(directory.listFiles().length, is(2));
+
+		InMemoryConnectionStore store2 = new InMemoryConnectionStore(CAPACITY, 1000);
+		DTLSConnector connector2 = new DTLSConnector(newConfig(), store2);
+		DtlsConnectionSnapshots snapshots2 = new DtlsConnectionSnapshots(connector2, directory, "test", 2);
+		assertThat(snapshots2.load(), is(5));
+		for (int index = 0; index < connectionIds.size(); ++index) {
+			Connection connection = store2.get(connectionIds.get(index));
+			assertThat(connection, is(notNullValue()));
+			assertThat(connection.isResumptionRequired(), is(false));
+			DTLSContext context = connection.getEstablishedDtlsContext();
+			assertThat(context.getNextSequenceNumber(), is(sequenceNumbers.get(index) + 1));
+		}
+		// the mark is deleted on load, loading again requires resumption
+		assertThat(directory.listFiles().length, is(1));
+		InMemoryConnectionStore store3 = new InMemoryConnectionStore(CAPACITY, 1000);
+		DTLSConnector connector3 = new DTLSConnector(newConfig(), store3);
+		DtlsConnectionSnapshots snapshots3 = new DtlsConnectionSnapshots(connector3, directory, "test", 2);
+		assertThat(snapshots3.load(), is(5));
+		for (ConnectionId cid : connectionIds) {
+			assertThat(store3.get(cid).isResumptionRequired(), is(true));
+		}
+	}
+
+	@Test
+	public void testLoadSkipsConnectionsInUse() throws Exception {
+		DtlsConnectionSnapshots snapshots = new DtlsConnectionSnapshots(connector, directory, "test", 2);
+		addConnections(3);
+		snapshots.save();
+
+		InMemoryConnectionStore store2 = new InMemoryConnectionStore(CAPACITY, 1000);
+		DTLSConnector connector2 = new DTLSConnector(newConfig(), store2);
+		DtlsConnectionSnapshots snapshots2 = new DtlsConnectionSnapshots(connector2, directory, "test", 2);
+		assertThat(snapshots2.load(), is(3));
+		Connection inUse = store2.get(connectionIds.get(0));
+		inUse.setConnectorContext(TestSynchroneExecutor.TEST_EXECUTOR, null);
+		Connection notInUse = store2.get(connectionIds.get(1));
+
+		assertThat(snapshots2.load(), is(2));
+		assertTrue(store2.get(connectionIds.get(0)) == inUse);
+		assertTrue(store2.get(connectionIds.get(1)) != notInUse);
+	}
+
+	@Test
+	public void testLoadSkipsRemovedConnections() throws Exception {
+		DtlsConnectionSnapshots snapshots = new DtlsConnectionSnapshots(connector, directory, "test", 2);
+		addConnections(3);
+		assertThat(snapshots.save(), is(3));
+		ConnectionId removed = connectionIds.remove(1);
+		store.remove(store.get(removed), false);
+		time.addTestTimeShift(10, TimeUnit.MILLISECONDS);
+		addConnections(1);
+		assertThat(snapshots.save(), is(1));
+
+		InMemoryConnectionStore store2 = new InMemoryConnectionStore(CAPACITY, 1000);
+		DTLSConnector connector2 = new DTLSConnector(newConfig(), store2);
+		DtlsConnectionSnapshots snapshots2 = new DtlsConnectionSnapshots(connector2, directory, "test", 2);
+		assertThat(snapshots2.load(), is(3));
+		assertThat(store2.get(removed), is(nullValue()));
+		for (ConnectionId cid : connectionIds) {
+			assertThat(store2.get(cid), is(notNullValue()));
+		}
+	}
+
+	@Test
+	public void testSaveAndStopDuringSlowLoad() throws Exception {
+		DtlsConnectionSnapshots snapshots = new DtlsConnectionSnapshots(connector, directory, "test", 2);
+		addConnections(3);
+		snapshots.save();
+
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		InMemoryConnectionStore store2 = new InMemoryConnectionStore(CAPACITY, 1000);
+		DTLSConnector connector2 = new DTLSConnector(newConfig(), store2) {
+
+			@Override
+			public int loadConnectionsIncremental(InputStream in, long delta, boolean resumptionRequired,
+					Set<ConnectionId> connectionIds) throws IOException {
+				loading.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.loadConnectionsIncremental(in, delta, resumptionRequired, connectionIds);
+			}
+		};
+		final DtlsConnectionSnapshots snapshots2 = new DtlsConnectionSnapshots(connector2, directory, "test", 2);
+		ScheduledExecutorService executor = ExecutorsUtil
+				.newSingleThreadScheduledExecutor(new TestThreadFactory("snapshots-"));
+		try {
+			snapshots2.start(executor, 1, TimeUnit.HOURS);
+			Future<Integer> load = snapshots2.startLoad();
+			assertTrue(loading.await(5, TimeUnit.SECONDS));
+			assertThat(snapshots2.isLoading(), is(true));
+
+			// WHEN saving and stopping during loading
+			Future<Integer> save = executor.submit(new Callable<Integer>() {
+
+				@Override
+				public Integer call() throws Exception {
+					int count = snapshots2.save();
+					snapshots2.stop();
+					return count;
+				}
+			});
+
+			// THEN save is skipped and stop is not blocked
+			assertThat(save.get(1, TimeUnit.SECONDS), is(0));
+			try {
+				snapshots2.saveFinal();
+				fail("saveFinal must fail while loading!");
+			} catch (IllegalStateException ex) {
+				// expected
+			}
+			release.countDown();
+			assertThat(load.get(5, TimeUnit.SECONDS), is(3));
+			assertThat(snapshots2.isLoading(), is(false));
+		} finally {
+			release.countDown();
+			ExecutorsUtil.shutdownExecutorGracefully(100, executor);
+		}
+		// after loading, the next snapshot is a full one
+		assertThat(snapshots2.save(), is(3));
+		assertThat(directory.listFiles().length, is(1));
+	}
+
+	private void addConnections(int count) throws Exception {
+		for (int index = 0; index < count; ++index) {
+			InetAddress address = InetAddress.getByAddress(new byte[] { 10, 0, 0, (byte) ++ip });
+			Connection connection = new Connection(new InetSocketAddress(address, 5684))
+					.setConnectorContext(TestSynchroneExecutor.TEST_EXECUTOR, null);
+			DTLSContext dtlsContext = DTLSContextTest.newEstablishedServerDtlsContext(
+					CipherSuite.TLS_ECDHE_ECDSA_WITH_AES_128_CCM_8, CertificateType.RAW_PUBLIC_KEY);
+			connection.getSessionListener().contextEstablished(null, dtlsContext);
+			assertTrue(store.put(connection));
+			connectionIds.add(connection.getConnectionId());
+			sessionIds.add(connection.getEstablishedSessionIdentifier());
+		}
+	}
+
+	private static DtlsConnectorConfig newConfig() {
+		return DtlsConnectorConfig.builder(new Configuration())
+				.setAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+				.setAdvancedPskStore(new AdvancedSinglePskStore("client", "secret".getBytes())).build();
+	}
+}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.scandium.dtls;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.californium.elements.category.Medium;
+import org.eclipse.californium.elements.rule.TestTimeRule;
+import org.eclipse.californium.elements.rule.ThreadsRule;
+import org.eclipse.californium.elements.util.TestSynchroneExecutor;
+import org.eclipse.californium.scandium.dtls.cipher.CipherSuite;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(Medium.class)
+public class InMemoryStripedConnectionStoreTest {
+
+	@Rule
+	public ThreadsRule cleanup = new ThreadsRule();
+	@Rule
+	public TestTimeRule time = new TestTimeRule();
+
+	private static final int CAPACITY = 10;
+	private static final int STRIPES = 4;
+	InMemoryStripedConnectionStore store;
+	Connection con;
+	SessionId sessionId;
+
+	@Before
+	public void setUp() throws Exception {
+		store = new InMemoryStripedConnectionStore(CAPACITY, 1000, STRIPES, null);
+		store.attach(null);
+		con = newConnection(50L);
+		sessionId = con.getEstablishedSession().getSessionIdentifier();
+	}
+
+	@Test
+	public void testStripesLimitedByCapacity() {
+		store = new InMemoryStripedConnectionStore(2, 1000, STRIPES, null);
+		assertThat(store.getStripes(), is(2));
+		assertThat(store.remainingCapacity(), is(2));
+	}
+
+	@Test
+	public void testStripedLocks() throws Exception {
+		Connection con1 = newConnection(51L);
+		InetSocketAddress addr1 = con1.getPeerAddress();
+		assertTrue(store.put(con1));
+		ConnectionId cid1 = con1.getConnectionId();
+		InetSocketAddress sameAddr1 = new InetSocketAddress(addr1.getAddress(), addr1.getPort());
+		assertThat(store.getAddressLock(addr1), is(store.getAddressLock(sameAddr1)));
+		ConnectionId sameCid1 = new ConnectionId(cid1.getBytes());
+		assertThat(store.getConnectionIdLock(cid1), is(store.getConnectionIdLock(sameCid1)));
+		assertThat(store.getAddressLock(addr1), is(not(store.getConnectionIdLock(cid1))));
+		assertThat(store.getAddressLock(addr1), is(not((Object) store)));
+	}
+
+	@Test
+	public void testPutAddsConnection() {
+		assertThat(store.remainingCapacity(), is(CAPACITY));
+		assertTrue(store.put(con));
+		assertThat(store.remainingCapacity(), is(CAPACITY - 1));
+		assertThat(store.get(con.getConnectionId()), is(con));
+		assertThat(store.get(con.getPeerAddress()), is(con));
+		assertThat(store.find(sessionId), is(con.getEstablishedSession()));
+	}
+
+	@Test
+	public void testPutSameAddressAddsConnection() throws Exception {
+		Connection con1 = newConnection(51L);
+		InetSocketAddress addr1 = con1.getPeerAddress();
+		assertTrue(store.put(con1));
+		Connection con2 = newConnection(51L);
+		assertTrue(store.put(con2));
+
+		assertThat(store.remainingCapacity(), is(CAPACITY - 2));
+		assertThat(con1.getConnectionId(), is(not(con2.getConnectionId())));
+		assertThat(store.get(con1.getConnectionId()), is(con1));
+		assertThat(store.get(con2.getConnectionId()), is(con2));
+		assertThat(con1.getPeerAddress(), is(nullValue()));
+		assertThat(store.get(addr1), is(con2));
+	}
+
+	@Test
+	public void testUpdateAddress() throws Exception {
+		Connection con1 = newConnection(51L);
+		InetSocketAddress addr1 = con1.getPeerAddress();
+		assertTrue(store.put(con1));
+		Connection con2 = newConnection(52L);
+		InetSocketAddress addr2 = con2.getPeerAddress();
+		assertTrue(store.put(con2));
+
+		assertTrue(store.update(con2, addr1));
+		assertThat(con1.getPeerAddress(), is(nullValue()));
+		assertThat(store.get(addr1), is(con2));
+
+		assertTrue(store.update(con1, addr2));
+		assertThat(con1.getPeerAddress(), is(addr2));
+		assertThat(store.get(addr2), is(con1));
+	}
+
+	@Test
+	public void testRemoveConnection() throws Exception {
+		InetSocketAddress address = con.getPeerAddress();
+		assertTrue(store.put(con));
+		assertTrue(store.remove(con, true));
+		assertThat(con.getExecutor().isShutdown(), is(true));
+		assertThat(con.getPeerAddress(), is(nullValue()));
+		assertThat(store.get(con.getConnectionId()), is(nullValue()));
+		assertThat(store.get(address), is(nullValue()));
+		assertThat(store.find(sessionId), is(nullValue()));
+		assertThat(store.remainingCapacity(), is(CAPACITY));
+	}
+
+	@Test
+	public void testFullStoreEvictsStaleConnection() throws Exception {
+		List<Connection> connections = new ArrayList<>();
+		int index = 0;
+		while (store.remainingCapacity() > 0) {
+			Connection connection = newConnection(100L + index++);
+			if (store.put(connection)) {
+				connections.add(connection);
+			}
+		}
+		assertThat(connections.size(), is(CAPACITY));
+		Connection connection = newConnection(200L);
+		assertThat(store.put(connection), is(false));
+
+		time.addTestTimeShift(1001, TimeUnit.SECONDS);
+		assertThat(store.put(connection), is(true));
+		assertThat(store.get(connection.getConnectionId()), is(connection));
+		assertThat(store.remainingCapacity(), is(0));
+		int evicted = 0;
+		for (Connection stale : connections) {
+			if (store.get(stale.getConnectionId()) == null) {
+				assertThat(stale.getPeerAddress(), is(nullValue()));
+				++evicted;
+			}
+		}
+		assertThat(evicted, is(1));
+	}
+
+	@Test
+	public void testIteratorCoversAllStripes() throws Exception {
+		for (int index = 0; index < CAPACITY; ++index) {
+			store.put(newConnection(100L + index));
+		}
+		int count = 0;
+		Iterator<Connection> iterator = store.iterator();
+		while (iterator.hasNext()) {
+			assertThat(iterator.next(), is(notNullValue()));
+			++count;
+		}
+		assertThat(count, is(CAPACITY - store.remainingCapacity()));
+	}
+
+	@Test
+	public void testSaveAndLoadConnections() throws Exception {
+		assertTrue(store.put(con));
+		Connection con2 = newConnection(51L);
+		assertTrue(store.put(con2));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int saveCount = store.saveConnections(out, 1000);
+		assertThat(saveCount, is(2));
+		assertThat(store.remainingCapacity(), is(CAPACITY));
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		int loadCount = store.loadConnections(in, 0L);
+		assertThat(loadCount, is(2));
+		Connection conLoaded = store.get(con.getConnectionId());
+		assertThat(conLoaded, is(con));
+		assertThat(conLoaded.getEstablishedSession(), is(con.getEstablishedSession()));
+		Connection conLoaded2 = store.get(con2.getConnectionId());
+		assertThat(conLoaded2, is(con2));
+		assertThat(store.get(con2.getPeerAddress()), is(conLoaded2));
+	}
+
+	@Test
+	public void testConcurrentPutAndGet() throws Exception {
+		final int threads = 4;
+		final int connectionsPerThread = 200;
+		// capacity is applied per stripe, leave room for uneven distribution
+		store = new InMemoryStripedConnectionStore(threads * connectionsPerThread * 2, 1000, STRIPES, null);
+		store.attach(null);
+		final CountDownLatch ready = new CountDownLatch(threads);
+		final AtomicInteger failures = new AtomicInteger();
+		for (int thread = 0; thread < threads; ++thread) {
+			final int base = 1000 + thread * connectionsPerThread;
+			new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						for (int index = 0; index < connectionsPerThread; ++index) {
+							Connection connection = newConnection(base + index);
+							if (!store.put(connection) || store.get(connection.getConnectionId()) != connection
+									|| store.get(connection.getPeerAddress()) != connection
+									|| !store.update(connection, null)) {
+								failures.incrementAndGet();
+							}
+						}
+					} catch (Exception e) {
+						failures.incrementAndGet();
+					} finally {
+						ready.countDown();
+					}
+				}
+			}).start();
+		}
+		assertTrue(ready.await(10, TimeUnit.SECONDS));
+		assertThat(failures.get(), is(0));
+	}
+
+	private static Connection newConnection(long ip) throws HandshakeException, UnknownHostException {
+		InetAddress addr = InetAddress.getByAddress(longToIp(ip));
+		InetSocketAddress peerAddress = new InetSocketAddress(addr, 0);
+		Connection con = new Connection(peerAddress).setConnectorContext(TestSynchroneExecutor.TEST_EXECUTOR, null);
+		DTLSContext dtlsContext = DTLSContextTest.newEstablishedServerDtlsContext(
+				CipherSuite.TLS_ECDHE_ECDSA_WITH_AES_128_CCM_8, CertificateType.RAW_PUBLIC_KEY);
+		con.getSessionListener().contextEstablished(null, dtlsContext);
+		return con;
+	}
+
+	private static byte[] longToIp(long ip) {
+		byte[] result = new byte[4];
+		result[0] = 10;
+		for (int i = 3; i >= 1; i--) {
+			result[i] = (byte) (ip & 0xff);
+			ip >>= 8;
+		}
+		return result;
+	}
+}
@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Contributors to the Eclipse Foundation.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ ******************************************************************************/
+package org.eclipse.californium.scandium.dtls;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.elements.category.Medium;
+import org.eclipse.californium.elements.rule.TestTimeRule;
+import org.eclipse.californium.elements.rule.ThreadsRule;
+import org.eclipse.californium.elements.util.TestSynchroneExecutor;
+import org.eclipse.californium.scandium.dtls.cipher.CipherSuite;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(Medium.class)
+public class OffHeapConnectionStoreTest {
+
+	@Rule
+	public ThreadsRule cleanup = new ThreadsRule();
+	@Rule
+	public TestTimeRule time = new TestTimeRule();
+
+	private static final int CAPACITY = 10;
+	private static final int OFF_HEAP_CAPACITY = 20;
+	OffHeapConnectionStore store;
+	List<Connection> connections;
+	List<SessionId> sessionIds;
+
+	@Before
+	public void setUp() throws Exception {
+		store = new OffHeapConnectionStore(CAPACITY, 1000, OFF_HEAP_CAPACITY, null);
+		store.attach(null);
+		connections = new ArrayList<>();
+		sessionIds = new ArrayList<>();
+	}
+
+	@Test
+	public void testRemainingCapacityIncludesOffHeap() throws Exception {
+		assertThat(store.remainingCapacity(), is(CAPACITY + OFF_HEAP_CAPACITY));
+		fill(CAPACITY + 1);
+		assertThat(store.remainingCapacity(), is(CAPACITY + OFF_HEAP_CAPACITY - CAPACITY - 1));
+	}
+
+	@Test
+	public void testPutMovesEldestConnectionOffHeap() throws Exception {
+		fill(CAPACITY + 1);
+		assertThat(store.offHeapSize(), is(1));
+		Connection eldest = connections.get(0);
+		assertThat(eldest.getExecutor().isShutdown(), is(true));
+		for (Connection connection : connections.subList(1, connections.size())) {
+			assertThat(store.get(connection.getConnectionId()), is(connection));
+		}
+	}
+
+	@Test
+	public void testGetByConnectionIdLoadsConnection() throws Exception {
+		fill(CAPACITY + 1);
+		Connection eldest = connections.get(0);
+		Connection loaded = store.get(eldest.getConnectionId());
+		assertThat(loaded, is(notNullValue()));
+		assertThat(loaded.getConnectionId(), is(eldest.getConnectionId()));
+		assertThat(loaded.getEstablishedSessionIdentifier(), is(sessionIds.get(0)));
+		assertThat(loaded.isExecuting(), is(false));
+		assertThat(store.offHeapSize(), is(1));
+		assertThat(store.get(connections.get(1).getConnectionId()), is(notNullValue()));
+	}
+
+	@Test
+	public void testGetByAddressLoadsConnection() throws Exception {
+		InetSocketAddress address = fill(CAPACITY + 1).get(0);
+		Connection loaded = store.get(address);
+		assertThat(loaded, is(notNullValue()));
+		assertThat(loaded.getConnectionId(), is(connections.get(0).getConnectionId()));
+		assertThat(loaded.getPeerAddress(), is(address));
+	}
+
+	@Test
+	public void testFindLoadsConnection() throws Exception {
+		fill(CAPACITY + 1);
+		Connection eldest = connections.get(0);
+		SessionId sessionId = sessionIds.get(0);
+		DTLSSession session = store.find(sessionId);
+		assertThat(session, is(notNullValue()));
+		assertThat(session.getSessionIdentifier(), is(sessionId));
+		Connection loaded = store.get(eldest.getConnectionId());
+		assertThat(loaded.getEstablishedSessionIdentifier(), is(sessionId));
+		assertThat(store.offHeapSize(), is(1));
+	}
+
+	@Test
+	public void testPutSameAddressRemovesOffHeapAddress() throws Exception {
+		InetSocketAddress address = fill(CAPACITY + 1).get(0);
+		Connection connection = newConnection(100L);
+		assertThat(connection.getPeerAddress(), is(address));
+		assertTrue(store.put(connection));
+		assertThat(store.get(address), is(connection));
+		Connection loaded = store.get(connections.get(0).getConnectionId());
+		assertThat(loaded, is(notNullValue()));
+		assertThat(loaded.getPeerAddress(), is(nullValue()));
+		assertThat(store.get(address), is(connection));
+	}
+
+	@Test
+	public void testMarkAllAsResumptionRequiredAppliesToOffHeap() throws Exception {
+		fill(CAPACITY + 1);
+		store.markAllAsResumptionRequired();
+		Connection loaded = store.get(connections.get(0).getConnectionId());
+		assertThat(loaded.isResumptionRequired(), is(true));
+	}
+
+	@Test
+	public void testOffHeapExhausted() throws Exception {
+		fill(CAPACITY + OFF_HEAP_CAPACITY);
+		assertThat(store.remainingCapacity(), is(0));
+		Connection connection = newConnection(200L);
+		assertThat(store.put(connection), is(false));
+
+		time.addTestTimeShift(1001, TimeUnit.SECONDS);
+		assertThat(store.put(connection), is(true));
+		assertThat(store.get(connection.getConnectionId()), is(connection));
+		assertThat(store.get(connections.get(0).getConnectionId()), is(nullValue()));
+	}
+
+	@Test
+	public void testSaveAndLoadConnections() throws Exception {
+		fill(CAPACITY + 2);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int saveCount = store.saveConnections(out, 1000);
+		assertThat(saveCount, is(CAPACITY + 2));
+		assertThat(store.offHeapSize(), is(0));
+		assertThat(store.remainingCapacity(), is(CAPACITY + OFF_HEAP_CAPACITY));
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		int loadCount = store.loadConnections(in, 0L);
+		assertThat(loadCount, is(CAPACITY + 2));
+		assertThat(store.offHeapSize(), is(not(0)));
+		for (int index = 0; index < connections.size(); ++index) {
+			Connection loaded = store.get(connections.get(index).getConnectionId());
+			assertThat(loaded, is(notNullValue()));
+			assertThat(loaded.getEstablishedSessionIdentifier(), is(sessionIds.get(index)));
+		}
+	}
+
+	@Test
+	public void testIteratorLoadsOffHeapConnections() throws Exception {
+		fill(CAPACITY + 2);
+		assertThat(store.offHeapSize(), is(2));
+		Set<ConnectionId> onHeap = new HashSet<>();
+		Iterator<Connection> iterator = store.onHeapIterator();
+		while (iterator.hasNext()) {
+			onHeap.add(iterator.next().getConnectionId());
+		}
+		assertThat(onHeap.size(), is(CAPACITY));
+		Set<ConnectionId> all = new HashSet<>();
+		iterator = store.iterator();
+		while (iterator.hasNext()) {
+			all.add(iterator.next().getConnectionId());
+		}
+		assertThat(all.size(), is(CAPACITY + 2));
+		for (Connection connection : connections) {
+			assertTrue(all.contains(connection.getConnectionId()));
+		}
+	}
+
+	@Test
+	public void testConcurrentGetLoadsConnectionOnce() throws Exception {
+		fill(CAPACITY + 1);
+		final ConnectionId cid = connections.get(0).getConnectionId();
+		final Connection[] loaded = new Connection[4];
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int index = 0; index < loaded.length; ++index) {
+			final int loadIndex = index;
+			Thread thread = new Thread("load-" + index) {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+						loaded[loadIndex] = store.get(cid);
+					} catch (InterruptedException e) {
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (Connection connection : loaded) {
+			assertThat(connection, is(notNullValue()));
+			assertThat(connection, is(loaded[0]));
+		}
+		assertThat(store.offHeapSize(), is(1));
+	}
+
+	@Test
+	public void testSlotReusedAfterLoad() throws Exception {
+		fill(CAPACITY + 1);
+		for (int round = 0; round < 3; ++round) {
+			for (Connection connection : connections) {
+				Connection loaded = store.get(connection.getConnectionId());
+				assertThat(loaded, is(notNullValue()));
+				assertThat(loaded.getConnectionId(), is(connection.getConnectionId()));
+			}
+		}
+		store.clear();
+		assertThat(store.offHeapSize(), is(0));
+		assertThat(store.get(connections.get(0).getConnectionId()), is(nullValue()));
+	}
+
+	private List<InetSocketAddress> fill(int count) throws Exception {
+		List<InetSocketAddress> addresses = new ArrayList<>();
+		for (int index = 0; index < count; ++index) {
+			Connection connection = newConnection(100L + index);
+			addresses.add(connection.getPeerAddress());
+			sessionIds.add(connection.getEstablishedSessionIdentifier());
+			assertTrue(store.put(connection));
+			connections.add(connection);
+			time.addTestTimeShift(1, TimeUnit.MILLISECONDS);
+		}
+		return addresses;
+	}
+
+	private static Connection newConnection(long ip) throws HandshakeException, UnknownHostException {
+		InetAddress addr = InetAddress.getByAddress(longToIp(ip));
+		InetSocketAddress peerAddress = new InetSocketAddress(addr, 0);
+		Connection con = new Connection(peerAddress).setConnectorContext(TestSynchroneExecutor.TEST_EXECUTOR, null);
+		DTLSContext dtlsContext = DTLSContextTest.newEstablishedServerDtlsContext(
+				CipherSuite.TLS_ECDHE_ECDSA_WITH_AES_128_CCM_8, CertificateType.RAW_PUBLIC_KEY);
+		con.getSessionListener().contextEstablished(null, dtlsContext);
+		return con;
+	}
+
+	private static byte[] longToIp(long ip) {
+		byte[] result = new byte[4];
+		result[0] = 10;
+		for (int i = 3; i >= 1; i--) {
+			result[i] = (byte) (ip & 0xff);
+			ip >>= 8;
+		}
+		return result;
+	}
+}
@@ -20,6 +20,7 @@
 package org.eclipse.californium.scandium.dtls;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.security.GeneralSecurityException;
@@ -34,6 +35,7 @@ import org.eclipse.californium.elements.util.Bytes;
 import org.eclipse.californium.elements.util.ClockUtil;
 import org.eclipse.californium.scandium.dtls.cipher.CCMBlockCipher;
 import org.eclipse.californium.scandium.dtls.cipher.CipherSuite;
+import org.eclipse.californium.scandium.dtls.cipher.InvalidMacException;
 import org.eclipse.californium.scandium.util.SecretIvParameterSpec;
 import org.eclipse.californium.scandium.util.SecretUtil;
 import org.junit.Assert;
@@ -152,6 +154,23 @@ public class RecordTest {
 		assertTrue(Arrays.equals(decryptedData, payloadData));
 	}
 
+	@Test
+	public void testDecryptAEADWithInvalidMacOverwritesFragment() throws Exception {
+
+		byte[] fragment = newGenericAEADCipherFragment();
+		// modify the MAC
+		fragment[fragment.length - 1] ^= 0x55;
+		Record record = new Record(ContentType.APPLICATION_DATA, protocolVer, EPOCH, SEQUENCE_NO, null, fragment, ClockUtil.nanoRealtime(), false);
+		assertFalse(record.isFragmentBytesOverwritten());
+		try {
+			record.decodeFragment(context.getReadState());
+			Assert.fail("decodeFragment() should have detected invalid MAC");
+		} catch (InvalidMacException e) {
+			// all is well
+		}
+		assertTrue(record.isFragmentBytesOverwritten());
+	}
+
 	byte[] newGenericAEADCipherFragment() throws GeneralSecurityException {
 		// 64bit sequence number, consisting of 16bit epoch (0) + 48bit sequence number (5)
 		byte[] seq_num = new byte[]{0x00, (byte) EPOCH, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) SEQUENCE_NO};
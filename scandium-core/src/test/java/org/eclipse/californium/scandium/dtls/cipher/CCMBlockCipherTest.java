@@ -15,7 +15,10 @@
  ******************************************************************************/
 package org.eclipse.californium.scandium.dtls.cipher;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 
 import java.util.ArrayList;
@@ -198,6 +201,44 @@ public class CCMBlockCipherTest {
 		CCMBlockCipher.decrypt(new SecretKeySpec(aesKey2, "AES"), nonce, aesKey2, encryptedData, 8);
 	}
 
+	@Test
+	public void testInPlaceCryption() throws Exception {
+		int offset = 8;
+		byte[] encryptedData = CCMBlockCipher.encrypt(offset, aesKey, nonce, additionalData, payloadData, 8);
+		byte[] buffer = new byte[offset + payloadLength + 8];
+		System.arraycopy(payloadData, 0, buffer, offset, payloadLength);
+		int length = CCMBlockCipher.encrypt(aesKey, nonce, additionalData, buffer, offset, payloadLength, buffer,
+				offset, 8);
+		assertEquals(payloadLength + 8, length);
+		assertArrayEquals(Arrays.copyOfRange(encryptedData, offset, encryptedData.length),
+				Arrays.copyOfRange(buffer, offset, buffer.length));
+
+		length = CCMBlockCipher.decrypt(aesKey, nonce, additionalData, buffer, offset, length, buffer, 0, 8);
+		assertEquals(payloadLength, length);
+		assertArrayEquals(payloadData, Arrays.copyOf(buffer, length));
+	}
+
+	@Test
+	public void testInPlaceDecryptionFailureClearsOutput() throws Exception {
+		assumeTrue("requires payload", payloadLength > 0);
+		byte[] encryptedData = CCMBlockCipher.encrypt(aesKey, nonce, additionalData, payloadData, 8);
+		encryptedData[encryptedData.length - 1] ^= 0x55;
+		try {
+			CCMBlockCipher.decrypt(aesKey, nonce, additionalData, encryptedData, 0, encryptedData.length,
+					encryptedData, 0, 8);
+			fail("missing InvalidMacException");
+		} catch (InvalidMacException ex) {
+			assertArrayEquals(new byte[payloadLength], Arrays.copyOf(encryptedData, payloadLength));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInPlaceDecryptionWithLargerOutputOffset() throws Exception {
+		byte[] encryptedData = CCMBlockCipher.encrypt(aesKey, nonce, additionalData, payloadData, 8);
+		CCMBlockCipher.decrypt(aesKey, nonce, additionalData, encryptedData, 0, encryptedData.length, encryptedData,
+				1, 8);
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testTooShortNonce() throws Exception {
 		nonce = Arrays.copyOf(nonce, 6);